@@ -6,6 +6,7 @@ import com.qualcomm.robotcore.util.ElapsedTime;
 import org.firstinspires.ftc.robotcore.external.Telemetry;
 import org.mercurialftc.mercurialftc.scheduler.subsystems.SubsystemInterface;
 import org.mercurialftc.mercurialftc.scheduler.bindings.gamepadex.GamepadEX;
+import org.mercurialftc.mercurialftc.util.hardware.BulkReadSnapshot;
 
 import java.util.List;
 
@@ -21,6 +22,8 @@ public abstract class OpModeEX extends OpMode {
 
 	private ElapsedTime elapsedTime;
 
+	private BulkReadSnapshot bulkReadSnapshot;
+
 	public OpModeEX() {
 		scheduler = Scheduler.freshInstance();
 	}
@@ -45,6 +48,15 @@ public abstract class OpModeEX extends OpMode {
 		return elapsedTime;
 	}
 
+	/**
+	 * encoders registered with this snapshot are all read once per loop, with a single shared timestamp, directly after the bulk caches are cleared
+	 *
+	 * @return the bulk read snapshot for this OpModeEX
+	 */
+	public final BulkReadSnapshot getBulkReadSnapshot() {
+		return bulkReadSnapshot;
+	}
+
 	/**
 	 * called before {@link #initEX()}, solely for initialising all subsystems, ensures that they are registered with the correct {@link Scheduler}, and that their init methods will be run
 	 */
@@ -80,6 +92,7 @@ public abstract class OpModeEX extends OpMode {
 		gamepadEX1 = new GamepadEX(gamepad1);
 		gamepadEX2 = new GamepadEX(gamepad2);
 		elapsedTime = new ElapsedTime();
+		bulkReadSnapshot = new BulkReadSnapshot();
 
 		allHubs = hardwareMap.getAll(LynxModule.class);
 		for (LynxModule module : allHubs) {
@@ -127,6 +140,7 @@ public abstract class OpModeEX extends OpMode {
 		for (LynxModule module : allHubs) {
 			module.clearBulkCache();
 		}
+		bulkReadSnapshot.capture();
 		scheduler.preLoopUpdateBindings();
 		scheduler.pollSubsystemsPeriodic();
 		scheduler.pollTriggers();
@@ -159,6 +173,7 @@ public abstract class OpModeEX extends OpMode {
 		for (LynxModule module : allHubs) {
 			module.clearBulkCache();
 		}
+		bulkReadSnapshot.capture();
 		scheduler.preLoopUpdateBindings();
 		scheduler.pollSubsystemsPeriodic();
 		scheduler.pollTriggers();
@@ -179,6 +194,7 @@ public abstract class OpModeEX extends OpMode {
 		for (SubsystemInterface subsystem : scheduler.getSubsystems()) {
 			subsystem.close();
 		}
+		bulkReadSnapshot.clear();
 	}
 
 	public enum OpModeEXRunStates {
@@ -9,9 +9,21 @@ public abstract class Followable {
 	private Marker[] markers;
 
 	public final Output[] getOutputs() {
+		if (outputs == null) {
+			outputs = sampleOutputs();
+		}
 		return outputs;
 	}
 
+	/**
+	 * called the first time the outputs are needed, if none were set, for followables that are evaluated in closed form
+	 *
+	 * @return the outputs of the followable
+	 */
+	protected Output[] sampleOutputs() {
+		throw new RuntimeException("followable has no outputs");
+	}
+
 	protected final void setOutputs(Output[] outputs) {
 		this.outputs = outputs;
 	}
@@ -25,15 +37,33 @@ public abstract class Followable {
 	}
 
 	public static class Output {
+		private static final Vector2D NO_ACCELERATION = new Vector2D(0, 0);
 		private final Vector2D translationVector; // controls x and y
+		private final Vector2D translationAcceleration;
 		private final double callbackTime;
 		private final Pose2D position, destination;
 		private final double rotationalVelocity; // controls heading
+		private final double rotationalAcceleration;
 		private double accumulatedTime;
 
 		public Output(Vector2D translationVector, double rotationalVelocity, double callbackTime, Pose2D position, Pose2D destination) {
+			this(translationVector, rotationalVelocity, NO_ACCELERATION, 0, callbackTime, position, destination);
+		}
+
+		/**
+		 * @param translationVector       the translational velocity, in millimeters per second
+		 * @param rotationalVelocity      the rotational velocity, in radians per second
+		 * @param translationAcceleration the translational acceleration, in millimeters per second per second, used for feed forward
+		 * @param rotationalAcceleration  the rotational acceleration, in radians per second per second, used for feed forward
+		 * @param callbackTime            the time of the output
+		 * @param position                the target position
+		 * @param destination             the destination being moved towards
+		 */
+		public Output(Vector2D translationVector, double rotationalVelocity, Vector2D translationAcceleration, double rotationalAcceleration, double callbackTime, Pose2D position, Pose2D destination) {
 			this.translationVector = translationVector;
 			this.rotationalVelocity = rotationalVelocity;
+			this.translationAcceleration = translationAcceleration;
+			this.rotationalAcceleration = rotationalAcceleration;
 			this.callbackTime = callbackTime;
 			this.accumulatedTime = 0;
 			this.position = position;
@@ -44,6 +74,20 @@ public abstract class Followable {
 			return translationVector;
 		}
 
+		/**
+		 * @return the translational acceleration, in millimeters per second per second, 0 unless the output was given one
+		 */
+		public Vector2D getTranslationAcceleration() {
+			return translationAcceleration;
+		}
+
+		/**
+		 * @return the rotational acceleration, in radians per second per second, 0 unless the output was given one
+		 */
+		public double getRotationalAcceleration() {
+			return rotationalAcceleration;
+		}
+
 		public double getCallbackTime() {
 			return callbackTime + accumulatedTime;
 		}
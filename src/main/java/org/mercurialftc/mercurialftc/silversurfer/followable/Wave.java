@@ -2,38 +2,144 @@ package org.mercurialftc.mercurialftc.silversurfer.followable;
 
 import org.jetbrains.annotations.NotNull;
 import org.mercurialftc.mercurialftc.silversurfer.followable.markers.Marker;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Pose2D;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.Vector2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.angle.AngleRadians;
 
 import java.util.ArrayList;
-import java.util.stream.IntStream;
 
 /**
  * describes an entire followable path, including several different sections of curves, straight lines, turns, pauses, and actions
+ * <p>the outputs are stored as columns, see {@link WaveOutputs}, and {@link #getOutput()} is a single view onto the current output, that is updated in place by {@link #update(double)}</p>
+ * <p>by default the output is interpolated between the outputs either side of the current time, rather than holding the last output reached, see {@link #setInterpolating(boolean)}</p>
+ * <p>the wave can be moved to any time or arc length in O(log n), see {@link #seek(double)} and {@link #seekDistance(double)}</p>
+ * <p>waves are immutable segments of outputs joined by time offsets, so joining, repeating and splicing waves is O(1) or O(log n) in the number of segments, and never modifies the waves joined, see {@link #concat(Wave)}, {@link #repeat(int)} and {@link #splice(int, Wave)}</p>
+ * <p>a wave from {@link WaveBuilder#buildStreaming(double)} is still being generated while it is followed, later parts of the path are appended as they are generated, if following catches up with generation, the robot stops at the end of the generated path, and carries on once more of the path is ready</p>
  */
 @SuppressWarnings("unused")
 public class Wave {
-	private final ArrayList<Followable.Output> outputs;
-	private final ArrayList<Marker> markers;
-	private Followable.Output currentOutput;
+	private final OutputView currentOutput;
+	private final WaveStream stream;
+	private WaveRope rope;
+	private WaveCursor cursor; // built from the rope when it is first needed, so that joining waves stays cheap
+	private WaveOutputs outputs; // only flattened if asked for
+	private boolean interpolating;
 
 	private int i, j; // tracks outputs and markers respectively
 
-	protected Wave(@NotNull ArrayList<Followable.Output> outputs, ArrayList<Marker> markers) {
-		this.outputs = outputs;
-		this.markers = markers;
-		this.currentOutput = new Followable.Output(
-				new Vector2D(0, 0),
-				0, 0,
-				outputs.get(0).getPosition(),
-				outputs.get(0).getDestination()
-		);
+	protected Wave(@NotNull WaveOutputs outputs, ArrayList<Marker> markers) {
+		this(outputs, markers, null);
+	}
+
+	/**
+	 * @param outputs the outputs generated so far
+	 * @param markers the markers generated so far
+	 * @param stream  the source of the rest of the wave, or null if the wave is complete
+	 */
+	Wave(@NotNull WaveOutputs outputs, ArrayList<Marker> markers, WaveStream stream) {
+		this(WaveRope.leaf(outputs, markers, 0), stream);
+	}
+
+	private Wave(@NotNull WaveRope rope, WaveStream stream) {
+		this.rope = rope;
+		this.stream = stream;
+		this.currentOutput = new OutputView();
+		currentOutput.set(0, 0, false, false, 0);
+		interpolating = true;
 		i = j = 0;
 	}
 
+	public boolean isInterpolating() {
+		return interpolating;
+	}
+
+	/**
+	 * @param interpolating if true, the output is interpolated between the outputs either side of the current time, otherwise the last output reached is held
+	 * @return self, for method chaining
+	 */
+	public Wave setInterpolating(boolean interpolating) {
+		this.interpolating = interpolating;
+		return this;
+	}
+
+	/**
+	 * the output is a view that is updated in place by {@link #update(double)}, copy anything that needs to outlive the next update
+	 *
+	 * @return the current output
+	 */
 	public Followable.Output getOutput() {
 		return currentOutput;
 	}
 
+	/**
+	 * O(n) the first time it is called on a wave made of several segments, as the segments are copied into one set of outputs
+	 *
+	 * @return the outputs of this wave, for a wave that is still being generated, the outputs generated so far
+	 */
+	public WaveOutputs getOutputs() {
+		if (outputs == null) {
+			outputs = cursor().flatten();
+		}
+		return outputs;
+	}
+
+	/**
+	 * O(1), reads the segments of the wave in place, so is cheap to use every loop however long the wave is, for a wave that is still being generated, the path grows as it is
+	 *
+	 * @return the path of this wave
+	 */
+	@NotNull
+	public WavePath getPath() {
+		return cursor();
+	}
+
+	@NotNull
+	private WaveCursor cursor() {
+		if (cursor == null) {
+			cursor = new WaveCursor(rope);
+		}
+		return cursor;
+	}
+
+	/**
+	 * @return the number of segments that this wave is made of, see {@link #splice(int, Wave)}
+	 */
+	public int getSegmentCount() {
+		return rope.getLeafCount();
+	}
+
+	/**
+	 * @return false while a streaming wave is still being generated
+	 */
+	public boolean isComplete() {
+		return stream == null || (stream.isComplete() && stream.isEmpty());
+	}
+
+	/**
+	 * stops generating the rest of a streaming wave, the wave will finish at the end of the path generated so far
+	 */
+	public void stopGenerating() {
+		if (stream != null) {
+			stream.cancel();
+		}
+	}
+
+	/**
+	 * appends any newly generated sections of a streaming wave
+	 * <p>a section normally starts as the path before it ends, as each section starts and ends at rest, but if the path before it has already ended, the robot has been stopped waiting for it, so it starts now instead</p>
+	 */
+	private void appendGenerated(double currentTime) {
+		WaveCursor cursor = cursor();
+		WaveStream.Section section;
+		while ((section = stream.poll()) != null) {
+			WaveRope leaf = WaveRope.leaf(section.outputs, section.markers, Math.max(0, currentTime - rope.getDuration()));
+			rope = WaveRope.concat(rope, leaf);
+			cursor.append(leaf);
+			outputs = null;
+		}
+		stream.throwIfFailed();
+	}
+
 	/**
 	 * runs markers and updates the current {@link #getOutput()} of this wave, to be read by a follower
 	 *
@@ -41,26 +147,31 @@ public class Wave {
 	 * @return returns true when no more outputs or actions are to be done
 	 */
 	public boolean update(double currentTime) {
-		boolean finished = true;
+		if (stream != null) {
+			appendGenerated(currentTime);
+		}
+
+		WaveCursor cursor = cursor();
+		boolean finished = isComplete();
 
-		if (i < outputs.size()) {
-			while (i < outputs.size() && currentTime >= outputs.get(i).getCallbackTime()) {
-				this.currentOutput = outputs.get(i);
+		if (i < cursor.size()) {
+			// the common case is moving on by a few outputs, but the time may also jump, in either direction
+			if (i == 0 || cursor.getTime(i - 1) > currentTime || (i + 1 < cursor.size() && cursor.getTime(i + 1) <= currentTime)) {
+				i = cursor.indexAtTime(currentTime) + 1;
+			} else if (cursor.getTime(i) <= currentTime) {
 				i++;
 			}
+			if (i > 0) {
+				moveTo(i - 1, currentTime);
+			}
 			finished = false;
 		} else { //set out 0s for end of instructions
-			this.currentOutput = new Followable.Output(
-					new Vector2D(0, 0),
-					0, currentTime,
-					outputs.get(outputs.size() - 1).getDestination(),
-					outputs.get(outputs.size() - 1).getDestination()
-			);
+			currentOutput.set(cursor.size() - 1, 0, false, true, currentTime);
 		}
 
-		if (j < markers.size()) {
-			while (j < markers.size() && currentTime >= markers.get(j).getCallbackTime()) {
-				Marker marker = markers.get(j);
+		if (j < cursor.getMarkerCount()) {
+			while (j < cursor.getMarkerCount() && currentTime >= cursor.getMarker(j).getCallbackTime()) {
+				Marker marker = cursor.getMarker(j);
 				if (marker.getMarkerType() == Marker.MarkerType.COMMAND) {
 					marker.getMarkerReached().queue();
 				} else {
@@ -76,7 +187,54 @@ public class Wave {
 	}
 
 	/**
-	 * non-mutating
+	 * moves the view to the output, interpolating towards the next one if enabled
+	 */
+	private void moveTo(int index, double currentTime) {
+		WaveCursor cursor = cursor();
+		if (!interpolating || index + 1 >= cursor.size()) {
+			currentOutput.set(index, 0, true, false, cursor.getTime(index));
+			return;
+		}
+		double fraction = (currentTime - cursor.getTime(index)) / (cursor.getTime(index + 1) - cursor.getTime(index));
+		currentOutput.set(index, Math.max(0, Math.min(fraction, 1)), true, false, currentTime);
+	}
+
+	/**
+	 * moves the wave to the time, without running any markers, markers with earlier times are skipped, later markers will run as normal
+	 * <p>{@link #update(double)} should then be called with times that carry on from the time, e.g. to resume a wave after an interruption</p>
+	 * <p>O(log n) in the number of outputs</p>
+	 *
+	 * @param time the time since the start of the wave
+	 */
+	public void seek(double time) {
+		WaveCursor cursor = cursor();
+		int index = cursor.indexAtTime(time);
+		i = index + 1;
+		if (index < 0) {
+			currentOutput.set(0, 0, false, false, time);
+		} else {
+			moveTo(index, time);
+		}
+		j = 0;
+		while (j < cursor.getMarkerCount() && cursor.getMarker(j).getCallbackTime() <= time) {
+			j++;
+		}
+	}
+
+	/**
+	 * moves the wave to the first time that it reaches the arc length, as {@link #seek(double)}
+	 *
+	 * @param distance the arc length along the path, in millimeters
+	 * @return the time that the wave was moved to
+	 */
+	public double seekDistance(double distance) {
+		double time = cursor().timeAtDistance(distance);
+		seek(time);
+		return time;
+	}
+
+	/**
+	 * non-mutating, O(1)
 	 * <p>concatenates two waves together, runs the second one after the first</p>
 	 * <p>WARNING: does no safety checking during the operation, ensure that the other wave has the same start point as this one</p>
 	 *
@@ -84,21 +242,219 @@ public class Wave {
 	 * @return a new wave containing the outputs and markers of the initial wave and the other wave
 	 */
 	public Wave concat(@NotNull Wave other) {
-		ArrayList<Followable.Output> newOutputs = new ArrayList<>(this.outputs.size() + other.outputs.size());
-		newOutputs.addAll(this.outputs);
-		newOutputs.addAll(other.outputs);
-
-		ArrayList<Marker> newMarkers = new ArrayList<>(this.markers.size() + other.markers.size());
-		newMarkers.addAll(this.markers);
-		newMarkers.addAll(other.markers);
-
-		double additionalAccumulatedTime = this.outputs.get(this.outputs.size() - 1).getCallbackTime();
-		IntStream.range(this.outputs.size(), newOutputs.size()).mapToObj(newOutputs::get).forEach(output -> output.compoundAccumulatedTime(additionalAccumulatedTime));
-		IntStream.range(this.markers.size(), newMarkers.size()).mapToObj(newMarkers::get).forEach(marker -> marker.compoundAccumulatedTime(additionalAccumulatedTime));
-
-		return new Wave(
-				newOutputs,
-				newMarkers
-		);
+		checkComplete(this);
+		checkComplete(other);
+		return new Wave(WaveRope.concat(this.rope, other.rope), null);
+	}
+
+	/**
+	 * non-mutating, O(log times)
+	 * <p>WARNING: does no safety checking during the operation, ensure that this wave ends at its own start point</p>
+	 *
+	 * @param times the number of times to run this wave, at least 1
+	 * @return a new wave that runs this wave the number of times in a row
+	 */
+	public Wave repeat(int times) {
+		checkComplete(this);
+		return new Wave(rope.repeat(times), null);
+	}
+
+	/**
+	 * non-mutating, O(log n) in the number of segments
+	 * <p>WARNING: does no safety checking during the operation, ensure that the other wave starts where the segment before it ends, and ends where the segment after it starts</p>
+	 *
+	 * @param segment the index of the segment to insert the other wave before, in the domain [0, {@link #getSegmentCount()}]
+	 * @param other   the wave to insert
+	 * @return a new wave with the other wave inserted between the segments of this wave
+	 */
+	public Wave splice(int segment, @NotNull Wave other) {
+		checkComplete(this);
+		checkComplete(other);
+		if (segment < 0 || segment > getSegmentCount()) {
+			throw new RuntimeException("segment " + segment + " is outside of the wave, which has " + getSegmentCount() + " segments");
+		}
+		WaveRope before = rope.slice(0, segment);
+		WaveRope after = rope.slice(segment, getSegmentCount());
+		WaveRope result = before == null ? other.rope : WaveRope.concat(before, other.rope);
+		if (after != null) {
+			result = WaveRope.concat(result, after);
+		}
+		return new Wave(result, null);
+	}
+
+	/**
+	 * non-mutating, O(log n) in the number of segments
+	 *
+	 * @param from the first segment to keep
+	 * @param to   the segment after the last segment to keep
+	 * @return a new wave made of the segments in the range, their times start from the start of the first segment kept
+	 */
+	public Wave slice(int from, int to) {
+		checkComplete(this);
+		WaveRope result = rope.slice(from, to);
+		if (result == null) {
+			throw new RuntimeException("cannot slice an empty wave from segment " + from + " to " + to);
+		}
+		return new Wave(result, null);
+	}
+
+	private static void checkComplete(@NotNull Wave wave) {
+		if (!wave.isComplete()) {
+			throw new RuntimeException("cannot join a wave that is still being generated");
+		}
+	}
+
+	/**
+	 * a flyweight over a {@link WaveOutputs}, the vector and poses are only allocated when they are first read after the view moves
+	 * <p>reports the output at the index, interpolated by the fraction towards the next output</p>
+	 */
+	private final class OutputView extends Followable.Output {
+		private int index;
+		private double fraction;
+		private boolean moving, atDestination;
+		private double time;
+		private Vector2D translationVector, translationAcceleration;
+		private Pose2D position, destination;
+
+		private OutputView() {
+			super(null, 0, 0, null, null);
+		}
+
+		/**
+		 * @param index         the output to view
+		 * @param fraction      how far to interpolate towards the next output, in the domain [0, 1]
+		 * @param moving        false to report zero velocity
+		 * @param atDestination true to report the destination of the output as its position
+		 * @param time          the callback time to report
+		 */
+		private void set(int index, double fraction, boolean moving, boolean atDestination, double time) {
+			if (this.index != index || this.fraction != fraction || this.moving != moving || this.atDestination != atDestination) {
+				this.index = index;
+				this.fraction = fraction;
+				this.moving = moving;
+				this.atDestination = atDestination;
+				translationVector = null;
+				translationAcceleration = null;
+				position = null;
+				destination = null;
+			}
+			this.time = time;
+		}
+
+		private double interpolate(double start, double end) {
+			return start + (end - start) * fraction;
+		}
+
+		@Override
+		public Vector2D getTranslationVector() {
+			if (translationVector == null) {
+				WaveCursor cursor = cursor();
+				if (!moving) {
+					translationVector = new Vector2D(0, 0);
+				} else if (fraction == 0) {
+					translationVector = new Vector2D(cursor.getVelocityX(index), cursor.getVelocityY(index));
+				} else {
+					translationVector = new Vector2D(
+							interpolate(cursor.getVelocityX(index), cursor.getVelocityX(index + 1)),
+							interpolate(cursor.getVelocityY(index), cursor.getVelocityY(index + 1))
+					);
+				}
+			}
+			return translationVector;
+		}
+
+		/**
+		 * the velocity is interpolated linearly between outputs, so the acceleration is constant between them
+		 */
+		@Override
+		public Vector2D getTranslationAcceleration() {
+			if (translationAcceleration == null) {
+				WaveCursor cursor = cursor();
+				double duration = duration();
+				if (duration == 0) {
+					translationAcceleration = new Vector2D(0, 0);
+				} else {
+					translationAcceleration = new Vector2D(
+							(cursor.getVelocityX(index + 1) - cursor.getVelocityX(index)) / duration,
+							(cursor.getVelocityY(index + 1) - cursor.getVelocityY(index)) / duration
+					);
+				}
+			}
+			return translationAcceleration;
+		}
+
+		@Override
+		public double getRotationalAcceleration() {
+			double duration = duration();
+			if (duration == 0) return 0;
+			WaveCursor cursor = cursor();
+			return (cursor.getRotationalVelocity(index + 1) - cursor.getRotationalVelocity(index)) / duration;
+		}
+
+		/**
+		 * @return the time from the output to the next one, or 0 if the view is not moving towards one
+		 */
+		private double duration() {
+			WaveCursor cursor = cursor();
+			if (!moving || index + 1 >= cursor.size()) return 0;
+			return cursor.getTime(index + 1) - cursor.getTime(index);
+		}
+
+		@Override
+		public double getCallbackTime() {
+			return time;
+		}
+
+		@Override
+		public double getRotationalVelocity() {
+			if (!moving) return 0;
+			WaveCursor cursor = cursor();
+			if (fraction == 0) return cursor.getRotationalVelocity(index);
+			return interpolate(cursor.getRotationalVelocity(index), cursor.getRotationalVelocity(index + 1));
+		}
+
+		@Override
+		public Pose2D getPosition() {
+			if (position == null) {
+				WaveCursor cursor = cursor();
+				if (atDestination) {
+					position = getDestination();
+				} else if (fraction == 0) {
+					position = new Pose2D(cursor.getX(index), cursor.getY(index), new AngleRadians(cursor.getTheta(index)));
+				} else {
+					AngleRadians theta = new AngleRadians(cursor.getTheta(index));
+					double change = theta.findShortestDistance(new AngleRadians(cursor.getTheta(index + 1)));
+					position = new Pose2D(
+							interpolate(cursor.getX(index), cursor.getX(index + 1)),
+							interpolate(cursor.getY(index), cursor.getY(index + 1)),
+							new AngleRadians(theta.getRadians() + change * fraction)
+					);
+				}
+			}
+			return position;
+		}
+
+		/**
+		 * the destination of the output being interpolated towards
+		 */
+		@Override
+		public Pose2D getDestination() {
+			if (destination == null) {
+				WaveCursor cursor = cursor();
+				int destinationIndex = fraction == 0 ? index : index + 1;
+				destination = new Pose2D(cursor.getDestinationX(destinationIndex), cursor.getDestinationY(destinationIndex), new AngleRadians(cursor.getDestinationTheta(destinationIndex)));
+			}
+			return destination;
+		}
+
+		@Override
+		public void setAccumulatedTime(double accumulatedTime) {
+			throw new RuntimeException("the outputs of a wave are immutable");
+		}
+
+		@Override
+		public void compoundAccumulatedTime(double accumulatedTime) {
+			throw new RuntimeException("the outputs of a wave are immutable");
+		}
 	}
 }
@@ -1,5 +1,7 @@
 package org.mercurialftc.mercurialftc.silversurfer.followable;
 
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+import org.jetbrains.annotations.NotNull;
 import org.mercurialftc.mercurialftc.scheduler.commands.Command;
 import org.mercurialftc.mercurialftc.scheduler.commands.LambdaCommand;
 import org.mercurialftc.mercurialftc.silversurfer.encoderticksconverter.Units;
@@ -11,23 +13,42 @@ import org.mercurialftc.mercurialftc.silversurfer.followable.stopbuilder.StopBui
 import org.mercurialftc.mercurialftc.silversurfer.followable.turnbuilder.TurnBuilder;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.angle.Angle;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.Pose2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Vector2D;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.EmptyObstacleMap;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.ObstacleMap;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.OccupancyGridPlanner;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.obstacle.Obstacle;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
+/**
+ * builds a {@link Wave} from a list of instructions
+ * <p>instructions are recorded as they are given, and only built when {@link #build()} is called, which allows a previously built wave to be loaded from the cache instead, see {@link #cached()}</p>
+ * <p>alternatively, {@link #buildStreaming(double)} builds the wave in the background, returning as soon as the start of it is ready to follow</p>
+ * <p>consecutive instructions of the same kind are built into one followable, the followables are built in parallel, each assuming that the robot starts it at the target pose of the instructions before it, see {@link #replay()}</p>
+ */
 @SuppressWarnings("unused")
 public class WaveBuilder {
-
 	private final Units units;
 	private final ArrayList<Followable> followables;
 	private final MecanumMotionConstants mecanumMotionConstants;
 	private final ObstacleMap obstacleMap;
-	private Pose2D previousPose, previousTargetPose;
-	private FollowableBuilder builder;
-	private BuildState buildState;
-	private MecanumMotionConstants buildingMotionConstants;
+	private final Pose2D startPose;
+	private final MecanumMotionConstants initialBuildingMotionConstants;
+	private final ArrayList<Instruction> instructions;
+	private final ArrayList<Command> markerCommands;
+	private File cacheDirectory;
+	private WaveStream stream;
 
 	/**
 	 * constructs a wave builder with a totally empty obstacle map
@@ -51,17 +72,38 @@ public class WaveBuilder {
 	 * @param obstacleMap     the obstacle map to use for obstacle avoidance
 	 */
 	public WaveBuilder(Pose2D startPose, Units units, MecanumMotionConstants motionConstants, ObstacleMap obstacleMap) {
-		this.previousPose = this.previousTargetPose = startPose;
+		this.startPose = startPose;
 		this.units = units;
-		this.buildingMotionConstants = this.mecanumMotionConstants = motionConstants;
+		this.mecanumMotionConstants = motionConstants;
 		this.obstacleMap = obstacleMap;
 		followables = new ArrayList<>();
-		buildState = BuildState.IDLE;
+		instructions = new ArrayList<>();
+		markerCommands = new ArrayList<>();
+
+		this.initialBuildingMotionConstants = scale(motionConstants, 0.8, 0.8, 0.8, 0.8);
+	}
 
-		scaleTranslationVelocity(0.8);
-		scaleTranslationAcceleration(0.8);
-		scaleRotationVelocity(0.8);
-		scaleRotationAcceleration(0.8);
+	/**
+	 * loads the wave from the cache in AppUtil.FIRST_FOLDER/mercurialftc/waves when {@link #build()} is called, if it has been built before with exactly the same instructions, motion constants, units and obstacles, otherwise builds it and writes it to the cache for next time
+	 * <p>markers are stored by the order they were added, and re-attached to the commands given to this builder</p>
+	 * <p>custom obstacles are identified by their class and bounds, if an obstacle can change in a way that does not change its bounds, the cache will not notice</p>
+	 *
+	 * @return self, for method chaining
+	 */
+	public WaveBuilder cached() {
+		// AppUtil is only loaded here, as it needs the robot controller app to initialise
+		return cached(new File(AppUtil.FIRST_FOLDER, "mercurialftc/waves"));
+	}
+
+	/**
+	 * as {@link #cached()}, but using a different cache directory
+	 *
+	 * @param cacheDirectory the directory to store the cache in
+	 * @return self, for method chaining
+	 */
+	public WaveBuilder cached(@NotNull File cacheDirectory) {
+		this.cacheDirectory = cacheDirectory;
+		return this;
 	}
 
 	/**
@@ -73,23 +115,7 @@ public class WaveBuilder {
 	 * @return self, for method chaining
 	 */
 	public WaveBuilder scaleTranslationVelocity(double scalingMultiplier) {
-		buildingMotionConstants = new MecanumMotionConstants(
-				scalingMultiplier,
-				buildingMotionConstants.getRotationalVelocityMultiplier(),
-				buildingMotionConstants.getTranslationalAccelerationMultiplier(),
-				buildingMotionConstants.getRotationalAccelerationMultiplier(),
-				buildingMotionConstants.getMaxTranslationalYVelocity(),
-				buildingMotionConstants.getMaxTranslationalXVelocity(),
-				buildingMotionConstants.getMaxTranslationalAngledVelocity(),
-				buildingMotionConstants.getMaxRotationalVelocity(),
-				buildingMotionConstants.getMaxTranslationalYAcceleration(),
-				buildingMotionConstants.getMaxTranslationalXAcceleration(),
-				buildingMotionConstants.getMaxTranslationalAngledAcceleration(),
-				buildingMotionConstants.getMaxRotationalAcceleration()
-		);
-		if (builder != null) {
-			builder.setMotionConstants(buildingMotionConstants);
-		}
+		instructions.add(new Instruction(InstructionType.SCALE_TRANSLATION_VELOCITY, scalingMultiplier));
 		return this;
 	}
 
@@ -102,23 +128,7 @@ public class WaveBuilder {
 	 * @return self, for method chaining
 	 */
 	public WaveBuilder scaleTranslationAcceleration(double scalingMultiplier) {
-		buildingMotionConstants = new MecanumMotionConstants(
-				buildingMotionConstants.getTranslationalVelocityMultiplier(),
-				buildingMotionConstants.getRotationalVelocityMultiplier(),
-				scalingMultiplier,
-				buildingMotionConstants.getRotationalAccelerationMultiplier(),
-				buildingMotionConstants.getMaxTranslationalYVelocity(),
-				buildingMotionConstants.getMaxTranslationalXVelocity(),
-				buildingMotionConstants.getMaxTranslationalAngledVelocity(),
-				buildingMotionConstants.getMaxRotationalVelocity(),
-				buildingMotionConstants.getMaxTranslationalYAcceleration(),
-				buildingMotionConstants.getMaxTranslationalXAcceleration(),
-				buildingMotionConstants.getMaxTranslationalAngledAcceleration(),
-				buildingMotionConstants.getMaxRotationalAcceleration()
-		);
-		if (builder != null) {
-			builder.setMotionConstants(buildingMotionConstants);
-		}
+		instructions.add(new Instruction(InstructionType.SCALE_TRANSLATION_ACCELERATION, scalingMultiplier));
 		return this;
 	}
 
@@ -131,23 +141,7 @@ public class WaveBuilder {
 	 * @return self, for method chaining
 	 */
 	public WaveBuilder scaleRotationVelocity(double scalingMultiplier) {
-		buildingMotionConstants = new MecanumMotionConstants(
-				buildingMotionConstants.getTranslationalVelocityMultiplier(),
-				scalingMultiplier,
-				buildingMotionConstants.getTranslationalAccelerationMultiplier(),
-				buildingMotionConstants.getRotationalAccelerationMultiplier(),
-				buildingMotionConstants.getMaxTranslationalYVelocity(),
-				buildingMotionConstants.getMaxTranslationalXVelocity(),
-				buildingMotionConstants.getMaxTranslationalAngledVelocity(),
-				buildingMotionConstants.getMaxRotationalVelocity(),
-				buildingMotionConstants.getMaxTranslationalYAcceleration(),
-				buildingMotionConstants.getMaxTranslationalXAcceleration(),
-				buildingMotionConstants.getMaxTranslationalAngledAcceleration(),
-				buildingMotionConstants.getMaxRotationalAcceleration()
-		);
-		if (builder != null) {
-			builder.setMotionConstants(buildingMotionConstants);
-		}
+		instructions.add(new Instruction(InstructionType.SCALE_ROTATION_VELOCITY, scalingMultiplier));
 		return this;
 	}
 
@@ -161,23 +155,7 @@ public class WaveBuilder {
 	 * @return self, for method chaining
 	 */
 	public WaveBuilder scaleRotationAcceleration(double scalingMultiplier) {
-		buildingMotionConstants = new MecanumMotionConstants(
-				buildingMotionConstants.getTranslationalVelocityMultiplier(),
-				buildingMotionConstants.getRotationalVelocityMultiplier(),
-				buildingMotionConstants.getTranslationalAccelerationMultiplier(),
-				scalingMultiplier,
-				buildingMotionConstants.getMaxTranslationalYVelocity(),
-				buildingMotionConstants.getMaxTranslationalXVelocity(),
-				buildingMotionConstants.getMaxTranslationalAngledVelocity(),
-				buildingMotionConstants.getMaxRotationalVelocity(),
-				buildingMotionConstants.getMaxTranslationalYAcceleration(),
-				buildingMotionConstants.getMaxTranslationalXAcceleration(),
-				buildingMotionConstants.getMaxTranslationalAngledAcceleration(),
-				buildingMotionConstants.getMaxRotationalAcceleration()
-		);
-		if (builder != null) {
-			builder.setMotionConstants(buildingMotionConstants);
-		}
+		instructions.add(new Instruction(InstructionType.SCALE_ROTATION_ACCELERATION, scalingMultiplier));
 		return this;
 	}
 
@@ -192,8 +170,7 @@ public class WaveBuilder {
 	 * @return self, for method chaining
 	 */
 	public WaveBuilder splineTo(double x, double y, Angle theta) {
-		handleState(BuildState.CURVE);
-		addSegment(units.toMillimeters(x), units.toMillimeters(y), theta);
+		instructions.add(new Instruction(InstructionType.SPLINE_TO, x, y, theta));
 		return this;
 	}
 
@@ -204,9 +181,7 @@ public class WaveBuilder {
 	 * @return self, for method chaining
 	 */
 	public WaveBuilder waitFor(double seconds) {
-		handleState(BuildState.STOP);
-		StopBuilder stopBuilder = (StopBuilder) builder;
-		stopBuilder.addWait(previousTargetPose, seconds);
+		instructions.add(new Instruction(InstructionType.WAIT_FOR, seconds));
 		return this;
 	}
 
@@ -217,8 +192,7 @@ public class WaveBuilder {
 	 * @return self, for method chaining
 	 */
 	public WaveBuilder turnTo(Angle theta) {
-		handleState(BuildState.TURN);
-		addSegment(previousPose.getX(), previousPose.getY(), theta);
+		instructions.add(new Instruction(InstructionType.TURN_TO, 0, 0, theta));
 		return this;
 	}
 
@@ -229,8 +203,7 @@ public class WaveBuilder {
 	 * @return self, for method chaining
 	 */
 	public WaveBuilder turn(Angle theta) {
-		handleState(BuildState.TURN);
-		addSegment(previousPose.getX(), previousPose.getY(), previousPose.getTheta().add(theta));
+		instructions.add(new Instruction(InstructionType.TURN, 0, 0, theta));
 		return this;
 	}
 
@@ -241,15 +214,109 @@ public class WaveBuilder {
 	 * @return self, for method chaining
 	 */
 	public WaveBuilder lineTo(double x, double y, Angle theta) {
-		handleState(BuildState.LINE);
-		addSegment(x, y, theta);
+		instructions.add(new Instruction(InstructionType.LINE_TO, x, y, theta));
 		return this;
 	}
 
-	private void addSegment(double x, double y, Angle theta) {
-		Pose2D destination = new Pose2D(x, y, theta, units);
-		builder.addFollowableSegment(previousPose, destination);
-		previousPose = previousTargetPose = destination;
+	/**
+	 * splines to the pose, through waypoints that are planned around the static obstacles of the obstacle map, see {@link OccupancyGridPlanner#forField(ObstacleMap)}, and around its additional obstacles as they are when the wave is built
+	 * <p>if the additional obstacles may change while the wave is built, e.g. if it is built on another thread, build it with an {@link org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.ObstacleMapSnapshot} of the map</p>
+	 * <p>the robot turns towards the final heading in proportion to the distance travelled along the planned waypoints</p>
+	 * <p>if the way is clear, this is the same as {@link #splineTo(double, double, Angle)}</p>
+	 * <p>the planning grid only covers the field, see {@link OccupancyGridPlanner#forField(ObstacleMap)}, so the pose should be on the field</p>
+	 *
+	 * @param x
+	 * @param y
+	 * @param theta
+	 * @return self, for method chaining
+	 */
+	public WaveBuilder planTo(double x, double y, Angle theta) {
+		instructions.add(new Instruction(InstructionType.PLAN_TO, x, y, theta));
+		return this;
+	}
+
+	/**
+	 * @return the motion constants after a scaling instruction, or the same motion constants for any other instruction
+	 */
+	private static MecanumMotionConstants scale(@NotNull Instruction instruction, @NotNull MecanumMotionConstants motionConstants) {
+		switch (instruction.type) {
+			case SCALE_TRANSLATION_VELOCITY:
+				return scale(motionConstants, instruction.a, motionConstants.getRotationalVelocityMultiplier(), motionConstants.getTranslationalAccelerationMultiplier(), motionConstants.getRotationalAccelerationMultiplier());
+			case SCALE_TRANSLATION_ACCELERATION:
+				return scale(motionConstants, motionConstants.getTranslationalVelocityMultiplier(), motionConstants.getRotationalVelocityMultiplier(), instruction.a, motionConstants.getRotationalAccelerationMultiplier());
+			case SCALE_ROTATION_VELOCITY:
+				return scale(motionConstants, motionConstants.getTranslationalVelocityMultiplier(), instruction.a, motionConstants.getTranslationalAccelerationMultiplier(), motionConstants.getRotationalAccelerationMultiplier());
+			case SCALE_ROTATION_ACCELERATION:
+				return scale(motionConstants, motionConstants.getTranslationalVelocityMultiplier(), motionConstants.getRotationalVelocityMultiplier(), motionConstants.getTranslationalAccelerationMultiplier(), instruction.a);
+			default:
+				return motionConstants;
+		}
+	}
+
+	@NotNull
+	private static MecanumMotionConstants scale(@NotNull MecanumMotionConstants motionConstants, double translationalVelocityMultiplier, double rotationalVelocityMultiplier, double translationalAccelerationMultiplier, double rotationalAccelerationMultiplier) {
+		return new MecanumMotionConstants(
+				translationalVelocityMultiplier,
+				rotationalVelocityMultiplier,
+				translationalAccelerationMultiplier,
+				rotationalAccelerationMultiplier,
+				motionConstants.getMaxTranslationalYVelocity(),
+				motionConstants.getMaxTranslationalXVelocity(),
+				motionConstants.getMaxTranslationalAngledVelocity(),
+				motionConstants.getMaxRotationalVelocity(),
+				motionConstants.getMaxTranslationalYAcceleration(),
+				motionConstants.getMaxTranslationalXAcceleration(),
+				motionConstants.getMaxTranslationalAngledAcceleration(),
+				motionConstants.getMaxRotationalAcceleration()
+		).withJerkLimits(motionConstants.getMaxTranslationalJerk(), motionConstants.getMaxRotationalJerk());
+	}
+
+	/**
+	 * @param previousPose the pose the robot is at before the instruction
+	 * @return the target pose of a movement instruction, or null for any other instruction
+	 */
+	private Pose2D destination(@NotNull Instruction instruction, @NotNull Pose2D previousPose) {
+		switch (instruction.type) {
+			case SPLINE_TO:
+				return new Pose2D(instruction.a, instruction.b, instruction.theta, units);
+			case TURN_TO:
+				// the previous pose is already in millimeters
+				return new Pose2D(previousPose.getX(), previousPose.getY(), instruction.theta);
+			case TURN:
+				return new Pose2D(previousPose.getX(), previousPose.getY(), previousPose.getTheta().add(instruction.theta));
+			case LINE_TO:
+				return new Pose2D(instruction.a, instruction.b, instruction.theta, units);
+			case WAYPOINT:
+				return new Pose2D(instruction.a, instruction.b, instruction.theta);
+			default:
+				return null;
+		}
+	}
+
+	@NotNull
+	private static BuildState buildState(@NotNull InstructionType type) {
+		switch (type) {
+			case SPLINE_TO:
+			case WAYPOINT:
+				return BuildState.CURVE;
+			case WAIT_FOR:
+				return BuildState.STOP;
+			case TURN_TO:
+			case TURN:
+				return BuildState.TURN;
+			case LINE_TO:
+				return BuildState.LINE;
+			default:
+				return BuildState.IDLE;
+		}
+	}
+
+	private static boolean samePose(@NotNull Pose2D pose, @NotNull Pose2D other) {
+		return pose == other || (
+				pose.getX() == other.getX()
+						&& pose.getY() == other.getY()
+						&& pose.getTheta().getRadians() == other.getTheta().getRadians()
+		);
 	}
 
 	/**
@@ -260,7 +327,8 @@ public class WaveBuilder {
 	 * @return self, for method chaining
 	 */
 	public WaveBuilder addOffsetActionMarker(double offset, Command markerReached) {
-		builder.addOffsetCommandMarker(offset, Marker.MarkerType.COMMAND, markerReached);
+		instructions.add(new Instruction(offset, Marker.MarkerType.COMMAND, markerReached));
+		markerCommands.add(markerReached);
 		return this;
 	}
 
@@ -272,49 +340,214 @@ public class WaveBuilder {
 	 * @return self, for method chaining
 	 */
 	public WaveBuilder addOffsetActionMarker(double offset, Runnable markerReached) {
-		builder.addOffsetCommandMarker(offset, Marker.MarkerType.LAMBDA, new LambdaCommand().setInit(markerReached));
+		Command command = new LambdaCommand().setInit(markerReached);
+		instructions.add(new Instruction(offset, Marker.MarkerType.LAMBDA, command));
+		markerCommands.add(command);
 		return this;
 	}
 
 	/**
-	 * handles bundling sequential moves of the same type together, ships a built curve when the state finishes..
+	 * builds the wave from the instructions given so far, or loads it from the cache, if {@link #cached()} was used and the same wave has been built before
 	 *
-	 * @param newState the new input of state to the handler.
+	 * @return the wave
 	 */
-	private void handleState(BuildState newState) {
-		if (newState == buildState) {
-			return;
+	public Wave build() {
+		File cacheFile = null;
+		if (cacheDirectory != null) {
+			cacheFile = new File(cacheDirectory, cacheKey() + ".wave");
+			Wave cachedWave = WaveCache.load(cacheFile, markerCommands);
+			if (cachedWave != null) {
+				return cachedWave;
+			}
 		}
-		if (buildState != BuildState.IDLE) {
-			followables.add(builder.build());
 
-			// ensures that previous pose is properly handled if a builder does not succeed in meeting targets (e.g. curve builder and turns)
-			Followable.Output[] outputs = followables.get(followables.size() - 1).getOutputs();
-			previousPose = outputs[outputs.length - 1].getPosition();
+		replay();
+		return assemble(cacheFile);
+	}
+
+	/**
+	 * builds the wave in the background, returning once the start of it is ready to follow, or loads it from the cache, if {@link #cached()} was used and the same wave has been built before
+	 * <p>the rest of the wave is appended to it as it is built, see {@link Wave#isComplete()}, if following catches up with building, the robot stops at the end of what has been built so far</p>
+	 * <p>the builder must not be used again until the returned wave is complete</p>
+	 *
+	 * @param lookahead the duration of the wave, in seconds, to wait to be built before returning, a larger lookahead makes stopping to wait for the rest of the wave less likely
+	 * @return the wave, possibly only partially built
+	 */
+	public Wave buildStreaming(double lookahead) {
+		File cacheFile = null;
+		if (cacheDirectory != null) {
+			cacheFile = new File(cacheDirectory, cacheKey() + ".wave");
+			Wave cachedWave = WaveCache.load(cacheFile, markerCommands);
+			if (cachedWave != null) {
+				return cachedWave;
+			}
 		}
-		buildState = newState;
-		switch (newState) {
-			case CURVE:
-				builder = new CurveBuilder(buildingMotionConstants, mecanumMotionConstants, obstacleMap);
-				break;
-			case LINE:
-				builder = new LineBuilder(buildingMotionConstants, mecanumMotionConstants);
-				break;
-			case STOP:
-				builder = new StopBuilder();
-				break;
-			case TURN:
-				builder = new TurnBuilder(buildingMotionConstants);
-				break;
-			case IDLE:
-				builder = null;
-				break;
+
+		WaveStream stream = new WaveStream();
+		File finalCacheFile = cacheFile;
+		Thread thread = new Thread(() -> {
+			this.stream = stream;
+			try {
+				replay();
+				// only complete waves are cached
+				if (finalCacheFile != null && !stream.isCancelled()) {
+					assemble(finalCacheFile);
+				}
+				stream.finish(null);
+			} catch (RuntimeException e) {
+				stream.finish(e);
+			} finally {
+				this.stream = null;
+			}
+		}, "wave generation");
+		thread.setDaemon(true);
+		thread.start();
+
+		stream.await(lookahead);
+		WaveStream.Section first = stream.poll();
+		if (first == null) {
+			throw new RuntimeException("the wave builder was given no instructions");
 		}
+		return new Wave(first.outputs, new ArrayList<>(first.markers), stream);
 	}
 
-	public Wave build() {
-		handleState(BuildState.IDLE);
+	/**
+	 * replays the instructions from the start, so that building again gives the same result
+	 * <p>every run is built speculatively in parallel, assuming that the robot starts it at the target pose of the run before it, the runs are then checked in order, and any run that starts somewhere else, e.g. after a curve that missed its target, is built again from where the robot actually is</p>
+	 */
+	private void replay() {
+		followables.clear();
+		ArrayList<Run> runs = runs();
+
+		ArrayList<Future<BuiltRun>> speculativeRuns = new ArrayList<>(runs.size());
+		for (Run run : runs) {
+			speculativeRuns.add(ForkJoinPool.commonPool().submit(() -> run.build(run.assumedPose, run.assumedPose)));
+		}
+
+		Pose2D previousPose = startPose, previousTargetPose = startPose;
+		try {
+			for (int i = 0; i < runs.size(); i++) {
+				if (stream != null && stream.isCancelled()) {
+					return;
+				}
+				Run run = runs.get(i);
+				BuiltRun builtRun;
+				if (samePose(previousPose, run.assumedPose) && samePose(previousTargetPose, run.assumedPose)) {
+					builtRun = speculativeRuns.get(i).get();
+				} else {
+					speculativeRuns.get(i).cancel(false);
+					builtRun = run.build(previousPose, previousTargetPose);
+				}
+
+				followables.add(builtRun.followable);
+				if (stream != null) {
+					stream.add(builtRun.followable);
+				}
+
+				// ensures that previous pose is properly handled if a builder does not succeed in meeting targets (e.g. curve builder and turns)
+				Followable.Output[] outputs = builtRun.followable.getOutputs();
+				previousPose = outputs[outputs.length - 1].getPosition();
+				previousTargetPose = builtRun.targetPose;
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException("failed to build the wave", e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("interrupted while building the wave", e);
+		} finally {
+			// no-op for runs that have already been built
+			for (Future<BuiltRun> speculativeRun : speculativeRuns) {
+				speculativeRun.cancel(false);
+			}
+		}
+	}
 
+	/**
+	 * splits the instructions into runs of the same kind of movement, each of which is built into one followable
+	 * <p>the target pose at the start of each run is tracked as if every run meets its targets</p>
+	 */
+	@NotNull
+	private ArrayList<Run> runs() {
+		ArrayList<Run> runs = new ArrayList<>();
+		MecanumMotionConstants buildingMotionConstants = initialBuildingMotionConstants;
+		Pose2D targetPose = startPose;
+		Run run = null;
+
+		for (Instruction instruction : plan(instructions)) {
+			buildingMotionConstants = scale(instruction, buildingMotionConstants);
+			BuildState state = buildState(instruction.type);
+			if (state != BuildState.IDLE && (run == null || run.state != state)) {
+				run = new Run(state, buildingMotionConstants, targetPose);
+				runs.add(run);
+			}
+			if (run == null) {
+				if (instruction.type == InstructionType.MARKER) {
+					throw new RuntimeException("markers must be added after an instruction that moves the robot");
+				}
+				continue;
+			}
+			run.instructions.add(instruction);
+
+			Pose2D destination = destination(instruction, targetPose);
+			if (destination != null) {
+				targetPose = destination;
+			}
+		}
+		return runs;
+	}
+
+	/**
+	 * replaces each plan instruction with the spline waypoints planned from the target pose before it
+	 *
+	 * @return the instructions to build
+	 */
+	@NotNull
+	private ArrayList<Instruction> plan(@NotNull ArrayList<Instruction> instructions) {
+		ArrayList<Instruction> planned = new ArrayList<>(instructions.size());
+		Pose2D targetPose = startPose;
+		for (Instruction instruction : instructions) {
+			if (instruction.type != InstructionType.PLAN_TO) {
+				planned.add(instruction);
+				Pose2D destination = destination(instruction, targetPose);
+				if (destination != null) {
+					targetPose = destination;
+				}
+				continue;
+			}
+
+			Pose2D goal = new Pose2D(instruction.a, instruction.b, instruction.theta, units);
+			Vector2D[] waypoints = OccupancyGridPlanner.forField(obstacleMap).plan(targetPose.toVector2D(), goal.toVector2D(), obstacleMap.getAdditionalObstacles());
+
+			double length = 0;
+			Vector2D previous = targetPose.toVector2D();
+			for (Vector2D waypoint : waypoints) {
+				length += waypoint.subtract(previous).getMagnitude();
+				previous = waypoint;
+			}
+
+			double rotation = targetPose.getTheta().findShortestDistance(goal.getTheta());
+			double distance = 0;
+			previous = targetPose.toVector2D();
+			for (int i = 0; i < waypoints.length - 1; i++) {
+				distance += waypoints[i].subtract(previous).getMagnitude();
+				previous = waypoints[i];
+				Angle theta = targetPose.getTheta().toAngleRadians().add(rotation * distance / length);
+				planned.add(new Instruction(InstructionType.WAYPOINT, waypoints[i].getX(), waypoints[i].getY(), theta));
+			}
+			planned.add(new Instruction(InstructionType.WAYPOINT, goal.getX(), goal.getY(), goal.getTheta()));
+			targetPose = goal;
+		}
+		return planned;
+	}
+
+	/**
+	 * joins the built followables into a wave, saving it to the cache file, if there is one
+	 */
+	@NotNull
+	private Wave assemble(File cacheFile) {
 		ArrayList<Followable.Output> outputs = new ArrayList<>();
 		ArrayList<Marker> markers = new ArrayList<>();
 
@@ -335,7 +568,235 @@ public class WaveBuilder {
 			accumulatedTime = followable.getOutputs()[followable.getOutputs().length - 1].getCallbackTime();
 		}
 
-		return new Wave(outputs, markers);
+		WaveOutputs waveOutputs = WaveOutputs.of(outputs);
+
+		if (cacheFile != null) {
+			try {
+				WaveCache.save(cacheFile, waveOutputs, markers, markerCommands);
+			} catch (IOException ignored) {
+				// the wave is still usable, it just wont be reused next time
+			}
+		}
+
+		return new Wave(waveOutputs, markers);
+	}
+
+	/**
+	 * a hash of everything that the built wave depends on, the start pose, units, motion constants, obstacles and instructions
+	 */
+	@NotNull
+	private String cacheKey() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream outputStream = new DataOutputStream(bytes)) {
+			outputStream.writeInt(WaveCache.VERSION);
+			outputStream.writeUTF(units.name());
+			outputStream.writeDouble(startPose.getX());
+			outputStream.writeDouble(startPose.getY());
+			outputStream.writeDouble(startPose.getTheta().getRadians());
+			writeMotionConstants(outputStream, mecanumMotionConstants);
+			writeMotionConstants(outputStream, initialBuildingMotionConstants);
+
+			outputStream.writeUTF(obstacleMap.getClass().getName());
+			outputStream.writeDouble(obstacleMap.getRobotSize());
+			Obstacle[] obstacles = obstacleMap.getObstacles();
+			outputStream.writeInt(obstacles.length);
+			for (Obstacle obstacle : obstacles) {
+				writeObstacle(outputStream, obstacle);
+			}
+			ArrayList<Obstacle> additionalObstacles = obstacleMap.getAdditionalObstacles();
+			outputStream.writeInt(additionalObstacles.size());
+			for (Obstacle obstacle : additionalObstacles) {
+				writeObstacle(outputStream, obstacle);
+			}
+
+			outputStream.writeInt(instructions.size());
+			for (Instruction instruction : instructions) {
+				outputStream.writeInt(instruction.type.ordinal());
+				outputStream.writeDouble(instruction.a);
+				outputStream.writeDouble(instruction.b);
+				outputStream.writeDouble(instruction.theta == null ? 0 : instruction.theta.getRadians());
+				outputStream.writeInt(instruction.markerType == null ? -1 : instruction.markerType.ordinal());
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("failed to hash the wave builder", e);
+		}
+
+		MessageDigest messageDigest;
+		try {
+			messageDigest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+		byte[] digest = messageDigest.digest(bytes.toByteArray());
+		StringBuilder key = new StringBuilder(digest.length * 2);
+		for (byte b : digest) {
+			key.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		}
+		return key.toString();
+	}
+
+	private static void writeMotionConstants(@NotNull DataOutputStream outputStream, @NotNull MecanumMotionConstants motionConstants) throws IOException {
+		outputStream.writeDouble(motionConstants.getTranslationalVelocityMultiplier());
+		outputStream.writeDouble(motionConstants.getRotationalVelocityMultiplier());
+		outputStream.writeDouble(motionConstants.getTranslationalAccelerationMultiplier());
+		outputStream.writeDouble(motionConstants.getRotationalAccelerationMultiplier());
+		outputStream.writeDouble(motionConstants.getMaxTranslationalYVelocity());
+		outputStream.writeDouble(motionConstants.getMaxTranslationalXVelocity());
+		outputStream.writeDouble(motionConstants.getMaxTranslationalAngledVelocity());
+		outputStream.writeDouble(motionConstants.getMaxRotationalVelocity());
+		outputStream.writeDouble(motionConstants.getMaxTranslationalYAcceleration());
+		outputStream.writeDouble(motionConstants.getMaxTranslationalXAcceleration());
+		outputStream.writeDouble(motionConstants.getMaxTranslationalAngledAcceleration());
+		outputStream.writeDouble(motionConstants.getMaxRotationalAcceleration());
+		outputStream.writeDouble(motionConstants.getMaxTranslationalJerk());
+		outputStream.writeDouble(motionConstants.getMaxRotationalJerk());
+	}
+
+	private static void writeObstacle(@NotNull DataOutputStream outputStream, @NotNull Obstacle obstacle) throws IOException {
+		outputStream.writeUTF(obstacle.getClass().getName());
+		outputStream.writeDouble(obstacle.getMinX());
+		outputStream.writeDouble(obstacle.getMinY());
+		outputStream.writeDouble(obstacle.getMaxX());
+		outputStream.writeDouble(obstacle.getMaxY());
+	}
+
+	private enum InstructionType {
+		SCALE_TRANSLATION_VELOCITY,
+		SCALE_TRANSLATION_ACCELERATION,
+		SCALE_ROTATION_VELOCITY,
+		SCALE_ROTATION_ACCELERATION,
+		SPLINE_TO,
+		WAIT_FOR,
+		TURN_TO,
+		TURN,
+		LINE_TO,
+		MARKER,
+		PLAN_TO,
+		WAYPOINT // a planned waypoint of a plan instruction, in millimeters, never recorded
+	}
+
+	/**
+	 * a recorded call to the builder, the meaning of a and b depends on the type
+	 */
+	private static class Instruction {
+		private final InstructionType type;
+		private final double a, b;
+		private final Angle theta;
+		private final Marker.MarkerType markerType;
+		private final Command command;
+
+		private Instruction(InstructionType type, double a) {
+			this(type, a, 0, null);
+		}
+
+		private Instruction(InstructionType type, double a, double b, Angle theta) {
+			this.type = type;
+			this.a = a;
+			this.b = b;
+			this.theta = theta;
+			this.markerType = null;
+			this.command = null;
+		}
+
+		private Instruction(double offset, Marker.MarkerType markerType, Command command) {
+			this.type = InstructionType.MARKER;
+			this.a = offset;
+			this.b = 0;
+			this.theta = null;
+			this.markerType = markerType;
+			this.command = command;
+		}
+	}
+
+	/**
+	 * consecutive instructions of the same kind, which are built into one followable
+	 */
+	private final class Run {
+		private final BuildState state;
+		private final MecanumMotionConstants motionConstants;
+		private final Pose2D assumedPose;
+		private final ArrayList<Instruction> instructions;
+
+		/**
+		 * @param state           the kind of followable to build
+		 * @param motionConstants the building motion constants at the start of the run
+		 * @param assumedPose     the target pose at the start of the run, which the run is speculatively built from
+		 */
+		private Run(BuildState state, MecanumMotionConstants motionConstants, Pose2D assumedPose) {
+			this.state = state;
+			this.motionConstants = motionConstants;
+			this.assumedPose = assumedPose;
+			this.instructions = new ArrayList<>();
+		}
+
+		/**
+		 * safe to call from any thread, the outputs of the followable are sampled here too, so that they are sampled in parallel
+		 *
+		 * @param previousPose       the pose the robot actually starts the run at
+		 * @param previousTargetPose the target pose at the start of the run
+		 * @return the built run
+		 */
+		@NotNull
+		private BuiltRun build(Pose2D previousPose, Pose2D previousTargetPose) {
+			MecanumMotionConstants buildingMotionConstants = motionConstants;
+			FollowableBuilder builder;
+			switch (state) {
+				case CURVE:
+					builder = new CurveBuilder(buildingMotionConstants, mecanumMotionConstants, obstacleMap);
+					break;
+				case LINE:
+					builder = new LineBuilder(buildingMotionConstants);
+					break;
+				case STOP:
+					builder = new StopBuilder();
+					break;
+				case TURN:
+					builder = new TurnBuilder(buildingMotionConstants);
+					break;
+				default:
+					throw new RuntimeException("cannot build a run of " + state);
+			}
+
+			for (Instruction instruction : instructions) {
+				switch (instruction.type) {
+					case SCALE_TRANSLATION_VELOCITY:
+					case SCALE_TRANSLATION_ACCELERATION:
+					case SCALE_ROTATION_VELOCITY:
+					case SCALE_ROTATION_ACCELERATION:
+						buildingMotionConstants = scale(instruction, buildingMotionConstants);
+						builder.setMotionConstants(buildingMotionConstants);
+						break;
+					case WAIT_FOR:
+						((StopBuilder) builder).addWait(previousTargetPose, instruction.a);
+						break;
+					case MARKER:
+						builder.addOffsetCommandMarker(instruction.a, instruction.markerType, instruction.command);
+						break;
+					default:
+						Pose2D destination = destination(instruction, previousPose);
+						builder.addFollowableSegment(previousPose, destination);
+						previousPose = previousTargetPose = destination;
+						break;
+				}
+			}
+
+			Followable followable = builder.build();
+			followable.getOutputs();
+			return new BuiltRun(followable, previousTargetPose);
+		}
+	}
+
+	private static class BuiltRun {
+		private final Followable followable;
+		/**
+		 * the target pose at the end of the run
+		 */
+		private final Pose2D targetPose;
+
+		private BuiltRun(Followable followable, Pose2D targetPose) {
+			this.followable = followable;
+			this.targetPose = targetPose;
+		}
 	}
 
 	private enum BuildState {
@@ -343,6 +804,6 @@ public class WaveBuilder {
 		LINE,
 		STOP,
 		TURN,
-		IDLE; // entered at initialisation, and then re entered when the whole process is finished. Will not cause a build on exit, will cause one on entry
+		IDLE; // instructions that do not move the robot
 	}
 }
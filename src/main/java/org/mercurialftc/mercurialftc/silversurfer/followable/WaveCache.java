@@ -0,0 +1,170 @@
+package org.mercurialftc.mercurialftc.silversurfer.followable;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.mercurialftc.mercurialftc.scheduler.commands.Command;
+import org.mercurialftc.mercurialftc.silversurfer.followable.markers.Marker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * reads and writes the outputs and marker times of built {@link Wave}s, markers are stored by the order their commands were given to the {@link WaveBuilder}, so that they can be re-attached to the commands of the live builder
+ */
+final class WaveCache {
+	private static final int MAGIC = 0x57415630; // "WAV0"
+	/**
+	 * stored in the file as well as mixed into the key, so that files written by an older format are never read
+	 */
+	static final int VERSION = 4;
+
+	private WaveCache() {
+	}
+
+	/**
+	 * @param file     the file to read
+	 * @param commands the commands of the markers of the live builder, in the order they were added
+	 * @return the wave stored in the file, or null if it does not exist, cannot be read, or does not match the commands
+	 */
+	@Nullable
+	static Wave load(@NotNull File file, @NotNull ArrayList<Command> commands) {
+		if (!file.isFile()) {
+			return null;
+		}
+		try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (inputStream.readInt() != MAGIC || inputStream.readInt() != VERSION) {
+				return null;
+			}
+
+			int outputCount = inputStream.readInt();
+			int destinationCount = inputStream.readInt();
+			if (outputCount <= 0 || destinationCount <= 0) {
+				return null;
+			}
+			double[] times = readColumn(inputStream, outputCount);
+			double[] velocityXs = readColumn(inputStream, outputCount);
+			double[] velocityYs = readColumn(inputStream, outputCount);
+			double[] rotationalVelocities = readColumn(inputStream, outputCount);
+			double[] xs = readColumn(inputStream, outputCount);
+			double[] ys = readColumn(inputStream, outputCount);
+			double[] thetas = readColumn(inputStream, outputCount);
+			int[] destinations = new int[outputCount];
+			for (int i = 0; i < outputCount; i++) {
+				destinations[i] = inputStream.readInt();
+				if (destinations[i] < 0 || destinations[i] >= destinationCount) {
+					return null;
+				}
+			}
+			double[] destinationXs = readColumn(inputStream, destinationCount);
+			double[] destinationYs = readColumn(inputStream, destinationCount);
+			double[] destinationThetas = readColumn(inputStream, destinationCount);
+			WaveOutputs outputs = new WaveOutputs(times, velocityXs, velocityYs, rotationalVelocities, xs, ys, thetas, destinations, destinationXs, destinationYs, destinationThetas);
+
+			int markerCount = inputStream.readInt();
+			if (markerCount != commands.size()) {
+				return null;
+			}
+			ArrayList<Marker> markers = new ArrayList<>(markerCount);
+			for (int i = 0; i < markerCount; i++) {
+				int commandIndex = inputStream.readInt();
+				Marker.MarkerType markerType = Marker.MarkerType.values()[inputStream.readInt()];
+				double callbackTime = inputStream.readDouble();
+				if (commandIndex < 0 || commandIndex >= commands.size()) {
+					return null;
+				}
+				markers.add(new Marker(commands.get(commandIndex), markerType, callbackTime));
+			}
+
+			return new Wave(outputs, markers);
+		} catch (IOException | IndexOutOfBoundsException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * writes the wave to the file, creating any missing directories, the file is written in full before it replaces any previous file, so an interrupted write never leaves a partial cache
+	 *
+	 * @param file     the file to write
+	 * @param outputs  the outputs of the wave
+	 * @param markers  the markers of the wave, with their accumulated times already set
+	 * @param commands the commands of the markers, in the order they were added to the builder
+	 * @throws IOException if the file could not be written
+	 */
+	static void save(@NotNull File file, @NotNull WaveOutputs outputs, @NotNull ArrayList<Marker> markers, @NotNull ArrayList<Command> commands) throws IOException {
+		IdentityHashMap<Command, Integer> commandIndices = new IdentityHashMap<>();
+		for (int i = 0; i < commands.size(); i++) {
+			commandIndices.put(commands.get(i), i);
+		}
+
+		File parent = file.getParentFile();
+		if (parent != null) {
+			parent.mkdirs();
+		}
+		File temporary = new File(file.getPath() + ".tmp");
+		try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+			outputStream.writeInt(MAGIC);
+			outputStream.writeInt(VERSION);
+
+			outputStream.writeInt(outputs.size());
+			outputStream.writeInt(outputs.getDestinationCount());
+			writeColumn(outputStream, outputs.times);
+			writeColumn(outputStream, outputs.velocityXs);
+			writeColumn(outputStream, outputs.velocityYs);
+			writeColumn(outputStream, outputs.rotationalVelocities);
+			writeColumn(outputStream, outputs.xs);
+			writeColumn(outputStream, outputs.ys);
+			writeColumn(outputStream, outputs.thetas);
+			for (int destination : outputs.destinations) {
+				outputStream.writeInt(destination);
+			}
+			writeColumn(outputStream, outputs.destinationXs);
+			writeColumn(outputStream, outputs.destinationYs);
+			writeColumn(outputStream, outputs.destinationThetas);
+
+			outputStream.writeInt(markers.size());
+			for (Marker marker : markers) {
+				Integer commandIndex = commandIndices.get(marker.getMarkerReached());
+				if (commandIndex == null) {
+					throw new IOException("marker command was not added through the wave builder");
+				}
+				outputStream.writeInt(commandIndex);
+				outputStream.writeInt(marker.getMarkerType().ordinal());
+				outputStream.writeDouble(marker.getCallbackTime());
+			}
+		} catch (IOException e) {
+			temporary.delete();
+			throw e;
+		}
+
+		if (!temporary.renameTo(file)) {
+			file.delete();
+			if (!temporary.renameTo(file)) {
+				temporary.delete();
+				throw new IOException("failed to move the wave cache into place at " + file);
+			}
+		}
+	}
+
+	@NotNull
+	private static double[] readColumn(@NotNull DataInputStream inputStream, int length) throws IOException {
+		double[] column = new double[length];
+		for (int i = 0; i < length; i++) {
+			column[i] = inputStream.readDouble();
+		}
+		return column;
+	}
+
+	private static void writeColumn(@NotNull DataOutputStream outputStream, @NotNull double[] column) throws IOException {
+		for (double value : column) {
+			outputStream.writeDouble(value);
+		}
+	}
+}
@@ -0,0 +1,238 @@
+package org.mercurialftc.mercurialftc.silversurfer.followable;
+
+import org.jetbrains.annotations.NotNull;
+import org.mercurialftc.mercurialftc.silversurfer.followable.markers.Marker;
+
+import java.util.ArrayList;
+
+/**
+ * reads the leaves of a {@link WaveRope} as if they were one {@link WaveOutputs}, outputs are numbered across all the leaves in order
+ * <p>the leaf of the last output read is remembered, so reading outputs in order, as following does, finds each leaf in O(1), other reads find it in O(log leaves)</p>
+ * <p>the markers of the leaves are copied with times from the start of the wave, the markers of the rope are never modified</p>
+ */
+final class WaveCursor implements WavePath {
+	private final ArrayList<Leaf> leaves;
+	private final ArrayList<Marker> markers;
+	private int size;
+	private double length;
+	private Leaf current;
+
+	WaveCursor(@NotNull WaveRope rope) {
+		leaves = new ArrayList<>(rope.getLeafCount());
+		markers = new ArrayList<>();
+		for (WaveRope leaf : rope.getLeaves()) {
+			append(leaf);
+		}
+		current = leaves.get(0);
+	}
+
+	/**
+	 * adds a leaf to the end, e.g. a newly generated section of a streaming wave
+	 */
+	void append(@NotNull WaveRope rope) {
+		WaveOutputs outputs = rope.getOutputs();
+		double start = rope.getDelay();
+		double distance = 0;
+		if (!leaves.isEmpty()) {
+			Leaf last = leaves.get(leaves.size() - 1);
+			int lastIndex = last.outputs.size() - 1;
+			start += last.start + last.outputs.getDuration();
+			distance = length + Math.hypot(outputs.getX(0) - last.outputs.getX(lastIndex), outputs.getY(0) - last.outputs.getY(lastIndex));
+		}
+		leaves.add(new Leaf(outputs, start, size, distance));
+		size += outputs.size();
+		length = distance + outputs.getLength();
+
+		for (Marker marker : rope.getMarkers()) {
+			markers.add(new Marker(marker.getMarkerReached(), marker.getMarkerType(), start + marker.getCallbackTime()));
+		}
+	}
+
+	/**
+	 * @return the leaf containing the output
+	 */
+	@NotNull
+	private Leaf leafOf(int index) {
+		if (index >= current.firstIndex && index < current.firstIndex + current.outputs.size()) {
+			return current;
+		}
+		int low = 0;
+		int high = leaves.size() - 1;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (leaves.get(middle).firstIndex <= index) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		current = leaves.get(low);
+		return current;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the time of the last output
+	 */
+	double getDuration() {
+		Leaf last = leaves.get(leaves.size() - 1);
+		return last.start + last.outputs.getDuration();
+	}
+
+	double getLength() {
+		return length;
+	}
+
+	@Override
+	public double getTime(int index) {
+		Leaf leaf = leafOf(index);
+		return leaf.start + leaf.outputs.getTime(index - leaf.firstIndex);
+	}
+
+	double getVelocityX(int index) {
+		Leaf leaf = leafOf(index);
+		return leaf.outputs.getVelocityX(index - leaf.firstIndex);
+	}
+
+	double getVelocityY(int index) {
+		Leaf leaf = leafOf(index);
+		return leaf.outputs.getVelocityY(index - leaf.firstIndex);
+	}
+
+	double getRotationalVelocity(int index) {
+		Leaf leaf = leafOf(index);
+		return leaf.outputs.getRotationalVelocity(index - leaf.firstIndex);
+	}
+
+	@Override
+	public double getX(int index) {
+		Leaf leaf = leafOf(index);
+		return leaf.outputs.getX(index - leaf.firstIndex);
+	}
+
+	@Override
+	public double getY(int index) {
+		Leaf leaf = leafOf(index);
+		return leaf.outputs.getY(index - leaf.firstIndex);
+	}
+
+	@Override
+	public double getTheta(int index) {
+		Leaf leaf = leafOf(index);
+		return leaf.outputs.getTheta(index - leaf.firstIndex);
+	}
+
+	@Override
+	public double getDistance(int index) {
+		Leaf leaf = leafOf(index);
+		return leaf.distance + leaf.outputs.getDistance(index - leaf.firstIndex);
+	}
+
+	/**
+	 * @return the x of the destination of the output
+	 */
+	double getDestinationX(int index) {
+		Leaf leaf = leafOf(index);
+		return leaf.outputs.getDestinationX(leaf.outputs.getDestination(index - leaf.firstIndex));
+	}
+
+	double getDestinationY(int index) {
+		Leaf leaf = leafOf(index);
+		return leaf.outputs.getDestinationY(leaf.outputs.getDestination(index - leaf.firstIndex));
+	}
+
+	double getDestinationTheta(int index) {
+		Leaf leaf = leafOf(index);
+		return leaf.outputs.getDestinationTheta(leaf.outputs.getDestination(index - leaf.firstIndex));
+	}
+
+	@Override
+	public int indexAtTime(double time) {
+		int low = 0;
+		int high = leaves.size() - 1;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			Leaf leaf = leaves.get(middle);
+			if (leaf.start + leaf.outputs.getTime(0) <= time) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		Leaf leaf = leaves.get(low);
+		int index = leaf.outputs.indexAtTime(time - leaf.start);
+		if (index < 0) return -1; // only possible for the first leaf
+		return leaf.firstIndex + index;
+	}
+
+	/**
+	 * as {@link WaveOutputs#timeAtDistance(double)}
+	 */
+	double timeAtDistance(double distance) {
+		distance = Math.min(distance, length);
+		// the first leaf that ends at or beyond the distance
+		int low = 0;
+		int high = leaves.size() - 1;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			Leaf leaf = leaves.get(middle);
+			if (leaf.distance + leaf.outputs.getLength() >= distance) {
+				high = middle;
+			} else {
+				low = middle + 1;
+			}
+		}
+		Leaf leaf = leaves.get(low);
+		return leaf.start + leaf.outputs.timeAtDistance(Math.max(0, distance - leaf.distance));
+	}
+
+	int getMarkerCount() {
+		return markers.size();
+	}
+
+	@NotNull
+	Marker getMarker(int index) {
+		return markers.get(index);
+	}
+
+	/**
+	 * O(n), copies the leaves into a single set of outputs
+	 */
+	@NotNull
+	WaveOutputs flatten() {
+		if (leaves.size() == 1 && leaves.get(0).start == 0) {
+			return leaves.get(0).outputs;
+		}
+		ArrayList<WaveOutputs> parts = new ArrayList<>(leaves.size());
+		double[] timeOffsets = new double[leaves.size()];
+		for (int i = 0; i < leaves.size(); i++) {
+			parts.add(leaves.get(i).outputs);
+			timeOffsets[i] = leaves.get(i).start;
+		}
+		return WaveOutputs.join(parts, timeOffsets);
+	}
+
+	private static final class Leaf {
+		private final WaveOutputs outputs;
+		private final double start;
+		private final int firstIndex;
+		private final double distance;
+
+		/**
+		 * @param outputs    the outputs of the leaf
+		 * @param start      the time of the start of the leaf, from the start of the wave
+		 * @param firstIndex the index of the first output of the leaf, across the whole wave
+		 * @param distance   the arc length at the start of the leaf, from the start of the wave
+		 */
+		private Leaf(WaveOutputs outputs, double start, int firstIndex, double distance) {
+			this.outputs = outputs;
+			this.start = start;
+			this.firstIndex = firstIndex;
+			this.distance = distance;
+		}
+	}
+}
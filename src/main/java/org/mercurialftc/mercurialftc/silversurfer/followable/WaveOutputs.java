@@ -0,0 +1,335 @@
+package org.mercurialftc.mercurialftc.silversurfer.followable;
+
+import org.jetbrains.annotations.NotNull;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Pose2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Vector2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.angle.AngleRadians;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * the outputs of a {@link Wave}, stored as parallel arrays rather than as {@link Followable.Output} objects
+ * <p>consecutive outputs usually share a destination, so destinations are stored once each, and outputs refer to them by index</p>
+ * <p>the cumulative arc length of the path is stored alongside, so outputs can be found by time or by arc length in O(log n)</p>
+ * <p>immutable, all times are relative to the start of the wave</p>
+ */
+@SuppressWarnings("unused")
+public final class WaveOutputs implements WavePath {
+	// package private for the wave cache
+	final double[] times, velocityXs, velocityYs, rotationalVelocities, xs, ys, thetas;
+	final int[] destinations;
+	final double[] destinationXs, destinationYs, destinationThetas;
+	private final double[] distances;
+
+	WaveOutputs(@NotNull double[] times, @NotNull double[] velocityXs, @NotNull double[] velocityYs, @NotNull double[] rotationalVelocities, @NotNull double[] xs, @NotNull double[] ys, @NotNull double[] thetas, @NotNull int[] destinations, @NotNull double[] destinationXs, @NotNull double[] destinationYs, @NotNull double[] destinationThetas) {
+		if (times.length == 0) {
+			throw new RuntimeException("a wave needs at least one output");
+		}
+		this.times = times;
+		this.velocityXs = velocityXs;
+		this.velocityYs = velocityYs;
+		this.rotationalVelocities = rotationalVelocities;
+		this.xs = xs;
+		this.ys = ys;
+		this.thetas = thetas;
+		this.destinations = destinations;
+		this.destinationXs = destinationXs;
+		this.destinationYs = destinationYs;
+		this.destinationThetas = destinationThetas;
+
+		this.distances = new double[times.length];
+		for (int i = 1; i < times.length; i++) {
+			distances[i] = distances[i - 1] + Math.hypot(xs[i] - xs[i - 1], ys[i] - ys[i - 1]);
+		}
+	}
+
+	/**
+	 * copies the outputs into columns, the callback times of the outputs, including their accumulated time, are used as is
+	 *
+	 * @param outputs the outputs to copy
+	 * @return the outputs as columns
+	 */
+	@NotNull
+	public static WaveOutputs of(@NotNull List<Followable.Output> outputs) {
+		int size = outputs.size();
+		double[] times = new double[size];
+		double[] velocityXs = new double[size];
+		double[] velocityYs = new double[size];
+		double[] rotationalVelocities = new double[size];
+		double[] xs = new double[size];
+		double[] ys = new double[size];
+		double[] thetas = new double[size];
+		int[] destinations = new int[size];
+
+		int destinationCount = 0;
+		Pose2D previousDestination = null;
+		for (int i = 0; i < size; i++) {
+			Pose2D destination = outputs.get(i).getDestination();
+			if (!sameDestination(destination, previousDestination)) {
+				destinationCount++;
+				previousDestination = destination;
+			}
+		}
+
+		double[] destinationXs = new double[destinationCount];
+		double[] destinationYs = new double[destinationCount];
+		double[] destinationThetas = new double[destinationCount];
+
+		int destination = -1;
+		previousDestination = null;
+		for (int i = 0; i < size; i++) {
+			Followable.Output output = outputs.get(i);
+			times[i] = output.getCallbackTime();
+			velocityXs[i] = output.getTranslationVector().getX();
+			velocityYs[i] = output.getTranslationVector().getY();
+			rotationalVelocities[i] = output.getRotationalVelocity();
+			xs[i] = output.getPosition().getX();
+			ys[i] = output.getPosition().getY();
+			thetas[i] = output.getPosition().getTheta().getRadians();
+
+			if (!sameDestination(output.getDestination(), previousDestination)) {
+				previousDestination = output.getDestination();
+				destination++;
+				destinationXs[destination] = previousDestination.getX();
+				destinationYs[destination] = previousDestination.getY();
+				destinationThetas[destination] = previousDestination.getTheta().getRadians();
+			}
+			destinations[i] = destination;
+		}
+
+		return new WaveOutputs(times, velocityXs, velocityYs, rotationalVelocities, xs, ys, thetas, destinations, destinationXs, destinationYs, destinationThetas);
+	}
+
+	private static boolean sameDestination(@NotNull Pose2D destination, Pose2D previousDestination) {
+		return previousDestination != null && (destination == previousDestination || (
+				destination.getX() == previousDestination.getX()
+						&& destination.getY() == previousDestination.getY()
+						&& destination.getTheta().getRadians() == previousDestination.getTheta().getRadians()
+		));
+	}
+
+	/**
+	 * non-mutating
+	 *
+	 * @param other      the outputs to follow these ones
+	 * @param timeOffset added to the times of the other outputs
+	 * @return a new set of outputs, containing these outputs then the other outputs
+	 */
+	@NotNull
+	public WaveOutputs concat(@NotNull WaveOutputs other, double timeOffset) {
+		return join(Arrays.asList(this, other), new double[]{0, timeOffset});
+	}
+
+	/**
+	 * copies the parts into a single set of outputs, in one pass
+	 *
+	 * @param parts       the outputs to join, in order
+	 * @param timeOffsets added to the times of each part
+	 * @return the joined outputs
+	 */
+	@NotNull
+	static WaveOutputs join(@NotNull List<WaveOutputs> parts, @NotNull double[] timeOffsets) {
+		int size = 0;
+		int destinationCount = 0;
+		for (WaveOutputs part : parts) {
+			size += part.size();
+			destinationCount += part.getDestinationCount();
+		}
+
+		double[] times = new double[size];
+		double[] velocityXs = new double[size];
+		double[] velocityYs = new double[size];
+		double[] rotationalVelocities = new double[size];
+		double[] xs = new double[size];
+		double[] ys = new double[size];
+		double[] thetas = new double[size];
+		int[] destinations = new int[size];
+		double[] destinationXs = new double[destinationCount];
+		double[] destinationYs = new double[destinationCount];
+		double[] destinationThetas = new double[destinationCount];
+
+		int index = 0;
+		int destination = 0;
+		for (int part = 0; part < parts.size(); part++) {
+			WaveOutputs outputs = parts.get(part);
+			int length = outputs.size();
+			for (int i = 0; i < length; i++) {
+				times[index + i] = outputs.times[i] + timeOffsets[part];
+				destinations[index + i] = outputs.destinations[i] + destination;
+			}
+			System.arraycopy(outputs.velocityXs, 0, velocityXs, index, length);
+			System.arraycopy(outputs.velocityYs, 0, velocityYs, index, length);
+			System.arraycopy(outputs.rotationalVelocities, 0, rotationalVelocities, index, length);
+			System.arraycopy(outputs.xs, 0, xs, index, length);
+			System.arraycopy(outputs.ys, 0, ys, index, length);
+			System.arraycopy(outputs.thetas, 0, thetas, index, length);
+			System.arraycopy(outputs.destinationXs, 0, destinationXs, destination, outputs.getDestinationCount());
+			System.arraycopy(outputs.destinationYs, 0, destinationYs, destination, outputs.getDestinationCount());
+			System.arraycopy(outputs.destinationThetas, 0, destinationThetas, destination, outputs.getDestinationCount());
+			index += length;
+			destination += outputs.getDestinationCount();
+		}
+
+		return new WaveOutputs(times, velocityXs, velocityYs, rotationalVelocities, xs, ys, thetas, destinations, destinationXs, destinationYs, destinationThetas);
+	}
+
+	/**
+	 * @return the number of outputs
+	 */
+	@Override
+	public int size() {
+		return times.length;
+	}
+
+	/**
+	 * @return the number of distinct destinations
+	 */
+	public int getDestinationCount() {
+		return destinationXs.length;
+	}
+
+	@Override
+	public double getTime(int index) {
+		return times[index];
+	}
+
+	/**
+	 * @return the time of the last output
+	 */
+	public double getDuration() {
+		return times[times.length - 1];
+	}
+
+	public double getVelocityX(int index) {
+		return velocityXs[index];
+	}
+
+	public double getVelocityY(int index) {
+		return velocityYs[index];
+	}
+
+	public double getRotationalVelocity(int index) {
+		return rotationalVelocities[index];
+	}
+
+	@Override
+	public double getX(int index) {
+		return xs[index];
+	}
+
+	@Override
+	public double getY(int index) {
+		return ys[index];
+	}
+
+	/**
+	 * @return the heading of the output, in radians
+	 */
+	@Override
+	public double getTheta(int index) {
+		return thetas[index];
+	}
+
+	/**
+	 * @return the index of the destination of the output
+	 */
+	public int getDestination(int index) {
+		return destinations[index];
+	}
+
+	public double getDestinationX(int destination) {
+		return destinationXs[destination];
+	}
+
+	public double getDestinationY(int destination) {
+		return destinationYs[destination];
+	}
+
+	/**
+	 * @return the heading of the destination, in radians
+	 */
+	public double getDestinationTheta(int destination) {
+		return destinationThetas[destination];
+	}
+
+	/**
+	 * @return the arc length of the path up to the output, in millimeters
+	 */
+	@Override
+	public double getDistance(int index) {
+		return distances[index];
+	}
+
+	/**
+	 * @return the arc length of the whole path, in millimeters
+	 */
+	public double getLength() {
+		return distances[distances.length - 1];
+	}
+
+	/**
+	 * O(log n)
+	 *
+	 * @param time the time since the start of the wave
+	 * @return the index of the last output at or before the time, or -1 if the time is before the first output
+	 */
+	@Override
+	public int indexAtTime(double time) {
+		int low = 0;
+		int high = times.length - 1;
+		if (time < times[0]) return -1;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (times[middle] <= time) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * O(log n)
+	 * <p>where the path stops moving, e.g. for turns or waits, the earliest time at the distance is found</p>
+	 *
+	 * @param distance the arc length along the path, in millimeters
+	 * @return the time at which the path reaches the distance, interpolated between outputs
+	 */
+	public double timeAtDistance(double distance) {
+		distance = Math.min(distance, getLength());
+		// the first output at or beyond the distance
+		int low = 0;
+		int high = distances.length - 1;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (distances[middle] >= distance) {
+				high = middle;
+			} else {
+				low = middle + 1;
+			}
+		}
+		if (low == 0) return times[0];
+		double fraction = (distance - distances[low - 1]) / (distances[low] - distances[low - 1]);
+		return times[low - 1] + fraction * (times[low] - times[low - 1]);
+	}
+
+	/**
+	 * allocates a new output, prefer reading the columns directly
+	 *
+	 * @param index the index of the output
+	 * @return the output as an object
+	 */
+	@NotNull
+	public Followable.Output getOutput(int index) {
+		int destination = destinations[index];
+		return new Followable.Output(
+				new Vector2D(velocityXs[index], velocityYs[index]),
+				rotationalVelocities[index],
+				times[index],
+				new Pose2D(xs[index], ys[index], new AngleRadians(thetas[index])),
+				new Pose2D(destinationXs[destination], destinationYs[destination], new AngleRadians(destinationThetas[destination]))
+		);
+	}
+}
@@ -0,0 +1,45 @@
+package org.mercurialftc.mercurialftc.silversurfer.followable;
+
+/**
+ * the times and positions of the outputs of a wave, numbered in order, see {@link Wave#getPath()}
+ * <p>reading a wave made of several segments through this does not copy them into one set of outputs, unlike {@link Wave#getOutputs()}</p>
+ */
+public interface WavePath {
+	/**
+	 * @return the number of outputs, which grows as a streaming wave is generated
+	 */
+	int size();
+
+	/**
+	 * @return the time of the output, from the start of the wave
+	 */
+	double getTime(int index);
+
+	/**
+	 * @return the x position of the output, in millimeters
+	 */
+	double getX(int index);
+
+	/**
+	 * @return the y position of the output, in millimeters
+	 */
+	double getY(int index);
+
+	/**
+	 * @return the heading of the output, in radians
+	 */
+	double getTheta(int index);
+
+	/**
+	 * @return the arc length of the path up to the output, in millimeters
+	 */
+	double getDistance(int index);
+
+	/**
+	 * O(log n)
+	 *
+	 * @param time the time since the start of the wave
+	 * @return the index of the last output at or before the time, or -1 if the time is before the first output
+	 */
+	int indexAtTime(double time);
+}
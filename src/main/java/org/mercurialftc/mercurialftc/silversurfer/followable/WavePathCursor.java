@@ -0,0 +1,186 @@
+package org.mercurialftc.mercurialftc.silversurfer.followable;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * finds the closest point on a {@link WavePath} to a position, treating the path as straight lines between its outputs
+ * <p>the cursor only searches a window of the path around the last point found, which moves along the path with the robot, so each query takes the same time however long the path is</p>
+ * <p>the window reaches further ahead than behind, so the cursor mostly moves forwards, and a path that crosses or doubles back over itself is not confused for a later part of itself</p>
+ * <p>allocation free, the result of the last query is read from the getters</p>
+ * <p>the path may grow between queries, e.g. the path of a streaming wave, see {@link Wave#getPath()}</p>
+ */
+@SuppressWarnings("unused")
+public final class WavePathCursor {
+	/**
+	 * how far along the path ahead of the cursor to search, in millimeters
+	 */
+	public static final double LOOK_AHEAD = 300;
+	/**
+	 * how far along the path behind the cursor to search, in millimeters
+	 */
+	public static final double LOOK_BEHIND = 50;
+	/**
+	 * the most segments searched either side of the cursor, e.g. where the path stops moving for a turn or a wait
+	 */
+	private static final int MAX_WINDOW = 256;
+	private final WavePath path;
+	private int index;
+	private double fraction, x, y, tangentX, tangentY, distance;
+
+	/**
+	 * @param path the path
+	 */
+	public WavePathCursor(@NotNull WavePath path) {
+		this(path, 0);
+	}
+
+	/**
+	 * @param path the path
+	 * @param index the output to start the cursor at
+	 */
+	public WavePathCursor(@NotNull WavePath path, int index) {
+		this.path = path;
+		this.index = Math.max(0, Math.min(index, path.size() - 1));
+		this.x = path.getX(this.index);
+		this.y = path.getY(this.index);
+		this.distance = path.getDistance(this.index);
+		findTangent();
+	}
+
+	@NotNull
+	public WavePath getPath() {
+		return path;
+	}
+
+	/**
+	 * moves the cursor to the closest point in the window around it to the position
+	 * <p>where several points are equally close, e.g. where the path stops for a turn, or doubles back over itself, the earliest is used</p>
+	 *
+	 * @param positionX x position, in millimeters
+	 * @param positionY y position, in millimeters
+	 */
+	public void update(double positionX, double positionY) {
+		int last = path.size() - 1;
+		if (last == 0) {
+			return;
+		}
+
+		double cursorDistance = distance;
+		int from = index;
+		while (from > 0 && index - from < MAX_WINDOW && path.getDistance(from) > cursorDistance - LOOK_BEHIND) {
+			from--;
+		}
+		int to = index;
+		while (to < last && to - index < MAX_WINDOW && path.getDistance(to) < cursorDistance + LOOK_AHEAD) {
+			to++;
+		}
+
+		double closest = Double.POSITIVE_INFINITY;
+		for (int i = from; i < Math.max(to, from + 1) && i < last; i++) {
+			double startX = path.getX(i);
+			double startY = path.getY(i);
+			double dx = path.getX(i + 1) - startX;
+			double dy = path.getY(i + 1) - startY;
+			double lengthSquared = dx * dx + dy * dy;
+
+			double t = 0;
+			if (lengthSquared > 0) {
+				t = Math.max(0, Math.min(1, ((positionX - startX) * dx + (positionY - startY) * dy) / lengthSquared));
+			}
+			double pointX = startX + dx * t;
+			double pointY = startY + dy * t;
+			double distanceSquared = (positionX - pointX) * (positionX - pointX) + (positionY - pointY) * (positionY - pointY);
+
+			if (distanceSquared < closest) {
+				closest = distanceSquared;
+				index = i;
+				fraction = t;
+				x = pointX;
+				y = pointY;
+			}
+		}
+
+		distance = path.getDistance(index) + fraction * (path.getDistance(index + 1) - path.getDistance(index));
+		findTangent();
+	}
+
+	/**
+	 * the direction of the segment the cursor is on, or of the closest segment that moves, if it is on a part of the path that does not, e.g. a turn
+	 */
+	private void findTangent() {
+		tangentX = tangentY = 0;
+		int last = path.size() - 1;
+		for (int offset = 0; offset <= MAX_WINDOW; offset++) {
+			if (setTangent(index + offset) || setTangent(index - offset)) {
+				return;
+			}
+			if (index + offset >= last && index - offset <= 0) {
+				return;
+			}
+		}
+	}
+
+	private boolean setTangent(int segment) {
+		if (segment < 0 || segment >= path.size() - 1) {
+			return false;
+		}
+		double dx = path.getX(segment + 1) - path.getX(segment);
+		double dy = path.getY(segment + 1) - path.getY(segment);
+		double length = Math.hypot(dx, dy);
+		if (length == 0) {
+			return false;
+		}
+		tangentX = dx / length;
+		tangentY = dy / length;
+		return true;
+	}
+
+	/**
+	 * @return the output at the start of the segment that the cursor is on
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * @return how far along the segment the cursor is, in the domain [0, 1]
+	 */
+	public double getFraction() {
+		return fraction;
+	}
+
+	/**
+	 * @return the x position of the closest point, in millimeters
+	 */
+	public double getX() {
+		return x;
+	}
+
+	/**
+	 * @return the y position of the closest point, in millimeters
+	 */
+	public double getY() {
+		return y;
+	}
+
+	/**
+	 * @return the x component of the unit vector along the path at the closest point, 0 if the path never moves
+	 */
+	public double getTangentX() {
+		return tangentX;
+	}
+
+	/**
+	 * @return the y component of the unit vector along the path at the closest point, 0 if the path never moves
+	 */
+	public double getTangentY() {
+		return tangentY;
+	}
+
+	/**
+	 * @return the arc length of the path up to the closest point, in millimeters
+	 */
+	public double getDistance() {
+		return distance;
+	}
+}
@@ -0,0 +1,177 @@
+package org.mercurialftc.mercurialftc.silversurfer.followable;
+
+import org.jetbrains.annotations.NotNull;
+import org.mercurialftc.mercurialftc.silversurfer.followable.markers.Marker;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * the immutable structure of a {@link Wave}, a binary tree whose leaves are runs of outputs, each starting when the one before it ends
+ * <p>joining two ropes makes a new node over both, so concatenation is O(1), and as nothing is ever modified, ropes and their leaves can be shared freely between waves</p>
+ */
+final class WaveRope {
+	/**
+	 * ropes deeper than this are rebuilt balanced when they are next joined, e.g. after many joins in a loop
+	 */
+	private static final int MAX_DEPTH = 48;
+
+	// leaves only
+	private final WaveOutputs outputs;
+	private final List<Marker> markers;
+	private final double delay;
+
+	// nodes only
+	private final WaveRope left, right;
+
+	private final double duration;
+	private final int leafCount, depth;
+
+	private WaveRope(WaveOutputs outputs, List<Marker> markers, double delay, WaveRope left, WaveRope right, double duration, int leafCount, int depth) {
+		this.outputs = outputs;
+		this.markers = markers;
+		this.delay = delay;
+		this.left = left;
+		this.right = right;
+		this.duration = duration;
+		this.leafCount = leafCount;
+		this.depth = depth;
+	}
+
+	/**
+	 * @param outputs the outputs of the leaf, with times relative to its start
+	 * @param markers the markers of the leaf, with times relative to its start, which must not be modified afterwards
+	 * @param delay   the time to hold at the end of the previous leaf before this one starts
+	 * @return a rope of a single leaf
+	 */
+	@NotNull
+	static WaveRope leaf(@NotNull WaveOutputs outputs, @NotNull List<Marker> markers, double delay) {
+		return new WaveRope(outputs, Collections.unmodifiableList(markers), delay, null, null, delay + outputs.getDuration(), 1, 0);
+	}
+
+	/**
+	 * O(1), other than an occasional rebalance
+	 *
+	 * @return a rope that runs the first, then the second
+	 */
+	@NotNull
+	static WaveRope concat(@NotNull WaveRope first, @NotNull WaveRope second) {
+		int depth = Math.max(first.depth, second.depth) + 1;
+		if (depth > MAX_DEPTH) {
+			ArrayList<WaveRope> leaves = first.getLeaves();
+			leaves.addAll(second.getLeaves());
+			return balance(leaves, 0, leaves.size());
+		}
+		return new WaveRope(null, null, 0, first, second, first.duration + second.duration, first.leafCount + second.leafCount, depth);
+	}
+
+	@NotNull
+	private static WaveRope balance(@NotNull List<WaveRope> leaves, int from, int to) {
+		if (to - from == 1) {
+			return leaves.get(from);
+		}
+		int middle = (from + to) >>> 1;
+		WaveRope first = balance(leaves, from, middle);
+		WaveRope second = balance(leaves, middle, to);
+		return new WaveRope(null, null, 0, first, second, first.duration + second.duration, first.leafCount + second.leafCount, Math.max(first.depth, second.depth) + 1);
+	}
+
+	/**
+	 * O(log times), by repeated doubling, the repeats share the leaves of this rope
+	 *
+	 * @param times the number of times to run this rope, at least 1
+	 * @return a rope that runs this one the number of times in a row
+	 */
+	@NotNull
+	WaveRope repeat(int times) {
+		if (times < 1) {
+			throw new RuntimeException("a wave must be repeated at least once");
+		}
+		WaveRope result = null;
+		WaveRope doubled = this;
+		while (true) {
+			if ((times & 1) == 1) {
+				result = result == null ? doubled : concat(result, doubled);
+			}
+			times >>>= 1;
+			if (times == 0) {
+				return result;
+			}
+			doubled = concat(doubled, doubled);
+		}
+	}
+
+	/**
+	 * O(depth)
+	 *
+	 * @param from the first leaf to keep
+	 * @param to   the leaf after the last leaf to keep
+	 * @return the leaves in the range, or null if the range is empty
+	 */
+	WaveRope slice(int from, int to) {
+		from = Math.max(from, 0);
+		to = Math.min(to, leafCount);
+		if (from >= to) {
+			return null;
+		}
+		if (from == 0 && to == leafCount) {
+			return this;
+		}
+		WaveRope first = left.slice(from, to);
+		WaveRope second = right.slice(from - left.leafCount, to - left.leafCount);
+		if (first == null) return second;
+		if (second == null) return first;
+		return concat(first, second);
+	}
+
+	/**
+	 * O(number of leaves), walks the tree without recursion, so that deep ropes are safe
+	 *
+	 * @return the leaves of the rope, in order
+	 */
+	@NotNull
+	ArrayList<WaveRope> getLeaves() {
+		ArrayList<WaveRope> leaves = new ArrayList<>(leafCount);
+		ArrayDeque<WaveRope> stack = new ArrayDeque<>();
+		stack.push(this);
+		while (!stack.isEmpty()) {
+			WaveRope rope = stack.pop();
+			if (rope.isLeaf()) {
+				leaves.add(rope);
+			} else {
+				stack.push(rope.right);
+				stack.push(rope.left);
+			}
+		}
+		return leaves;
+	}
+
+	boolean isLeaf() {
+		return left == null;
+	}
+
+	WaveOutputs getOutputs() {
+		return outputs;
+	}
+
+	List<Marker> getMarkers() {
+		return markers;
+	}
+
+	double getDelay() {
+		return delay;
+	}
+
+	/**
+	 * @return the time from the start of the rope to its last output
+	 */
+	double getDuration() {
+		return duration;
+	}
+
+	int getLeafCount() {
+		return leafCount;
+	}
+}
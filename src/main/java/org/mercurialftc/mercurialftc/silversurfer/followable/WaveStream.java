@@ -0,0 +1,111 @@
+package org.mercurialftc.mercurialftc.silversurfer.followable;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.mercurialftc.mercurialftc.silversurfer.followable.markers.Marker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * hands followables from the thread generating a streaming {@link Wave} to the thread following it
+ */
+final class WaveStream {
+	private final ConcurrentLinkedQueue<Section> sections;
+	private double generatedDuration; // guarded by this
+	private boolean complete; // guarded by this
+	private RuntimeException failure; // guarded by this
+	private volatile boolean cancelled;
+
+	WaveStream() {
+		this.sections = new ConcurrentLinkedQueue<>();
+	}
+
+	/**
+	 * called by the generating thread
+	 *
+	 * @param followable a newly built followable, its outputs and markers are copied, so it may be modified afterwards
+	 */
+	synchronized void add(@NotNull Followable followable) {
+		ArrayList<Marker> markers = new ArrayList<>(followable.getMarkers().length);
+		for (Marker marker : followable.getMarkers()) {
+			markers.add(new Marker(marker.getMarkerReached(), marker.getMarkerType(), marker.getCallbackTime()));
+		}
+		Section section = new Section(WaveOutputs.of(Arrays.asList(followable.getOutputs())), markers);
+		sections.add(section);
+		generatedDuration += section.outputs.getDuration();
+		notifyAll();
+	}
+
+	/**
+	 * called by the generating thread once it has finished, successfully or otherwise
+	 *
+	 * @param failure the reason generation failed, or null if it succeeded
+	 */
+	synchronized void finish(@Nullable RuntimeException failure) {
+		this.complete = true;
+		this.failure = failure;
+		notifyAll();
+	}
+
+	/**
+	 * blocks until at least the duration of path has been generated, or generation has finished
+	 *
+	 * @param duration the duration of path to wait for, in seconds
+	 */
+	synchronized void await(double duration) {
+		try {
+			while (!complete && (generatedDuration < duration || sections.isEmpty())) {
+				wait();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("interrupted while waiting for the wave to generate", e);
+		}
+		throwIfFailed();
+	}
+
+	synchronized boolean isComplete() {
+		return complete;
+	}
+
+	synchronized void throwIfFailed() {
+		if (failure != null) {
+			throw new RuntimeException("failed to generate the wave", failure);
+		}
+	}
+
+	/**
+	 * @return the next generated section, or null if there are none waiting
+	 */
+	@Nullable
+	Section poll() {
+		return sections.poll();
+	}
+
+	boolean isEmpty() {
+		return sections.isEmpty();
+	}
+
+	void cancel() {
+		cancelled = true;
+	}
+
+	boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * the outputs and markers of one followable, with times relative to its start
+	 */
+	static final class Section {
+		final WaveOutputs outputs;
+		final ArrayList<Marker> markers;
+
+		private Section(@NotNull WaveOutputs outputs, @NotNull ArrayList<Marker> markers) {
+			this.outputs = outputs;
+			this.markers = markers;
+		}
+	}
+}
@@ -69,59 +69,77 @@ public class CurveBuilder extends FollowableBuilder {
 		tangents[tangents.length - 1] = Vector2D.fromPolar(tempVector.getMagnitude(), tempVector.getHeading().getRadians());
 	}
 
-	private void secondHeuristic() {
-		secondDerivatives = new Vector2D[segments.size() + 1]; // there needs to be a second derivative for each point, there are 1 more points than there are segments
-
-		//do the first one
-		// −6A − 4tA − 2tB + 6B
-		Pose2D tempA = segments.get(0).getStartPose();
-		Pose2D tempB = segments.get(0).getEndPose();
+	/**
+	 * @param outputTangents the elongated tangents at each way point
+	 * @return the second derivatives at each way point
+	 */
+	private Vector2D[] secondHeuristic(Vector2D[] outputTangents) {
+		Vector2D[] secondDerivatives = new Vector2D[segments.size() + 1]; // there needs to be a second derivative for each point, there are 1 more points than there are segments
+		for (int i = 0; i < secondDerivatives.length; i++) {
+			secondDerivatives[i] = secondHeuristic(outputTangents, i);
+		}
+		return secondDerivatives;
+	}
 
-		Vector2D temp_tA = outputTangents[0];
-		Vector2D temp_tB = outputTangents[1];
+	/**
+	 * the second derivative at a single way point only depends on the tangents at it and its neighbours
+	 *
+	 * @param outputTangents the elongated tangents at each way point
+	 * @param i              the index of the way point
+	 * @return the second derivative at the way point
+	 */
+	private Vector2D secondHeuristic(Vector2D[] outputTangents, int i) {
+		if (i == 0) {
+			//do the first one
+			// −6A − 4tA − 2tB + 6B
+			Pose2D tempA = segments.get(0).getStartPose();
+			Pose2D tempB = segments.get(0).getEndPose();
 
-		double tempResultX = (-6 * tempA.getX() - 4 * temp_tA.getX() - 2 * temp_tB.getX() + 6 * tempB.getX());
-		double tempResultY = (-6 * tempA.getY() - 4 * temp_tA.getY() - 2 * temp_tB.getY() + 6 * tempB.getY());
+			Vector2D temp_tA = outputTangents[0];
+			Vector2D temp_tB = outputTangents[1];
 
-		secondDerivatives[0] = new Vector2D(tempResultX, tempResultY);
+			double tempResultX = (-6 * tempA.getX() - 4 * temp_tA.getX() - 2 * temp_tB.getX() + 6 * tempB.getX());
+			double tempResultY = (-6 * tempA.getY() - 4 * temp_tA.getY() - 2 * temp_tB.getY() + 6 * tempB.getY());
 
-		for (int i = 1; i < secondDerivatives.length - 1; i++) {
-			// α (6A + 2tA + 4tB − 6B) + β (−6B − 4tB − 2tC + 6C)
+			return new Vector2D(tempResultX, tempResultY);
+		}
 
-			double ABDistance = segments.get(i - 1).getTranslationalVector().getMagnitude();
-			double BCDistance = segments.get(i).getTranslationalVector().getMagnitude();
-			double distanceSum = ABDistance + BCDistance;
+		if (i == segments.size()) {
+			// do the last one
+			// 6A + 2tA + 4tB − 6B
+			Pose2D tempA = segments.get(segments.size() - 1).getStartPose();
+			Pose2D tempB = segments.get(segments.size() - 1).getEndPose();
 
-			double alpha = BCDistance / distanceSum;
-			double beta = ABDistance / distanceSum;
+			Vector2D temp_tA = outputTangents[i - 1];
+			Vector2D temp_tB = outputTangents[i];
 
-			Pose2D A = segments.get(i - 1).getStartPose();
-			Pose2D B = segments.get(i).getStartPose();
-			Pose2D C = segments.get(i).getEndPose();
+			double tempResultX = (6 * tempA.getX() + 2 * temp_tA.getX() + 4 * temp_tB.getX() - 6 * tempB.getX());
+			double tempResultY = (6 * tempA.getY() + 2 * temp_tA.getY() + 4 * temp_tB.getY() - 6 * tempB.getY());
 
-			Vector2D tA = outputTangents[i - 1];
-			Vector2D tB = outputTangents[i];
-			Vector2D tC = outputTangents[i + 1];
+			return new Vector2D(tempResultX, tempResultY);
+		}
 
-			double resultX = alpha * (6 * A.getX() + 2 * tA.getX() + 4 * tB.getX() - 6 * B.getX()) + beta * (-6 * B.getX() - 4 * tB.getX() - 2 * tC.getX() + 6 * C.getX());
-			double resultY = alpha * (6 * A.getY() + 2 * tA.getY() + 4 * tB.getY() - 6 * B.getY()) + beta * (-6 * B.getY() - 4 * tB.getY() - 2 * tC.getY() + 6 * C.getY());
+		// α (6A + 2tA + 4tB − 6B) + β (−6B − 4tB − 2tC + 6C)
 
-			secondDerivatives[i] = new Vector2D(resultX, resultY);
-		}
+		double ABDistance = segments.get(i - 1).getTranslationalVector().getMagnitude();
+		double BCDistance = segments.get(i).getTranslationalVector().getMagnitude();
+		double distanceSum = ABDistance + BCDistance;
 
-		// do the last one
-		// 6A + 2tA + 4tB − 6B
+		double alpha = BCDistance / distanceSum;
+		double beta = ABDistance / distanceSum;
 
-		tempA = segments.get(segments.size() - 1).getStartPose();
-		tempB = segments.get(segments.size() - 1).getEndPose();
+		Pose2D A = segments.get(i - 1).getStartPose();
+		Pose2D B = segments.get(i).getStartPose();
+		Pose2D C = segments.get(i).getEndPose();
 
-		temp_tA = outputTangents[tangents.length - 2];
-		temp_tB = outputTangents[tangents.length - 1];
+		Vector2D tA = outputTangents[i - 1];
+		Vector2D tB = outputTangents[i];
+		Vector2D tC = outputTangents[i + 1];
 
-		tempResultX = (6 * tempA.getX() + 2 * temp_tA.getX() + 4 * temp_tB.getX() - 6 * tempB.getX());
-		tempResultY = (6 * tempA.getY() + 2 * temp_tA.getY() + 4 * temp_tB.getY() - 6 * tempB.getY());
+		double resultX = alpha * (6 * A.getX() + 2 * tA.getX() + 4 * tB.getX() - 6 * B.getX()) + beta * (-6 * B.getX() - 4 * tB.getX() - 2 * tC.getX() + 6 * C.getX());
+		double resultY = alpha * (6 * A.getY() + 2 * tA.getY() + 4 * tB.getY() - 6 * B.getY()) + beta * (-6 * B.getY() - 4 * tB.getY() - 2 * tC.getY() + 6 * C.getY());
 
-		secondDerivatives[secondDerivatives.length - 1] = new Vector2D(tempResultX, tempResultY);
+		return new Vector2D(resultX, resultY);
 	}
 
 	public Followable build() {
@@ -131,7 +149,7 @@ public class CurveBuilder extends FollowableBuilder {
 		for (int i = 0; i < tangents.length; i++) {
 			elongateTangents(0.25, i);
 		}
-		secondHeuristic();
+		secondDerivatives = secondHeuristic(outputTangents);
 
 		return new FollowableCurve(
 				this,
@@ -144,8 +162,63 @@ public class CurveBuilder extends FollowableBuilder {
 
 	public QuinticBezierCurve[] getResult() {
 //		firstHeuristic(); does not need to be re-run
-		secondHeuristic();
+		secondDerivatives = secondHeuristic(outputTangents);
+
+		return buildCurves(outputTangents, secondDerivatives);
+	}
+
+	/**
+	 * builds the curves that would result from the elongation factors, without modifying the state of this builder, so may be called concurrently
+	 *
+	 * @param elongationFactors the scalar factor by which to multiply each tangent
+	 * @return the resulting curves
+	 */
+	public QuinticBezierCurve[] getResult(double[] elongationFactors) {
+		Vector2D[] outputTangents = new Vector2D[tangents.length];
+		for (int i = 0; i < tangents.length; i++) {
+			outputTangents[i] = tangents[i].scalarMultiply(elongationFactors[i]);
+		}
+		return buildCurves(outputTangents, secondHeuristic(outputTangents));
+	}
+
+	/**
+	 * rebuilds only the curves affected by a change to a single tangent, without modifying the state of this builder, so may be called concurrently
+	 * <p>the second derivative at a way point depends on the tangents either side of it, so a change to tangent i affects the second derivatives at i - 1 to i + 1, and so the curves i - 2 to i + 1</p>
+	 *
+	 * @param elongationFactors the scalar factor by which to multiply each tangent
+	 * @param previous          the curves built from the same elongation factors, except for the changed tangent
+	 * @param changedTangent    the index of the tangent that changed
+	 * @return the resulting curves, unaffected curves are shared with previous
+	 */
+	public QuinticBezierCurve[] getResult(double[] elongationFactors, QuinticBezierCurve[] previous, int changedTangent) {
+		QuinticBezierCurve[] result = previous.clone();
+		int firstCurve = Math.max(0, changedTangent - 2);
+		int lastCurve = Math.min(result.length - 1, changedTangent + 1);
+
+		Vector2D[] outputTangents = new Vector2D[tangents.length];
+		for (int i = Math.max(0, firstCurve - 1); i <= Math.min(tangents.length - 1, lastCurve + 2); i++) {
+			outputTangents[i] = tangents[i].scalarMultiply(elongationFactors[i]);
+		}
+
+		Vector2D[] secondDerivatives = new Vector2D[tangents.length];
+		for (int i = firstCurve; i <= lastCurve + 1; i++) {
+			secondDerivatives[i] = secondHeuristic(outputTangents, i);
+		}
+
+		for (int i = firstCurve; i <= lastCurve; i++) {
+			result[i] = new QuinticBezierCurve(
+					segments.get(i).getStartPose(),
+					outputTangents[i],
+					secondDerivatives[i],
+					outputTangents[i + 1],
+					secondDerivatives[i + 1],
+					segments.get(i).getEndPose()
+			);
+		}
+		return result;
+	}
 
+	private QuinticBezierCurve[] buildCurves(Vector2D[] outputTangents, Vector2D[] secondDerivatives) {
 		QuinticBezierCurve[] result = new QuinticBezierCurve[segments.size()];
 		for (int i = 0; i < result.length; i++) {
 			result[i] = new QuinticBezierCurve(
@@ -163,4 +236,11 @@ public class CurveBuilder extends FollowableBuilder {
 	public void elongateTangents(double elongationFactor, int index) {
 		outputTangents[index] = tangents[index].scalarMultiply(elongationFactor);
 	}
+
+	/**
+	 * @return the number of tangents, one more than the number of segments
+	 */
+	public int getTangentCount() {
+		return segments.size() + 1;
+	}
 }
@@ -6,7 +6,6 @@ import org.mercurialftc.mercurialftc.silversurfer.followable.curvebuilder.curve.
 import org.mercurialftc.mercurialftc.silversurfer.followable.markers.Marker;
 import org.mercurialftc.mercurialftc.silversurfer.followable.markers.MarkerBuilder;
 import org.mercurialftc.mercurialftc.silversurfer.followable.motionconstants.MecanumMotionConstants;
-import org.mercurialftc.mercurialftc.silversurfer.geometry.ArcLengthHandler;
 import org.mercurialftc.mercurialftc.silversurfer.followable.curvebuilder.motionprofile.MotionProfile;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.ObstacleMap;
 
@@ -17,7 +16,6 @@ public class FollowableCurve extends Followable {
 	private final ArrayList<MecanumMotionConstants> motionConstantsArray;
 	private final MotionProfile motionProfile;
 	private final MecanumMotionConstants absoluteMotionConstants;
-	private final double arcLength;
 	private QuinticBezierCurve[] curves;
 
 	protected FollowableCurve(@NotNull CurveBuilder curveBuilder, ArrayList<MecanumMotionConstants> motionConstantsArray, @NotNull ArrayList<MarkerBuilder> unfinishedMarkers, MecanumMotionConstants absoluteMotionConstants, ObstacleMap obstacleMap) {
@@ -28,8 +26,6 @@ public class FollowableCurve extends Followable {
 		this.motionProfile = new MotionProfile(this, obstacleMap);
 		setOutputs(motionProfile.profile()); // runs the motion profiler on this spline
 
-		arcLength = new ArcLengthHandler(this).getArcLength();
-
 		Marker[] markers = new Marker[unfinishedMarkers.size()];
 		for (int i = 0; i < unfinishedMarkers.size(); i++) {
 			markers[i] = unfinishedMarkers.get(i).build(this);
@@ -48,21 +44,27 @@ public class FollowableCurve extends Followable {
 	}
 
 	/**
-	 * @param i the index of the control point used to generate this curve
-	 * @return the output that closely corresponds to the control point index passed in;
+	 * elongates every tangent at once, only rebuilding the curves once
+	 *
+	 * @param elongationFactors the scalar factor by which to multiply each tangent
+	 */
+	public void elongateTangents(double[] elongationFactors) {
+		for (int i = 0; i < elongationFactors.length; i++) {
+			curveBuilder.elongateTangents(elongationFactors[i], i);
+		}
+		this.curves = curveBuilder.getResult();
+	}
+
+	/**
+	 * @param i the index of the curve
+	 * @return the output at the end of the curve, or the first output if the index is negative
 	 */
 	public Output getOutputFromIndex(int i) {
 		if (i < 0) {
 			return getOutputs()[0];
 		}
 
-		int outputIndex = (int) (arcLength / motionProfile.getArcSegmentLength());
-
-		if (outputIndex > getOutputs().length) {
-			return getOutputs()[getOutputs().length - 1];
-		}
-
-		return getOutputs()[outputIndex];
+		return getOutputs()[motionProfile.getCurveEndIndex(Math.min(i, curves.length - 1))];
 	}
 
 	public QuinticBezierCurve[] getCurves() {
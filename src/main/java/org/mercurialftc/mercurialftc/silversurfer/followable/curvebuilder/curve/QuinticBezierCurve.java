@@ -8,6 +8,9 @@ public class QuinticBezierCurve {
 	private final Pose2D startPose;
 	private final Pose2D endPose;
 	private final Vector2D p1, p2, p3, p4;
+	// monomial coefficients of x(t) and y(t), lowest power first
+	private final double x0, x1, x2, x3, x4, x5;
+	private final double y0, y1, y2, y3, y4, y5;
 
 	public QuinticBezierCurve(@NotNull Pose2D startPose, @NotNull Vector2D ts, @NotNull Vector2D as, @NotNull Vector2D te, @NotNull Vector2D ae, @NotNull Pose2D endPose) {
 		this.startPose = startPose;
@@ -20,6 +23,25 @@ public class QuinticBezierCurve {
 
 		this.p4 = new Vector2D(p5.getX() - 0.2 * te.getX(), p5.getY() - 0.2 * te.getY());
 		this.p3 = new Vector2D(0.05 * ae.getX() + 2 * p4.getX() - p5.getX(), 0.05 * ae.getY() + 2 * p4.getY() - p5.getY());
+
+		// the bernstein basis expanded into powers of t, so that evaluation is a horner's rule polynomial
+		x0 = p0.getX();
+		y0 = p0.getY();
+		// −5P0 + 5P1
+		x1 = -5 * p0.getX() + 5 * p1.getX();
+		y1 = -5 * p0.getY() + 5 * p1.getY();
+		// 10P0 − 20P1 + 10P2
+		x2 = 10 * p0.getX() - 20 * p1.getX() + 10 * p2.getX();
+		y2 = 10 * p0.getY() - 20 * p1.getY() + 10 * p2.getY();
+		// −10P0 + 30P1 − 30P2 + 10P3
+		x3 = -10 * p0.getX() + 30 * p1.getX() - 30 * p2.getX() + 10 * p3.getX();
+		y3 = -10 * p0.getY() + 30 * p1.getY() - 30 * p2.getY() + 10 * p3.getY();
+		// 5P0 − 20P1 + 30P2 − 20P3 + 5P4
+		x4 = 5 * p0.getX() - 20 * p1.getX() + 30 * p2.getX() - 20 * p3.getX() + 5 * p4.getX();
+		y4 = 5 * p0.getY() - 20 * p1.getY() + 30 * p2.getY() - 20 * p3.getY() + 5 * p4.getY();
+		// −P0 + 5P1 − 10P2 + 10P3 − 5P4 + P5
+		x5 = -p0.getX() + 5 * p1.getX() - 10 * p2.getX() + 10 * p3.getX() - 5 * p4.getX() + p5.getX();
+		y5 = -p0.getY() + 5 * p1.getY() - 10 * p2.getY() + 10 * p3.getY() - 5 * p4.getY() + p5.getY();
 	}
 
 	public Pose2D getStartPose() {
@@ -35,143 +57,73 @@ public class QuinticBezierCurve {
 	 * @return the resulting vector at this point in the curve
 	 */
 	public Vector2D result(double t) {
-		double[] ts = new double[5];
-		ts[0] = t;
-		for (int i = 1; i < ts.length; i++) {
-			ts[i] = ts[i - 1] * t;
-		}
-
-		double[] xComponents = new double[]{
-				startPose.getX(),
-				p1.getX(),
-				p2.getX(),
-				p3.getX(),
-				p4.getX(),
-				endPose.getX()
-		};
-		double[] yComponents = new double[]{
-				startPose.getY(),
-				p1.getY(),
-				p2.getY(),
-				p3.getY(),
-				p4.getY(),
-				endPose.getY()
-		};
-
-		double x = xComponents[0];
-		double y = yComponents[0];
-
-		// −5P0 + 5P1
-		x += ts[0] * (-5 * xComponents[0] + 5 * xComponents[1]);
-		y += ts[0] * (-5 * yComponents[0] + 5 * yComponents[1]);
-
-		// 10P0 − 20P1 + 10P2
-		x += ts[1] * (10 * xComponents[0] - 20 * xComponents[1] + 10 * xComponents[2]);
-		y += ts[1] * (10 * yComponents[0] - 20 * yComponents[1] + 10 * yComponents[2]);
-
-		// −10P0 + 30P1 − 30P2 + 10P3
-		x += ts[2] * (-10 * xComponents[0] + 30 * xComponents[1] - 30 * xComponents[2] + 10 * xComponents[3]);
-		y += ts[2] * (-10 * yComponents[0] + 30 * yComponents[1] - 30 * yComponents[2] + 10 * yComponents[3]);
-
-		// 5P0 − 20P1 + 30P2 − 20P3 + 5P4
-		x += ts[3] * (5 * xComponents[0] - 20 * xComponents[1] + 30 * xComponents[2] - 20 * xComponents[3] + 5 * xComponents[4]);
-		y += ts[3] * (5 * yComponents[0] - 20 * yComponents[1] + 30 * yComponents[2] - 20 * yComponents[3] + 5 * yComponents[4]);
-
-		// −P0 + 5P1 − 10P2 + 10P3 − 5P4 + P5
-		x += ts[4] * (-xComponents[0] + 5 * xComponents[1] - 10 * xComponents[2] + 10 * xComponents[3] - 5 * xComponents[4] + xComponents[5]);
-		y += ts[4] * (-yComponents[0] + 5 * yComponents[1] - 10 * yComponents[2] + 10 * yComponents[3] - 5 * yComponents[4] + yComponents[5]);
-
-		return new Vector2D(x, y);
+		return new Vector2D(resultX(t), resultY(t));
 	}
 
 	public Vector2D firstDerivative(double t) {
-		double[] ts = new double[4];
-		ts[0] = t;
-		for (int i = 1; i < ts.length; i++) {
-			ts[i] = ts[i - 1] * t;
-		}
-
-		double[] xComponents = new double[]{
-				startPose.getX(),
-				p1.getX(),
-				p2.getX(),
-				p3.getX(),
-				p4.getX(),
-				endPose.getX()
-		};
-		double[] yComponents = new double[]{
-				startPose.getY(),
-				p1.getY(),
-				p2.getY(),
-				p3.getY(),
-				p4.getY(),
-				endPose.getY()
-		};
-
-		// −5P0 + 5P1
-		double x = (-5 * xComponents[0] + 5 * xComponents[1]);
-		double y = (-5 * yComponents[0] + 5 * yComponents[1]);
-
-		// 10P0 − 20P1 + 10P2
-		x += 2 * ts[0] * (10 * xComponents[0] - 20 * xComponents[1] + 10 * xComponents[2]);
-		y += 2 * ts[0] * (10 * yComponents[0] - 20 * yComponents[1] + 10 * yComponents[2]);
-
-		// −10P0 + 30P1 − 30P2 + 10P3
-		x += 3 * ts[1] * (-10 * xComponents[0] + 30 * xComponents[1] - 30 * xComponents[2] + 10 * xComponents[3]);
-		y += 3 * ts[1] * (-10 * yComponents[0] + 30 * yComponents[1] - 30 * yComponents[2] + 10 * yComponents[3]);
-
-		// 5P0 − 20P1 + 30P2 − 20P3 + 5P4
-		x += 4 * ts[2] * (5 * xComponents[0] - 20 * xComponents[1] + 30 * xComponents[2] - 20 * xComponents[3] + 5 * xComponents[4]);
-		y += 4 * ts[2] * (5 * yComponents[0] - 20 * yComponents[1] + 30 * yComponents[2] - 20 * yComponents[3] + 5 * yComponents[4]);
-
-		// −P0 + 5P1 − 10P2 + 10P3 − 5P4 + P5
-		x += 5 * ts[3] * (-xComponents[0] + 5 * xComponents[1] - 10 * xComponents[2] + 10 * xComponents[3] - 5 * xComponents[4] + xComponents[5]);
-		y += 5 * ts[3] * (-yComponents[0] + 5 * yComponents[1] - 10 * yComponents[2] + 10 * yComponents[3] - 5 * yComponents[4] + yComponents[5]);
-
-		return new Vector2D(x, y);
+		return new Vector2D(firstDerivativeX(t), firstDerivativeY(t));
 	}
 
 	public Vector2D secondDerivative(double t) {
-		double[] ts = new double[3];
-		ts[0] = t;
-		for (int i = 1; i < ts.length; i++) {
-			ts[i] = ts[i - 1] * t;
-		}
+		return new Vector2D(secondDerivativeX(t), secondDerivativeY(t));
+	}
+
+	/**
+	 * allocation free
+	 *
+	 * @param t the internal position within the curve in the domain [0, 1]
+	 * @return the x component of the resulting vector at this point in the curve
+	 */
+	public double resultX(double t) {
+		return x0 + t * (x1 + t * (x2 + t * (x3 + t * (x4 + t * x5))));
+	}
 
-		double[] xComponents = new double[]{
-				startPose.getX(),
-				p1.getX(),
-				p2.getX(),
-				p3.getX(),
-				p4.getX(),
-				endPose.getX()
-		};
-		double[] yComponents = new double[]{
-				startPose.getY(),
-				p1.getY(),
-				p2.getY(),
-				p3.getY(),
-				p4.getY(),
-				endPose.getY()
-		};
+	/**
+	 * allocation free
+	 *
+	 * @param t the internal position within the curve in the domain [0, 1]
+	 * @return the y component of the resulting vector at this point in the curve
+	 */
+	public double resultY(double t) {
+		return y0 + t * (y1 + t * (y2 + t * (y3 + t * (y4 + t * y5))));
+	}
 
-		// 10P0 − 20P1 + 10P2
-		double x = 2 * (10 * xComponents[0] - 20 * xComponents[1] + 10 * xComponents[2]);
-		double y = 2 * (10 * yComponents[0] - 20 * yComponents[1] + 10 * yComponents[2]);
+	/**
+	 * allocation free
+	 */
+	public double firstDerivativeX(double t) {
+		return x1 + t * (2 * x2 + t * (3 * x3 + t * (4 * x4 + t * 5 * x5)));
+	}
 
-		// −10P0 + 30P1 − 30P2 + 10P3
-		x += 6 * ts[0] * (-10 * xComponents[0] + 30 * xComponents[1] - 30 * xComponents[2] + 10 * xComponents[3]);
-		y += 6 * ts[0] * (-10 * yComponents[0] + 30 * yComponents[1] - 30 * yComponents[2] + 10 * yComponents[3]);
+	/**
+	 * allocation free
+	 */
+	public double firstDerivativeY(double t) {
+		return y1 + t * (2 * y2 + t * (3 * y3 + t * (4 * y4 + t * 5 * y5)));
+	}
 
-		// 5P0 − 20P1 + 30P2 − 20P3 + 5P4
-		x += 12 * ts[1] * (5 * xComponents[0] - 20 * xComponents[1] + 30 * xComponents[2] - 20 * xComponents[3] + 5 * xComponents[4]);
-		y += 12 * ts[1] * (5 * yComponents[0] - 20 * yComponents[1] + 30 * yComponents[2] - 20 * yComponents[3] + 5 * yComponents[4]);
+	/**
+	 * allocation free
+	 */
+	public double secondDerivativeX(double t) {
+		return 2 * x2 + t * (6 * x3 + t * (12 * x4 + t * 20 * x5));
+	}
 
-		// −P0 + 5P1 − 10P2 + 10P3 − 5P4 + P5
-		x += 20 * ts[2] * (-xComponents[0] + 5 * xComponents[1] - 10 * xComponents[2] + 10 * xComponents[3] - 5 * xComponents[4] + xComponents[5]);
-		y += 20 * ts[2] * (-yComponents[0] + 5 * yComponents[1] - 10 * yComponents[2] + 10 * yComponents[3] - 5 * yComponents[4] + yComponents[5]);
+	/**
+	 * allocation free
+	 */
+	public double secondDerivativeY(double t) {
+		return 2 * y2 + t * (6 * y3 + t * (12 * y4 + t * 20 * y5));
+	}
 
-		return new Vector2D(x, y);
+	/**
+	 * allocation free
+	 *
+	 * @param t the internal position within the curve in the domain [0, 1]
+	 * @return the magnitude of the first derivative, the rate of change of arc length with respect to t
+	 */
+	public double speed(double t) {
+		return Math.hypot(firstDerivativeX(t), firstDerivativeY(t));
 	}
 
 	/**
@@ -179,11 +131,54 @@ public class QuinticBezierCurve {
 	 * @return the resulting curvature at this point in the curve
 	 */
 	public double findCurvature(double t) {
-		Vector2D firstDerivative = firstDerivative(t);
-		Vector2D secondDerivative = secondDerivative(t);
+		double dx = firstDerivativeX(t);
+		double dy = firstDerivativeY(t);
+		double ddx = secondDerivativeX(t);
+		double ddy = secondDerivativeY(t);
+
+		double denominator = Math.hypot(dx, dy);
 
-		double denominator = firstDerivative.getMagnitude();
+		return (dx * ddy - dy * ddx) / (denominator * denominator * denominator);
+	}
 
-		return (firstDerivative.getX() * secondDerivative.getY() - firstDerivative.getY() * secondDerivative.getX()) / (denominator * denominator * denominator);
+	/**
+	 * evaluates the curve at many points at once, allocation free
+	 *
+	 * @param ts         the internal positions within the curve in the domain [0, 1]
+	 * @param xs         filled with the x components of the results
+	 * @param ys         filled with the y components of the results
+	 * @param tangentXs  filled with the x components of the first derivatives
+	 * @param tangentYs  filled with the y components of the first derivatives
+	 * @param curvatures filled with the curvatures
+	 */
+	public void sample(@NotNull double[] ts, @NotNull double[] xs, @NotNull double[] ys, @NotNull double[] tangentXs, @NotNull double[] tangentYs, @NotNull double[] curvatures) {
+		for (int i = 0; i < ts.length; i++) {
+			double t = ts[i];
+			double dx = firstDerivativeX(t);
+			double dy = firstDerivativeY(t);
+			double ddx = secondDerivativeX(t);
+			double ddy = secondDerivativeY(t);
+			double speed = Math.hypot(dx, dy);
+
+			xs[i] = resultX(t);
+			ys[i] = resultY(t);
+			tangentXs[i] = dx;
+			tangentYs[i] = dy;
+			curvatures[i] = (dx * ddy - dy * ddx) / (speed * speed * speed);
+		}
+	}
+
+	/**
+	 * evaluates the first derivative of the curve at many points at once, allocation free
+	 *
+	 * @param ts the internal positions within the curve in the domain [0, 1]
+	 * @param xs filled with the x components of the first derivatives
+	 * @param ys filled with the y components of the first derivatives
+	 */
+	public void firstDerivatives(@NotNull double[] ts, @NotNull double[] xs, @NotNull double[] ys) {
+		for (int i = 0; i < ts.length; i++) {
+			xs[i] = firstDerivativeX(ts[i]);
+			ys[i] = firstDerivativeY(ts[i]);
+		}
 	}
 }
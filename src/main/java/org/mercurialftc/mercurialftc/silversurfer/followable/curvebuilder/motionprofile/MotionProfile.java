@@ -1,8 +1,10 @@
 package org.mercurialftc.mercurialftc.silversurfer.followable.curvebuilder.motionprofile;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.mercurialftc.mercurialftc.silversurfer.followable.Followable;
 import org.mercurialftc.mercurialftc.silversurfer.followable.curvebuilder.FollowableCurve;
+import org.mercurialftc.mercurialftc.silversurfer.followable.curvebuilder.curve.QuinticBezierCurve;
 import org.mercurialftc.mercurialftc.silversurfer.followable.motionconstants.MecanumMotionConstants;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.angle.AngleRadians;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.ArcLengthHandler;
@@ -10,250 +12,1001 @@ import org.mercurialftc.mercurialftc.silversurfer.geometry.Pose2D;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.Vector2D;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.ObstacleMap;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  * motion profile for splines
+ * <p>the tangents of the spline are optimised to minimise the time taken to follow it, within a fixed budget of profile evaluations, see {@link Search} for the available searches</p>
+ * <p>each curve of the spline is sampled separately, and its samples are cached, so a candidate that changes a single tangent only resamples the curves that the tangent affects, the velocity passes over the cached samples are then cheap</p>
+ * <p>the velocity along the spline is a time optimal parameterisation of the path, subject to:</p>
+ * <ul>
+ *     <li>the wheel speed limits of the drive base, which are shared between translation, limited by the direction of travel, and the rotation needed to keep the robot's heading on track</li>
+ *     <li>the acceleration limits of the drive base, which are shared between speeding up along the path, the centripetal acceleration of its curvature, and rotational acceleration</li>
+ *     <li>being able to stop before the closest obstacle</li>
+ * </ul>
+ * <p>the heading of the robot along each curve is a cubic in the distance travelled along it, reaching the heading at the end of each curve, with its rate of change continuous between curves, so the rotational velocity follows from the translational velocity</p>
+ * <p>curves are sampled adaptively, densely where the curvature or the limits change quickly, and sparsely along straights, the outputs are then subdivided in time wherever the velocity changes too quickly for the follower to interpolate between them, see {@link #POSITION_TOLERANCE}</p>
  */
 public class MotionProfile {
+	/**
+	 * the default number of profile evaluations allowed per tangent of the spline
+	 */
+	public static final int EVALUATIONS_PER_TANGENT = 24;
+	private static final double MIN_SEGMENT_LENGTH = 2.5; // millimeters
+	private static final double MAX_SEGMENT_LENGTH = 50; // millimeters
+	/**
+	 * the furthest, in millimeters, that interpolating linearly between outputs may stray from the profiled path, both from the curvature of the path and from the acceleration along it
+	 */
+	private static final double POSITION_TOLERANCE = 0.5;
+	/**
+	 * the most, in millimeters per second, that the velocity limit may change between samples
+	 */
+	private static final double VELOCITY_TOLERANCE = 10;
+	/**
+	 * the most, as a fraction, that the acceleration limit may change between samples
+	 */
+	private static final double ACCELERATION_TOLERANCE = 0.02;
+	/**
+	 * the elongation factor every tangent starts from, the same as before the tangents were searched within a budget, so splines that are not optimised further keep their shape
+	 */
+	private static final double INITIAL_ELONGATION_FACTOR = 2.5;
+	private static final double MIN_ELONGATION_FACTOR = 0.05;
+	private static final double MAX_ELONGATION_FACTOR = 4;
+	private static final double INITIAL_STEP = 1;
+	private static final double MIN_STEP = 0.01;
+	/**
+	 * a sweep of the golden section search that improves the duration by less than this fraction has converged
+	 */
+	private static final double RELATIVE_TOLERANCE = 1e-4;
+	/**
+	 * each line search of the golden section search narrows its bracket to this fraction of the tangent's step, so early sweeps are coarse
+	 */
+	private static final double LINE_SEARCH_TOLERANCE = 0.5;
+	private static final double INVERSE_GOLDEN_RATIO = (Math.sqrt(5) - 1) / 2;
+	/**
+	 * the tangents of a sweep of the golden section search are only searched concurrently while each can be given at least this many evaluations
+	 */
+	private static final int MIN_LINE_SEARCH_EVALUATIONS = 4;
 	private final FollowableCurve spline;
 	private final ObstacleMap obstacleMap;
+	private final ForkJoinPool forkJoinPool;
+	private final int evaluationBudget;
+	private final Search search;
 	private double arcSegmentLength;
-	private ArcLengthHandler arcLengthHandler;
+	private int evaluations;
+	private boolean converged;
+	private double[] convergence;
+	private double[] best;
+	private Profile bestProfile;
+	private int[] curveEndIndices;
 
 	public MotionProfile(FollowableCurve spline, ObstacleMap obstacleMap) {
+		this(spline, obstacleMap, ForkJoinPool.commonPool(), EVALUATIONS_PER_TANGENT * (spline.getCurves().length + 1));
+	}
+
+	/**
+	 * @param spline           the spline to profile
+	 * @param obstacleMap      the obstacle map used to limit velocity near obstacles
+	 * @param forkJoinPool     the pool that candidate profiles are evaluated on
+	 * @param evaluationBudget the maximum number of profiles that will be evaluated while optimising the tangents
+	 */
+	public MotionProfile(FollowableCurve spline, ObstacleMap obstacleMap, @NotNull ForkJoinPool forkJoinPool, int evaluationBudget) {
+		this(spline, obstacleMap, forkJoinPool, evaluationBudget, Search.GOLDEN_SECTION);
+	}
+
+	/**
+	 * @param spline           the spline to profile
+	 * @param obstacleMap      the obstacle map used to limit velocity near obstacles
+	 * @param forkJoinPool     the pool that candidate profiles are evaluated on
+	 * @param evaluationBudget the maximum number of profiles that will be evaluated while optimising the tangents
+	 * @param search           the search used to optimise the tangents
+	 */
+	public MotionProfile(FollowableCurve spline, ObstacleMap obstacleMap, @NotNull ForkJoinPool forkJoinPool, int evaluationBudget, @NotNull Search search) {
 		this.spline = spline;
 		this.obstacleMap = obstacleMap;
+		this.forkJoinPool = forkJoinPool;
+		this.evaluationBudget = evaluationBudget;
+		this.search = search;
 	}
 
+	/**
+	 * @return the average arc length between outputs
+	 */
 	public double getArcSegmentLength() {
 		return arcSegmentLength;
 	}
 
-	public Followable.Output[] profile() {
-		return optimise();
+	/**
+	 * @param curve the index of the curve
+	 * @return the index of the output at the end of the curve, from the last call to {@link #profile()}
+	 */
+	public int getCurveEndIndex(int curve) {
+		return curveEndIndices[curve];
 	}
 
-	private Followable.Output[] optimise() {
-		double startTime = System.nanoTime() / 1E9; //current relative time in seconds
-		double allowableOptimisationTime = 0.3 + (spline.getCurves().length + 1) * 0.1; //seconds
+	/**
+	 * @return the number of profiles evaluated by the last call to {@link #profile()}
+	 */
+	public int getEvaluations() {
+		return evaluations;
+	}
 
-		double optimisationThreshold = 0.01;
+	/**
+	 * @return true if the last call to {@link #profile()} stopped because the search converged, rather than because it ran out of evaluations
+	 */
+	public boolean isConverged() {
+		return converged;
+	}
 
-		double[] deltaSteps = new double[spline.getCurves().length + 1];
-		Arrays.fill(deltaSteps, 2);
-		double[] elongationFactors = new double[spline.getCurves().length + 1];
-		Arrays.fill(elongationFactors, 2.5);
+	/**
+	 * @return the duration of the best profile found after each evaluation of the last call to {@link #profile()}, in seconds
+	 */
+	public double[] getConvergence() {
+		return Arrays.copyOf(convergence, evaluations);
+	}
 
-		this.arcLengthHandler = new ArcLengthHandler(spline);
+	/**
+	 * optimises the tangents of the spline, leaving the spline with the best tangents found
+	 *
+	 * @return the profile of the spline
+	 */
+	public Followable.Output[] profile() {
+		int tangents = spline.getCurves().length + 1; //there are one more tangents than there are segments/curves
+
+		best = new double[tangents];
+		Arrays.fill(best, INITIAL_ELONGATION_FACTOR);
+		convergence = new double[Math.max(1, evaluationBudget)];
+		evaluations = 0;
+		converged = false;
+		bestProfile = null;
+		record(best, evaluate(best));
+
+		switch (search) {
+			case COMPASS:
+				compassSearch(tangents);
+				break;
+			case GOLDEN_SECTION:
+				goldenSectionSearch(tangents);
+				break;
+		}
 
-		Followable.Output[] bestTrajectory = finaliseProfile();
-		while ((System.nanoTime() / 1E9) <= (startTime + allowableOptimisationTime)) {
-			for (int i = 0; i < spline.getCurves().length + 1; i++) { //there are one more tangents than there are segments/curves
-				Followable.Output[] currentTrajectory;
+		spline.elongateTangents(best);
 
-				double error = Double.POSITIVE_INFINITY;
+		Profile result = bestProfile;
+		bestProfile = null;
+		Followable.Output[] outputs = finaliseProfile(result);
+		arcSegmentLength = result.arcLengthHandler.getArcLength() / (outputs.length - 1);
+		return outputs;
+	}
 
-				while (error > optimisationThreshold) {
-					spline.elongateTangents(elongationFactors[i], i);
+	/**
+	 * profiles the spline that would result from the elongation factors, without modifying the spline, so may be called concurrently
+	 *
+	 * @param elongationFactors the scalar factor by which to multiply each tangent
+	 * @return the resulting profile
+	 */
+	@NotNull
+	private Profile evaluate(@NotNull double[] elongationFactors) {
+		QuinticBezierCurve[] curves = spline.getCurveBuilder().getResult(elongationFactors);
+		return new Profile(curves, new ArcLengthHandler(curves), null);
+	}
 
-					this.arcLengthHandler = new ArcLengthHandler(spline);
+	/**
+	 * profiles the spline that would result from changing a single tangent of a previous profile, only the curves the tangent affects are resampled
+	 *
+	 * @param previous          the profile to change
+	 * @param elongationFactors the scalar factor by which to multiply each tangent
+	 * @param changedTangent    the index of the tangent that differs from the previous profile
+	 * @return the resulting profile
+	 */
+	@NotNull
+	private Profile evaluate(@NotNull Profile previous, @NotNull double[] elongationFactors, int changedTangent) {
+		QuinticBezierCurve[] curves = spline.getCurveBuilder().getResult(elongationFactors, previous.curves, changedTangent);
+		return new Profile(curves, new ArcLengthHandler(curves, previous.arcLengthHandler), previous);
+	}
 
-					currentTrajectory = finaliseProfile();
+	/**
+	 * counts an evaluation, moving to it if it is strictly better than the best so far
+	 */
+	private void record(@NotNull double[] elongationFactors, @NotNull Profile profile) {
+		if (bestProfile == null || profile.getDuration() < bestProfile.getDuration()) {
+			best = elongationFactors;
+			bestProfile = profile;
+		}
+		convergence[evaluations] = bestProfile.getDuration();
+		evaluations++;
+	}
+
+	private boolean hasBudget(int count) {
+		return evaluations + count <= evaluationBudget;
+	}
+
+	/**
+	 * a parallel compass search, every tangent is stepped up and down by the current step size at once, and the best candidate is moved to, if none improve on the current best the step size is halved
+	 * <p>candidates are compared in a fixed order, so the result does not depend on the order in which the evaluations complete</p>
+	 */
+	private void compassSearch(int tangents) {
+		double step = INITIAL_STEP;
+
+		while (hasBudget(1) && step >= MIN_STEP) {
+			ArrayList<double[]> candidates = new ArrayList<>(2 * tangents);
+			ArrayList<Integer> changedTangents = new ArrayList<>(2 * tangents);
+			for (int i = 0; i < tangents && hasBudget(candidates.size() + 1); i++) {
+				for (int direction = -1; direction <= 1 && hasBudget(candidates.size() + 1); direction += 2) {
+					double elongationFactor = clamp(best[i] + direction * step);
+					if (elongationFactor == best[i]) continue;
+					double[] candidate = best.clone();
+					candidate[i] = elongationFactor;
+					candidates.add(candidate);
+					changedTangents.add(i);
+				}
+			}
 
-					double currentTime = currentTrajectory[currentTrajectory.length - 1].getCallbackTime();
-					double bestTime = bestTrajectory[bestTrajectory.length - 1].getCallbackTime();
+			if (candidates.isEmpty()) {
+				step *= 0.5;
+				continue;
+			}
 
-					if (currentTime < bestTime) {
-						bestTrajectory = currentTrajectory;
-						break;
-					}
+			Profile previousBest = bestProfile;
+			Profile[] profiles = evaluateAll(bestProfile, candidates, changedTangents);
+			for (int i = 0; i < profiles.length; i++) {
+				record(candidates.get(i), profiles[i]);
+			}
 
-					error = bestTime - currentTime; // positive is an improvement
+			if (bestProfile == previousBest) {
+				step *= 0.5;
+			}
+		}
 
-					int errorSignum = (int) Math.signum(error);
+		converged = step < MIN_STEP;
+	}
 
-					if (errorSignum < 0) {
-						elongationFactors[i] -= deltaSteps[i];
-						deltaSteps[i] *= 0.5;
-					}
-					elongationFactors[i] += deltaSteps[i];
+	/**
+	 * a golden section search per tangent, each sweep searches every tangent concurrently from the same starting point, then moves all of them at once
+	 * <p>a tangent only reshapes the curves near it, but the velocity passes couple the whole spline, so the combined move is evaluated as well, if it is no better than the best single tangent's move, half of it is tried, and failing that only the single move is kept</p>
+	 * <p>each tangent keeps its own bracket size, which starts at {@link #INITIAL_STEP}, and is then twice the distance the tangent last moved, but at least half its previous size, so brackets shrink as the search settles</p>
+	 * <p>converges once a sweep improves the duration by less than {@link #RELATIVE_TOLERANCE}, or every bracket is narrower than {@link #MIN_STEP}</p>
+	 * <p>evaluations are recorded in tangent order once every line search of the sweep has finished, so the result does not depend on the order in which they complete, and the duration never increases</p>
+	 */
+	private void goldenSectionSearch(int tangents) {
+		double[] steps = new double[tangents];
+		Arrays.fill(steps, INITIAL_STEP);
+
+		while (hasBudget(1)) {
+			double sweepStart = bestProfile.getDuration();
+			LineSearch[] lineSearches = new LineSearch[tangents];
+
+			// two evaluations are kept back for the combined move
+			int share = (evaluationBudget - evaluations - 2) / tangents;
+			if (share >= MIN_LINE_SEARCH_EVALUATIONS) {
+				double[] base = best;
+				Profile baseProfile = bestProfile;
+				ArrayList<Callable<LineSearch>> tasks = new ArrayList<>(tangents);
+				for (int i = 0; i < tangents; i++) {
+					lineSearches[i] = new LineSearch(base, baseProfile, i, steps[i], share);
+					tasks.add(lineSearches[i]);
 				}
+				invokeAll(tasks);
+				for (LineSearch lineSearch : lineSearches) {
+					lineSearch.recordAll();
+				}
+				recordCombined(base, baseProfile, lineSearches);
+			} else {
+				// too little budget is left to share out, so the tangents are searched one after another, each from the best so far
+				for (int i = 0; i < tangents && hasBudget(1); i++) {
+					lineSearches[i] = new LineSearch(best, bestProfile, i, steps[i], evaluationBudget - evaluations);
+					lineSearches[i].call();
+					lineSearches[i].recordAll();
+				}
+			}
 
+			double largestStep = 0;
+			for (int i = 0; i < tangents; i++) {
+				if (lineSearches[i] != null) {
+					steps[i] = Math.min(INITIAL_STEP, Math.max(2 * lineSearches[i].getDistanceMoved(), 0.5 * steps[i]));
+				}
+				largestStep = Math.max(largestStep, steps[i]);
 			}
 
-		}
+			if (!hasBudget(1)) return;
 
-		return bestTrajectory;
+			if (sweepStart - bestProfile.getDuration() < RELATIVE_TOLERANCE * sweepStart || largestStep < MIN_STEP) {
+				converged = true;
+				return;
+			}
+		}
 	}
 
-	@NotNull
-	private Followable.Output[] finaliseProfile() {
-		int plannedPoints = divideArcLength() + 1;
+	/**
+	 * evaluates the move of every tangent whose line search improved on the base at once, if that overshoots the best single move, half of the combined move is tried as well
+	 */
+	private void recordCombined(@NotNull double[] base, @NotNull Profile baseProfile, @NotNull LineSearch[] lineSearches) {
+		int moved = 0;
+		for (LineSearch lineSearch : lineSearches) {
+			if (lineSearch.isImproved()) moved++;
+		}
+		// a single move has already been recorded
+		if (moved < 2) return;
 
-		Followable.Output[] outputs = new Followable.Output[plannedPoints];
+		for (double fraction = 1; fraction >= 0.5 && hasBudget(1); fraction -= 0.5) {
+			Profile previousBest = bestProfile;
+			recordCombined(base, baseProfile, lineSearches, fraction);
+			if (bestProfile != previousBest) return;
+		}
+	}
 
-		// forwards pass for initial velocity and forwards acceleration
+	/**
+	 * records the move of every tangent whose line search improved on the base, scaled by the fraction, only the curves near the moved tangents are rebuilt
+	 */
+	private void recordCombined(@NotNull double[] base, @NotNull Profile baseProfile, @NotNull LineSearch[] lineSearches, double fraction) {
+		double[] combined = base.clone();
+		for (LineSearch lineSearch : lineSearches) {
+			if (lineSearch.isImproved()) {
+				combined[lineSearch.tangent] += fraction * (lineSearch.bestFactor - base[lineSearch.tangent]);
+			}
+		}
 
-		ArcLengthHandler.ArcLengthRelationship previousCurveFromArcLength = arcLengthHandler.findCurveFromArcLength(0);
+		QuinticBezierCurve[] curves = baseProfile.curves;
+		for (LineSearch lineSearch : lineSearches) {
+			if (lineSearch.isImproved()) {
+				curves = spline.getCurveBuilder().getResult(combined, curves, lineSearch.tangent);
+			}
+		}
+		record(combined, new Profile(curves, new ArcLengthHandler(curves, baseProfile.arcLengthHandler), baseProfile));
+	}
 
-		// handles first case
-		outputs[0] = new Followable.Output(
-				Vector2D.fromPolar(0, previousCurveFromArcLength.getFirstDerivative().getHeading()), // the velocity output
-				0,
-				0,
-				previousCurveFromArcLength.getCurve().getStartPose(),
-				previousCurveFromArcLength.getCurve().getStartPose()
-		);
+	@NotNull
+	private static double[] withFactor(@NotNull double[] elongationFactors, int tangent, double elongationFactor) {
+		double[] result = elongationFactors.clone();
+		result[tangent] = elongationFactor;
+		return result;
+	}
 
-		double previousVelocity = 0;
+	private static double clamp(double elongationFactor) {
+		return Math.max(MIN_ELONGATION_FACTOR, Math.min(elongationFactor, MAX_ELONGATION_FACTOR));
+	}
 
-		for (int i = 1; i < plannedPoints; i++) {
-			ArcLengthHandler.ArcLengthRelationship curveFromArcLength = arcLengthHandler.findCurveFromArcLength(i * arcSegmentLength);
+	@NotNull
+	private Profile[] evaluateAll(@NotNull Profile previous, @NotNull ArrayList<double[]> candidates, @NotNull ArrayList<Integer> changedTangents) {
+		ArrayList<Callable<Profile>> tasks = new ArrayList<>(candidates.size());
+		for (int i = 0; i < candidates.size(); i++) {
+			double[] candidate = candidates.get(i);
+			int changedTangent = changedTangents.get(i);
+			tasks.add(() -> evaluate(previous, candidate, changedTangent));
+		}
 
-			MecanumMotionConstants motionConstants = spline.getMotionConstantsArray().get(curveFromArcLength.getCurveIndex());
+		List<Profile> results = invokeAll(tasks);
+		return results.toArray(new Profile[0]);
+	}
 
-			MecanumMotionConstants.DirectionOfTravelLimiter directionOfTravelLimiter = motionConstants.makeDirectionOfTravelLimiter(curveFromArcLength.getFirstDerivative().getHeading());
+	/**
+	 * runs the tasks on the pool, and waits for all of them
+	 *
+	 * @return the results of the tasks, in order
+	 */
+	@NotNull
+	private <T> List<T> invokeAll(@NotNull ArrayList<Callable<T>> tasks) {
+		List<Future<T>> futures = forkJoinPool.invokeAll(tasks);
 
-			double vMax = directionOfTravelLimiter.getVelocity();
+		ArrayList<T> results = new ArrayList<>(futures.size());
+		try {
+			for (int i = 0; i < futures.size(); i++) {
+				results.add(futures.get(i).get());
+			}
+		} catch (InterruptedException | ExecutionException e) {
+			throw new RuntimeException("failed to profile a candidate spline", e);
+		}
+		return results;
+	}
 
-			double changeInAngle = previousCurveFromArcLength.getFirstDerivative().getHeading().findShortestDistance(curveFromArcLength.getFirstDerivative().getHeading());
+	/**
+	 * builds the outputs for a profile, the heading of each output is the heading the robot is profiled to follow, so its rotational velocity follows from its translational velocity
+	 * <p>the acceleration between samples is constant, so the velocity is interpolated exactly, but the position is quadratic in time, so wherever interpolating it would stray further than {@link #POSITION_TOLERANCE}, outputs are added in between, e.g. while speeding up from rest</p>
+	 */
+	@NotNull
+	private Followable.Output[] finaliseProfile(@NotNull Profile profile) {
+		int plannedPoints = profile.size;
+		QuinticBezierCurve[] curves = profile.curves;
+		double duration = profile.getDuration();
 
-			changeInAngle = Math.max(-Math.PI / 2, Math.min(changeInAngle, Math.PI / 2));
+		ArrayList<Followable.Output> outputs = new ArrayList<>(plannedPoints);
+		curveEndIndices = new int[curves.length];
 
-			double vChangeInAngleLimiter = Math.cos(changeInAngle);
-			vChangeInAngleLimiter *= vChangeInAngleLimiter;
+		// handles first case
+		outputs.add(new Followable.Output(
+				Vector2D.fromPolar(0, profile.headings[0]), // the velocity output
+				0,
+				0,
+				curves[0].getStartPose(),
+				curves[0].getStartPose()
+		));
 
-			vMax *= vChangeInAngleLimiter;
+		for (int i = 1; i < plannedPoints; i++) {
+			int curveIndex = profile.curveIndices[i];
+			double startVelocity = profile.velocities[i - 1];
+			double deltaT = profile.timesToEnd[i - 1] - profile.timesToEnd[i];
+			double acceleration = (profile.velocities[i] * profile.velocities[i] - startVelocity * startVelocity) / (2 * profile.segmentLengths[i]);
+			int steps = (int) Math.ceil(deltaT * Math.sqrt(Math.abs(acceleration) / (8 * POSITION_TOLERANCE)));
+
+			for (int step = 1; step < steps; step++) {
+				double t = deltaT * step / steps;
+				double distance = profile.distances[i] - profile.segmentLengths[i] + t * (startVelocity + 0.5 * acceleration * t);
+				outputs.add(profile.outputAt(curveIndex, distance, startVelocity + acceleration * t, duration - profile.timesToEnd[i - 1] + t));
+			}
 
-			double vAccelerationLimited = Math.sqrt(previousVelocity * previousVelocity + 2 * directionOfTravelLimiter.getAcceleration() * arcSegmentLength);
+			if (i == plannedPoints - 1) {
+				// set the final output to be back at 0
+				outputs.add(new Followable.Output(
+						Vector2D.fromPolar(0, profile.headings[i]),
+						0,
+						duration,
+						curves[curves.length - 1].getEndPose(),
+						curves[curves.length - 1].getEndPose()
+				));
+			} else {
+				outputs.add(new Followable.Output(
+						Vector2D.fromPolar(profile.velocities[i], profile.headings[i]), // the velocity output
+						profile.velocities[i] * profile.rotationRates[i],
+						duration - profile.timesToEnd[i],
+						new Pose2D(profile.xs[i], profile.ys[i], new AngleRadians(profile.robotHeadings[i])),
+						curves[curveIndex].getEndPose()
+				));
+			}
 
-			double vObstacleLimited = Double.POSITIVE_INFINITY;
-			Vector2D closestObstacle = obstacleMap.closestObstacleVector(curveFromArcLength.getResult());
-			if(closestObstacle != null) {
-				vObstacleLimited = Math.sqrt(2 * directionOfTravelLimiter.getAcceleration() * closestObstacle.getMagnitude());
+			if (i == plannedPoints - 1 || profile.curveIndices[i + 1] != curveIndex) {
+				curveEndIndices[curveIndex] = outputs.size() - 1;
 			}
+		}
 
-			double finalVelocityConstraint = Math.min(Math.min(vAccelerationLimited, vMax), vObstacleLimited);
+		return outputs.toArray(new Followable.Output[0]);
+	}
 
-			outputs[i] = new Followable.Output(
-					Vector2D.fromPolar(finalVelocityConstraint, curveFromArcLength.getFirstDerivative().getHeading()), // the velocity output
-					0,
-					0,
-					new Pose2D(curveFromArcLength.getResult().getX(), curveFromArcLength.getResult().getY(), 0),
-					curveFromArcLength.getCurve().getEndPose()
-			);
+	/**
+	 * samples a single curve, storing everything about each sample that only depends on the curve
+	 * <p>the curve is first split into pieces of at most {@link #MAX_SEGMENT_LENGTH}, each of which is halved until it passes {@link #needsRefinement(Sample, Sample, Sample)}, or would be shorter than {@link #MIN_SEGMENT_LENGTH}</p>
+	 * <p>the ends of the pieces are evaluated as a single batch, the refinement between them depends on each previous sample, so is evaluated point by point</p>
+	 */
+	@NotNull
+	private CurveSamples sampleCurve(@NotNull ArcLengthHandler arcLengthHandler, int curveIndex) {
+		double arcLength = arcLengthHandler.getArcLengths()[curveIndex];
+		int pieces = Math.max(1, (int) Math.ceil(arcLength / MAX_SEGMENT_LENGTH));
+
+		QuinticBezierCurve curve = arcLengthHandler.getCurves()[curveIndex];
+		CurveSampler sampler = new CurveSampler(arcLengthHandler, curveIndex);
+
+		double[] distances = new double[pieces + 1];
+		double[] ts = new double[pieces + 1];
+		for (int i = 0; i <= pieces; i++) {
+			distances[i] = arcLength * i / pieces;
+			ts[i] = arcLengthHandler.findCurveFromArcLength(curveIndex, distances[i]).getT();
+		}
+		double[] xs = new double[pieces + 1];
+		double[] ys = new double[pieces + 1];
+		double[] tangentXs = new double[pieces + 1];
+		double[] tangentYs = new double[pieces + 1];
+		double[] curvatures = new double[pieces + 1];
+		curve.sample(ts, xs, ys, tangentXs, tangentYs, curvatures);
+
+		ArrayList<Sample> samples = new ArrayList<>(2 * pieces + 1);
+		Sample previous = sampler.sample(distances[0], xs[0], ys[0], tangentXs[0], tangentYs[0], curvatures[0]);
+		samples.add(previous);
+		for (int i = 1; i <= pieces; i++) {
+			Sample next = sampler.sample(distances[i], xs[i], ys[i], tangentXs[i], tangentYs[i], curvatures[i]);
+			refine(sampler, previous, next, samples);
+			samples.add(next);
+			previous = next;
+		}
 
-			previousVelocity = finalVelocityConstraint;
-			previousCurveFromArcLength = curveFromArcLength;
+		return new CurveSamples(curve, arcLength, samples);
+	}
+
+	/**
+	 * adds the samples strictly between start and end, in order
+	 */
+	private static void refine(@NotNull CurveSampler sampler, @NotNull Sample start, @NotNull Sample end, @NotNull ArrayList<Sample> samples) {
+		if (end.distance - start.distance < 2 * MIN_SEGMENT_LENGTH) {
+			return;
+		}
+		Sample middle = sampler.sample(0.5 * (start.distance + end.distance));
+		if (!needsRefinement(start, middle, end)) {
+			return;
 		}
+		refine(sampler, start, middle, samples);
+		samples.add(middle);
+		refine(sampler, middle, end, samples);
+	}
 
-//		do a backward pass for accelerational constraints
+	/**
+	 * @return true if the path strays too far from the chord between start and end, or the limits change too much between them
+	 */
+	private static boolean needsRefinement(@NotNull Sample start, @NotNull Sample middle, @NotNull Sample end) {
+		double length = end.distance - start.distance;
+		double curvature = Math.max(middle.curvature, Math.max(start.curvature, end.curvature));
+		// the sagitta of an arc of the curvature
+		if (curvature * length * length / 8 > POSITION_TOLERANCE) {
+			return true;
+		}
 
-//		set the final output to be back at 0
-		outputs[outputs.length - 1] = new Followable.Output(
-				Vector2D.fromPolar(0, arcLengthHandler.findCurveFromArcLength(arcLengthHandler.getArcLength()).getFirstDerivative().getHeading()),
-				0,
-				0,
-				arcLengthHandler.findCurveFromArcLength(arcLengthHandler.getArcLength()).getCurve().getEndPose(),
-				arcLengthHandler.findCurveFromArcLength(arcLengthHandler.getArcLength()).getCurve().getEndPose()
-		);
+		double startVelocity = Math.min(start.velocityLimit, start.directionVelocity);
+		double middleVelocity = Math.min(middle.velocityLimit, middle.directionVelocity);
+		double endVelocity = Math.min(end.velocityLimit, end.directionVelocity);
+		if (Math.max(startVelocity, Math.max(middleVelocity, endVelocity)) - Math.min(startVelocity, Math.min(middleVelocity, endVelocity)) > VELOCITY_TOLERANCE) {
+			return true;
+		}
 
-		previousVelocity = 0;
+		double minAcceleration = Math.min(start.acceleration, Math.min(middle.acceleration, end.acceleration));
+		double maxAcceleration = Math.max(start.acceleration, Math.max(middle.acceleration, end.acceleration));
+		return maxAcceleration - minAcceleration > ACCELERATION_TOLERANCE * minAcceleration;
+	}
 
-		for (int i = plannedPoints - 2; i >= 0; i--) {
-			ArcLengthHandler.ArcLengthRelationship curveFromArcLength = arcLengthHandler.findCurveFromArcLength(i * arcSegmentLength);
+	/**
+	 * the heading of the robot along a curve, a cubic hermite in terms of the fraction of the curve travelled, u
+	 *
+	 * @param startSlope the rate of change of the heading with respect to u at the start of the curve
+	 * @param change     the change in heading over the curve
+	 * @param endSlope   the rate of change of the heading with respect to u at the end of the curve
+	 * @return the change in heading from the start of the curve
+	 */
+	private static double hermite(double startSlope, double change, double endSlope, double u) {
+		double u2 = u * u;
+		double u3 = u2 * u;
+		return startSlope * (u3 - 2 * u2 + u) + change * (3 * u2 - 2 * u3) + endSlope * (u3 - u2);
+	}
 
-			MecanumMotionConstants motionConstants = spline.getMotionConstantsArray().get(curveFromArcLength.getCurveIndex());
+	/**
+	 * @return the first derivative of {@link #hermite(double, double, double, double)} with respect to u
+	 */
+	private static double hermiteDerivative(double startSlope, double change, double endSlope, double u) {
+		double u2 = u * u;
+		return startSlope * (3 * u2 - 4 * u + 1) + change * (6 * u - 6 * u2) + endSlope * (3 * u2 - 2 * u);
+	}
 
-			Vector2D translationVector = outputs[i].getTranslationVector();
-			double translationalVelocity = translationVector.getMagnitude();
+	/**
+	 * @return the second derivative of {@link #hermite(double, double, double, double)} with respect to u
+	 */
+	private static double hermiteSecondDerivative(double startSlope, double change, double endSlope, double u) {
+		return startSlope * (6 * u - 4) + change * (6 - 12 * u) + endSlope * (6 * u - 2);
+	}
 
-			MecanumMotionConstants.DirectionOfTravelLimiter directionOfTravelLimiter = motionConstants.makeDirectionOfTravelLimiter(curveFromArcLength.getFirstDerivative().getHeading());
+	/**
+	 * the rates of change of the robot's heading with respect to arc length at each end of each curve, shared between neighbouring curves
+	 * <p>each is the average rate of the curves either side, or 0 if they rotate in opposite directions, limited so that the heading never overshoots the heading at the end of a curve</p>
+	 *
+	 * @return one more rate than there are curves, in radians per millimeter
+	 */
+	@NotNull
+	private static double[] findRotationRates(@NotNull CurveSamples[] curveSamples) {
+		int curves = curveSamples.length;
+		double[] rates = new double[curves + 1];
+		rates[0] = curveSamples[0].changeInHeading / curveSamples[0].arcLength;
+		rates[curves] = curveSamples[curves - 1].changeInHeading / curveSamples[curves - 1].arcLength;
+		for (int i = 1; i < curves; i++) {
+			CurveSamples before = curveSamples[i - 1];
+			CurveSamples after = curveSamples[i];
+			double rateBefore = before.changeInHeading / before.arcLength;
+			double rateAfter = after.changeInHeading / after.arcLength;
+			if (rateBefore * rateAfter <= 0) {
+				rates[i] = 0;
+				continue;
+			}
+			double rate = (before.changeInHeading + after.changeInHeading) / (before.arcLength + after.arcLength);
+			rates[i] = Math.signum(rate) * Math.min(Math.abs(rate), 3 * Math.min(Math.abs(rateBefore), Math.abs(rateAfter)));
+		}
+		return rates;
+	}
 
-			double vMaxAccelerationLimited = Math.sqrt(previousVelocity * previousVelocity + 2 * directionOfTravelLimiter.getAcceleration() * arcSegmentLength);
+	/**
+	 * the searches available to optimise the tangents of the spline
+	 */
+	public enum Search {
+		/**
+		 * steps every tangent up and down at once, concurrently, halving the step when none improve
+		 */
+		COMPASS,
+		/**
+		 * a golden section search per tangent, with the tangents searched concurrently, stops early once a sweep stops improving the duration
+		 */
+		GOLDEN_SECTION
+	}
 
-			double finalVelocityConstraint = Math.min(translationalVelocity, vMaxAccelerationLimited);
+	/**
+	 * a golden section search over a single tangent, from a fixed starting point, stopping once the bracket is narrower than {@link #LINE_SEARCH_TOLERANCE} of the step, or {@link #MIN_STEP}
+	 * <p>the bracket is placed so that the current value is its lower interior point, so only one new candidate is needed per step, unless the bounds of the elongation factor get in the way and the bracket is clamped</p>
+	 * <p>evaluations are kept rather than recorded, so that line searches may run concurrently, see {@link #recordAll()}</p>
+	 */
+	private class LineSearch implements Callable<LineSearch> {
+		private final double[] base;
+		private final Profile baseProfile;
+		private final int tangent;
+		private final double step;
+		private final int evaluationLimit;
+		private final ArrayList<double[]> candidates;
+		private final ArrayList<Profile> profiles;
+		private double bestFactor;
+		private Profile lineBestProfile;
+
+		/**
+		 * @param base            the elongation factors to search from
+		 * @param baseProfile     the profile of the base elongation factors
+		 * @param tangent         the index of the tangent to search
+		 * @param step            the size of the bracket below the current value of the tangent
+		 * @param evaluationLimit the most profiles this search may evaluate
+		 */
+		private LineSearch(@NotNull double[] base, @NotNull Profile baseProfile, int tangent, double step, int evaluationLimit) {
+			this.base = base;
+			this.baseProfile = baseProfile;
+			this.tangent = tangent;
+			this.step = step;
+			this.evaluationLimit = evaluationLimit;
+			this.candidates = new ArrayList<>();
+			this.profiles = new ArrayList<>();
+			this.bestFactor = base[tangent];
+			this.lineBestProfile = baseProfile;
+		}
 
-			outputs[i] = new Followable.Output(
-					Vector2D.fromPolar(finalVelocityConstraint, translationVector.getHeading()),
-					outputs[i].getRotationalVelocity(),
-					outputs[i].getCallbackTime(),
-					outputs[i].getPosition(),
-					outputs[i].getDestination()
-			);
+		@Override
+		public LineSearch call() {
+			double current = base[tangent];
+			double tolerance = Math.max(MIN_STEP, LINE_SEARCH_TOLERANCE * step);
+
+			double lower = current - step;
+			double upper = current + step / INVERSE_GOLDEN_RATIO;
+			double lowerProbe, upperProbe, lowerDuration, upperDuration;
+
+			if (lower >= MIN_ELONGATION_FACTOR && upper <= MAX_ELONGATION_FACTOR) {
+				if (!hasLimit(1)) return this;
+				lowerProbe = current;
+				lowerDuration = baseProfile.getDuration();
+				upperProbe = lower + INVERSE_GOLDEN_RATIO * (upper - lower);
+				upperDuration = evaluate(upperProbe);
+			} else {
+				lower = clamp(current - step);
+				upper = clamp(current + step);
+				if (upper - lower < tolerance || !hasLimit(2)) return this;
+				lowerProbe = upper - INVERSE_GOLDEN_RATIO * (upper - lower);
+				upperProbe = lower + INVERSE_GOLDEN_RATIO * (upper - lower);
+				lowerDuration = evaluate(lowerProbe);
+				upperDuration = evaluate(upperProbe);
+			}
 
-			previousVelocity = finalVelocityConstraint;
+			while (upper - lower >= tolerance && hasLimit(1)) {
+				if (lowerDuration <= upperDuration) {
+					upper = upperProbe;
+					upperProbe = lowerProbe;
+					upperDuration = lowerDuration;
+					lowerProbe = upper - INVERSE_GOLDEN_RATIO * (upper - lower);
+					lowerDuration = evaluate(lowerProbe);
+				} else {
+					lower = lowerProbe;
+					lowerProbe = upperProbe;
+					lowerDuration = upperDuration;
+					upperProbe = lower + INVERSE_GOLDEN_RATIO * (upper - lower);
+					upperDuration = evaluate(upperProbe);
+				}
+			}
+			return this;
 		}
 
-		// forward pass to calculate times
+		private boolean hasLimit(int count) {
+			return candidates.size() + count <= evaluationLimit;
+		}
 
-		previousVelocity = outputs[0].getTranslationVector().getMagnitude();
-		double time = 0;
+		/**
+		 * @return the duration of the profile with the tangent set to the elongation factor
+		 */
+		private double evaluate(double elongationFactor) {
+			double[] candidate = withFactor(base, tangent, elongationFactor);
+			Profile profile = MotionProfile.this.evaluate(baseProfile, candidate, tangent);
+			candidates.add(candidate);
+			profiles.add(profile);
+			if (profile.getDuration() < lineBestProfile.getDuration()) {
+				bestFactor = elongationFactor;
+				lineBestProfile = profile;
+			}
+			return profile.getDuration();
+		}
 
-		for (int i = 1; i < plannedPoints; i++) {
-			double velocity = outputs[i].getTranslationVector().getMagnitude();
+		/**
+		 * records every evaluation of this search, in the order they were made
+		 */
+		private void recordAll() {
+			for (int i = 0; i < candidates.size(); i++) {
+				record(candidates.get(i), profiles.get(i));
+			}
+		}
 
-			// ∆t = 2∆s / (v_i + v_{i−1})
-			double deltaT = (2 * arcSegmentLength) / (velocity + previousVelocity);
+		/**
+		 * @return true if the search found a better profile than the one it started from
+		 */
+		private boolean isImproved() {
+			return lineBestProfile != baseProfile;
+		}
 
-			time += deltaT;
+		private double getDistanceMoved() {
+			return Math.abs(bestFactor - base[tangent]);
+		}
+	}
 
-			outputs[i] = new Followable.Output(
-					outputs[i].getTranslationVector(),
-					outputs[i].getRotationalVelocity(),
-					time,
-					outputs[i].getPosition(),
-					outputs[i].getDestination()
-			);
+	/**
+	 * everything about a point on a curve that only depends on the curve
+	 */
+	private static class Sample {
+		private final double distance, x, y, heading, curvature, acceleration, directionVelocity, velocityLimit;
+
+		private Sample(double distance, double x, double y, double heading, double curvature, double acceleration, double directionVelocity, double velocityLimit) {
+			this.distance = distance;
+			this.x = x;
+			this.y = y;
+			this.heading = heading;
+			this.curvature = curvature;
+			this.acceleration = acceleration;
+			this.directionVelocity = directionVelocity;
+			this.velocityLimit = velocityLimit;
+		}
+	}
 
-			previousVelocity = velocity;
+	/**
+	 * samples a single curve at any arc length along it
+	 */
+	private class CurveSampler {
+		private final ArcLengthHandler arcLengthHandler;
+		private final int curveIndex;
+		private final QuinticBezierCurve curve;
+		private final MecanumMotionConstants motionConstants;
+		private final double arcLength, startHeading, changeInHeading;
+
+		private CurveSampler(@NotNull ArcLengthHandler arcLengthHandler, int curveIndex) {
+			this.arcLengthHandler = arcLengthHandler;
+			this.curveIndex = curveIndex;
+			this.curve = arcLengthHandler.getCurves()[curveIndex];
+			this.motionConstants = spline.getMotionConstantsArray().get(curveIndex);
+			this.arcLength = arcLengthHandler.getArcLengths()[curveIndex];
+			AngleRadians startHeading = curve.getStartPose().getTheta().toAngleRadians();
+			this.startHeading = startHeading.getRadians();
+			this.changeInHeading = startHeading.findShortestDistance(curve.getEndPose().getTheta());
 		}
 
-		// forward pass rotation
+		@NotNull
+		private Sample sample(double distance) {
+			double t = arcLengthHandler.findCurveFromArcLength(curveIndex, distance).getT();
+			return sample(distance, curve.resultX(t), curve.resultY(t), curve.firstDerivativeX(t), curve.firstDerivativeY(t), curve.findCurvature(t));
+		}
 
-		double previousRotationalVelocity = 0;
-		AngleRadians previousEstimatedRotationalPosition = arcLengthHandler.findCurveFromArcLength(0).getCurve().getStartPose().getTheta().toAngleRadians();
+		/**
+		 * @param distance  the arc length from the start of the curve
+		 * @param x         the x position of the curve at the distance
+		 * @param y         the y position of the curve at the distance
+		 * @param dx        the x component of the first derivative of the curve at the distance
+		 * @param dy        the y component of the first derivative of the curve at the distance
+		 * @param curvature the signed curvature of the curve at the distance
+		 */
+		@NotNull
+		private Sample sample(double distance, double x, double y, double dx, double dy, double curvature) {
+			double heading = Math.atan2(dy, dx);
+			double directionVelocity = motionConstants.getDirectionalVelocity(heading);
+			double acceleration = motionConstants.getDirectionalAcceleration(heading);
+
+			curvature = Math.abs(curvature);
+
+			// centripetal acceleration, v² * curvature <= aMax
+			double velocityLimit = Math.sqrt(acceleration / curvature);
+
+			// the heading of the robot is estimated linearly here, as the profiled heading depends on the neighbouring curves
+			double estimatedHeading = startHeading + changeInHeading * distance / arcLength;
+			double clearance = obstacleMap.clearance(x, y, estimatedHeading);
+			if (clearance < Double.POSITIVE_INFINITY) {
+				// must be able to stop before reaching the obstacle
+				velocityLimit = Math.min(velocityLimit, Math.sqrt(2 * acceleration * clearance));
+			}
 
-		for (int i = 1; i < plannedPoints; i++) {
-			ArcLengthHandler.ArcLengthRelationship curveFromArcLength = arcLengthHandler.findCurveFromArcLength(i * arcSegmentLength);
-			MecanumMotionConstants motionConstants = spline.getMotionConstantsArray().get(curveFromArcLength.getCurveIndex());
+			return new Sample(distance, x, y, heading, curvature, acceleration, directionVelocity, velocityLimit);
+		}
+	}
 
-			double deltaT = (outputs[i].getCallbackTime() - outputs[i - 1].getCallbackTime());
+	/**
+	 * the samples of a single curve, shared between every profile that contains the curve
+	 */
+	private static class CurveSamples {
+		private final QuinticBezierCurve curve;
+		private final int segments;
+		private final double arcLength;
+		private final double startHeading, changeInHeading;
+		private final double[] distances, xs, ys, headings, curvatures, accelerations, directionVelocities, velocityLimits;
+
+		private CurveSamples(QuinticBezierCurve curve, double arcLength, @NotNull ArrayList<Sample> samples) {
+			this.curve = curve;
+			this.segments = samples.size() - 1;
+			this.arcLength = arcLength;
+			AngleRadians startHeading = curve.getStartPose().getTheta().toAngleRadians();
+			this.startHeading = startHeading.getRadians();
+			this.changeInHeading = startHeading.findShortestDistance(curve.getEndPose().getTheta());
+			int size = samples.size();
+			this.distances = new double[size];
+			this.xs = new double[size];
+			this.ys = new double[size];
+			this.headings = new double[size];
+			this.curvatures = new double[size];
+			this.accelerations = new double[size];
+			this.directionVelocities = new double[size];
+			this.velocityLimits = new double[size];
+			for (int i = 0; i < size; i++) {
+				Sample sample = samples.get(i);
+				distances[i] = sample.distance;
+				xs[i] = sample.x;
+				ys[i] = sample.y;
+				headings[i] = sample.heading;
+				curvatures[i] = sample.curvature;
+				accelerations[i] = sample.acceleration;
+				directionVelocities[i] = sample.directionVelocity;
+				velocityLimits[i] = sample.velocityLimit;
+			}
+		}
+	}
 
-			AngleRadians targetRotationalPosition = curveFromArcLength.getCurve().getEndPose().getTheta().toAngleRadians();
+	/**
+	 * the velocity and time at every sample of a spline
+	 * <p>the velocities are found by a forwards pass, accelerating as hard as the constraints allow, then a backwards pass, braking as late as they allow, which also sums up the time taken</p>
+	 */
+	private class Profile {
+		private final QuinticBezierCurve[] curves;
+		private final ArcLengthHandler arcLengthHandler;
+		private final CurveSamples[] curveSamples;
+		private final int size;
+		private final int[] curveIndices;
+		private final double[] distances, segmentLengths, xs, ys, headings, robotHeadings, rotationRates, velocities, timesToEnd;
+		private final double[] startSlopes, endSlopes; // of the heading of each curve, see hermite
+
+		/**
+		 * @param curves           the curves of the spline
+		 * @param arcLengthHandler the arc length handler of the curves
+		 * @param previous         a profile whose curve samples may be reused for any curves shared with this one, may be null
+		 */
+		private Profile(@NotNull QuinticBezierCurve[] curves, @NotNull ArcLengthHandler arcLengthHandler, @Nullable Profile previous) {
+			this.curves = curves;
+			this.arcLengthHandler = arcLengthHandler;
+			this.curveSamples = new CurveSamples[curves.length];
+
+			int size = 1; // the first sample of each curve is the last sample of the curve before it
+			for (int i = 0; i < curves.length; i++) {
+				if (previous != null && previous.curveSamples[i].curve == curves[i]) {
+					curveSamples[i] = previous.curveSamples[i];
+				} else {
+					curveSamples[i] = sampleCurve(arcLengthHandler, i);
+				}
+				size += curveSamples[i].segments;
+			}
+			this.size = size;
+
+			curveIndices = new int[size];
+			distances = new double[size];
+			segmentLengths = new double[size];
+			xs = new double[size];
+			ys = new double[size];
+			headings = new double[size];
+			robotHeadings = new double[size];
+			rotationRates = new double[size];
+			velocities = new double[size];
+			timesToEnd = new double[size];
+			double[] velocityLimits = new double[size];
+			double[] curvatures = new double[size];
+			double[] accelerations = new double[size];
+			double[] rotationRateChanges = new double[size];
+			double[] maxRotationalAccelerations = new double[size];
+
+			double[] waypointRotationRates = findRotationRates(curveSamples);
+			startSlopes = new double[curves.length];
+			endSlopes = new double[curves.length];
+
+			int index = 0;
+			for (int i = 0; i < curves.length; i++) {
+				CurveSamples samples = curveSamples[i];
+				MecanumMotionConstants motionConstants = spline.getMotionConstantsArray().get(i);
+
+				// a cubic hermite heading, in terms of the fraction of the curve travelled, u
+				double change = samples.changeInHeading;
+				double startSlope = startSlopes[i] = waypointRotationRates[i] * samples.arcLength;
+				double endSlope = endSlopes[i] = waypointRotationRates[i + 1] * samples.arcLength;
+
+				for (int j = i == 0 ? 0 : 1; j <= samples.segments; j++) {
+					double u = samples.distances[j] / samples.arcLength;
+					double heading = hermite(startSlope, change, endSlope, u);
+					double headingDerivative = hermiteDerivative(startSlope, change, endSlope, u);
+					double headingSecondDerivative = hermiteSecondDerivative(startSlope, change, endSlope, u);
+
+					curveIndices[index] = i;
+					distances[index] = samples.distances[j];
+					xs[index] = samples.xs[j];
+					ys[index] = samples.ys[j];
+					headings[index] = samples.headings[j];
+					robotHeadings[index] = samples.startHeading + heading;
+					rotationRates[index] = headingDerivative / samples.arcLength;
+					rotationRateChanges[index] = Math.abs(headingSecondDerivative) / (samples.arcLength * samples.arcLength);
+					curvatures[index] = samples.curvatures[j];
+					accelerations[index] = samples.accelerations[j];
+					maxRotationalAccelerations[index] = motionConstants.getMaxRotationalAcceleration();
+					segmentLengths[index] = j == 0 ? 0 : samples.distances[j] - samples.distances[j - 1];
+
+					// the wheels are shared between translating and rotating, so |v| / vMax + |ω| / ωMax <= 1, where ω = v * d(heading)/ds
+					double velocityLimit = 1 / (1 / samples.directionVelocities[j] + Math.abs(rotationRates[index]) / motionConstants.getMaxRotationalVelocity());
+					// rotational acceleration has a term of v² * d²(heading)/ds², which must stay within the limit
+					velocityLimit = Math.min(velocityLimit, Math.sqrt(maxRotationalAccelerations[index] / rotationRateChanges[index]));
+					velocityLimits[index] = Math.min(velocityLimit, samples.velocityLimits[j]);
+					index++;
+				}
+			}
 
-			double rotationalError = previousEstimatedRotationalPosition.findShortestDistance(targetRotationalPosition); //shortest distance from estimated current position to target position
+			// forwards pass, accelerating as hard as possible
 
-			double rotationalBreakDistance = deltaT * Math.abs(previousRotationalVelocity) + (previousRotationalVelocity * previousRotationalVelocity) / (2 * motionConstants.getMaxRotationalAcceleration());
+			velocities[0] = 0;
 
-			int rotationalBreakControl = (int) (Math.signum(Math.abs(rotationalError) - rotationalBreakDistance)); // if negative, we should be slowing down
+			for (int i = 1; i < size; i++) {
+				double acceleration = availableAcceleration(velocities[i - 1], accelerations[i], curvatures[i], rotationRates[i], rotationRateChanges[i], maxRotationalAccelerations[i]);
+				double vAccelerationLimited = Math.sqrt(velocities[i - 1] * velocities[i - 1] + 2 * acceleration * segmentLengths[i]);
+				velocities[i] = Math.min(vAccelerationLimited, velocityLimits[i]);
+			}
 
-			double rotationalVelocity = previousRotationalVelocity + (deltaT * motionConstants.getMaxRotationalAcceleration() * Math.signum(rotationalError));
+			// backwards pass, braking as late as possible, finishing at 0, and summing the time taken
 
-			int velocitySignum = (int) Math.signum(rotationalVelocity);
+			velocities[size - 1] = 0;
+			timesToEnd[size - 1] = 0;
 
-			double maxRotationalVelocityBreakLimited = Math.abs(Math.abs(previousRotationalVelocity) + (deltaT * motionConstants.getMaxRotationalAcceleration() * rotationalBreakControl));
+			for (int i = size - 2; i >= 0; i--) {
+				double acceleration = availableAcceleration(velocities[i + 1], accelerations[i], curvatures[i], rotationRates[i], rotationRateChanges[i], maxRotationalAccelerations[i]);
+				double vMaxAccelerationLimited = Math.sqrt(velocities[i + 1] * velocities[i + 1] + 2 * acceleration * segmentLengths[i + 1]);
+				velocities[i] = Math.min(velocities[i], vMaxAccelerationLimited);
 
-			MecanumMotionConstants.DirectionOfTravelLimiter absoluteDirectionOfTravelLimiter = spline.getAbsoluteMotionConstants().makeDirectionOfTravelLimiter(outputs[i].getTranslationVector().getHeading());
+				// ∆t = 2∆s / (v_i + v_{i+1})
+				timesToEnd[i] = timesToEnd[i + 1] + (2 * segmentLengths[i + 1]) / (velocities[i] + velocities[i + 1]);
+			}
+		}
 
-			double maxRotationalVelocityTranslationLimited = motionConstants.getMaxRotationalVelocity() * (outputs[i].getTranslationVector().getMagnitude() / absoluteDirectionOfTravelLimiter.getVelocity());
-			double finalRotationalVelocityConstraint = Math.min(maxRotationalVelocityTranslationLimited, maxRotationalVelocityBreakLimited);
-			finalRotationalVelocityConstraint = Math.min(finalRotationalVelocityConstraint, Math.abs(rotationalVelocity)) * velocitySignum;
+		/**
+		 * the acceleration along the path that is left once the centripetal acceleration at the velocity is accounted for, and that keeps the rotational acceleration within its limits
+		 */
+		private double availableAcceleration(double velocity, double maxAcceleration, double curvature, double rotationRate, double rotationRateChange, double maxRotationalAcceleration) {
+			double centripetalAcceleration = velocity * velocity * curvature;
+			double tangentialAcceleration = maxAcceleration > centripetalAcceleration ? Math.sqrt(maxAcceleration * maxAcceleration - centripetalAcceleration * centripetalAcceleration) : 0;
+			// the wheels are shared between accelerating and rotationally accelerating, so |a| / aMax + |α| / αMax <= 1, where α = a * d(heading)/ds + v² * d²(heading)/ds²
+			double remainingRotationalAcceleration = Math.max(0, 1 - velocity * velocity * rotationRateChange / maxRotationalAcceleration);
+			double coupledAcceleration = remainingRotationalAcceleration / (1 / maxAcceleration + Math.abs(rotationRate) / maxRotationalAcceleration);
+			return Math.min(tangentialAcceleration, coupledAcceleration);
+		}
 
-			previousRotationalVelocity = finalRotationalVelocityConstraint;
-			previousEstimatedRotationalPosition = previousEstimatedRotationalPosition.add(finalRotationalVelocityConstraint * deltaT + 0.5 * (previousRotationalVelocity - finalRotationalVelocityConstraint) * deltaT * 2).toAngleRadians();
+		private double getDuration() {
+			return timesToEnd[0];
+		}
 
-			outputs[i] = new Followable.Output(
-					outputs[i].getTranslationVector(),
-					finalRotationalVelocityConstraint,
-					outputs[i].getCallbackTime(),
-					new Pose2D(outputs[i].getPosition().getX(), outputs[i].getPosition().getY(), previousEstimatedRotationalPosition),
-					outputs[i].getDestination()
+		/**
+		 * evaluates the output at a point between the samples
+		 *
+		 * @param curveIndex the curve the point is on
+		 * @param distance   the arc length along the curve
+		 * @param velocity   the velocity at the point
+		 * @param time       the time at the point
+		 */
+		@NotNull
+		private Followable.Output outputAt(int curveIndex, double distance, double velocity, double time) {
+			CurveSamples samples = curveSamples[curveIndex];
+			QuinticBezierCurve curve = curves[curveIndex];
+			double t = arcLengthHandler.findCurveFromArcLength(curveIndex, distance).getT();
+			double u = distance / samples.arcLength;
+			double heading = samples.startHeading + hermite(startSlopes[curveIndex], samples.changeInHeading, endSlopes[curveIndex], u);
+			double rotationRate = hermiteDerivative(startSlopes[curveIndex], samples.changeInHeading, endSlopes[curveIndex], u) / samples.arcLength;
+
+			return new Followable.Output(
+					Vector2D.fromPolar(velocity, Math.atan2(curve.firstDerivativeY(t), curve.firstDerivativeX(t))),
+					velocity * rotationRate,
+					time,
+					new Pose2D(curve.resultX(t), curve.resultY(t), new AngleRadians(heading)),
+					curve.getEndPose()
 			);
 		}
-
-		return outputs;
 	}
 
 	/*
@@ -282,23 +1035,6 @@ public class MotionProfile {
 	}
 	 */
 
-	/**
-	 * Sets {@link #arcSegmentLength} to be the new true length of each arc segment.
-	 *
-	 * @return whole number of segments when the arcLength is divided into approximately 2.5mm lengths.
-	 */
-	private int divideArcLength() {
-		double arcLength = arcLengthHandler.getBreakpoints()[arcLengthHandler.getBreakpoints().length - 1];
-
-		double estimate = arcLength / 2.5; // target segment length
-
-		int result = (int) Math.round(estimate);
-
-		arcSegmentLength = arcLength / result;
-
-		return result;
-	}
-
 	/*
 	private double findThreshIntersect(int i, double curvatureI, double curvatureI_1) {
 		double thresh = 0.0; // output
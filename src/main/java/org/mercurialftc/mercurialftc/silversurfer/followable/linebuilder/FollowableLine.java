@@ -7,11 +7,14 @@ import org.mercurialftc.mercurialftc.silversurfer.followable.markers.MarkerBuild
 
 import java.util.ArrayList;
 
+/**
+ * a chain of lines, evaluated in closed form, outputs are only sampled once they are first asked for
+ */
 public class FollowableLine extends Followable {
 	private final LineBuilder lineBuilder;
 
-	protected FollowableLine(Output[] outputs, @NotNull ArrayList<MarkerBuilder> unfinishedMarkers, LineBuilder lineBuilder) {
-		setOutputs(outputs);
+	protected FollowableLine(@NotNull ArrayList<MarkerBuilder> unfinishedMarkers, LineBuilder lineBuilder) {
+		this.lineBuilder = lineBuilder;
 
 		Marker[] markers = new Marker[unfinishedMarkers.size()];
 
@@ -20,12 +23,39 @@ public class FollowableLine extends Followable {
 		}
 
 		setMarkers(markers);
-		this.lineBuilder = lineBuilder;
+	}
+
+	@Override
+	protected Output[] sampleOutputs() {
+		return lineBuilder.sampleOutputs();
+	}
 
+	/**
+	 * @param time the time since the start of the line
+	 * @return the output at the time, evaluated in closed form
+	 */
+	@NotNull
+	public Output getOutput(double time) {
+		return lineBuilder.getOutput(time);
 	}
 
+	public double getDuration() {
+		return lineBuilder.getDuration();
+	}
+
+	/**
+	 * @param index the index of the segment, clamped to the segments of the line, before the first segment is the start of the line
+	 * @return the time at which the segment ends
+	 */
+	public double getSegmentEndTime(int index) {
+		return lineBuilder.getSegmentEndTime(index);
+	}
+
+	/**
+	 * @deprecated outputs are now sampled in time, not per segment, use {@link #getSegmentEndTime(int)} instead
+	 */
+	@Deprecated
 	public int getOutputIndexFromSegmentIndex(int index) {
 		return lineBuilder.getOutputIndexFromSegmentIndex(index);
 	}
 }
-
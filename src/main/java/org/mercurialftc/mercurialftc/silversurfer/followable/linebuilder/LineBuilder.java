@@ -7,239 +7,184 @@ import org.mercurialftc.mercurialftc.silversurfer.followable.FollowableBuilder;
 import org.mercurialftc.mercurialftc.silversurfer.followable.markers.Marker;
 import org.mercurialftc.mercurialftc.silversurfer.followable.markers.MarkerBuilder;
 import org.mercurialftc.mercurialftc.silversurfer.followable.motionconstants.MecanumMotionConstants;
+import org.mercurialftc.mercurialftc.silversurfer.followable.profile.ScalarProfile;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.Pose2D;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.Vector2D;
-import org.mercurialftc.mercurialftc.silversurfer.geometry.angle.AngleRadians;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
+/**
+ * profiles the distance along a chain of lines in closed form, see {@link ScalarProfile}
+ * <p>the heading turns in proportion to the distance along each line, so the wheels share their speed between translation and rotation</p>
+ */
 public class LineBuilder extends FollowableBuilder {
+	/**
+	 * the longest time between sampled outputs, the wave interpolates between them
+	 */
+	private static final double SAMPLE_PERIOD = 0.02;
+	/**
+	 * lines shorter than this, in millimeters, are turned on the spot
+	 */
+	private static final double MINIMUM_LENGTH = 1e-6;
 	private final ArrayList<LineSegment> segments;
 	private final ArrayList<MarkerBuilder> unfinishedMarkers;
-	private final MecanumMotionConstants absoluteMotionConstants;
-	private int[] segmentBreakpoints;
-	private double[] segmentOutputSizes;
+	private ScalarProfile profile;
 
-	public LineBuilder(MecanumMotionConstants motionConstants, MecanumMotionConstants absoluteMotionConstants) {
+	public LineBuilder(MecanumMotionConstants motionConstants) {
 		super(motionConstants);
-		this.absoluteMotionConstants = absoluteMotionConstants;
 		unfinishedMarkers = new ArrayList<>();
 		segments = new ArrayList<>();
 	}
 
-	private MecanumMotionConstants getAbsoluteMotionConstants() {
-		return absoluteMotionConstants;
+	/**
+	 * @deprecated the absolute motion constants are no longer used, rotation now shares the limits of the motion constants, use {@link #LineBuilder(MecanumMotionConstants)} instead
+	 */
+	@Deprecated
+	public LineBuilder(MecanumMotionConstants motionConstants, MecanumMotionConstants absoluteMotionConstants) {
+		this(motionConstants);
 	}
 
-	private void generateNumberOfOutputs() {
-		double targetOutputFrequency = 2.5; //2.5 millimeters!
-		int result = 0;
-
-		segmentBreakpoints = new int[segments.size()];
-		segmentOutputSizes = new double[segments.size()];
-
-		for (int i = 0; i < segments.size(); i++) {
-			double distance = segments.get(i).getVector().getMagnitude();
-
-			double estimate = distance / targetOutputFrequency;
-			int accurateResult = (int) Math.round(estimate);
-
-			result += accurateResult;
-
-			segmentOutputSizes[i] = distance / accurateResult;
-			segmentBreakpoints[i] = result;
+	/**
+	 * @return the limit of a line that must also turn, so that the sum of the shares of the limits of the two is at most 1
+	 */
+	private static double share(double translationLimit, double rotationLimit, double rotationPerMillimeter) {
+		if (rotationPerMillimeter == 0) {
+			return translationLimit;
 		}
+		return 1 / (1 / translationLimit + rotationPerMillimeter / rotationLimit);
 	}
 
-	public int getOutputIndexFromSegmentIndex(int index) {
-		if (index >= segmentBreakpoints.length - 1) {
-			return segmentBreakpoints[segmentBreakpoints.length - 1];
-		} else if (index <= 0) {
-			return 0;
-		}
-		return segmentBreakpoints[index];
-	}
+	@NotNull
+	private ScalarProfile profile() {
+		int size = segments.size();
+		double[] lengths = new double[size];
+		double[] maxVelocities = new double[size];
+		double[] maxAccelerations = new double[size];
+		double[] maxJerks = new double[size];
+		double[] junctionVelocities = new double[size - 1];
+
+		for (int i = 0; i < size; i++) {
+			LineSegment segment = segments.get(i);
+			MecanumMotionConstants motionConstants = getMotionConstantsArray().get(i);
+			double rotation = Math.abs(segment.getRotation());
+
+			if (segment.isTurn()) {
+				lengths[i] = rotation;
+				maxVelocities[i] = motionConstants.getMaxRotationalVelocity();
+				maxAccelerations[i] = motionConstants.getMaxRotationalAcceleration();
+				maxJerks[i] = motionConstants.getMaxRotationalJerk();
+				continue;
+			}
 
-	public int getSegmentIndexFromOutputIndex(int index) {
-		if (index >= segmentBreakpoints[segmentBreakpoints.length - 1]) {
-			return segments.size() - 1;
-		} else if (index <= 0) {
-			return 0;
+			double direction = segment.getVector().getHeading().getRadians();
+			double rotationPerMillimeter = rotation / segment.getLength();
+			lengths[i] = segment.getLength();
+			maxVelocities[i] = share(motionConstants.getDirectionalVelocity(direction), motionConstants.getMaxRotationalVelocity(), rotationPerMillimeter);
+			maxAccelerations[i] = share(motionConstants.getDirectionalAcceleration(direction), motionConstants.getMaxRotationalAcceleration(), rotationPerMillimeter);
+			maxJerks[i] = share(motionConstants.getMaxTranslationalJerk(), motionConstants.getMaxRotationalJerk(), rotationPerMillimeter);
 		}
 
-		for (int i = 1; i < segments.size(); i++) {
-			if (index < segmentBreakpoints[i]) {
-				return i - 1;
+		// corners are taken at a velocity scaled by the cosine of the change in direction, so the robot stops for right angles and sharper
+		for (int i = 0; i < size - 1; i++) {
+			LineSegment segment = segments.get(i);
+			LineSegment next = segments.get(i + 1);
+			if (segment.isTurn() || next.isTurn()) {
+				continue;
 			}
+			double cos = segment.getVector().dot(next.getVector()) / (segment.getLength() * next.getLength());
+			junctionVelocities[i] = Math.max(0, cos) * Math.min(maxVelocities[i], maxVelocities[i + 1]);
 		}
 
-		return 0;
+		return ScalarProfile.chain(lengths, maxVelocities, maxAccelerations, maxJerks, junctionVelocities);
 	}
 
+	/**
+	 * O(log phases)
+	 *
+	 * @param time the time since the start of the line, clamped to the line
+	 * @return the output at the time, evaluated from the closed form profile
+	 */
 	@NotNull
-	private Followable.Output[] profile() {
-		Followable.Output[] outputs = new Followable.Output[segmentBreakpoints[segmentBreakpoints.length - 1]];
-
-		LineSegment previousSegment = segments.get(0);
-
-		outputs[0] = new Followable.Output(
-				Vector2D.fromPolar(0, previousSegment.getVector().getHeading()), // the velocity output
-				0,
-				0,
-				previousSegment.getPreviousPose(),
-				previousSegment.getDestinationPose()
-		);
-
-		double previousVelocity = 0;
-
-		for (int i = 1; i < segmentBreakpoints[segmentBreakpoints.length - 1]; i++) {
-			int segmentIndex = getSegmentIndexFromOutputIndex(i);
-			LineSegment segment = segments.get(segmentIndex);
-
-			MecanumMotionConstants motionConstants = getMotionConstantsArray().get(segmentIndex);
-
-			MecanumMotionConstants.DirectionOfTravelLimiter directionOfTravelLimiter = motionConstants.makeDirectionOfTravelLimiter(segment.getVector().getHeading());
-
-			double vMax = directionOfTravelLimiter.getVelocity();
-
-			double vAccelerationLimited = Math.sqrt(previousVelocity * previousVelocity + 2 * directionOfTravelLimiter.getAcceleration() * segmentOutputSizes[segmentIndex]);
-
-			double finalVelocityConstraint = Math.min(vAccelerationLimited, vMax);
-
-			int previousBreakPoint = 0;
-			if (segmentIndex > 0) previousBreakPoint = segmentBreakpoints[segmentIndex - 1];
-			int numberOfSubdivisions = i - previousBreakPoint;
-			Vector2D positionVector = Vector2D.fromPolar(segmentOutputSizes[segmentIndex] * numberOfSubdivisions, segment.getVector().getHeading()).add(segment.getPreviousPose().toVector2D());
-
-			outputs[i] = new Followable.Output(
-					Vector2D.fromPolar(finalVelocityConstraint, segment.getVector().getHeading()), // the velocity output
-					0,
-					0,
-					new Pose2D(positionVector.getX(), positionVector.getY(), 0),
-					segment.getDestinationPose()
-			);
-
-			previousVelocity = finalVelocityConstraint;
+	Followable.Output getOutput(double time) {
+		time = Math.max(0, Math.min(time, profile.getDuration()));
+		int index = profile.getSegmentAt(time);
+		LineSegment segment = segments.get(index);
+		double length = profile.getSegmentLength(index);
+		double fraction = 1;
+		double velocity = 0;
+		if (length > 0) {
+			fraction = Math.max(0, Math.min(1, (profile.getPosition(time) - profile.getSegmentStart(index)) / length));
+			velocity = profile.getVelocity(time) / length;
 		}
 
-//		do a backward pass for accelerational constraints
-
-//		set the final output to be back at 0
-		outputs[outputs.length - 1] = new Followable.Output(
-				Vector2D.fromPolar(0, segments.get(segments.size() - 1).getVector().getHeading()), // the velocity output
-				0,
-				0,
-				segments.get(segments.size() - 1).getDestinationPose(),
-				segments.get(segments.size() - 1).getDestinationPose()
-		);
-
-		previousVelocity = 0;
-
-		for (int i = segmentBreakpoints[segmentBreakpoints.length - 1] - 2; i >= 0; i--) {
-			int segmentIndex = getSegmentIndexFromOutputIndex(i);
-			LineSegment segment = segments.get(segmentIndex);
-
-			MecanumMotionConstants motionConstants = getMotionConstantsArray().get(segmentIndex);
-
-			Vector2D translationVector = outputs[i].getTranslationVector();
-			double translationalVelocity = translationVector.getMagnitude();
-
-			MecanumMotionConstants.DirectionOfTravelLimiter directionOfTravelLimiter = motionConstants.makeDirectionOfTravelLimiter(segment.getVector().getHeading());
-
-			double vMaxAccelerationLimited = Math.sqrt(previousVelocity * previousVelocity + 2 * directionOfTravelLimiter.getAcceleration() * segmentOutputSizes[segmentIndex]);
-
-			double finalVelocityConstraint = Math.min(translationalVelocity, vMaxAccelerationLimited);
-
-			outputs[i] = new Followable.Output(
-					Vector2D.fromPolar(finalVelocityConstraint, translationVector.getHeading()),
-					outputs[i].getRotationalVelocity(),
-					outputs[i].getCallbackTime(),
-					outputs[i].getPosition(),
-					outputs[i].getDestination()
-			);
-
-			previousVelocity = finalVelocityConstraint;
+		// velocity is now the fraction of the segment travelled per second
+		Pose2D position = segment.getDestinationPose();
+		if (fraction < 1) {
+			Vector2D positionVector = segment.getVector().scalarMultiply(fraction).add(segment.getPreviousPose().toVector2D());
+			position = new Pose2D(positionVector.getX(), positionVector.getY(), segment.getPreviousPose().getTheta().toAngleRadians().add(segment.getRotation() * fraction));
 		}
 
-		// forward pass to calculate times
-
-		previousVelocity = outputs[0].getTranslationVector().getMagnitude();
-		double time = 0;
-
-		for (int i = 1; i < segmentBreakpoints[segmentBreakpoints.length - 1]; i++) {
-			int segmentIndex = getSegmentIndexFromOutputIndex(i);
-
-			double velocity = outputs[i].getTranslationVector().getMagnitude();
-
-			// ∆t = 2∆s / (v_i + v_{i−1})
-			double deltaT = (2 * segmentOutputSizes[segmentIndex]) / (velocity + previousVelocity);
-
-			time += deltaT;
-
-			outputs[i] = new Followable.Output(
-					outputs[i].getTranslationVector(),
-					outputs[i].getRotationalVelocity(),
-					time,
-					outputs[i].getPosition(),
-					outputs[i].getDestination()
-			);
+		return new Followable.Output(
+				Vector2D.fromPolar(velocity * segment.getLength(), segment.getVector().getHeading()),
+				velocity * segment.getRotation(),
+				time,
+				position,
+				segment.getDestinationPose()
+		);
+	}
 
-			previousVelocity = velocity;
+	/**
+	 * samples the profile at least every {@link #SAMPLE_PERIOD}, and at every change of phase
+	 */
+	@NotNull
+	Followable.Output[] sampleOutputs() {
+		double[] times = profile.getSampleTimes(SAMPLE_PERIOD);
+		Followable.Output[] outputs = new Followable.Output[times.length];
+		for (int i = 0; i < times.length; i++) {
+			outputs[i] = getOutput(times[i]);
 		}
+		return outputs;
+	}
 
-		// forward pass rotation
-
-		double previousRotationalVelocity = 0;
-		AngleRadians previousEstimatedRotationalPosition = segments.get(0).previousPose.getTheta().toAngleRadians();
-
-		for (int i = 1; i < segmentBreakpoints[segmentBreakpoints.length - 1]; i++) {
-			int segmentIndex = getSegmentIndexFromOutputIndex(i);
-			LineSegment segment = segments.get(segmentIndex);
-
-			MecanumMotionConstants motionConstants = getMotionConstantsArray().get(segmentIndex);
-
-			double deltaT = (outputs[i].getCallbackTime() - outputs[i - 1].getCallbackTime());
-
-			AngleRadians targetRotationalPosition = segment.getDestinationPose().getTheta().toAngleRadians();
-
-			double rotationalError = previousEstimatedRotationalPosition.findShortestDistance(targetRotationalPosition); //shortest distance from estimated current position to target position
-
-			double rotationalBreakDistance = deltaT * Math.abs(previousRotationalVelocity) + (previousRotationalVelocity * previousRotationalVelocity) / (2 * motionConstants.getMaxRotationalAcceleration());
-
-			int rotationalBreakControl = (int) (Math.signum(Math.abs(rotationalError) - rotationalBreakDistance)); // if negative, we should be slowing down
-
-			double rotationalVelocity = previousRotationalVelocity + (deltaT * motionConstants.getMaxRotationalAcceleration() * Math.signum(rotationalError));
-
-			int velocitySignum = (int) Math.signum(rotationalVelocity);
-
-			double maxRotationalVelocityBreakLimited = Math.abs(Math.abs(previousRotationalVelocity) + (deltaT * motionConstants.getMaxRotationalAcceleration() * rotationalBreakControl));
-
-			MecanumMotionConstants.DirectionOfTravelLimiter absoluteDirectionOfTravelLimiter = getAbsoluteMotionConstants().makeDirectionOfTravelLimiter(outputs[i].getTranslationVector().getHeading());
-
-			double maxRotationalVelocityTranslationLimited = motionConstants.getMaxRotationalVelocity() * (outputs[i].getTranslationVector().getMagnitude() / absoluteDirectionOfTravelLimiter.getVelocity());
-			double finalRotationalVelocityConstraint = Math.min(maxRotationalVelocityTranslationLimited, maxRotationalVelocityBreakLimited);
-			finalRotationalVelocityConstraint = Math.min(finalRotationalVelocityConstraint, Math.abs(rotationalVelocity)) * velocitySignum;
+	double getDuration() {
+		return profile.getDuration();
+	}
 
-			previousRotationalVelocity = finalRotationalVelocityConstraint;
-			previousEstimatedRotationalPosition = previousEstimatedRotationalPosition.add(finalRotationalVelocityConstraint * deltaT + 0.5 * (previousRotationalVelocity - finalRotationalVelocityConstraint) * deltaT * 2).toAngleRadians();
+	double getSegmentEndTime(int index) {
+		return profile.getSegmentEndTime(index);
+	}
 
-			outputs[i] = new Followable.Output(
-					outputs[i].getTranslationVector(),
-					finalRotationalVelocityConstraint,
-					outputs[i].getCallbackTime(),
-					new Pose2D(outputs[i].getPosition().getX(), outputs[i].getPosition().getY(), previousEstimatedRotationalPosition),
-					outputs[i].getDestination()
-			);
+	/**
+	 * @param index the index of the segment
+	 * @return the index of the first sampled output at or after the end of the segment
+	 * @deprecated outputs are now sampled in time, not per segment, use {@link FollowableLine#getSegmentEndTime(int)} instead
+	 */
+	@Deprecated
+	public int getOutputIndexFromSegmentIndex(int index) {
+		double[] times = profile.getSampleTimes(SAMPLE_PERIOD);
+		int outputIndex = Arrays.binarySearch(times, getSegmentEndTime(index));
+		if (outputIndex < 0) {
+			outputIndex = -outputIndex - 1;
 		}
+		return Math.min(outputIndex, times.length - 1);
+	}
 
-		return outputs;
+	/**
+	 * @param index the index of the sampled output
+	 * @return the index of the segment the output lies on
+	 * @deprecated outputs are now sampled in time, not per segment, use {@link FollowableLine#getSegmentEndTime(int)} instead
+	 */
+	@Deprecated
+	public int getSegmentIndexFromOutputIndex(int index) {
+		double[] times = profile.getSampleTimes(SAMPLE_PERIOD);
+		return profile.getSegmentAt(times[Math.max(0, Math.min(index, times.length - 1))]);
 	}
 
 	@Override
 	public Followable build() {
-		generateNumberOfOutputs();
+		profile = profile();
 		return new FollowableLine(
-				profile(),
 				unfinishedMarkers,
 				this
 		);
@@ -264,11 +209,14 @@ public class LineBuilder extends FollowableBuilder {
 	private static class LineSegment {
 		private final Pose2D previousPose, destinationPose;
 		private final Vector2D vector;
+		private final double length, rotation;
 
 		public LineSegment(@NotNull Pose2D previousPose, @NotNull Pose2D destinationPose) {
 			this.previousPose = previousPose;
 			this.destinationPose = destinationPose;
 			this.vector = new Vector2D(destinationPose.getX() - previousPose.getX(), destinationPose.getY() - previousPose.getY());
+			this.length = vector.getMagnitude();
+			this.rotation = previousPose.getTheta().findShortestDistance(destinationPose.getTheta());
 		}
 
 		@NotNull
@@ -276,6 +224,24 @@ public class LineBuilder extends FollowableBuilder {
 			return vector;
 		}
 
+		public double getLength() {
+			return length;
+		}
+
+		/**
+		 * @return the shortest change in heading, in radians
+		 */
+		public double getRotation() {
+			return rotation;
+		}
+
+		/**
+		 * @return true if the segment only turns on the spot
+		 */
+		public boolean isTurn() {
+			return length < MINIMUM_LENGTH;
+		}
+
 		@NotNull
 		public Pose2D getDestinationPose() {
 			return destinationPose;
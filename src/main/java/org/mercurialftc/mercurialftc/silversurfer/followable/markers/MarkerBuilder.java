@@ -25,12 +25,12 @@ public class MarkerBuilder {
 	}
 
 	public Marker build(@NotNull FollowableTurn followableTurn) {
-		double callbackTime = followableTurn.getOutputs()[followableTurn.getOutputIndexFromSegmentIndex(referenceIndex)].getCallbackTime() + offset;
+		double callbackTime = followableTurn.getSegmentEndTime(referenceIndex) + offset;
 		return new Marker(markerReached, markerType, callbackTime);
 	}
 
 	public Marker build(@NotNull FollowableLine followableLine) {
-		double callbackTime = followableLine.getOutputs()[followableLine.getOutputIndexFromSegmentIndex(referenceIndex)].getCallbackTime() + offset;
+		double callbackTime = followableLine.getSegmentEndTime(referenceIndex) + offset;
 		return new Marker(markerReached, markerType, callbackTime);
 	}
 }
@@ -1,9 +1,13 @@
 package org.mercurialftc.mercurialftc.silversurfer.followable.motionconstants;
 
 import org.mercurialftc.mercurialftc.silversurfer.geometry.angle.Angle;
-import org.mercurialftc.mercurialftc.silversurfer.geometry.angle.AngleRadians;
 
 public class MecanumMotionConstants {
+	/**
+	 * the number of bins of the table of limits by direction of travel, over a quarter turn
+	 */
+	private static final int DIRECTION_BINS = 256;
+	private static final double BINS_PER_RADIAN = DIRECTION_BINS / (Math.PI / 2);
 	private final double maxTranslationalYVelocity;
 	private final double maxTranslationalXVelocity;
 	private final double maxTranslationalAngledVelocity;
@@ -13,13 +17,25 @@ public class MecanumMotionConstants {
 	private final double maxTranslationalXAcceleration;
 	private final double maxTranslationalAngledAcceleration;
 	private final double maxRotationalAcceleration;
+
+	private final double maxTranslationalJerk;
+	private final double maxRotationalJerk;
 	private final double translationalVelocityMultiplier, rotationalVelocityMultiplier, translationalAccelerationMultiplier, rotationalAccelerationMultiplier;
+	/**
+	 * the velocity and acceleration limits at each bin edge, interleaved, built on first use
+	 * <p>the limits are symmetric about both axes, so a quarter turn covers every direction</p>
+	 */
+	private volatile double[] directionTable;
 
 	public MecanumMotionConstants(double maxTranslationalYVelocity, double maxTranslationalXVelocity, double maxTranslationalAngledVelocity, double maxRotationalVelocity, double maxTranslationalYAcceleration, double maxTranslationalXAcceleration, double maxTranslationalAngledAcceleration, double maxRotationalAcceleration) {
 		this(1, 1, 1, 1, maxTranslationalYVelocity, maxTranslationalXVelocity, maxTranslationalAngledVelocity, maxRotationalVelocity, maxTranslationalYAcceleration, maxTranslationalXAcceleration, maxTranslationalAngledAcceleration, maxRotationalAcceleration);
 	}
 
 	public MecanumMotionConstants(double translationalVelocityMultiplier, double rotationalVelocityMultiplier, double translationalAccelerationMultiplier, double rotationalAccelerationMultiplier, double maxTranslationalYVelocity, double maxTranslationalXVelocity, double maxTranslationalAngledVelocity, double maxRotationalVelocity, double maxTranslationalYAcceleration, double maxTranslationalXAcceleration, double maxTranslationalAngledAcceleration, double maxRotationalAcceleration) {
+		this(translationalVelocityMultiplier, rotationalVelocityMultiplier, translationalAccelerationMultiplier, rotationalAccelerationMultiplier, maxTranslationalYVelocity, maxTranslationalXVelocity, maxTranslationalAngledVelocity, maxRotationalVelocity, maxTranslationalYAcceleration, maxTranslationalXAcceleration, maxTranslationalAngledAcceleration, maxRotationalAcceleration, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
+	}
+
+	private MecanumMotionConstants(double translationalVelocityMultiplier, double rotationalVelocityMultiplier, double translationalAccelerationMultiplier, double rotationalAccelerationMultiplier, double maxTranslationalYVelocity, double maxTranslationalXVelocity, double maxTranslationalAngledVelocity, double maxRotationalVelocity, double maxTranslationalYAcceleration, double maxTranslationalXAcceleration, double maxTranslationalAngledAcceleration, double maxRotationalAcceleration, double maxTranslationalJerk, double maxRotationalJerk) {
 		this.translationalVelocityMultiplier = Math.max(0, Math.min(1, translationalVelocityMultiplier));
 		this.translationalAccelerationMultiplier = Math.max(0, Math.min(1, translationalAccelerationMultiplier));
 		this.rotationalVelocityMultiplier = Math.max(0, Math.min(1, rotationalVelocityMultiplier));
@@ -32,6 +48,30 @@ public class MecanumMotionConstants {
 		this.maxTranslationalXAcceleration = Math.max(maxTranslationalXAcceleration, 0);
 		this.maxTranslationalAngledAcceleration = Math.max(maxTranslationalAngledAcceleration, 0);
 		this.maxRotationalAcceleration = Math.max(maxRotationalAcceleration, 0);
+		this.maxTranslationalJerk = Math.max(maxTranslationalJerk, 0);
+		this.maxRotationalJerk = Math.max(maxRotationalJerk, 0);
+	}
+
+	/**
+	 * lines and turns are profiled as s-curves where jerk is limited, and as trapezoids where it is not, jerk is unlimited by default
+	 *
+	 * @param maxTranslationalJerk the maximum translational jerk, in millimeters per second cubed, or {@link Double#POSITIVE_INFINITY}
+	 * @param maxRotationalJerk    the maximum rotational jerk, in radians per second cubed, or {@link Double#POSITIVE_INFINITY}
+	 * @return a copy of these motion constants with the jerk limits
+	 */
+	public MecanumMotionConstants withJerkLimits(double maxTranslationalJerk, double maxRotationalJerk) {
+		return new MecanumMotionConstants(translationalVelocityMultiplier, rotationalVelocityMultiplier, translationalAccelerationMultiplier, rotationalAccelerationMultiplier, maxTranslationalYVelocity, maxTranslationalXVelocity, maxTranslationalAngledVelocity, maxRotationalVelocity, maxTranslationalYAcceleration, maxTranslationalXAcceleration, maxTranslationalAngledAcceleration, maxRotationalAcceleration, maxTranslationalJerk, maxRotationalJerk);
+	}
+
+	/**
+	 * velocity and acceleration limits are scaled together, as both depend on the voltage available to the motors, jerk limits are left as they are
+	 *
+	 * @param scale the multiplier of the velocity and acceleration limits, e.g. from {@link org.mercurialftc.mercurialftc.silversurfer.voltageperformanceenforcer.VoltagePerformanceEnforcer#getVelocityScale(double)}
+	 * @return a copy of these motion constants with the velocity and acceleration limits scaled
+	 */
+	public MecanumMotionConstants withVelocityScale(double scale) {
+		scale = Math.max(0, scale);
+		return new MecanumMotionConstants(translationalVelocityMultiplier, rotationalVelocityMultiplier, translationalAccelerationMultiplier, rotationalAccelerationMultiplier, maxTranslationalYVelocity * scale, maxTranslationalXVelocity * scale, maxTranslationalAngledVelocity * scale, maxRotationalVelocity * scale, maxTranslationalYAcceleration * scale, maxTranslationalXAcceleration * scale, maxTranslationalAngledAcceleration * scale, maxRotationalAcceleration * scale, maxTranslationalJerk, maxRotationalJerk);
 	}
 
 	public double getTranslationalVelocityMultiplier() {
@@ -82,25 +122,82 @@ public class MecanumMotionConstants {
 		return maxRotationalAcceleration * rotationalAccelerationMultiplier;
 	}
 
+	public double getMaxTranslationalJerk() {
+		return maxTranslationalJerk;
+	}
+
+	public double getMaxRotationalJerk() {
+		return maxRotationalJerk;
+	}
+
+	/**
+	 * allocates, prefer {@link #getDirectionalVelocity(double)} and {@link #getDirectionalAcceleration(double)} in loops
+	 */
 	public DirectionOfTravelLimiter makeDirectionOfTravelLimiter(Angle directionOfTravel) {
-		return new DirectionOfTravelLimiter(directionOfTravel, this);
+		double radians = directionOfTravel.getRadians();
+		return new DirectionOfTravelLimiter(getDirectionalVelocity(radians), getDirectionalAcceleration(radians));
+	}
+
+	/**
+	 * O(1), allocation free, interpolated from a table over the direction of travel
+	 *
+	 * @param directionOfTravel the direction of travel, in radians
+	 * @return the maximum translational velocity in the direction
+	 */
+	public double getDirectionalVelocity(double directionOfTravel) {
+		return interpolateDirectionTable(directionOfTravel, 0);
+	}
+
+	/**
+	 * O(1), allocation free, interpolated from a table over the direction of travel
+	 *
+	 * @param directionOfTravel the direction of travel, in radians
+	 * @return the maximum translational acceleration in the direction
+	 */
+	public double getDirectionalAcceleration(double directionOfTravel) {
+		return interpolateDirectionTable(directionOfTravel, 1);
+	}
+
+	private double interpolateDirectionTable(double directionOfTravel, int column) {
+		double[] table = directionTable;
+		if (table == null) {
+			table = buildDirectionTable();
+			directionTable = table;
+		}
+		// folds the direction into [0, π/2]
+		double position = Math.abs(Math.IEEEremainder(directionOfTravel, Math.PI)) * BINS_PER_RADIAN;
+		int bin = Math.min((int) position, DIRECTION_BINS - 1);
+		double fraction = position - bin;
+		double start = table[2 * bin + column];
+		return start + fraction * (table[2 * bin + 2 + column] - start);
+	}
+
+	/**
+	 * concurrent callers may each build the table, the results are identical
+	 */
+	private double[] buildDirectionTable() {
+		double[] table = new double[2 * (DIRECTION_BINS + 1)];
+		for (int i = 0; i <= DIRECTION_BINS; i++) {
+			double directionOfTravel = i / BINS_PER_RADIAN;
+			double sin = Math.sin(directionOfTravel);
+			double cos = Math.cos(directionOfTravel);
+			double cos2 = Math.cos(2 * directionOfTravel);
+			double yTerm = sin * sin;
+			double xTerm = cos * cos;
+			double angledModifier = cos2 * cos2;
+
+			table[2 * i] = getMaxTranslationalAngledVelocity() + angledModifier * (yTerm * (getMaxTranslationalYVelocity() - getMaxTranslationalAngledVelocity()) + xTerm * (getMaxTranslationalXVelocity() - getMaxTranslationalAngledVelocity()));
+			table[2 * i + 1] = getMaxTranslationalAngledAcceleration() + angledModifier * (yTerm * (getMaxTranslationalYAcceleration() - getMaxTranslationalAngledAcceleration()) + xTerm * (getMaxTranslationalXAcceleration() - getMaxTranslationalAngledAcceleration()));
+		}
+		return table;
 	}
 
 	public static class DirectionOfTravelLimiter {
 		private final double velocity, acceleration;
 
-		private DirectionOfTravelLimiter(Angle directionOfTravel, MecanumMotionConstants mecanumMotionConstants) {
-			double yTerm, xTerm, angledModifier;
-			AngleRadians angleDoubled = directionOfTravel.add(directionOfTravel).toAngleRadians();
-			double sin = Math.sin(directionOfTravel.getRadians());
-			double cos = Math.cos(directionOfTravel.getRadians());
-			double cos2 = Math.cos(angleDoubled.getRadians());
-			yTerm = (sin * sin);
-			xTerm = (cos * cos);
-			angledModifier = (cos2 * cos2);
-
-			this.velocity = mecanumMotionConstants.getMaxTranslationalAngledVelocity() + angledModifier * (yTerm * (mecanumMotionConstants.getMaxTranslationalYVelocity() - mecanumMotionConstants.getMaxTranslationalAngledVelocity()) + xTerm * (mecanumMotionConstants.getMaxTranslationalXVelocity() - mecanumMotionConstants.getMaxTranslationalAngledVelocity()));
-			this.acceleration = mecanumMotionConstants.getMaxTranslationalAngledAcceleration() + angledModifier * (yTerm * (mecanumMotionConstants.getMaxTranslationalYAcceleration() - mecanumMotionConstants.getMaxTranslationalAngledAcceleration()) + xTerm * (mecanumMotionConstants.getMaxTranslationalXAcceleration() - mecanumMotionConstants.getMaxTranslationalAngledAcceleration()));
+		private DirectionOfTravelLimiter(double velocity, double acceleration) {
+			this.velocity = velocity;
+			this.acceleration = acceleration;
 		}
 
 		public double getVelocity() {
@@ -0,0 +1,361 @@
+package org.mercurialftc.mercurialftc.silversurfer.followable.profile;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+
+/**
+ * a closed form motion profile along a single axis, made of phases of constant jerk, so that the position, velocity and acceleration can be found at any time in O(log phases)
+ * <p>the profile runs a chain of segments back to back, each with its own limits, starting and ending at rest</p>
+ * <p>where jerk is unlimited each change of velocity is a trapezoid, otherwise it is an s-curve</p>
+ */
+@SuppressWarnings("unused")
+public final class ScalarProfile {
+	private static final int ITERATIONS = 64;
+
+	// the state at the start of each phase
+	private final double[] phaseTimes, phasePositions, phaseVelocities, phaseAccelerations, phaseJerks;
+	private final double[] segmentStartPositions, segmentEndTimes;
+	private final double duration;
+
+	private ScalarProfile(@NotNull ArrayList<double[]> phases, @NotNull double[] segmentStartPositions, @NotNull double[] segmentEndTimes, double duration) {
+		int size = phases.size();
+		phaseTimes = new double[size];
+		phasePositions = new double[size];
+		phaseVelocities = new double[size];
+		phaseAccelerations = new double[size];
+		phaseJerks = new double[size];
+		for (int i = 0; i < size; i++) {
+			double[] phase = phases.get(i);
+			phaseTimes[i] = phase[0];
+			phasePositions[i] = phase[1];
+			phaseVelocities[i] = phase[2];
+			phaseAccelerations[i] = phase[3];
+			phaseJerks[i] = phase[4];
+		}
+		this.segmentStartPositions = segmentStartPositions;
+		this.segmentEndTimes = segmentEndTimes;
+		this.duration = duration;
+	}
+
+	/**
+	 * profiles a chain of segments, the velocity between segments is the highest that every limit allows, and each segment cruises at the highest velocity it can reach and still slow down in time
+	 *
+	 * @param lengths            the length of each segment, at least 0
+	 * @param maxVelocities      the maximum velocity of each segment
+	 * @param maxAccelerations   the maximum acceleration of each segment
+	 * @param maxJerks           the maximum jerk of each segment, {@link Double#POSITIVE_INFINITY} for a trapezoidal profile
+	 * @param junctionVelocities the maximum velocity between each pair of consecutive segments, one fewer than the number of segments, e.g. 0 to stop between them
+	 * @return the profile
+	 */
+	@NotNull
+	public static ScalarProfile chain(@NotNull double[] lengths, @NotNull double[] maxVelocities, @NotNull double[] maxAccelerations, @NotNull double[] maxJerks, @NotNull double[] junctionVelocities) {
+		int segmentCount = lengths.length;
+		if (segmentCount == 0) {
+			throw new RuntimeException("a profile needs at least one segment");
+		}
+		for (int i = 0; i < segmentCount; i++) {
+			if (lengths[i] > 0 && (!(maxVelocities[i] > 0) || !(maxAccelerations[i] > 0) || !(maxJerks[i] > 0))) {
+				throw new RuntimeException("segment " + i + " of the profile has a length but cannot move");
+			}
+		}
+
+		// the velocity at the start of each segment, and at the end of the last
+		double[] velocities = new double[segmentCount + 1];
+		for (int i = 1; i < segmentCount; i++) {
+			velocities[i] = Math.min(junctionVelocities[i - 1], Math.min(maxVelocities[i - 1], maxVelocities[i]));
+		}
+
+		for (int i = 0; i < segmentCount; i++) {
+			velocities[i + 1] = Math.min(velocities[i + 1], reachableVelocity(velocities[i], lengths[i], maxVelocities[i], maxAccelerations[i], maxJerks[i]));
+		}
+		for (int i = segmentCount - 1; i >= 0; i--) {
+			velocities[i] = Math.min(velocities[i], reachableVelocity(velocities[i + 1], lengths[i], maxVelocities[i], maxAccelerations[i], maxJerks[i]));
+		}
+
+		ArrayList<double[]> phases = new ArrayList<>();
+		double[] segmentStartPositions = new double[segmentCount + 1];
+		double[] segmentEndTimes = new double[segmentCount];
+		double[] state = new double[2]; // time, position
+
+		for (int i = 0; i < segmentCount; i++) {
+			double start = velocities[i];
+			double end = velocities[i + 1];
+			double acceleration = maxAccelerations[i];
+			double jerk = maxJerks[i];
+			double peak = peakVelocity(start, end, lengths[i], maxVelocities[i], acceleration, jerk);
+
+			addTransition(phases, state, start, peak, acceleration, jerk);
+			double cruise = lengths[i] - transitionDistance(start, peak, acceleration, jerk) - transitionDistance(peak, end, acceleration, jerk);
+			if (cruise > 0 && peak > 0) {
+				addPhase(phases, state, peak, 0, 0, cruise / peak);
+			}
+			addTransition(phases, state, peak, end, acceleration, jerk);
+
+			segmentStartPositions[i + 1] = segmentStartPositions[i] + lengths[i];
+			// removes any rounding, so each segment starts exactly where the last ended
+			state[1] = segmentStartPositions[i + 1];
+			segmentEndTimes[i] = state[0];
+		}
+
+		// the profile holds at rest once it ends
+		addPhase(phases, state, 0, 0, 0, 0);
+
+		return new ScalarProfile(phases, segmentStartPositions, segmentEndTimes, state[0]);
+	}
+
+	/**
+	 * @return the time to change velocity by the difference, with the acceleration profile symmetric about its middle
+	 */
+	private static double transitionTime(double difference, double acceleration, double jerk) {
+		if (difference <= 0) {
+			return 0;
+		}
+		if (Double.isInfinite(jerk)) {
+			return difference / acceleration;
+		}
+		if (difference * jerk >= acceleration * acceleration) {
+			return difference / acceleration + acceleration / jerk;
+		}
+		return 2 * Math.sqrt(difference / jerk);
+	}
+
+	/**
+	 * as the acceleration is symmetric over the transition, the average velocity is the average of the two ends
+	 *
+	 * @return the distance covered while changing velocity from start to end
+	 */
+	private static double transitionDistance(double start, double end, double acceleration, double jerk) {
+		return 0.5 * (start + end) * transitionTime(Math.abs(end - start), acceleration, jerk);
+	}
+
+	/**
+	 * @return the highest velocity, up to the maximum, that can be reached from the start velocity within the length, which is also the highest velocity that can be slowed to the start velocity within the length
+	 */
+	private static double reachableVelocity(double start, double length, double maxVelocity, double acceleration, double jerk) {
+		if (start >= maxVelocity || transitionDistance(start, maxVelocity, acceleration, jerk) <= length) {
+			return Math.max(start, maxVelocity);
+		}
+		if (Double.isInfinite(jerk)) {
+			return Math.sqrt(start * start + 2 * acceleration * length);
+		}
+		double low = start;
+		double high = maxVelocity;
+		for (int i = 0; i < ITERATIONS; i++) {
+			double middle = 0.5 * (low + high);
+			if (transitionDistance(start, middle, acceleration, jerk) <= length) {
+				low = middle;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * the start and end velocities must already be reachable from each other within the length
+	 *
+	 * @return the highest velocity, up to the maximum, that can be reached from the start velocity and still be slowed to the end velocity within the length
+	 */
+	private static double peakVelocity(double start, double end, double length, double maxVelocity, double acceleration, double jerk) {
+		double low = Math.max(start, end);
+		double high = Math.max(low, maxVelocity);
+		if (transitionDistance(start, high, acceleration, jerk) + transitionDistance(high, end, acceleration, jerk) <= length) {
+			return high;
+		}
+		if (Double.isInfinite(jerk)) {
+			return Math.max(low, Math.min(high, Math.sqrt(acceleration * length + 0.5 * (start * start + end * end))));
+		}
+		for (int i = 0; i < ITERATIONS; i++) {
+			double middle = 0.5 * (low + high);
+			if (transitionDistance(start, middle, acceleration, jerk) + transitionDistance(middle, end, acceleration, jerk) <= length) {
+				low = middle;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * adds the phases that change the velocity from start to end, a ramp of acceleration, a hold, and a ramp back to 0, the hold is left out if the maximum acceleration is not reached
+	 */
+	private static void addTransition(@NotNull ArrayList<double[]> phases, @NotNull double[] state, double start, double end, double acceleration, double jerk) {
+		double difference = Math.abs(end - start);
+		if (difference <= 0) {
+			return;
+		}
+		double sign = Math.signum(end - start);
+		if (Double.isInfinite(jerk)) {
+			addPhase(phases, state, start, sign * acceleration, 0, difference / acceleration);
+		} else if (difference * jerk >= acceleration * acceleration) {
+			double rampTime = acceleration / jerk;
+			double holdTime = difference / acceleration - rampTime;
+			double velocity = start;
+			addPhase(phases, state, velocity, 0, sign * jerk, rampTime);
+			velocity += sign * 0.5 * acceleration * rampTime;
+			addPhase(phases, state, velocity, sign * acceleration, 0, holdTime);
+			velocity += sign * acceleration * holdTime;
+			addPhase(phases, state, velocity, sign * acceleration, -sign * jerk, rampTime);
+		} else {
+			double rampTime = Math.sqrt(difference / jerk);
+			addPhase(phases, state, start, 0, sign * jerk, rampTime);
+			addPhase(phases, state, 0.5 * (start + end), sign * jerk * rampTime, -sign * jerk, rampTime);
+		}
+	}
+
+	/**
+	 * adds a phase starting at the current time and position, and moves them to its end
+	 */
+	private static void addPhase(@NotNull ArrayList<double[]> phases, @NotNull double[] state, double velocity, double acceleration, double jerk, double duration) {
+		if (duration < 0) {
+			return;
+		}
+		phases.add(new double[]{state[0], state[1], velocity, acceleration, jerk});
+		state[0] += duration;
+		state[1] += duration * (velocity + duration * (acceleration / 2 + duration * jerk / 6));
+	}
+
+	/**
+	 * O(log phases)
+	 *
+	 * @return the index of the phase running at the time
+	 */
+	private int phaseAt(double time) {
+		int low = 0;
+		int high = phaseTimes.length - 1;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (phaseTimes[middle] <= time) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @return the time from the start of the profile to when it comes to rest
+	 */
+	public double getDuration() {
+		return duration;
+	}
+
+	/**
+	 * @return the sum of the lengths of the segments
+	 */
+	public double getLength() {
+		return segmentStartPositions[segmentStartPositions.length - 1];
+	}
+
+	/**
+	 * @param time the time since the start of the profile, clamped to the profile
+	 * @return the position at the time
+	 */
+	public double getPosition(double time) {
+		time = Math.max(0, Math.min(time, duration));
+		int phase = phaseAt(time);
+		double t = time - phaseTimes[phase];
+		double position = phasePositions[phase] + t * (phaseVelocities[phase] + t * (phaseAccelerations[phase] / 2 + t * phaseJerks[phase] / 6));
+		return Math.max(0, Math.min(position, getLength()));
+	}
+
+	/**
+	 * @param time the time since the start of the profile, clamped to the profile
+	 * @return the velocity at the time
+	 */
+	public double getVelocity(double time) {
+		time = Math.max(0, Math.min(time, duration));
+		int phase = phaseAt(time);
+		double t = time - phaseTimes[phase];
+		return Math.max(0, phaseVelocities[phase] + t * (phaseAccelerations[phase] + t * phaseJerks[phase] / 2));
+	}
+
+	/**
+	 * @param time the time since the start of the profile, clamped to the profile
+	 * @return the acceleration at the time
+	 */
+	public double getAcceleration(double time) {
+		time = Math.max(0, Math.min(time, duration));
+		int phase = phaseAt(time);
+		double t = time - phaseTimes[phase];
+		return phaseAccelerations[phase] + t * phaseJerks[phase];
+	}
+
+	public int getSegmentCount() {
+		return segmentEndTimes.length;
+	}
+
+	/**
+	 * @return the position at the start of the segment
+	 */
+	public double getSegmentStart(int segment) {
+		return segmentStartPositions[segment];
+	}
+
+	public double getSegmentLength(int segment) {
+		return segmentStartPositions[segment + 1] - segmentStartPositions[segment];
+	}
+
+	/**
+	 * @param segment the index of the segment, clamped to the segments of the profile
+	 * @return the time at which the segment ends
+	 */
+	public double getSegmentEndTime(int segment) {
+		if (segment < 0) {
+			return 0;
+		}
+		return segmentEndTimes[Math.min(segment, segmentEndTimes.length - 1)];
+	}
+
+	/**
+	 * O(log segments)
+	 *
+	 * @param time the time since the start of the profile
+	 * @return the segment running at the time, at the end of one segment this is the segment after it
+	 */
+	public int getSegmentAt(double time) {
+		int low = 0;
+		int high = segmentEndTimes.length - 1;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (segmentEndTimes[middle] > time) {
+				high = middle;
+			} else {
+				low = middle + 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * the start of every phase is included, so that interpolating linearly between samples never cuts a corner of the velocity profile
+	 *
+	 * @param maxPeriod the longest time between samples
+	 * @return the times at which to sample the profile, from 0 to the duration
+	 */
+	@NotNull
+	public double[] getSampleTimes(double maxPeriod) {
+		int count = 1;
+		for (int i = 0; i < phaseTimes.length - 1; i++) {
+			double phaseDuration = phaseTimes[i + 1] - phaseTimes[i];
+			if (phaseDuration > 0) {
+				count += (int) Math.ceil(phaseDuration / maxPeriod);
+			}
+		}
+		double[] times = new double[count];
+		int index = 0;
+		for (int i = 0; i < phaseTimes.length - 1; i++) {
+			double phaseDuration = phaseTimes[i + 1] - phaseTimes[i];
+			if (phaseDuration > 0) {
+				int steps = (int) Math.ceil(phaseDuration / maxPeriod);
+				for (int step = 0; step < steps; step++) {
+					times[index++] = phaseTimes[i] + phaseDuration * step / steps;
+				}
+			}
+		}
+		times[index] = duration;
+		return times;
+	}
+}
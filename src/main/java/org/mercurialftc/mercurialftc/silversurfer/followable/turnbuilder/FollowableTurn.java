@@ -1,16 +1,20 @@
 package org.mercurialftc.mercurialftc.silversurfer.followable.turnbuilder;
 
+import org.jetbrains.annotations.NotNull;
 import org.mercurialftc.mercurialftc.silversurfer.followable.Followable;
 import org.mercurialftc.mercurialftc.silversurfer.followable.markers.Marker;
 import org.mercurialftc.mercurialftc.silversurfer.followable.markers.MarkerBuilder;
 
 import java.util.ArrayList;
 
+/**
+ * a chain of turns, evaluated in closed form, outputs are only sampled once they are first asked for
+ */
 public class FollowableTurn extends Followable {
 	private final TurnBuilder turnBuilder;
 
-	protected FollowableTurn(Output[] outputs, ArrayList<MarkerBuilder> unfinishedMarkers, TurnBuilder turnBuilder) {
-		setOutputs(outputs);
+	protected FollowableTurn(@NotNull ArrayList<MarkerBuilder> unfinishedMarkers, TurnBuilder turnBuilder) {
+		this.turnBuilder = turnBuilder;
 
 		Marker[] markers = new Marker[unfinishedMarkers.size()];
 
@@ -19,9 +23,38 @@ public class FollowableTurn extends Followable {
 		}
 
 		setMarkers(markers);
-		this.turnBuilder = turnBuilder;
 	}
 
+	@Override
+	protected Output[] sampleOutputs() {
+		return turnBuilder.sampleOutputs();
+	}
+
+	/**
+	 * @param time the time since the start of the turn
+	 * @return the output at the time, evaluated in closed form
+	 */
+	@NotNull
+	public Output getOutput(double time) {
+		return turnBuilder.getOutput(time);
+	}
+
+	public double getDuration() {
+		return turnBuilder.getDuration();
+	}
+
+	/**
+	 * @param index the index of the segment, clamped to the segments of the turn, before the first segment is the start of the turn
+	 * @return the time at which the segment ends
+	 */
+	public double getSegmentEndTime(int index) {
+		return turnBuilder.getSegmentEndTime(index);
+	}
+
+	/**
+	 * @deprecated outputs are now sampled in time, not per segment, use {@link #getSegmentEndTime(int)} instead
+	 */
+	@Deprecated
 	public int getOutputIndexFromSegmentIndex(int index) {
 		return turnBuilder.getOutputIndexFromSegmentIndex(index);
 	}
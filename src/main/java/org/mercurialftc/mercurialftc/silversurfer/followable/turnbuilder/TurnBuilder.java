@@ -7,17 +7,25 @@ import org.mercurialftc.mercurialftc.silversurfer.followable.FollowableBuilder;
 import org.mercurialftc.mercurialftc.silversurfer.followable.markers.Marker;
 import org.mercurialftc.mercurialftc.silversurfer.followable.markers.MarkerBuilder;
 import org.mercurialftc.mercurialftc.silversurfer.followable.motionconstants.MecanumMotionConstants;
+import org.mercurialftc.mercurialftc.silversurfer.followable.profile.ScalarProfile;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.Pose2D;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.Vector2D;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.angle.AngleRadians;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
+/**
+ * profiles the rotation through a chain of turns in closed form, see {@link ScalarProfile}
+ */
 public class TurnBuilder extends FollowableBuilder {
+	/**
+	 * the longest time between sampled outputs, the wave interpolates between them
+	 */
+	private static final double SAMPLE_PERIOD = 0.02;
 	private final ArrayList<TurnSegment> segments;
 	private final ArrayList<MarkerBuilder> unfinishedMarkers;
-	private int[] segmentBreakpoints;
-	private double[] segmentOutputSizes;
+	private ScalarProfile profile;
 
 	public TurnBuilder(MecanumMotionConstants motionConstants) {
 		super(motionConstants);
@@ -25,173 +33,112 @@ public class TurnBuilder extends FollowableBuilder {
 		segments = new ArrayList<>();
 	}
 
-	private void generateNumberOfOutputs() {
-		double targetOutputFrequency = Math.toRadians(0.2);
-		int result = 0;
-
-		segmentBreakpoints = new int[segments.size()];
-		segmentOutputSizes = new double[segments.size()];
-
-		for (int i = 0; i < segments.size(); i++) {
-			double difference = Math.abs(segments.get(i).getDifference());
-
-			double estimate = difference / targetOutputFrequency;
-			int accurateResult = (int) Math.round(estimate);
-
-			result += accurateResult;
-
-			segmentOutputSizes[i] = difference / accurateResult;
-			segmentBreakpoints[i] = result;
-		}
-	}
-
-	public int getOutputIndexFromSegmentIndex(int index) {
-		if (index >= segmentBreakpoints.length - 1) {
-			return segmentBreakpoints[segmentBreakpoints.length - 1];
-		} else if (index <= 0) {
-			return 0;
-		}
-		return segmentBreakpoints[index];
-	}
-
-	public int getSegmentIndexFromOutputIndex(int index) {
-		if (index >= segmentBreakpoints[segmentBreakpoints.length - 1]) {
-			return segments.size() - 1;
-		} else if (index <= 0) {
-			return 0;
+	@NotNull
+	private ScalarProfile profile() {
+		int size = segments.size();
+		double[] lengths = new double[size];
+		double[] maxVelocities = new double[size];
+		double[] maxAccelerations = new double[size];
+		double[] maxJerks = new double[size];
+		double[] junctionVelocities = new double[size - 1];
+
+		for (int i = 0; i < size; i++) {
+			MecanumMotionConstants motionConstants = getMotionConstantsArray().get(i);
+			lengths[i] = Math.abs(segments.get(i).getDifference());
+			maxVelocities[i] = motionConstants.getMaxRotationalVelocity();
+			maxAccelerations[i] = motionConstants.getMaxRotationalAcceleration();
+			maxJerks[i] = motionConstants.getMaxRotationalJerk();
 		}
 
-		int result = 0;
-
-		for (int i = 1; i < segments.size(); i++) {
-			if (index < segmentBreakpoints[i]) {
-				result = i - 1;
-				break;
+		// turns in the same direction run into each other, otherwise the robot stops to change direction
+		for (int i = 0; i < size - 1; i++) {
+			if (Math.signum(segments.get(i).getDifference()) == Math.signum(segments.get(i + 1).getDifference())) {
+				junctionVelocities[i] = Double.POSITIVE_INFINITY;
 			}
 		}
 
-		return result;
+		return ScalarProfile.chain(lengths, maxVelocities, maxAccelerations, maxJerks, junctionVelocities);
 	}
 
+	/**
+	 * O(log phases)
+	 *
+	 * @param time the time since the start of the turn, clamped to the turn
+	 * @return the output at the time, evaluated from the closed form profile
+	 */
 	@NotNull
-	private Followable.Output[] profile() {
-		Followable.Output[] outputs = new Followable.Output[segmentBreakpoints[segmentBreakpoints.length - 1]];
-
-		TurnSegment previousSegment = segments.get(0);
-
-		outputs[0] = new Followable.Output(
-				Vector2D.fromPolar(0, 0), // the velocity output
-				0,
-				0,
-				previousSegment.getPreviousPose(),
-				previousSegment.getDestinationPose()
-		);
-
-		double previousVelocity = 0;
-
-		for (int i = 1; i < segmentBreakpoints[segmentBreakpoints.length - 1]; i++) {
-			int segmentIndex = getSegmentIndexFromOutputIndex(i);
-			TurnSegment segment = segments.get(segmentIndex);
-
-			MecanumMotionConstants motionConstants = getMotionConstantsArray().get(segmentIndex);
-
-			double vMax = motionConstants.getMaxRotationalVelocity();
-
-			double vAccelerationLimited = Math.sqrt(previousVelocity * previousVelocity + 2 * motionConstants.getMaxRotationalAcceleration() * segmentOutputSizes[segmentIndex]);
-
-			double finalVelocityConstraint = Math.min(vAccelerationLimited, vMax);
-
-//			double errorSignum = Math.signum(segment.getDifference());
-
-			int previousBreakPoint = 0;
-			if (segmentIndex > 0) previousBreakPoint = segmentBreakpoints[segmentIndex - 1];
-			int numberOfSubdivisions = i - previousBreakPoint;
-
-			Pose2D position = segment.getPreviousPose().add(0, 0, new AngleRadians(segmentOutputSizes[segmentIndex] * numberOfSubdivisions));
-
-			outputs[i] = new Followable.Output(
-					Vector2D.fromPolar(0, 0), // the velocity output
-					finalVelocityConstraint,
-					0,
-					position,
-					segment.getDestinationPose()
-			);
-
-			previousVelocity = finalVelocityConstraint;
+	Followable.Output getOutput(double time) {
+		time = Math.max(0, Math.min(time, profile.getDuration()));
+		int index = profile.getSegmentAt(time);
+		TurnSegment segment = segments.get(index);
+		double direction = Math.signum(segment.getDifference());
+		double progress = Math.max(0, Math.min(profile.getSegmentLength(index), profile.getPosition(time) - profile.getSegmentStart(index)));
+
+		Pose2D position = segment.getDestinationPose();
+		if (progress < profile.getSegmentLength(index)) {
+			position = segment.getPreviousPose().add(0, 0, new AngleRadians(direction * progress));
 		}
 
-//		do a backward pass for accelerational constraints
-
-//		set the final output to be back at 0
-		outputs[outputs.length - 1] = new Followable.Output(
+		return new Followable.Output(
 				new Vector2D(), // the velocity output
-				0,
-				0,
-				segments.get(segments.size() - 1).getDestinationPose(),
-				segments.get(segments.size() - 1).getDestinationPose()
+				direction * profile.getVelocity(time),
+				time,
+				position,
+				segment.getDestinationPose()
 		);
+	}
 
-		previousVelocity = 0;
-
-		for (int i = segmentBreakpoints[segmentBreakpoints.length - 1] - 2; i >= 0; i--) {
-			int segmentIndex = getSegmentIndexFromOutputIndex(i);
-			TurnSegment segment = segments.get(segmentIndex);
-
-			MecanumMotionConstants motionConstants = getMotionConstantsArray().get(segmentIndex);
-
-			double rotationalVelocity = outputs[i].getRotationalVelocity();
-
-			double vMaxAccelerationLimited = Math.sqrt(previousVelocity * previousVelocity + 2 * motionConstants.getMaxRotationalVelocity() * segmentOutputSizes[segmentIndex]);
-
-			double finalVelocityConstraint = Math.min(rotationalVelocity, vMaxAccelerationLimited);
-
-			double errorSignum = Math.signum(segment.getDifference());
-
-			outputs[i] = new Followable.Output(
-					outputs[i].getTranslationVector(),
-					finalVelocityConstraint * errorSignum,
-					outputs[i].getCallbackTime(),
-					outputs[i].getPosition(),
-					outputs[i].getDestination()
-			);
-
-			previousVelocity = finalVelocityConstraint;
+	/**
+	 * samples the profile at least every {@link #SAMPLE_PERIOD}, and at every change of phase
+	 */
+	@NotNull
+	Followable.Output[] sampleOutputs() {
+		double[] times = profile.getSampleTimes(SAMPLE_PERIOD);
+		Followable.Output[] outputs = new Followable.Output[times.length];
+		for (int i = 0; i < times.length; i++) {
+			outputs[i] = getOutput(times[i]);
 		}
+		return outputs;
+	}
 
-		// forward pass to calculate times
-
-		previousVelocity = outputs[0].getRotationalVelocity();
-		double time = 0;
-
-		for (int i = 1; i < segmentBreakpoints[segmentBreakpoints.length - 1]; i++) {
-			int segmentIndex = getSegmentIndexFromOutputIndex(i);
-
-			double velocity = outputs[i].getRotationalVelocity();
-
-			// ∆t = 2∆s / (v_i + v_{i−1})
-			double deltaT = (2 * segmentOutputSizes[segmentIndex]) / (Math.abs(velocity) + Math.abs(previousVelocity));
-
-			time += deltaT;
+	double getDuration() {
+		return profile.getDuration();
+	}
 
-			outputs[i] = new Followable.Output(
-					outputs[i].getTranslationVector(),
-					outputs[i].getRotationalVelocity(),
-					time,
-					outputs[i].getPosition(),
-					outputs[i].getDestination()
-			);
+	double getSegmentEndTime(int index) {
+		return profile.getSegmentEndTime(index);
+	}
 
-			previousVelocity = velocity;
+	/**
+	 * @param index the index of the segment
+	 * @return the index of the first sampled output at or after the end of the segment
+	 * @deprecated outputs are now sampled in time, not per segment, use {@link FollowableTurn#getSegmentEndTime(int)} instead
+	 */
+	@Deprecated
+	public int getOutputIndexFromSegmentIndex(int index) {
+		double[] times = profile.getSampleTimes(SAMPLE_PERIOD);
+		int outputIndex = Arrays.binarySearch(times, getSegmentEndTime(index));
+		if (outputIndex < 0) {
+			outputIndex = -outputIndex - 1;
 		}
+		return Math.min(outputIndex, times.length - 1);
+	}
 
-		return outputs;
+	/**
+	 * @param index the index of the sampled output
+	 * @return the index of the segment the output lies on
+	 * @deprecated outputs are now sampled in time, not per segment, use {@link FollowableTurn#getSegmentEndTime(int)} instead
+	 */
+	@Deprecated
+	public int getSegmentIndexFromOutputIndex(int index) {
+		double[] times = profile.getSampleTimes(SAMPLE_PERIOD);
+		return profile.getSegmentAt(times[Math.max(0, Math.min(index, times.length - 1))]);
 	}
 
 	@Override
 	public Followable build() {
-		generateNumberOfOutputs();
+		profile = profile();
 		return new FollowableTurn(
-				profile(),
 				unfinishedMarkers,
 				this
 		);
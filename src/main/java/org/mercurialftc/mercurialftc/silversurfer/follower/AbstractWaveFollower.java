@@ -29,10 +29,20 @@ public abstract class AbstractWaveFollower implements WaveFollower {
 	public final void update(double currentTime) {
 		this.previousTime = this.currentTime;
 		this.currentTime = currentTime;
-		finished = wave.update(currentTime);
+		finished = wave.update(getWaveTime(currentTime));
 		followOutput(wave.getOutput(), currentTime - previousTime);
 	}
 
+	/**
+	 * called once per {@link #update(double)}, before the wave is updated, subclasses may override this to hold or shift the wave, e.g. while following a detour
+	 *
+	 * @param currentTime the time in seconds since the start of the wave following process
+	 * @return the time of the wave to follow
+	 */
+	protected double getWaveTime(double currentTime) {
+		return currentTime;
+	}
+
 	@Override
 	public boolean isFinished() {
 		return finished;
@@ -2,21 +2,32 @@ package org.mercurialftc.mercurialftc.silversurfer.follower;
 
 import org.jetbrains.annotations.NotNull;
 import org.mercurialftc.mercurialftc.silversurfer.followable.Followable;
+import org.mercurialftc.mercurialftc.silversurfer.followable.Wave;
+import org.mercurialftc.mercurialftc.silversurfer.followable.WavePath;
+import org.mercurialftc.mercurialftc.silversurfer.followable.WavePathCursor;
 import org.mercurialftc.mercurialftc.silversurfer.followable.motionconstants.MecanumMotionConstants;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Pose2D;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.Vector2D;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.EmptyObstacleMap;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.ObstacleMap;
 import org.mercurialftc.mercurialftc.silversurfer.tracker.Tracker;
 
+/**
+ * follows a wave as a guiding vector field, the error of the robot is measured from the closest point of the path to it, rather than from the point that the wave is at in time
+ * <p>the error is split into the error across the path, to the closest point, and the error along the path, between the closest point and the point the wave is at, which is corrected in the direction of the path, so a robot that falls behind catches up along the path rather than cutting across it</p>
+ * <p>the closest point is found with a {@link WavePathCursor}, so the time taken each loop does not depend on the length of the wave</p>
+ */
 @SuppressWarnings("unused")
 public class GVFWaveFollower extends AbstractWaveFollower {
 	private final WaveFollower waveFollower;
 	private final Tracker tracker;
-	private final double rotationLimiter;
-	private final MecanumMotionConstants mecanumMotionConstants;
+	private double rotationLimiter;
+	private MecanumMotionConstants mecanumMotionConstants;
 	private boolean inPosition;
-	private MecanumMotionConstants.DirectionOfTravelLimiter errorDirectionOfTravelLimiter;
+	private double errorDirectionVelocity;
 	private double previousTranslationError, previousRotationError;
+	private Wave cursorWave;
+	private WavePathCursor robotCursor, referenceCursor;
 
 	public GVFWaveFollower(@NotNull WaveFollower waveFollower, @NotNull MecanumMotionConstants mecanumMotionConstants, @NotNull Tracker tracker, @NotNull ObstacleMap obstacleMap) {
 		this.waveFollower = waveFollower;
@@ -30,23 +41,63 @@ public class GVFWaveFollower extends AbstractWaveFollower {
 		this(waveFollower, mecanumMotionConstants, tracker, new EmptyObstacleMap());
 	}
 
+	/**
+	 * @param mecanumMotionConstants the new motion constants, used to scale the error corrections from now on, e.g. from a {@link org.mercurialftc.mercurialftc.silversurfer.voltageperformanceenforcer.VoltageCompensator}
+	 * @return self, for method chaining
+	 */
+	public GVFWaveFollower setMotionConstants(@NotNull MecanumMotionConstants mecanumMotionConstants) {
+		this.mecanumMotionConstants = mecanumMotionConstants;
+		rotationLimiter = Math.sqrt(mecanumMotionConstants.getMaxRotationalVelocity());
+		return this;
+	}
+
+	/**
+	 * keeps the cursors on the path of the current wave, which is read in place, and grows with a streaming wave, so the cursors only need replacing when the wave is
+	 */
+	private void updateCursors() {
+		if (cursorWave != getWave()) {
+			cursorWave = getWave();
+			WavePath path = getWave().getPath();
+			robotCursor = new WavePathCursor(path);
+			referenceCursor = new WavePathCursor(path);
+		}
+	}
+
 	@Override
 	public void followOutput(@NotNull Followable.Output output, double loopTime) {
-		Vector2D errorVector = output.getPosition().subtract(tracker.getPose2D()).toVector2D();
-
+		Pose2D pose = tracker.getPose2D();
+		Vector2D errorVector = output.getPosition().subtract(pose).toVector2D();
 		Vector2D transformedTranslationVector = output.getTranslationVector();
 
+		if (getWave() != null) {
+			updateCursors();
+			robotCursor.update(pose.getX(), pose.getY());
+			referenceCursor.update(output.getPosition().getX(), output.getPosition().getY());
+
+			double tangentX = robotCursor.getTangentX();
+			double tangentY = robotCursor.getTangentY();
+			if (tangentX != 0 || tangentY != 0) {
+				double alongError = referenceCursor.getDistance() - robotCursor.getDistance();
+				errorVector = new Vector2D(
+						robotCursor.getX() - pose.getX() + tangentX * alongError,
+						robotCursor.getY() - pose.getY() + tangentY * alongError
+				);
+				// the robot is driven along the path where it is, at the speed the wave is going
+				transformedTranslationVector = new Vector2D(tangentX, tangentY).scalarMultiply(output.getTranslationVector().getMagnitude());
+			}
+		}
+
 		double errorVectorMagnitude = errorVector.getMagnitude();
 
 		if (errorVectorMagnitude > 2) {
-			errorDirectionOfTravelLimiter = mecanumMotionConstants.makeDirectionOfTravelLimiter(errorVector.getHeading());
+			errorDirectionVelocity = mecanumMotionConstants.getDirectionalVelocity(errorVector.getHeading().getRadians());
 
-			Vector2D errorFeedback = Vector2D.fromPolar(modifyTranslationError(errorVectorMagnitude, errorVectorMagnitude - previousTranslationError, loopTime) * errorDirectionOfTravelLimiter.getVelocity(), errorVector.getHeading());
+			Vector2D errorFeedback = Vector2D.fromPolar(modifyTranslationError(errorVectorMagnitude, errorVectorMagnitude - previousTranslationError, loopTime) * errorDirectionVelocity, errorVector.getHeading());
 
 			transformedTranslationVector = transformedTranslationVector.add(errorFeedback);
 
-			MecanumMotionConstants.DirectionOfTravelLimiter directionOfTravelLimiter = mecanumMotionConstants.makeDirectionOfTravelLimiter(transformedTranslationVector.getHeading());
-			transformedTranslationVector = Vector2D.fromPolar(Math.min(directionOfTravelLimiter.getVelocity(), transformedTranslationVector.getMagnitude()), transformedTranslationVector.getHeading());
+			double directionVelocity = mecanumMotionConstants.getDirectionalVelocity(transformedTranslationVector.getHeading().getRadians());
+			transformedTranslationVector = Vector2D.fromPolar(Math.min(directionVelocity, transformedTranslationVector.getMagnitude()), transformedTranslationVector.getHeading());
 		}
 		double transformedRotationalVelocity = output.getRotationalVelocity();
 		double rotationalError = tracker.getPose2D().getTheta().findShortestDistance(output.getPosition().getTheta());
@@ -62,6 +113,8 @@ public class GVFWaveFollower extends AbstractWaveFollower {
 		Followable.Output tranformedOutput = new Followable.Output(
 				transformedTranslationVector,
 				transformedRotationalVelocity,
+				output.getTranslationAcceleration(),
+				output.getRotationalAcceleration(),
 				output.getCallbackTime(),
 				output.getPosition(),
 				output.getDestination()
@@ -73,8 +126,8 @@ public class GVFWaveFollower extends AbstractWaveFollower {
 	}
 
 	private double modifyTranslationError(double error, double deltaError, double loopTime) {
-		double output = Math.sqrt(error / errorDirectionOfTravelLimiter.getVelocity());
-		output += (deltaError / loopTime) / errorDirectionOfTravelLimiter.getVelocity();
+		double output = Math.sqrt(error / errorDirectionVelocity);
+		output += (deltaError / loopTime) / errorDirectionVelocity;
 		return Math.max(0, Math.min(output, 1));
 	}
 
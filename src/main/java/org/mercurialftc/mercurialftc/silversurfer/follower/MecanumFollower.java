@@ -4,17 +4,15 @@ import com.qualcomm.robotcore.hardware.DcMotorEx;
 import org.jetbrains.annotations.NotNull;
 import org.mercurialftc.mercurialftc.silversurfer.followable.Followable;
 import org.mercurialftc.mercurialftc.silversurfer.followable.motionconstants.MecanumMotionConstants;
-import org.mercurialftc.mercurialftc.silversurfer.geometry.angle.AngleRadians;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.Vector2D;
 import org.mercurialftc.mercurialftc.silversurfer.tracker.Tracker;
-import org.mercurialftc.mercurialftc.silversurfer.geometry.matrix.SimpleMatrix;
 
 @SuppressWarnings("unused")
 public class MecanumFollower extends AbstractWaveFollower implements ArbFollower {
 	private final DcMotorEx fl, bl, br, fr;
-	private final SimpleMatrix transformMatrix;
+	private final MecanumKinematics kinematics;
 	private final Tracker tracker;
-	private final MecanumMotionConstants mecanumMotionConstants;
+	private MecanumMotionConstants mecanumMotionConstants;
 
 	/**
 	 * an arbitrary feed forward output follower
@@ -33,30 +31,66 @@ public class MecanumFollower extends AbstractWaveFollower implements ArbFollower
 		this.br = br;
 		this.fr = fr;
 
-		transformMatrix = new SimpleMatrix(
-				new double[][]{
-						{1, 1, -1},
-						{1, -1, -1},
-						{1, 1, 1},
-						{1, -1, 1}
-				}
-		);
+		kinematics = new MecanumKinematics();
+	}
+
+	/**
+	 * sets the per wheel feed forward used by {@link #followOutput(Followable.Output, double)}, by default, the power is the normalised wheel velocity, with no static or acceleration terms
+	 *
+	 * @param kS the power needed to overcome static friction
+	 * @param kV the power per normalised wheel velocity
+	 * @param kA the power per normalised wheel velocity per second
+	 * @return self, for method chaining
+	 */
+	public MecanumFollower setFeedforward(double kS, double kV, double kA) {
+		kinematics.setFeedforward(kS, kV, kA);
+		return this;
 	}
 
 	/**
-	 * transforms the output for use in {@link #follow(Vector2D, double, double)} and then feeds it in
+	 * the output velocities are scaled to power by the motion constants, so constants scaled down to a falling battery voltage give more power for the same velocity
+	 *
+	 * @param mecanumMotionConstants the new motion constants, used from the next loop, e.g. from a {@link org.mercurialftc.mercurialftc.silversurfer.voltageperformanceenforcer.VoltageCompensator}
+	 * @return self, for method chaining
+	 */
+	public MecanumFollower setMotionConstants(@NotNull MecanumMotionConstants mecanumMotionConstants) {
+		this.mecanumMotionConstants = mecanumMotionConstants;
+		return this;
+	}
+
+	/**
+	 * normalises the output, makes it robot centric, and feeds forward its velocity and acceleration to each wheel
+	 * <p>allocation free, other than reading the output and the tracker</p>
 	 *
 	 * @param output   the output velocities and information, usually generated by a wave
 	 * @param loopTime current loop time, to ensure performance
 	 */
 	@Override
 	public void followOutput(@NotNull Followable.Output output, double loopTime) {
-		MecanumMotionConstants.DirectionOfTravelLimiter directionOfTravelLimiter = mecanumMotionConstants.makeDirectionOfTravelLimiter(output.getTranslationVector().getHeading());
+		Vector2D translationVector = output.getTranslationVector();
+		Vector2D translationAcceleration = output.getTranslationAcceleration();
+		double heading = tracker.getPose2D().getTheta().getRadians();
+		double cos = Math.cos(heading);
+		double sin = Math.sin(heading);
+		double maxRotationalVelocity = mecanumMotionConstants.getMaxRotationalVelocity();
+
+		double velocityX = translationVector.getX();
+		double velocityY = translationVector.getY();
+		double directionVelocity = mecanumMotionConstants.getDirectionalVelocity(Math.atan2(velocityY, velocityX));
 
-		Vector2D translationVector = output.getTranslationVector().scalarMultiply(1 / directionOfTravelLimiter.getVelocity());
-		double rotationalVelocity = output.getRotationalVelocity() / mecanumMotionConstants.getMaxRotationalVelocity();
+		double accelerationX = translationAcceleration.getX();
+		double accelerationY = translationAcceleration.getY();
+		double accelerationDirectionVelocity = mecanumMotionConstants.getDirectionalVelocity(Math.atan2(accelerationY, accelerationX));
 
-		follow(translationVector, rotationalVelocity, loopTime);
+		kinematics.update(
+				(cos * velocityX + sin * velocityY) / directionVelocity,
+				(cos * velocityY - sin * velocityX) / directionVelocity,
+				output.getRotationalVelocity() / maxRotationalVelocity,
+				(cos * accelerationX + sin * accelerationY) / accelerationDirectionVelocity,
+				(cos * accelerationY - sin * accelerationX) / accelerationDirectionVelocity,
+				output.getRotationalAcceleration() / maxRotationalVelocity
+		);
+		setPowers();
 	}
 
 	/**
@@ -67,29 +101,22 @@ public class MecanumFollower extends AbstractWaveFollower implements ArbFollower
 	 */
 	@Override
 	public void follow(@NotNull Vector2D translationVector, double rotationalVelocity, double loopTime) {
-		translationVector = translationVector.rotate(new AngleRadians(0).subtract(tracker.getPose2D().getTheta()));
+		double heading = tracker.getPose2D().getTheta().getRadians();
+		double cos = Math.cos(heading);
+		double sin = Math.sin(heading);
 
-		SimpleMatrix inputValues = new SimpleMatrix(
-				new double[][]{
-						{translationVector.getY()},
-						{translationVector.getX()},
-						{rotationalVelocity}
-				}
+		kinematics.update(
+				cos * translationVector.getX() + sin * translationVector.getY(),
+				cos * translationVector.getY() - sin * translationVector.getX(),
+				rotationalVelocity
 		);
+		setPowers();
+	}
 
-		SimpleMatrix outputMatrix = transformMatrix.multiply(inputValues);
-
-		double maxPower = 1;
-
-		for (int i = 0; i < outputMatrix.rows(); i++) {
-			maxPower = Math.max(maxPower, Math.abs(outputMatrix.getItem(i, 0)));
-		}
-
-		outputMatrix = outputMatrix.scalarMultiply(1 / maxPower);
-
-		fl.setPower(outputMatrix.getItem(0, 0));
-		bl.setPower(outputMatrix.getItem(1, 0));
-		br.setPower(outputMatrix.getItem(2, 0));
-		fr.setPower(outputMatrix.getItem(3, 0));
+	private void setPowers() {
+		fl.setPower(kinematics.getPower(MecanumKinematics.FRONT_LEFT));
+		bl.setPower(kinematics.getPower(MecanumKinematics.BACK_LEFT));
+		br.setPower(kinematics.getPower(MecanumKinematics.BACK_RIGHT));
+		fr.setPower(kinematics.getPower(MecanumKinematics.FRONT_RIGHT));
 	}
 }
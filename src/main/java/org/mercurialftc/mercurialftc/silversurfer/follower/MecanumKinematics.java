@@ -0,0 +1,108 @@
+package org.mercurialftc.mercurialftc.silversurfer.follower;
+
+/**
+ * the inverse kinematics of a mecanum drive base, from robot centric velocities to wheel powers, allocation free
+ * <p>velocities are normalised, so that 1 is full speed, translation by the velocity limit of its direction of travel, and rotation by the maximum rotational velocity</p>
+ * <p>the powers can either be the wheel velocities directly, see {@link #update(double, double, double)}, or the sum of static, velocity and acceleration feed forward terms for each wheel, see {@link #update(double, double, double, double, double, double)}</p>
+ */
+@SuppressWarnings("unused")
+public final class MecanumKinematics {
+	public static final int FRONT_LEFT = 0, BACK_LEFT = 1, BACK_RIGHT = 2, FRONT_RIGHT = 3;
+	private final double[] powers;
+	private double kS, kV, kA;
+
+	/**
+	 * with feed forward that gives the same powers as {@link #update(double, double, double)}
+	 */
+	public MecanumKinematics() {
+		this(0, 1, 0);
+	}
+
+	/**
+	 * @param kS the power needed to overcome static friction
+	 * @param kV the power per normalised wheel velocity
+	 * @param kA the power per normalised wheel velocity per second
+	 */
+	public MecanumKinematics(double kS, double kV, double kA) {
+		this.powers = new double[4];
+		setFeedforward(kS, kV, kA);
+	}
+
+	/**
+	 * @param kS the power needed to overcome static friction
+	 * @param kV the power per normalised wheel velocity
+	 * @param kA the power per normalised wheel velocity per second
+	 */
+	public void setFeedforward(double kS, double kV, double kA) {
+		this.kS = kS;
+		this.kV = kV;
+		this.kA = kA;
+	}
+
+	public double getKS() {
+		return kS;
+	}
+
+	public double getKV() {
+		return kV;
+	}
+
+	public double getKA() {
+		return kA;
+	}
+
+	/**
+	 * sets the powers to the wheel velocities, scaled down together if any is above 1
+	 *
+	 * @param x        the normalised velocity to the right of the robot
+	 * @param y        the normalised velocity to the front of the robot
+	 * @param rotation the normalised rotational velocity, anticlockwise
+	 */
+	public void update(double x, double y, double rotation) {
+		powers[FRONT_LEFT] = y + x - rotation;
+		powers[BACK_LEFT] = y - x - rotation;
+		powers[BACK_RIGHT] = y + x + rotation;
+		powers[FRONT_RIGHT] = y - x + rotation;
+		normalise();
+	}
+
+	/**
+	 * sets the powers to the feed forward of the wheel velocities and accelerations, scaled down together if any is above 1
+	 *
+	 * @param x                      the normalised velocity to the right of the robot
+	 * @param y                      the normalised velocity to the front of the robot
+	 * @param rotation               the normalised rotational velocity, anticlockwise
+	 * @param accelerationX          the normalised acceleration to the right of the robot
+	 * @param accelerationY          the normalised acceleration to the front of the robot
+	 * @param rotationalAcceleration the normalised rotational acceleration, anticlockwise
+	 */
+	public void update(double x, double y, double rotation, double accelerationX, double accelerationY, double rotationalAcceleration) {
+		powers[FRONT_LEFT] = feedforward(y + x - rotation, accelerationY + accelerationX - rotationalAcceleration);
+		powers[BACK_LEFT] = feedforward(y - x - rotation, accelerationY - accelerationX - rotationalAcceleration);
+		powers[BACK_RIGHT] = feedforward(y + x + rotation, accelerationY + accelerationX + rotationalAcceleration);
+		powers[FRONT_RIGHT] = feedforward(y - x + rotation, accelerationY - accelerationX + rotationalAcceleration);
+		normalise();
+	}
+
+	private double feedforward(double velocity, double acceleration) {
+		return kS * Math.signum(velocity) + kV * velocity + kA * acceleration;
+	}
+
+	private void normalise() {
+		double maxPower = 1;
+		for (double power : powers) {
+			maxPower = Math.max(maxPower, Math.abs(power));
+		}
+		for (int i = 0; i < powers.length; i++) {
+			powers[i] /= maxPower;
+		}
+	}
+
+	/**
+	 * @param wheel one of {@link #FRONT_LEFT}, {@link #BACK_LEFT}, {@link #BACK_RIGHT} or {@link #FRONT_RIGHT}
+	 * @return the power of the wheel from the last update, in the domain [-1, 1]
+	 */
+	public double getPower(int wheel) {
+		return powers[wheel];
+	}
+}
@@ -1,22 +1,71 @@
 package org.mercurialftc.mercurialftc.silversurfer.follower;
 
 import org.jetbrains.annotations.NotNull;
+import org.mercurialftc.mercurialftc.silversurfer.encoderticksconverter.Units;
 import org.mercurialftc.mercurialftc.silversurfer.followable.Followable;
+import org.mercurialftc.mercurialftc.silversurfer.followable.Wave;
+import org.mercurialftc.mercurialftc.silversurfer.followable.WaveBuilder;
+import org.mercurialftc.mercurialftc.silversurfer.followable.WavePath;
 import org.mercurialftc.mercurialftc.silversurfer.followable.motionconstants.MecanumMotionConstants;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Pose2D;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.Vector2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.angle.AngleRadians;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.NearestObstacles;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.ObstacleMap;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.ObstacleMapSnapshot;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.obstacle.Obstacle;
 import org.mercurialftc.mercurialftc.silversurfer.tracker.Tracker;
 
+import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * pushes the robot away from obstacles as it follows a wave
+ * <p>if one of the {@link ObstacleMap#getAdditionalObstacles()} is in the way of the wave ahead, a detour is planned on another thread, see {@link WaveBuilder#planTo(double, double, org.mercurialftc.mercurialftc.silversurfer.geometry.angle.Angle)}, from the point the wave will have reached {@link #PLANNING_LATENCY} later to a point further along the wave that is clear of it</p>
+ * <p>the control loop never waits for the detour, it only checks if it is ready, the wave holds at the start of the detour until it is, then the robot follows it, while the wave holds at the point the detour rejoins it, and then carries on from there</p>
+ */
 @SuppressWarnings("unused")
 public class ObstacleAvoidantFollower extends AbstractWaveFollower implements ArbFollower {
 	public static final double MAX_OUTPUT_DISTANCE = 10;
+	/**
+	 * how far ahead along the wave to look for additional obstacles in the way, in seconds
+	 */
+	public static final double REPLAN_LOOKAHEAD = 1.5;
+	/**
+	 * how much further than the robot size from additional obstacles the detour rejoins the wave, in millimeters
+	 */
+	public static final double REJOIN_CLEARANCE = 100;
+	/**
+	 * how long to wait after a detour could not be planned before trying again, in seconds
+	 */
+	public static final double REPLAN_COOLDOWN = 0.5;
+	/**
+	 * how long a detour is expected to take to plan, in seconds, the detour starts this far ahead along the wave, so that the robot is usually still moving when it gets there
+	 */
+	public static final double PLANNING_LATENCY = 0.3;
+	/**
+	 * how far the robot may be from the start of a detour when it is ready, in millimeters, detours that start further away are dropped and planned again
+	 */
+	public static final double DETOUR_START_TOLERANCE = 50;
 	private final ArbFollower arbFollower;
 	private final WaveFollower waveFollower;
 	private final Tracker tracker;
 	private final ObstacleMap obstacleMap;
-	private final MecanumMotionConstants mecanumMotionConstants;
-	private MecanumMotionConstants.DirectionOfTravelLimiter obstacleAvoidanceDirectionOfTravelLimiter;
+	private final NearestObstacles nearestObstacles;
+	private MecanumMotionConstants mecanumMotionConstants;
+	private double obstacleAvoidanceDirectionVelocity;
 	private double previousObstacleAvoidanceVectorMagnitude;
+	private boolean replanning;
+	private Wave plannedWave; // the wave that the detour state belongs to
+	private Executor planningExecutor;
+	private Future<Wave> pendingDetour;
+	private Wave detour;
+	private double pendingStartTime, pendingRejoinTime, rejoinTime, detourTime, waveTimeOffset, currentTime, replanAfter;
 
 	public ObstacleAvoidantFollower(@NotNull ArbFollower arbFollower, @NotNull WaveFollower waveFollower, MecanumMotionConstants mecanumMotionConstants, Tracker tracker, ObstacleMap obstacleMap) {
 		this.mecanumMotionConstants = mecanumMotionConstants;
@@ -24,28 +73,237 @@ public class ObstacleAvoidantFollower extends AbstractWaveFollower implements Ar
 		this.arbFollower = arbFollower;
 		this.tracker = tracker;
 		this.obstacleMap = obstacleMap;
+		this.nearestObstacles = new NearestObstacles(new Vector2D(), obstacleMap.getRobotSize());
+		this.replanning = true;
+		this.planningExecutor = ForkJoinPool.commonPool();
+	}
+
+	/**
+	 * @param planningExecutor runs the planning of detours, {@link ForkJoinPool#commonPool()} by default
+	 * @return self, for method chaining
+	 */
+	public ObstacleAvoidantFollower setPlanningExecutor(@NotNull Executor planningExecutor) {
+		this.planningExecutor = planningExecutor;
+		return this;
+	}
+
+	/**
+	 * @param mecanumMotionConstants the new motion constants, used to scale the avoidance and to build detours from now on, e.g. from a {@link org.mercurialftc.mercurialftc.silversurfer.voltageperformanceenforcer.VoltageCompensator}
+	 * @return self, for method chaining
+	 */
+	public ObstacleAvoidantFollower setMotionConstants(@NotNull MecanumMotionConstants mecanumMotionConstants) {
+		this.mecanumMotionConstants = mecanumMotionConstants;
+		return this;
+	}
+
+	public boolean isReplanning() {
+		return replanning;
+	}
+
+	/**
+	 * @param replanning if false, obstacles in the way are only pushed away from, and detours are never planned
+	 * @return self, for method chaining
+	 */
+	public ObstacleAvoidantFollower setReplanning(boolean replanning) {
+		this.replanning = replanning;
+		if (!replanning) {
+			cancelPendingDetour();
+		}
+		return this;
+	}
+
+	/**
+	 * holds the wave at the start of a detour while it is planned, and at the rejoin point while it is followed
+	 */
+	@Override
+	protected double getWaveTime(double currentTime) {
+		this.currentTime = currentTime;
+		if (getWave() != plannedWave) {
+			plannedWave = getWave();
+			cancelPendingDetour();
+			detour = null;
+			waveTimeOffset = 0;
+			replanAfter = 0;
+		}
+		double waveTime = currentTime - waveTimeOffset;
+		if (detour != null) {
+			return Math.min(waveTime, rejoinTime);
+		}
+		if (pendingDetour != null) {
+			return Math.min(waveTime, pendingStartTime);
+		}
+		return waveTime;
+	}
+
+	@Override
+	public boolean isFinished() {
+		return detour == null && super.isFinished();
+	}
+
+	private void cancelPendingDetour() {
+		if (pendingDetour != null) {
+			pendingDetour.cancel(false);
+			pendingDetour = null;
+			// the wave carries on from where it was held
+			waveTimeOffset = Math.max(waveTimeOffset, currentTime - pendingStartTime);
+		}
+	}
+
+	/**
+	 * O(1), other than looking ahead along the wave when no detour is planned or being followed
+	 *
+	 * @param output the output of the wave
+	 * @return the output of the detour, if one is being followed, otherwise the output of the wave
+	 */
+	@NotNull
+	private Followable.Output replan(@NotNull Followable.Output output, double loopTime) {
+		if (detour != null) {
+			detourTime += loopTime;
+			if (!detour.update(detourTime)) {
+				return detour.getOutput();
+			}
+			// the detour has rejoined the wave, which carries on from where it was held
+			waveTimeOffset = currentTime - rejoinTime;
+			detour = null;
+			return output;
+		}
+
+		if (pendingDetour != null) {
+			boolean held = currentTime - waveTimeOffset >= pendingStartTime;
+			if (!held) {
+				return output;
+			}
+			if (!pendingDetour.isDone()) {
+				// the wave has reached the start of the detour, and waits there for it
+				return new Followable.Output(new Vector2D(), 0, output.getCallbackTime(), output.getPosition(), output.getDestination());
+			}
+			Wave planned = null;
+			try {
+				planned = pendingDetour.get();
+			} catch (ExecutionException | CancellationException | InterruptedException e) {
+				// no way around was found, the obstacle is only pushed away from for now
+				replanAfter = currentTime + REPLAN_COOLDOWN;
+			}
+			pendingDetour = null;
+			// the wave carries on from where it was held
+			waveTimeOffset = currentTime - pendingStartTime;
+			if (planned == null) {
+				return output;
+			}
+
+			planned.update(0);
+			Followable.Output start = planned.getOutput();
+			Pose2D pose = tracker.getPose2D();
+			if (Math.hypot(start.getPosition().getX() - pose.getX(), start.getPosition().getY() - pose.getY()) > DETOUR_START_TOLERANCE) {
+				// the robot did not keep up with the wave, so the detour would drive it back to where it should have been
+				return output;
+			}
+			detour = planned;
+			detourTime = 0;
+			rejoinTime = pendingRejoinTime;
+			return start;
+		}
+
+		if (currentTime >= replanAfter) {
+			planDetour(currentTime - waveTimeOffset);
+		}
+		return output;
+	}
+
+	/**
+	 * looks ahead along the wave for additional obstacles in the way, and if there are any, starts planning a detour around them on another thread
+	 *
+	 * @param waveTime the current time of the wave
+	 */
+	private void planDetour(double waveTime) {
+		ArrayList<Obstacle> additionalObstacles = obstacleMap.getAdditionalObstacles();
+		if (additionalObstacles.isEmpty()) {
+			return;
+		}
+		WavePath outputs = getWave().getPath();
+		double robotSize = obstacleMap.getRobotSize();
+
+		int current = Math.max(0, outputs.indexAtTime(waveTime));
+		int blocked = -1;
+		for (int i = current; i < outputs.size() && outputs.getTime(i) <= waveTime + REPLAN_LOOKAHEAD; i++) {
+			if (signedDistance(additionalObstacles, outputs.getX(i), outputs.getY(i)) < robotSize) {
+				blocked = i;
+				break;
+			}
+		}
+		if (blocked < 0) {
+			return;
+		}
+
+		int rejoin = -1;
+		for (int i = blocked + 1; i < outputs.size(); i++) {
+			if (signedDistance(additionalObstacles, outputs.getX(i), outputs.getY(i)) >= robotSize + REJOIN_CLEARANCE) {
+				rejoin = i;
+				break;
+			}
+		}
+		if (rejoin < 0) {
+			// the obstacle is in the way of the end of the wave, so there is nowhere to rejoin it
+			replanAfter = currentTime + REPLAN_COOLDOWN;
+			return;
+		}
+
+		// the additional obstacles are copied here, as they may be changed by the control loop while the detour is planned, the static obstacles keep using the grid already built for the map
+		ObstacleMap snapshot = new ObstacleMapSnapshot(obstacleMap);
+
+		// the detour starts from where the wave will be once it has been planned, but before the obstacle
+		int start = current;
+		while (start + 1 < blocked && outputs.getTime(start) < waveTime + PLANNING_LATENCY) {
+			start++;
+		}
+		Pose2D startPose = new Pose2D(outputs.getX(start), outputs.getY(start), new AngleRadians(outputs.getTheta(start)));
+		double rejoinX = outputs.getX(rejoin);
+		double rejoinY = outputs.getY(rejoin);
+		AngleRadians rejoinTheta = new AngleRadians(outputs.getTheta(rejoin));
+		pendingStartTime = Math.max(waveTime, outputs.getTime(start));
+		pendingRejoinTime = outputs.getTime(rejoin);
+		MecanumMotionConstants motionConstants = mecanumMotionConstants;
+		FutureTask<Wave> task = new FutureTask<>(() -> new WaveBuilder(startPose, Units.MILLIMETER, motionConstants, snapshot)
+				.planTo(rejoinX, rejoinY, rejoinTheta)
+				.build()
+		);
+		pendingDetour = task;
+		planningExecutor.execute(task);
+	}
+
+	private static double signedDistance(@NotNull ArrayList<Obstacle> obstacles, double x, double y) {
+		double result = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < obstacles.size(); i++) {
+			result = Math.min(result, obstacles.get(i).signedDistance(x, y));
+		}
+		return result;
 	}
 
 	@Override
 	public void followOutput(@NotNull Followable.Output output, double loopTime) {
-		Vector2D obstacleDistanceVector = obstacleMap.closestObstacleVector(tracker.getPose2D());
-		Vector2D obstacleAvoidanceVector = obstacleMap.obstacleAvoidanceVector(tracker.getPose2D());
+		if (replanning) {
+			output = replan(output, loopTime);
+		}
+
+		obstacleMap.nearestObstacles(tracker.getPose2D(), nearestObstacles);
+		Vector2D obstacleDistanceVector = nearestObstacles.getClosestObstacleVector();
+		Vector2D obstacleAvoidanceVector = nearestObstacles.getObstacleAvoidanceVector();
 
 		Vector2D transformedTranslationVector = output.getTranslationVector();
 
 		if (obstacleDistanceVector != null) {
-			obstacleAvoidanceDirectionOfTravelLimiter = mecanumMotionConstants.makeDirectionOfTravelLimiter(obstacleDistanceVector.getHeading());
+			obstacleAvoidanceDirectionVelocity = mecanumMotionConstants.getDirectionalVelocity(obstacleDistanceVector.getHeading().getRadians());
 
 			double obstacleDistanceVectorMagnitude = obstacleDistanceVector.getMagnitude();
 
 			double obstacleAvoidanceMultiplier = Math.min(1, obstacleAvoidanceVector.getMagnitude() / (MAX_OUTPUT_DISTANCE * MAX_OUTPUT_DISTANCE));
 
-			Vector2D obstacleFeedback = Vector2D.fromPolar(obstacleAvoidanceMultiplier * modifyObstacleAvoidance(obstacleDistanceVectorMagnitude, obstacleDistanceVectorMagnitude - previousObstacleAvoidanceVectorMagnitude, loopTime) * obstacleAvoidanceDirectionOfTravelLimiter.getVelocity(), obstacleDistanceVector.getHeading());
+			Vector2D obstacleFeedback = Vector2D.fromPolar(obstacleAvoidanceMultiplier * modifyObstacleAvoidance(obstacleDistanceVectorMagnitude, obstacleDistanceVectorMagnitude - previousObstacleAvoidanceVectorMagnitude, loopTime) * obstacleAvoidanceDirectionVelocity, obstacleDistanceVector.getHeading());
 
 			transformedTranslationVector = transformedTranslationVector.add(obstacleFeedback);
 
-			MecanumMotionConstants.DirectionOfTravelLimiter directionOfTravelLimiter = mecanumMotionConstants.makeDirectionOfTravelLimiter(transformedTranslationVector.getHeading());
-			transformedTranslationVector = Vector2D.fromPolar(Math.min(directionOfTravelLimiter.getVelocity(), transformedTranslationVector.getMagnitude()), transformedTranslationVector.getHeading());
+			double directionVelocity = mecanumMotionConstants.getDirectionalVelocity(transformedTranslationVector.getHeading().getRadians());
+			transformedTranslationVector = Vector2D.fromPolar(Math.min(directionVelocity, transformedTranslationVector.getMagnitude()), transformedTranslationVector.getHeading());
 
 			previousObstacleAvoidanceVectorMagnitude = obstacleDistanceVectorMagnitude;
 		}
@@ -54,6 +312,8 @@ public class ObstacleAvoidantFollower extends AbstractWaveFollower implements Ar
 				new Followable.Output(
 						transformedTranslationVector,
 						output.getRotationalVelocity(),
+						output.getTranslationAcceleration(),
+						output.getRotationalAcceleration(),
 						output.getCallbackTime(),
 						output.getPosition(),
 						output.getDestination()
@@ -65,16 +325,16 @@ public class ObstacleAvoidantFollower extends AbstractWaveFollower implements Ar
 	private double modifyObstacleAvoidance(double obstacleDistance, double deltaObstacleDistance, double loopTime) {
 		obstacleDistance = Math.max(0.001, obstacleDistance);
 		double output = MAX_OUTPUT_DISTANCE / -obstacleDistance; // the obstacle vector points us towards the obstacle, so we need to return a negative velocity to move us away
-		output += (deltaObstacleDistance / loopTime) / obstacleAvoidanceDirectionOfTravelLimiter.getVelocity(); // dampening
+		output += (deltaObstacleDistance / loopTime) / obstacleAvoidanceDirectionVelocity; // dampening
 		return Math.max(-1, Math.min(output, 0));
 	}
 
 	@Override
 	public void follow(Vector2D translationVector, double rotationalVelocity, double loopTime) {
-		Vector2D obstacleDistanceVector = obstacleMap.closestObstacleVector(tracker.getPose2D());
+		Vector2D obstacleDistanceVector = obstacleMap.nearestObstacles(tracker.getPose2D(), nearestObstacles).getClosestObstacleVector();
 
 		if (obstacleDistanceVector != null) {
-			obstacleAvoidanceDirectionOfTravelLimiter = mecanumMotionConstants.makeDirectionOfTravelLimiter(obstacleDistanceVector.getHeading());
+			obstacleAvoidanceDirectionVelocity = mecanumMotionConstants.getDirectionalVelocity(obstacleDistanceVector.getHeading().getRadians());
 
 			double obstacleDistanceVectorMagnitude = obstacleDistanceVector.getMagnitude();
 
@@ -82,13 +342,12 @@ public class ObstacleAvoidantFollower extends AbstractWaveFollower implements Ar
 
 			translationVector = translationVector.add(obstacleFeedback);
 
-			MecanumMotionConstants.DirectionOfTravelLimiter directionOfTravelLimiter = mecanumMotionConstants.makeDirectionOfTravelLimiter(translationVector.getHeading());
-			translationVector = Vector2D.fromPolar(Math.min(directionOfTravelLimiter.getVelocity(), translationVector.getMagnitude()), translationVector.getHeading());
+			double directionVelocity = mecanumMotionConstants.getDirectionalVelocity(translationVector.getHeading().getRadians());
+			translationVector = Vector2D.fromPolar(Math.min(directionVelocity, translationVector.getMagnitude()), translationVector.getHeading());
 
 			previousObstacleAvoidanceVectorMagnitude = obstacleDistanceVectorMagnitude;
 		}
 
 		arbFollower.follow(translationVector, rotationalVelocity, loopTime);
 	}
-
 }
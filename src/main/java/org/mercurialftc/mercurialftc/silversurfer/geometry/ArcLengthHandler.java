@@ -1,21 +1,111 @@
 package org.mercurialftc.mercurialftc.silversurfer.geometry;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.mercurialftc.mercurialftc.silversurfer.followable.curvebuilder.FollowableCurve;
 import org.mercurialftc.mercurialftc.silversurfer.followable.curvebuilder.curve.QuinticBezierCurve;
 
+/**
+ * finds the arc length of each curve in a {@link FollowableCurve} with adaptive Gauss-Legendre quadrature, and stores a table of arc length against t for each curve, so that points at a given arc length can be found accurately
+ */
 public class ArcLengthHandler {
+	/**
+	 * the number of intervals each curve's arc length table is split into
+	 */
+	private static final int TABLE_INTERVALS = 32;
+	/**
+	 * the absolute error allowed when integrating a single interval, in millimeters
+	 */
+	private static final double TOLERANCE = 1e-9;
+	private static final int MAX_DEPTH = 12;
+	private static final int MAX_NEWTON_ITERATIONS = 16;
+	/**
+	 * the arc length error allowed when finding t from an arc length, in millimeters
+	 */
+	private static final double NEWTON_TOLERANCE = 1e-8;
+	// 5 point Gauss-Legendre nodes and weights on [-1, 1]
+	private static final double[] NODES = {
+			0,
+			-0.5384693101056831, 0.5384693101056831,
+			-0.9061798459386640, 0.9061798459386640
+	};
+	private static final double[] WEIGHTS = {
+			0.5688888888888889,
+			0.4786286704993665, 0.4786286704993665,
+			0.2369268850561891, 0.2369268850561891
+	};
 	private final double[] breakpoints;
 	private final double[] arcLengths;
-	private final FollowableCurve followableCurve;
+	/**
+	 * the arc length from the start of each curve at t = i / {@link #TABLE_INTERVALS}
+	 */
+	private final double[][] arcLengthTables;
+	private final QuinticBezierCurve[] curves;
 
 	public ArcLengthHandler(@NotNull FollowableCurve followableCurve) {
-		this.followableCurve = followableCurve;
-		this.breakpoints = new double[followableCurve.getCurves().length + 1];
+		this(followableCurve.getCurves());
+	}
+
+	/**
+	 * @param curves the curves that make up the spline, in order
+	 */
+	public ArcLengthHandler(@NotNull QuinticBezierCurve[] curves) {
+		this(curves, null);
+	}
+
+	/**
+	 * reuses the arc length tables of any curves that are shared with a previous handler, only integrating the curves that changed
+	 *
+	 * @param curves   the curves that make up the spline, in order
+	 * @param previous a handler for a similar spline, may be null
+	 */
+	public ArcLengthHandler(@NotNull QuinticBezierCurve[] curves, @Nullable ArcLengthHandler previous) {
+		this.curves = curves;
+		this.breakpoints = new double[curves.length + 1];
 		breakpoints[0] = 0;
-		this.arcLengths = new double[followableCurve.getCurves().length];
+		this.arcLengths = new double[curves.length];
+		this.arcLengthTables = new double[curves.length][];
+
+		findArcLengths(previous);
+	}
+
+	/**
+	 * @param curve the curve to integrate
+	 * @param a     the start of the interval
+	 * @param b     the end of the interval
+	 * @return the arc length of the curve between a and b, using a single 5 point Gauss-Legendre rule
+	 */
+	private static double gaussLegendre(@NotNull QuinticBezierCurve curve, double a, double b) {
+		double halfWidth = 0.5 * (b - a);
+		double center = 0.5 * (a + b);
+		double result = 0;
+		for (int i = 0; i < NODES.length; i++) {
+			result += WEIGHTS[i] * curve.speed(center + halfWidth * NODES[i]);
+		}
+		return result * halfWidth;
+	}
 
-		findArcLengths();
+	/**
+	 * splits the interval in half until the halves agree with the whole
+	 */
+	private static double adaptiveGaussLegendre(@NotNull QuinticBezierCurve curve, double a, double b, double whole, int depth) {
+		double middle = 0.5 * (a + b);
+		double left = gaussLegendre(curve, a, middle);
+		double right = gaussLegendre(curve, middle, b);
+		if (depth >= MAX_DEPTH || Math.abs(left + right - whole) <= TOLERANCE) {
+			return left + right;
+		}
+		return adaptiveGaussLegendre(curve, a, middle, left, depth + 1) + adaptiveGaussLegendre(curve, middle, b, right, depth + 1);
+	}
+
+	/**
+	 * @param curve the curve to integrate
+	 * @param a     the start of the interval
+	 * @param b     the end of the interval
+	 * @return the arc length of the curve between a and b
+	 */
+	public static double integrate(@NotNull QuinticBezierCurve curve, double a, double b) {
+		return adaptiveGaussLegendre(curve, a, b, gaussLegendre(curve, a, b), 0);
 	}
 
 	public double[] getBreakpoints() {
@@ -30,51 +120,135 @@ public class ArcLengthHandler {
 		return arcLengths;
 	}
 
-	private void findArcLengths() {
-		QuinticBezierCurve[] curves = followableCurve.getCurves();
-
-		double previousArcLength = 0.0;
-		double previousVelocity = 0.0;
-
+	private void findArcLengths(@Nullable ArcLengthHandler previous) {
 		for (int i = 0; i < curves.length; i++) {
-			double arcLength = findArcLength(previousVelocity, curves[i]);
+			if (previous != null && i < previous.curves.length && previous.curves[i] == curves[i]) {
+				// the tables are never modified once built, so can be shared
+				arcLengthTables[i] = previous.arcLengthTables[i];
+			} else {
+				arcLengthTables[i] = buildTable(curves[i]);
+			}
 
-			arcLengths[i] = arcLength;
-			breakpoints[i + 1] = previousArcLength + arcLength;
-			previousArcLength = breakpoints[i + 1];
+			arcLengths[i] = arcLengthTables[i][TABLE_INTERVALS];
+			breakpoints[i + 1] = breakpoints[i] + arcLengths[i];
+		}
+	}
 
-			previousVelocity = curves[i].firstDerivative(1).getMagnitude();
+	/**
+	 * the first Gauss-Legendre estimate of every interval of the table is evaluated as a single batch, only the intervals that need to be split further are evaluated point by point
+	 *
+	 * @param curve the curve to integrate
+	 * @return the arc length from the start of the curve at t = i / {@link #TABLE_INTERVALS}
+	 */
+	@NotNull
+	private static double[] buildTable(@NotNull QuinticBezierCurve curve) {
+		double[] ts = new double[TABLE_INTERVALS * NODES.length];
+		for (int j = 0; j < TABLE_INTERVALS; j++) {
+			double a = (double) j / TABLE_INTERVALS;
+			double b = (double) (j + 1) / TABLE_INTERVALS;
+			for (int k = 0; k < NODES.length; k++) {
+				ts[j * NODES.length + k] = 0.5 * (a + b) + 0.5 * (b - a) * NODES[k];
+			}
+		}
+		double[] dxs = new double[ts.length];
+		double[] dys = new double[ts.length];
+		curve.firstDerivatives(ts, dxs, dys);
+
+		double[] table = new double[TABLE_INTERVALS + 1];
+		for (int j = 1; j <= TABLE_INTERVALS; j++) {
+			double a = (double) (j - 1) / TABLE_INTERVALS;
+			double b = (double) j / TABLE_INTERVALS;
+			double whole = 0;
+			for (int k = 0; k < NODES.length; k++) {
+				int node = (j - 1) * NODES.length + k;
+				whole += WEIGHTS[k] * Math.hypot(dxs[node], dys[node]);
+			}
+			table[j] = table[j - 1] + adaptiveGaussLegendre(curve, a, b, whole * (0.5 * (b - a)), 0);
 		}
+		return table;
 	}
 
-	private double findArcLength(double previousVelocity, QuinticBezierCurve curve) {
-		double result = 0.0;
+	/**
+	 * finds t for an arc length within a single curve, by searching the curve's table, interpolating within the interval, and refining the interpolation with newton's method
+	 *
+	 * @param curveIndex the index of the curve
+	 * @param arcLength  the arc length from the start of the curve
+	 * @return t
+	 */
+	private double findT(int curveIndex, double arcLength) {
+		double[] table = arcLengthTables[curveIndex];
+		if (arcLength <= 0) return 0;
+		if (arcLength >= table[TABLE_INTERVALS]) return 1;
 
-		double depth = 1.0E-5;
+		int low = 0;
+		int high = TABLE_INTERVALS;
+		while (high - low > 1) {
+			int middle = (low + high) >>> 1;
+			if (table[middle] <= arcLength) {
+				low = middle;
+			} else {
+				high = middle;
+			}
+		}
 
-		for (double i = depth; i <= 1; i += depth) {
-			Vector2D firstDerivative = curve.firstDerivative(i); // velocity?
-			Vector2D secondDerivative = curve.secondDerivative(i); // acceleration?
+		double intervalLength = table[high] - table[low];
+		double tLow = (double) low / TABLE_INTERVALS;
+		double tHigh = (double) high / TABLE_INTERVALS;
+		if (intervalLength <= 0) return tLow;
 
-			result += (0.5 * secondDerivative.getMagnitude() * depth * depth) + previousVelocity * depth;
+		double t = tLow + (tHigh - tLow) * (arcLength - table[low]) / intervalLength;
 
-			previousVelocity = firstDerivative.getMagnitude();
+		// safeguarded newton iterations, falling back to bisection if a step leaves the bracket
+		QuinticBezierCurve curve = curves[curveIndex];
+		double bracketLow = tLow;
+		double bracketHigh = tHigh;
+		for (int i = 0; i < MAX_NEWTON_ITERATIONS; i++) {
+			double error = table[low] + integrate(curve, tLow, t) - arcLength;
+			if (Math.abs(error) <= NEWTON_TOLERANCE) break;
+			if (error > 0) {
+				bracketHigh = t;
+			} else {
+				bracketLow = t;
+			}
+			double speed = curve.speed(t);
+			double next = speed > 0 ? t - error / speed : Double.NaN;
+			t = next > bracketLow && next < bracketHigh ? next : 0.5 * (bracketLow + bracketHigh);
 		}
+		return t;
+	}
 
-		return result;
+	public QuinticBezierCurve[] getCurves() {
+		return curves;
+	}
+
+	/**
+	 * @param curveIndex the index of the curve
+	 * @param arcLength  the arc length from the start of the curve
+	 * @return the point on the curve at the arc length
+	 */
+	public ArcLengthRelationship findCurveFromArcLength(int curveIndex, double arcLength) {
+		return new ArcLengthRelationship(curves[curveIndex], findT(curveIndex, arcLength), curveIndex);
 	}
 
 	public ArcLengthRelationship findCurveFromArcLength(double arcLength) {
-		QuinticBezierCurve[] curves = followableCurve.getCurves();
+		arcLength = Math.max(0, Math.min(arcLength, breakpoints[breakpoints.length - 1])); //ensures that the result is within bounds
+		if (arcLength == breakpoints[breakpoints.length - 1]) {
+			// the breakpoints are sums of the arc lengths, so subtracting them back out may fall just short of the end
+			return new ArcLengthRelationship(curves[curves.length - 1], 1, curves.length - 1);
+		}
 
-		for (int i = 0; i < breakpoints.length - 2; i++) {
-			if (arcLength >= breakpoints[i] && arcLength < breakpoints[i + 1]) {
-				return new ArcLengthRelationship(curves[i], ((arcLength - breakpoints[i]) / arcLengths[i]), i);
+		int low = 0;
+		int high = curves.length - 1;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (breakpoints[middle] <= arcLength) {
+				low = middle;
+			} else {
+				high = middle - 1;
 			}
 		}
-		arcLength = Math.min(arcLength, breakpoints[breakpoints.length - 1]); //ensures that the result is within bounds
 
-		return new ArcLengthRelationship(curves[curves.length - 1], ((arcLength - breakpoints[breakpoints.length - 2]) / arcLengths[arcLengths.length - 1]), curves.length - 1);
+		return new ArcLengthRelationship(curves[low], findT(low, arcLength - breakpoints[low]), low);
 	}
 
 	public static class ArcLengthRelationship {
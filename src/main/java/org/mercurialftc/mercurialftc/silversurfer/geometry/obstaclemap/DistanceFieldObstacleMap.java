@@ -0,0 +1,384 @@
+package org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.mercurialftc.mercurialftc.silversurfer.encoderticksconverter.Units;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Vector2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.obstacle.Obstacle;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * wraps an {@link ObstacleMap} with a precomputed signed distance field of its static {@link ObstacleMap#getObstacles()}
+ * <p>queries inside of the field's bounds are a constant time bilinear lookup, rather than a scan over every obstacle, positions outside of the bounds fall back to the exact scan</p>
+ * <p>{@link ObstacleMap#getAdditionalObstacles()} are expected to change at runtime, and so are always checked exactly</p>
+ */
+@SuppressWarnings("unused")
+public class DistanceFieldObstacleMap implements ObstacleMap {
+	private static final int MAGIC = 0x53444630; // "SDF0"
+	private static final int PROBES = 16;
+	private final ObstacleMap obstacleMap;
+	private final double minX, minY, resolution;
+	private final int columns, rows;
+	private final double[] distances, gradientX, gradientY;
+
+	/**
+	 * builds the distance field for the static obstacles of the map
+	 *
+	 * @param obstacleMap the map to wrap
+	 * @param units       the units of the bounds and resolution
+	 * @param minX        the left edge of the field
+	 * @param minY        the bottom edge of the field
+	 * @param maxX        the right edge of the field
+	 * @param maxY        the top edge of the field
+	 * @param resolution  the spacing between samples of the field, smaller values are more accurate, but take longer to build and use more memory
+	 */
+	public DistanceFieldObstacleMap(@NotNull ObstacleMap obstacleMap, @NotNull Units units, double minX, double minY, double maxX, double maxY, double resolution) {
+		this.obstacleMap = obstacleMap;
+		this.minX = units.toMillimeters(Math.min(minX, maxX));
+		this.minY = units.toMillimeters(Math.min(minY, maxY));
+		this.resolution = units.toMillimeters(resolution);
+		this.columns = (int) Math.ceil(units.toMillimeters(Math.abs(maxX - minX)) / this.resolution) + 1;
+		this.rows = (int) Math.ceil(units.toMillimeters(Math.abs(maxY - minY)) / this.resolution) + 1;
+
+		this.distances = new double[columns * rows];
+		this.gradientX = new double[columns * rows];
+		this.gradientY = new double[columns * rows];
+
+		for (int row = 0; row < rows; row++) {
+			for (int column = 0; column < columns; column++) {
+				distances[row * columns + column] = exactSignedDistance(nodeX(column), nodeY(row));
+			}
+		}
+
+		findGradients();
+	}
+
+	/**
+	 * the field for a whole FTC field, centered on the origin
+	 *
+	 * @param obstacleMap the map to wrap
+	 * @param units       the units of the tile size and resolution
+	 * @param tileSize    the side length of one tile
+	 * @param resolution  the spacing between samples of the field
+	 */
+	public DistanceFieldObstacleMap(@NotNull ObstacleMap obstacleMap, @NotNull Units units, double tileSize, double resolution) {
+		this(obstacleMap, units, -3 * tileSize, -3 * tileSize, 3 * tileSize, 3 * tileSize, resolution);
+	}
+
+	private DistanceFieldObstacleMap(@NotNull ObstacleMap obstacleMap, double minX, double minY, double resolution, int columns, int rows, double[] distances, double[] gradientX, double[] gradientY) {
+		this.obstacleMap = obstacleMap;
+		this.minX = minX;
+		this.minY = minY;
+		this.resolution = resolution;
+		this.columns = columns;
+		this.rows = rows;
+		this.distances = distances;
+		this.gradientX = gradientX;
+		this.gradientY = gradientY;
+	}
+
+	/**
+	 * loads the distance field from the file if it was built for the same map, bounds and resolution, otherwise builds it and writes it to the file for next time
+	 *
+	 * @param file        the cache file, e.g. somewhere under AppUtil.FIRST_FOLDER/mercurialftc
+	 * @param obstacleMap the map to wrap
+	 * @param units       the units of the bounds and resolution
+	 * @param minX        the left edge of the field
+	 * @param minY        the bottom edge of the field
+	 * @param maxX        the right edge of the field
+	 * @param maxY        the top edge of the field
+	 * @param resolution  the spacing between samples of the field
+	 * @return the loaded or newly built distance field
+	 */
+	@NotNull
+	public static DistanceFieldObstacleMap cached(@NotNull File file, @NotNull ObstacleMap obstacleMap, @NotNull Units units, double minX, double minY, double maxX, double maxY, double resolution) {
+		double mmMinX = units.toMillimeters(Math.min(minX, maxX));
+		double mmMinY = units.toMillimeters(Math.min(minY, maxY));
+		double mmResolution = units.toMillimeters(resolution);
+		int columns = (int) Math.ceil(units.toMillimeters(Math.abs(maxX - minX)) / mmResolution) + 1;
+		int rows = (int) Math.ceil(units.toMillimeters(Math.abs(maxY - minY)) / mmResolution) + 1;
+
+		DistanceFieldObstacleMap loaded = load(file, obstacleMap);
+		if (loaded != null && loaded.minX == mmMinX && loaded.minY == mmMinY && loaded.resolution == mmResolution && loaded.columns == columns && loaded.rows == rows && loaded.matchesObstacles()) {
+			return loaded;
+		}
+
+		DistanceFieldObstacleMap built = new DistanceFieldObstacleMap(obstacleMap, units, minX, minY, maxX, maxY, resolution);
+		try {
+			built.save(file);
+		} catch (IOException ignored) {
+			// the field is still usable, it just wont be reused next time
+		}
+		return built;
+	}
+
+	/**
+	 * @param file        the file to read
+	 * @param obstacleMap the map to wrap
+	 * @return the distance field stored in the file, or null if it does not exist or cannot be read
+	 */
+	@Nullable
+	public static DistanceFieldObstacleMap load(@NotNull File file, @NotNull ObstacleMap obstacleMap) {
+		if (!file.isFile()) {
+			return null;
+		}
+		try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (inputStream.readInt() != MAGIC) {
+				return null;
+			}
+			double minX = inputStream.readDouble();
+			double minY = inputStream.readDouble();
+			double resolution = inputStream.readDouble();
+			int columns = inputStream.readInt();
+			int rows = inputStream.readInt();
+			double[] distances = new double[columns * rows];
+			double[] gradientX = new double[columns * rows];
+			double[] gradientY = new double[columns * rows];
+			for (int i = 0; i < distances.length; i++) {
+				distances[i] = inputStream.readDouble();
+				gradientX[i] = inputStream.readDouble();
+				gradientY[i] = inputStream.readDouble();
+			}
+			return new DistanceFieldObstacleMap(obstacleMap, minX, minY, resolution, columns, rows, distances, gradientX, gradientY);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * writes the distance field to the file, creating any missing directories
+	 *
+	 * @param file the file to write
+	 * @throws IOException if the file could not be written
+	 */
+	public void save(@NotNull File file) throws IOException {
+		File parent = file.getParentFile();
+		if (parent != null) {
+			parent.mkdirs();
+		}
+		try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			outputStream.writeInt(MAGIC);
+			outputStream.writeDouble(minX);
+			outputStream.writeDouble(minY);
+			outputStream.writeDouble(resolution);
+			outputStream.writeInt(columns);
+			outputStream.writeInt(rows);
+			for (int i = 0; i < distances.length; i++) {
+				outputStream.writeDouble(distances[i]);
+				outputStream.writeDouble(gradientX[i]);
+				outputStream.writeDouble(gradientY[i]);
+			}
+		}
+	}
+
+	/**
+	 * spot checks a spread of samples against the exact obstacles, to ensure that a loaded field was built from the same map
+	 */
+	private boolean matchesObstacles() {
+		int nodes = columns * rows;
+		for (int i = 0; i < PROBES; i++) {
+			int node = (int) (((long) nodes - 1) * i / (PROBES - 1));
+			if (distances[node] != exactSignedDistance(nodeX(node % columns), nodeY(node / columns))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private double nodeX(int column) {
+		return minX + column * resolution;
+	}
+
+	private double nodeY(int row) {
+		return minY + row * resolution;
+	}
+
+	private double exactSignedDistance(double x, double y) {
+		double result = Double.POSITIVE_INFINITY;
+		for (Obstacle obstacle : obstacleMap.getObstacles()) {
+			result = Math.min(result, obstacle.signedDistance(x, y));
+		}
+		return result;
+	}
+
+	/**
+	 * central differences of the distance field, normalised, so that the gradient always points away from the closest obstacle
+	 */
+	private void findGradients() {
+		for (int row = 0; row < rows; row++) {
+			int rowBelow = Math.max(row - 1, 0);
+			int rowAbove = Math.min(row + 1, rows - 1);
+			for (int column = 0; column < columns; column++) {
+				int columnLeft = Math.max(column - 1, 0);
+				int columnRight = Math.min(column + 1, columns - 1);
+
+				double dx = (distances[row * columns + columnRight] - distances[row * columns + columnLeft]) / ((columnRight - columnLeft) * resolution);
+				double dy = (distances[rowAbove * columns + column] - distances[rowBelow * columns + column]) / ((rowAbove - rowBelow) * resolution);
+
+				double magnitude = Math.hypot(dx, dy);
+				if (magnitude == 0 || Double.isNaN(magnitude) || Double.isInfinite(magnitude)) {
+					dx = dy = 0;
+				} else {
+					dx /= magnitude;
+					dy /= magnitude;
+				}
+
+				gradientX[row * columns + column] = dx;
+				gradientY[row * columns + column] = dy;
+			}
+		}
+	}
+
+	private boolean inBounds(double x, double y) {
+		return x >= minX && y >= minY && x <= nodeX(columns - 1) && y <= nodeY(rows - 1);
+	}
+
+	private double bilinear(@NotNull double[] field, double x, double y) {
+		double fx = (x - minX) / resolution;
+		double fy = (y - minY) / resolution;
+		int column = Math.max(0, Math.min((int) fx, columns - 2));
+		int row = Math.max(0, Math.min((int) fy, rows - 2));
+		double tx = fx - column;
+		double ty = fy - row;
+
+		int i = row * columns + column;
+
+		double bottom = field[i] + (field[i + 1] - field[i]) * tx;
+		double top = field[i + columns] + (field[i + columns + 1] - field[i + columns]) * tx;
+		return bottom + (top - bottom) * ty;
+	}
+
+	/**
+	 * allocation free
+	 *
+	 * @param x x position, in millimeters
+	 * @param y y position, in millimeters
+	 * @return the signed distance to the closest static obstacle, negative if inside of an obstacle, positive infinity if there are no static obstacles
+	 */
+	public double signedDistance(double x, double y) {
+		if (columns < 2 || rows < 2 || !inBounds(x, y)) {
+			return exactSignedDistance(x, y);
+		}
+		return bilinear(distances, x, y);
+	}
+
+	/**
+	 * allocation free
+	 *
+	 * @param x x position, in millimeters
+	 * @param y y position, in millimeters
+	 * @return the x component of the unit vector pointing away from the closest static obstacle, 0 outside of the field
+	 */
+	public double gradientX(double x, double y) {
+		if (columns < 2 || rows < 2 || !inBounds(x, y)) {
+			return 0;
+		}
+		return bilinear(gradientX, x, y);
+	}
+
+	/**
+	 * allocation free
+	 *
+	 * @param x x position, in millimeters
+	 * @param y y position, in millimeters
+	 * @return the y component of the unit vector pointing away from the closest static obstacle, 0 outside of the field
+	 */
+	public double gradientY(double x, double y) {
+		if (columns < 2 || rows < 2 || !inBounds(x, y)) {
+			return 0;
+		}
+		return bilinear(gradientY, x, y);
+	}
+
+	/**
+	 * uses the distance field for the static obstacles when the position is inside of the field, and the exact scan otherwise
+	 * <p>inside of the field, only the closest static obstacle is known, so it contributes at most one of the two obstacles</p>
+	 *
+	 * @param position         the position of the robot
+	 * @param nearestObstacles the result to reset and collect into
+	 * @return the two closest obstacles
+	 */
+	@Override
+	public NearestObstacles nearestObstacles(@NotNull Vector2D position, @NotNull NearestObstacles nearestObstacles) {
+		double x = position.getX();
+		double y = position.getY();
+		if (!inBounds(x, y) || columns < 2 || rows < 2) {
+			return ObstacleMap.super.nearestObstacles(position, nearestObstacles);
+		}
+
+		nearestObstacles.reset(position, getRobotSize());
+		ArrayList<Obstacle> additionalObstacles = getAdditionalObstacles();
+		if (additionalObstacles instanceof SpatialObstacleList) {
+			((SpatialObstacleList) additionalObstacles).offerNearest(nearestObstacles);
+		} else {
+			for (int i = 0; i < additionalObstacles.size(); i++) {
+				nearestObstacles.offer(additionalObstacles.get(i));
+			}
+		}
+
+		if (getObstacles().length > 0) {
+			double distance = Math.max(0, bilinear(distances, x, y));
+			// the gradient points away from the obstacle, the vector needs to point towards it
+			double directionX = -bilinear(gradientX, x, y);
+			double directionY = -bilinear(gradientY, x, y);
+			double magnitude = Math.hypot(directionX, directionY);
+			if (magnitude > 0) {
+				nearestObstacles.offer(null, directionX * distance / magnitude, directionY * distance / magnitude);
+			} else {
+				nearestObstacles.offer(null, distance, 0);
+			}
+		}
+
+		return nearestObstacles;
+	}
+
+	/**
+	 * allocation free inside of the field, the additional obstacles are measured exactly through {@link Obstacle#signedDistance(double, double)}
+	 *
+	 * @param x     x position of the robot, in millimeters
+	 * @param y     y position of the robot, in millimeters
+	 * @param theta heading of the robot, in radians, unused as the robot is treated as a circle
+	 * @return the distance from the edge of the robot to the closest obstacle, positive infinity if there are no obstacles
+	 */
+	@Override
+	public double clearance(double x, double y, double theta) {
+		if (!inBounds(x, y) || columns < 2 || rows < 2) {
+			return ObstacleMap.super.clearance(x, y, theta);
+		}
+
+		double distance = getObstacles().length > 0 ? bilinear(distances, x, y) : Double.POSITIVE_INFINITY;
+		ArrayList<Obstacle> additionalObstacles = getAdditionalObstacles();
+		for (int i = 0; i < additionalObstacles.size(); i++) {
+			distance = Math.min(distance, additionalObstacles.get(i).signedDistance(x, y));
+		}
+		return Math.max(0, distance - getRobotSize());
+	}
+
+	public ObstacleMap getObstacleMap() {
+		return obstacleMap;
+	}
+
+	@Override
+	public double getRobotSize() {
+		return obstacleMap.getRobotSize();
+	}
+
+	@Override
+	public ArrayList<Obstacle> getAdditionalObstacles() {
+		return obstacleMap.getAdditionalObstacles();
+	}
+
+	@Override
+	public Obstacle[] getObstacles() {
+		return obstacleMap.getObstacles();
+	}
+}
@@ -0,0 +1,81 @@
+package org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap;
+
+import org.jetbrains.annotations.NotNull;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Pose2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.obstacle.Obstacle;
+
+import java.util.ArrayList;
+
+/**
+ * wraps an {@link ObstacleMap}, measuring obstacles from the edge of a {@link RobotFootprint} at the robot's heading, rather than from a circle around the robot
+ * <p>queries made with a {@link Pose2D} use the footprint, queries made without a heading fall back to the circle that encloses the footprint</p>
+ * <p>obstacles whose bounding box is further away than the two closest found so far are skipped without an exact test, additional obstacles are searched through their index if they are a {@link SpatialObstacleList}</p>
+ */
+@SuppressWarnings("unused")
+public class FootprintObstacleMap implements ObstacleMap {
+	private final ObstacleMap obstacleMap;
+	private final RobotFootprint robotFootprint;
+
+	/**
+	 * @param obstacleMap    the map to wrap, its robot size is replaced by the footprint
+	 * @param robotFootprint the outline of the robot
+	 */
+	public FootprintObstacleMap(@NotNull ObstacleMap obstacleMap, @NotNull RobotFootprint robotFootprint) {
+		this.obstacleMap = obstacleMap;
+		this.robotFootprint = robotFootprint;
+	}
+
+	@Override
+	public NearestObstacles nearestObstacles(@NotNull Pose2D position, @NotNull NearestObstacles nearestObstacles) {
+		RobotFootprint.Placement placement = robotFootprint.place(position.getX(), position.getY(), position.getTheta().getRadians());
+		// distances are already measured from the edge of the robot
+		nearestObstacles.reset(position.toVector2D(), 0);
+
+		ArrayList<Obstacle> additionalObstacles = getAdditionalObstacles();
+		if (additionalObstacles instanceof SpatialObstacleList) {
+			((SpatialObstacleList) additionalObstacles).offerNearest(nearestObstacles, robotFootprint.getCircumradius(), obstacle -> offer(placement, obstacle, nearestObstacles));
+		} else {
+			for (int i = 0; i < additionalObstacles.size(); i++) {
+				offer(placement, additionalObstacles.get(i), nearestObstacles);
+			}
+		}
+		for (Obstacle obstacle : getObstacles()) {
+			offer(placement, obstacle, nearestObstacles);
+		}
+		return nearestObstacles;
+	}
+
+	private void offer(@NotNull RobotFootprint.Placement placement, @NotNull Obstacle obstacle, @NotNull NearestObstacles nearestObstacles) {
+		if (placement.boundingDistance(obstacle) >= nearestObstacles.getSecondClosestDistance()) {
+			return;
+		}
+		placement.measure(obstacle);
+		nearestObstacles.offer(obstacle, placement.getDistanceX(), placement.getDistanceY());
+	}
+
+	public ObstacleMap getObstacleMap() {
+		return obstacleMap;
+	}
+
+	public RobotFootprint getRobotFootprint() {
+		return robotFootprint;
+	}
+
+	/**
+	 * @return the radius of the circle that encloses the footprint
+	 */
+	@Override
+	public double getRobotSize() {
+		return robotFootprint.getCircumradius();
+	}
+
+	@Override
+	public ArrayList<Obstacle> getAdditionalObstacles() {
+		return obstacleMap.getAdditionalObstacles();
+	}
+
+	@Override
+	public Obstacle[] getObstacles() {
+		return obstacleMap.getObstacles();
+	}
+}
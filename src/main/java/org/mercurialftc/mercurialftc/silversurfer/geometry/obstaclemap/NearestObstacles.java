@@ -0,0 +1,160 @@
+package org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Vector2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.obstacle.Obstacle;
+
+/**
+ * the two closest obstacles to a position, collected in a single pass over an {@link ObstacleMap}
+ * <p>provides both {@link ObstacleMap#closestObstacleVector(Vector2D)} and {@link ObstacleMap#obstacleAvoidanceVector(Vector2D)} from the same pass</p>
+ */
+@SuppressWarnings("unused")
+public class NearestObstacles {
+	private Vector2D position;
+	private double robotSize;
+	private Obstacle closest, secondClosest;
+	private boolean hasClosest, hasSecondClosest;
+	private double closestX, closestY, secondClosestX, secondClosestY;
+	private double closestDistance, secondClosestDistance;
+
+	/**
+	 * @param position  the position that obstacles are measured from
+	 * @param robotSize the radius of the robot, in millimeters
+	 */
+	public NearestObstacles(@NotNull Vector2D position, double robotSize) {
+		reset(position, robotSize);
+	}
+
+	/**
+	 * forgets every obstacle seen so far, so that the same instance can be reused between queries
+	 *
+	 * @param position  the position that obstacles are measured from
+	 * @param robotSize the radius of the robot, in millimeters
+	 */
+	public void reset(@NotNull Vector2D position, double robotSize) {
+		this.position = position;
+		this.robotSize = robotSize;
+		this.closest = null;
+		this.secondClosest = null;
+		this.hasClosest = false;
+		this.hasSecondClosest = false;
+		this.closestDistance = Double.POSITIVE_INFINITY;
+		this.secondClosestDistance = Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * measures the obstacle, and keeps it if it is one of the two closest seen so far
+	 * <p>offering the same obstacle multiple times has no further effect</p>
+	 *
+	 * @param obstacle the obstacle to measure
+	 */
+	public void offer(@NotNull Obstacle obstacle) {
+		if (obstacle == closest || obstacle == secondClosest) {
+			return;
+		}
+		offer(obstacle, obstacle.distance(position));
+	}
+
+	/**
+	 * keeps the distance vector if it is one of the two closest seen so far
+	 * <p>offering a known obstacle that is already kept has no further effect</p>
+	 *
+	 * @param obstacle       the obstacle that the vector was measured to, may be null if it is not known
+	 * @param distanceVector the vector from the position to the closest point of the obstacle
+	 */
+	public void offer(@Nullable Obstacle obstacle, @NotNull Vector2D distanceVector) {
+		offer(obstacle, distanceVector.getX(), distanceVector.getY());
+	}
+
+	/**
+	 * allocation free version of {@link #offer(Obstacle, Vector2D)}
+	 *
+	 * @param obstacle  the obstacle that the vector was measured to, may be null if it is not known
+	 * @param distanceX the x component of the vector from the position to the closest point of the obstacle
+	 * @param distanceY the y component of the vector from the position to the closest point of the obstacle
+	 */
+	public void offer(@Nullable Obstacle obstacle, double distanceX, double distanceY) {
+		if (obstacle != null && (obstacle == closest || obstacle == secondClosest)) {
+			return;
+		}
+		double distance = Math.hypot(distanceX, distanceY);
+		if (distance < closestDistance) {
+			secondClosest = closest;
+			hasSecondClosest = hasClosest;
+			secondClosestX = closestX;
+			secondClosestY = closestY;
+			secondClosestDistance = closestDistance;
+			closest = obstacle;
+			hasClosest = true;
+			closestX = distanceX;
+			closestY = distanceY;
+			closestDistance = distance;
+		} else if (distance < secondClosestDistance) {
+			secondClosest = obstacle;
+			hasSecondClosest = true;
+			secondClosestX = distanceX;
+			secondClosestY = distanceY;
+			secondClosestDistance = distance;
+		}
+	}
+
+	public Vector2D getPosition() {
+		return position;
+	}
+
+	/**
+	 * @return the distance to the closest obstacle seen so far, not accounting for the robot size
+	 */
+	public double getClosestDistance() {
+		return closestDistance;
+	}
+
+	/**
+	 * @return the distance to the second closest obstacle seen so far, not accounting for the robot size
+	 */
+	public double getSecondClosestDistance() {
+		return secondClosestDistance;
+	}
+
+	/**
+	 * @return the vector from the edge of the robot to the closest obstacle, or null if there are no obstacles
+	 */
+	@Nullable
+	public Vector2D getClosestObstacleVector() {
+		if (!hasClosest) {
+			return null;
+		}
+		return fromEdgeOfRobot(closestX, closestY);
+	}
+
+	/**
+	 * allocation free
+	 *
+	 * @return the distance from the edge of the robot to the closest obstacle, positive infinity if there are no obstacles
+	 */
+	public double getClosestClearance() {
+		return Math.max(0, closestDistance - robotSize);
+	}
+
+	/**
+	 * @return the sum of the vectors from the edge of the robot to the two closest obstacles, or null if there are no obstacles
+	 */
+	@Nullable
+	public Vector2D getObstacleAvoidanceVector() {
+		if (!hasClosest) {
+			return null;
+		}
+		Vector2D result = fromEdgeOfRobot(closestX, closestY);
+		if (hasSecondClosest) {
+			result = result.add(fromEdgeOfRobot(secondClosestX, secondClosestY));
+		}
+		return result;
+	}
+
+	@NotNull
+	private Vector2D fromEdgeOfRobot(double distanceX, double distanceY) {
+		Vector2D distanceVector = new Vector2D(distanceX, distanceY);
+		return Vector2D.fromPolar(Math.max(0, distanceVector.getMagnitude() - robotSize), distanceVector.getHeading());
+	}
+}
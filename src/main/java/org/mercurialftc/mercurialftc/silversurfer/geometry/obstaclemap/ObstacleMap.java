@@ -4,6 +4,7 @@ package org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap;
 import org.jetbrains.annotations.NotNull;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.Pose2D;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.Vector2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.angle.AngleRadians;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.obstacle.Obstacle;
 
 import java.util.ArrayList;
@@ -16,79 +17,80 @@ public interface ObstacleMap {
 
 	Obstacle[] getObstacles();
 
-	default Vector2D closestObstacleVector(@NotNull Vector2D position) {
-		Vector2D result = null;
-		double shortestDistance = Double.POSITIVE_INFINITY;
-		for (Obstacle obstacle : getAdditionalObstacles()) {
-			Vector2D distanceVector = obstacle.distance(position);
-			double distance = distanceVector.getMagnitude();
-			if (distance < shortestDistance) {
-				result = distanceVector;
-				shortestDistance = distance;
+	/**
+	 * finds the two closest obstacles to the position in a single pass, the additional obstacles are searched through their index if they are a {@link SpatialObstacleList}
+	 *
+	 * @param position the position of the robot
+	 * @return the two closest obstacles, from which both the closest obstacle vector and the obstacle avoidance vector can be taken
+	 */
+	default NearestObstacles nearestObstacles(@NotNull Vector2D position) {
+		return nearestObstacles(position, new NearestObstacles(position, getRobotSize()));
+	}
+
+	/**
+	 * the same as {@link #nearestObstacles(Vector2D)}, but collects into a caller owned result, so that repeated queries do not allocate one each
+	 *
+	 * @param position         the position of the robot
+	 * @param nearestObstacles the result to reset and collect into
+	 * @return nearestObstacles
+	 */
+	default NearestObstacles nearestObstacles(@NotNull Vector2D position, @NotNull NearestObstacles nearestObstacles) {
+		nearestObstacles.reset(position, getRobotSize());
+		ArrayList<Obstacle> additionalObstacles = getAdditionalObstacles();
+		if (additionalObstacles instanceof SpatialObstacleList) {
+			((SpatialObstacleList) additionalObstacles).offerNearest(nearestObstacles);
+		} else {
+			for (int i = 0; i < additionalObstacles.size(); i++) {
+				nearestObstacles.offer(additionalObstacles.get(i));
 			}
 		}
 		for (Obstacle obstacle : getObstacles()) {
-			Vector2D distanceVector = obstacle.distance(position);
-			double distance = distanceVector.getMagnitude();
-			if (distance < shortestDistance) {
-				result = distanceVector;
-				shortestDistance = distance;
-			}
-		}
-		if (result != null) {
-			result = Vector2D.fromPolar(Math.max(0, result.getMagnitude() - getRobotSize()), result.getHeading());
+			nearestObstacles.offer(obstacle);
 		}
-		return result;
+		return nearestObstacles;
+	}
+
+	default NearestObstacles nearestObstacles(@NotNull Pose2D position) {
+		return nearestObstacles(position, new NearestObstacles(position.toVector2D(), getRobotSize()));
+	}
+
+	/**
+	 * the same as {@link #nearestObstacles(Pose2D)}, but collects into a caller owned result, so that repeated queries do not allocate one each
+	 *
+	 * @param position         the pose of the robot
+	 * @param nearestObstacles the result to reset and collect into
+	 * @return nearestObstacles
+	 */
+	default NearestObstacles nearestObstacles(@NotNull Pose2D position, @NotNull NearestObstacles nearestObstacles) {
+		return nearestObstacles(position.toVector2D(), nearestObstacles);
+	}
+
+	/**
+	 * the distance from the edge of the robot to the closest obstacle, without building a result vector
+	 * <p>maps with a cheaper scalar lookup override this, such as {@link DistanceFieldObstacleMap}</p>
+	 *
+	 * @param x     x position of the robot, in millimeters
+	 * @param y     y position of the robot, in millimeters
+	 * @param theta heading of the robot, in radians
+	 * @return the distance, positive infinity if there are no obstacles
+	 */
+	default double clearance(double x, double y, double theta) {
+		return nearestObstacles(new Pose2D(x, y, new AngleRadians(theta))).getClosestClearance();
+	}
+
+	default Vector2D closestObstacleVector(@NotNull Vector2D position) {
+		return nearestObstacles(position).getClosestObstacleVector();
 	}
 
 	default Vector2D closestObstacleVector(@NotNull Pose2D position) {
-		return closestObstacleVector(position.toVector2D());
+		return nearestObstacles(position).getClosestObstacleVector();
 	}
 
 	default Vector2D obstacleAvoidanceVector(@NotNull Vector2D position) {
-		Vector2D one = null;
-		Vector2D two = null;
-		double shortestDistanceOne = Double.POSITIVE_INFINITY;
-		double shortestDistanceTwo = Double.POSITIVE_INFINITY;
-		for (Obstacle obstacle : getAdditionalObstacles()) {
-			Vector2D distanceVector = obstacle.distance(position);
-			double distance = distanceVector.getMagnitude();
-			if (distance < shortestDistanceOne) {
-				two = one;
-				one = distanceVector;
-				shortestDistanceTwo = shortestDistanceOne;
-				shortestDistanceOne = distance;
-			} else if (distance < shortestDistanceTwo) {
-				two = distanceVector;
-				shortestDistanceTwo = distance;
-			}
-		}
-		for (Obstacle obstacle : getObstacles()) {
-			Vector2D distanceVector = obstacle.distance(position);
-			double distance = distanceVector.getMagnitude();
-			if (distance < shortestDistanceOne) {
-				two = one;
-				one = distanceVector;
-				shortestDistanceTwo = shortestDistanceOne;
-				shortestDistanceOne = distance;
-			} else if (distance < shortestDistanceTwo) {
-				two = distanceVector;
-				shortestDistanceTwo = distance;
-			}
-		}
-		if (one != null) {
-			one = Vector2D.fromPolar(Math.max(0, one.getMagnitude() - getRobotSize()), one.getHeading());
-		}
-		if (two != null) {
-			two = Vector2D.fromPolar(Math.max(0, two.getMagnitude() - getRobotSize()), two.getHeading());
-		}
-		Vector2D result = null;
-		if (one != null) result = one;
-		if (two != null) result = result.add(two);
-		return result;
+		return nearestObstacles(position).getObstacleAvoidanceVector();
 	}
 
 	default Vector2D obstacleAvoidanceVector(@NotNull Pose2D position) {
-		return obstacleAvoidanceVector(position.toVector2D());
+		return nearestObstacles(position).getObstacleAvoidanceVector();
 	}
 }
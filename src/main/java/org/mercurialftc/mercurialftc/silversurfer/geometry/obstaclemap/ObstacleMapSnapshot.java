@@ -0,0 +1,54 @@
+package org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap;
+
+import org.jetbrains.annotations.NotNull;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.obstacle.Obstacle;
+
+import java.util.ArrayList;
+
+/**
+ * a copy of the additional obstacles of an obstacle map at one moment, so that they can be planned around on another thread while the control loop changes them
+ * <p>the static obstacles are shared with the source map, so {@link OccupancyGridPlanner#forField(ObstacleMap)} reuses the grid of the source map, and only lays the copied additional obstacles over it</p>
+ */
+@SuppressWarnings("unused")
+public class ObstacleMapSnapshot implements ObstacleMap {
+	private final ObstacleMap source;
+	private final double robotSize;
+	private final ArrayList<Obstacle> additionalObstacles;
+
+	/**
+	 * should be taken on the thread that changes the additional obstacles of the source map
+	 *
+	 * @param source the map to copy
+	 */
+	public ObstacleMapSnapshot(@NotNull ObstacleMap source) {
+		this.source = source;
+		this.robotSize = source.getRobotSize();
+		this.additionalObstacles = new ArrayList<>(source.getAdditionalObstacles());
+	}
+
+	/**
+	 * @return the map that this is a snapshot of
+	 */
+	@NotNull
+	public ObstacleMap getSource() {
+		return source;
+	}
+
+	@Override
+	public double getRobotSize() {
+		return robotSize;
+	}
+
+	/**
+	 * @return the additional obstacles of the source map when the snapshot was taken, which should not be changed
+	 */
+	@Override
+	public ArrayList<Obstacle> getAdditionalObstacles() {
+		return additionalObstacles;
+	}
+
+	@Override
+	public Obstacle[] getObstacles() {
+		return source.getObstacles();
+	}
+}
@@ -0,0 +1,342 @@
+package org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap;
+
+import org.jetbrains.annotations.NotNull;
+import org.mercurialftc.mercurialftc.silversurfer.encoderticksconverter.Units;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Vector2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.obstacle.Obstacle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * plans paths around the static {@link ObstacleMap#getObstacles()} of a map, by A* over an occupancy grid, which is built once when the planner is constructed
+ * <p>the path found on the grid is then shortened to the fewest straight lines that stay clear of the obstacles, so that it can be used as the waypoints of a spline</p>
+ * <p>{@link ObstacleMap#getAdditionalObstacles()} are expected to change at runtime, and so are not part of the grid, but can be laid over it for a single plan, see {@link #plan(Vector2D, Vector2D, ArrayList)}</p>
+ */
+@SuppressWarnings("unused")
+public class OccupancyGridPlanner {
+	private static final Map<ObstacleMap, OccupancyGridPlanner> FIELD_PLANNERS = new WeakHashMap<>();
+	private static final double FIELD_TILE_SIZE = 24;
+	private static final double FIELD_RESOLUTION = 1;
+	/**
+	 * the cost multiplier of passing closer to an obstacle than the robot size, which is allowed so that the robot can leave a position that is already too close to an obstacle
+	 */
+	private static final double NEAR_COST = 50;
+	private static final byte FREE = 0, NEAR = 1, INSIDE = 2;
+	private static final int[] COLUMN_STEPS = {1, -1, 0, 0, 1, 1, -1, -1};
+	private static final int[] ROW_STEPS = {0, 0, 1, -1, 1, -1, 1, -1};
+	private final double minX, minY, resolution, clearance;
+	private final int columns, rows;
+	private final byte[] occupancy;
+
+	/**
+	 * builds the occupancy grid for the static obstacles of the map
+	 * <p>a node of the grid is free if the robot is at least one node's spacing further than its size from every obstacle, so that straight lines between free nodes stay clear</p>
+	 *
+	 * @param obstacleMap the map to plan around
+	 * @param units       the units of the bounds and resolution
+	 * @param minX        the left edge of the grid
+	 * @param minY        the bottom edge of the grid
+	 * @param maxX        the right edge of the grid
+	 * @param maxY        the top edge of the grid
+	 * @param resolution  the spacing between nodes of the grid, smaller values find tighter paths, but take longer to build and to search
+	 */
+	public OccupancyGridPlanner(@NotNull ObstacleMap obstacleMap, @NotNull Units units, double minX, double minY, double maxX, double maxY, double resolution) {
+		this.minX = units.toMillimeters(Math.min(minX, maxX));
+		this.minY = units.toMillimeters(Math.min(minY, maxY));
+		this.resolution = units.toMillimeters(resolution);
+		this.columns = (int) Math.ceil(units.toMillimeters(Math.abs(maxX - minX)) / this.resolution) + 1;
+		this.rows = (int) Math.ceil(units.toMillimeters(Math.abs(maxY - minY)) / this.resolution) + 1;
+		this.occupancy = new byte[columns * rows];
+
+		this.clearance = obstacleMap.getRobotSize() + this.resolution;
+		Obstacle[] obstacles = obstacleMap.getObstacles();
+		for (int row = 0; row < rows; row++) {
+			for (int column = 0; column < columns; column++) {
+				double distance = signedDistance(obstacleMap, obstacles, nodeX(column), nodeY(row));
+				occupancy[row * columns + column] = distance < 0 ? INSIDE : distance < clearance ? NEAR : FREE;
+			}
+		}
+	}
+
+	/**
+	 * the planner for a whole FTC field, centered on the origin
+	 *
+	 * @param obstacleMap the map to plan around
+	 * @param units       the units of the tile size and resolution
+	 * @param tileSize    the side length of one tile
+	 * @param resolution  the spacing between nodes of the grid
+	 */
+	public OccupancyGridPlanner(@NotNull ObstacleMap obstacleMap, @NotNull Units units, double tileSize, double resolution) {
+		this(obstacleMap, units, -3 * tileSize, -3 * tileSize, 3 * tileSize, 3 * tileSize, resolution);
+	}
+
+	/**
+	 * the planner for a whole FTC field of 24 inch tiles, with nodes every inch, built the first time it is asked for and then shared for as long as the map is in use
+	 * <p>the grid covers 3 tiles either side of the origin, starts and goals outside of it are planned from and to the closest node on its edge, and the goal is then joined with a straight line that is not checked</p>
+	 * <p>an {@link ObstacleMapSnapshot} shares the planner of the map it was taken from, as they have the same static obstacles</p>
+	 *
+	 * @param obstacleMap the map to plan around
+	 * @return the planner for the map
+	 */
+	@NotNull
+	public static synchronized OccupancyGridPlanner forField(@NotNull ObstacleMap obstacleMap) {
+		if (obstacleMap instanceof ObstacleMapSnapshot) {
+			obstacleMap = ((ObstacleMapSnapshot) obstacleMap).getSource();
+		}
+		OccupancyGridPlanner planner = FIELD_PLANNERS.get(obstacleMap);
+		if (planner == null) {
+			planner = new OccupancyGridPlanner(obstacleMap, Units.INCH, FIELD_TILE_SIZE, FIELD_RESOLUTION);
+			FIELD_PLANNERS.put(obstacleMap, planner);
+		}
+		return planner;
+	}
+
+	private static double signedDistance(@NotNull ObstacleMap obstacleMap, @NotNull Obstacle[] obstacles, double x, double y) {
+		if (obstacleMap instanceof DistanceFieldObstacleMap) {
+			return ((DistanceFieldObstacleMap) obstacleMap).signedDistance(x, y);
+		}
+		double result = Double.POSITIVE_INFINITY;
+		for (Obstacle obstacle : obstacles) {
+			result = Math.min(result, obstacle.signedDistance(x, y));
+		}
+		return result;
+	}
+
+	private double nodeX(int column) {
+		return minX + column * resolution;
+	}
+
+	private double nodeY(int row) {
+		return minY + row * resolution;
+	}
+
+	/**
+	 * @return the closest node to the position, positions outside of the grid use the closest node on its edge
+	 */
+	private int nearestNode(double x, double y) {
+		int column = (int) Math.round((x - minX) / resolution);
+		int row = (int) Math.round((y - minY) / resolution);
+		column = Math.max(0, Math.min(column, columns - 1));
+		row = Math.max(0, Math.min(row, rows - 1));
+		return row * columns + column;
+	}
+
+	/**
+	 * @param x x position, in millimeters
+	 * @param y y position, in millimeters
+	 * @return true if the robot is clear of the static obstacles at the position, according to the grid
+	 */
+	public boolean isClear(double x, double y) {
+		return occupancy[nearestNode(x, y)] == FREE;
+	}
+
+	/**
+	 * the state of the node in the grid, made worse by any additional obstacles near it
+	 */
+	private byte occupancy(int node, @NotNull ArrayList<Obstacle> additionalObstacles) {
+		byte state = occupancy[node];
+		if (state == INSIDE || additionalObstacles.isEmpty()) {
+			return state;
+		}
+		double x = nodeX(node % columns);
+		double y = nodeY(node / columns);
+		double distance = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < additionalObstacles.size(); i++) {
+			distance = Math.min(distance, additionalObstacles.get(i).signedDistance(x, y));
+		}
+		return distance < 0 ? INSIDE : distance < clearance ? NEAR : state;
+	}
+
+	private boolean isClear(double x, double y, @NotNull ArrayList<Obstacle> additionalObstacles) {
+		return occupancy(nearestNode(x, y), additionalObstacles) == FREE;
+	}
+
+	/**
+	 * checks points along the line at half the spacing of the grid
+	 */
+	private boolean isClear(@NotNull Vector2D start, @NotNull Vector2D end, @NotNull ArrayList<Obstacle> additionalObstacles) {
+		double length = Math.hypot(end.getX() - start.getX(), end.getY() - start.getY());
+		int steps = (int) Math.ceil(length / (resolution / 2));
+		for (int i = 0; i <= steps; i++) {
+			double fraction = steps == 0 ? 0 : (double) i / steps;
+			if (!isClear(start.getX() + (end.getX() - start.getX()) * fraction, start.getY() + (end.getY() - start.getY()) * fraction, additionalObstacles)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * O(n log n) in the number of nodes searched, safe to call from multiple threads at once
+	 * <p>starts and goals outside of the grid are planned from and to the closest node on its edge</p>
+	 *
+	 * @param start the start position, in millimeters
+	 * @param goal  the goal position, in millimeters
+	 * @return the waypoints from the start to the goal, not including the start, the last waypoint is always the goal
+	 */
+	@NotNull
+	public Vector2D[] plan(@NotNull Vector2D start, @NotNull Vector2D goal) {
+		return plan(start, goal, new ArrayList<>(0));
+	}
+
+	/**
+	 * as {@link #plan(Vector2D, Vector2D)}, but also around the additional obstacles, which are checked against each node as it is searched, so the grid does not need to be rebuilt
+	 *
+	 * @param start               the start position, in millimeters
+	 * @param goal                the goal position, in millimeters
+	 * @param additionalObstacles obstacles to plan around as well as the static obstacles, which must not be changed while planning
+	 * @return the waypoints from the start to the goal, not including the start, the last waypoint is always the goal
+	 */
+	@NotNull
+	public Vector2D[] plan(@NotNull Vector2D start, @NotNull Vector2D goal, @NotNull ArrayList<Obstacle> additionalObstacles) {
+		if (isClear(start, goal, additionalObstacles)) {
+			return new Vector2D[]{goal};
+		}
+
+		int startNode = nearestNode(start.getX(), start.getY());
+		int goalNode = nearestNode(goal.getX(), goal.getY());
+		int[] parents = search(startNode, goalNode, additionalObstacles);
+		if (parents == null) {
+			throw new RuntimeException("no path could be found around the obstacles from (" + start + ") to (" + goal + ")");
+		}
+
+		ArrayList<Vector2D> path = new ArrayList<>();
+		path.add(goal);
+		for (int node = parents[goalNode]; node != startNode && node >= 0; node = parents[node]) {
+			path.add(new Vector2D(nodeX(node % columns), nodeY(node / columns)));
+		}
+		path.add(start);
+
+		// greedily skips to the furthest point of the path that can be seen, grid steps are always allowed, as the search has already allowed them
+		ArrayList<Vector2D> waypoints = new ArrayList<>();
+		int current = path.size() - 1;
+		while (current > 0) {
+			int next = current - 1;
+			for (int candidate = 0; candidate < current - 1; candidate++) {
+				if (isClear(path.get(current), path.get(candidate), additionalObstacles)) {
+					next = candidate;
+					break;
+				}
+			}
+			waypoints.add(path.get(next));
+			current = next;
+		}
+		return waypoints.toArray(new Vector2D[0]);
+	}
+
+	/**
+	 * A* over the eight neighbours of each node, with an octile distance heuristic
+	 *
+	 * @return the parent of each node on the way to the goal, or null if the goal cannot be reached
+	 */
+	private int[] search(int startNode, int goalNode, @NotNull ArrayList<Obstacle> additionalObstacles) {
+		double[] costs = new double[occupancy.length];
+		Arrays.fill(costs, Double.POSITIVE_INFINITY);
+		int[] parents = new int[occupancy.length];
+		Arrays.fill(parents, -1);
+		boolean[] closed = new boolean[occupancy.length];
+
+		int goalColumn = goalNode % columns;
+		int goalRow = goalNode / columns;
+
+		NodeQueue open = new NodeQueue();
+		costs[startNode] = 0;
+		open.push(startNode, 0);
+
+		while (!open.isEmpty()) {
+			int node = open.pop();
+			if (node == goalNode) {
+				return parents;
+			}
+			if (closed[node]) {
+				continue;
+			}
+			closed[node] = true;
+
+			int column = node % columns;
+			int row = node / columns;
+			for (int i = 0; i < COLUMN_STEPS.length; i++) {
+				int neighbourColumn = column + COLUMN_STEPS[i];
+				int neighbourRow = row + ROW_STEPS[i];
+				if (neighbourColumn < 0 || neighbourRow < 0 || neighbourColumn >= columns || neighbourRow >= rows) {
+					continue;
+				}
+				int neighbour = neighbourRow * columns + neighbourColumn;
+				if (closed[neighbour]) {
+					continue;
+				}
+				byte state = occupancy(neighbour, additionalObstacles);
+				if (state == INSIDE && neighbour != goalNode) {
+					continue;
+				}
+
+				double step = i < 4 ? 1 : Math.sqrt(2);
+				if (state != FREE && neighbour != goalNode) {
+					step *= NEAR_COST;
+				}
+				double cost = costs[node] + step;
+				if (cost < costs[neighbour]) {
+					costs[neighbour] = cost;
+					parents[neighbour] = node;
+					int dx = Math.abs(goalColumn - neighbourColumn);
+					int dy = Math.abs(goalRow - neighbourRow);
+					double heuristic = Math.max(dx, dy) + (Math.sqrt(2) - 1) * Math.min(dx, dy);
+					open.push(neighbour, cost + heuristic);
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * a binary min heap of nodes, a node may be pushed more than once, the stale entries are skipped by the search
+	 */
+	private static class NodeQueue {
+		private int[] nodes = new int[64];
+		private double[] priorities = new double[64];
+		private int size;
+
+		private boolean isEmpty() {
+			return size == 0;
+		}
+
+		private void push(int node, double priority) {
+			if (size == nodes.length) {
+				nodes = Arrays.copyOf(nodes, size * 2);
+				priorities = Arrays.copyOf(priorities, size * 2);
+			}
+			int i = size++;
+			while (i > 0) {
+				int parent = (i - 1) >>> 1;
+				if (priorities[parent] <= priority) break;
+				nodes[i] = nodes[parent];
+				priorities[i] = priorities[parent];
+				i = parent;
+			}
+			nodes[i] = node;
+			priorities[i] = priority;
+		}
+
+		private int pop() {
+			int result = nodes[0];
+			int lastNode = nodes[--size];
+			double lastPriority = priorities[size];
+			int i = 0;
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= size) break;
+				if (child + 1 < size && priorities[child + 1] < priorities[child]) child++;
+				if (priorities[child] >= lastPriority) break;
+				nodes[i] = nodes[child];
+				priorities[i] = priorities[child];
+				i = child;
+			}
+			nodes[i] = lastNode;
+			priorities[i] = lastPriority;
+			return result;
+		}
+	}
+}
@@ -0,0 +1,353 @@
+package org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap;
+
+import org.jetbrains.annotations.NotNull;
+import org.mercurialftc.mercurialftc.silversurfer.encoderticksconverter.Units;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Vector2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.obstacle.CircularObstacle;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.obstacle.Obstacle;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.obstacle.RectangularObstacle;
+
+/**
+ * the outline of the robot as a convex polygon, relative to the center of the robot, with the front of the robot facing positive x
+ * <p>used by {@link FootprintObstacleMap} to find the distance from the edge of the robot to obstacles, accounting for the robot's heading</p>
+ */
+@SuppressWarnings("unused")
+public class RobotFootprint {
+	private final double[] xs, ys;
+	private final double circumradius;
+
+	/**
+	 * @param units    the units of the vertices
+	 * @param vertices the vertices of the outline as x, y pairs, in order around the outline, the outline must be convex
+	 */
+	public RobotFootprint(@NotNull Units units, @NotNull double... vertices) {
+		if (vertices.length < 6 || vertices.length % 2 != 0) {
+			throw new RuntimeException("a robot footprint needs at least 3 vertices, supplied as x, y pairs");
+		}
+		int n = vertices.length / 2;
+		this.xs = new double[n];
+		this.ys = new double[n];
+		for (int i = 0; i < n; i++) {
+			xs[i] = units.toMillimeters(vertices[2 * i]);
+			ys[i] = units.toMillimeters(vertices[2 * i + 1]);
+		}
+
+		double area = 0;
+		for (int i = 0; i < n; i++) {
+			int j = (i + 1) % n;
+			area += xs[i] * ys[j] - xs[j] * ys[i];
+		}
+		if (area < 0) {
+			// stores the vertices counter clockwise, so that the edge normals point outwards
+			reverse(xs);
+			reverse(ys);
+		}
+
+		double radius = 0;
+		for (int i = 0; i < n; i++) {
+			int j = (i + 1) % n;
+			int k = (i + 2) % n;
+			double cross = (xs[j] - xs[i]) * (ys[k] - ys[j]) - (ys[j] - ys[i]) * (xs[k] - xs[j]);
+			if (cross < 0) {
+				throw new RuntimeException("robot footprints must be convex");
+			}
+			radius = Math.max(radius, Math.hypot(xs[i], ys[i]));
+		}
+		this.circumradius = radius;
+	}
+
+	/**
+	 * a rectangular footprint centered on the center of the robot
+	 *
+	 * @param units  the units of the width and length
+	 * @param length the length of the robot, from back to front
+	 * @param width  the width of the robot, from side to side
+	 * @return the footprint
+	 */
+	@NotNull
+	public static RobotFootprint rectangle(@NotNull Units units, double length, double width) {
+		double x = length / 2;
+		double y = width / 2;
+		return new RobotFootprint(units, x, y, -x, y, -x, -y, x, -y);
+	}
+
+	private static void reverse(@NotNull double[] array) {
+		for (int i = 0, j = array.length - 1; i < j; i++, j--) {
+			double temp = array[i];
+			array[i] = array[j];
+			array[j] = temp;
+		}
+	}
+
+	/**
+	 * @return the distance from the center of the robot to its furthest vertex, in millimeters
+	 */
+	public double getCircumradius() {
+		return circumradius;
+	}
+
+	/**
+	 * @return the number of vertices in the outline
+	 */
+	public int getVertexCount() {
+		return xs.length;
+	}
+
+	/**
+	 * places the footprint on the field, the placement can then be measured against any number of obstacles
+	 *
+	 * @param x       the x position of the center of the robot, in millimeters
+	 * @param y       the y position of the center of the robot, in millimeters
+	 * @param heading the heading of the robot, in radians
+	 * @return the footprint in field coordinates
+	 */
+	@NotNull
+	public Placement place(double x, double y, double heading) {
+		return new Placement(x, y, heading);
+	}
+
+	/**
+	 * the footprint in field coordinates
+	 * <p>measuring obstacles reuses the placement's scratch space, so a placement should only be measured from one thread at a time</p>
+	 */
+	public class Placement {
+		private final double x, y;
+		private final double[] worldXs, worldYs;
+		private final double[] normalXs, normalYs, footprintMaxes;
+		private final double[] cornerXs, cornerYs;
+		private double minX, minY, maxX, maxY;
+		private double distanceX, distanceY;
+
+		private Placement(double x, double y, double heading) {
+			this.x = x;
+			this.y = y;
+			double cos = Math.cos(heading);
+			double sin = Math.sin(heading);
+			worldXs = new double[xs.length];
+			worldYs = new double[xs.length];
+			minX = minY = Double.POSITIVE_INFINITY;
+			maxX = maxY = Double.NEGATIVE_INFINITY;
+			for (int i = 0; i < xs.length; i++) {
+				worldXs[i] = x + xs[i] * cos - ys[i] * sin;
+				worldYs[i] = y + xs[i] * sin + ys[i] * cos;
+				minX = Math.min(minX, worldXs[i]);
+				minY = Math.min(minY, worldYs[i]);
+				maxX = Math.max(maxX, worldXs[i]);
+				maxY = Math.max(maxY, worldYs[i]);
+			}
+
+			// the footprint's side of the separating axis test only depends on the placement, so it is projected once here rather than per obstacle
+			normalXs = new double[xs.length];
+			normalYs = new double[xs.length];
+			footprintMaxes = new double[xs.length];
+			for (int i = 0; i < xs.length; i++) {
+				int j = (i + 1) % xs.length;
+				normalXs[i] = worldYs[j] - worldYs[i];
+				normalYs[i] = worldXs[i] - worldXs[j];
+				double footprintMax = Double.NEGATIVE_INFINITY;
+				for (int k = 0; k < xs.length; k++) {
+					footprintMax = Math.max(footprintMax, normalXs[i] * worldXs[k] + normalYs[i] * worldYs[k]);
+				}
+				footprintMaxes[i] = footprintMax;
+			}
+			cornerXs = new double[4];
+			cornerYs = new double[4];
+		}
+
+		public double getMinX() {
+			return minX;
+		}
+
+		public double getMinY() {
+			return minY;
+		}
+
+		public double getMaxX() {
+			return maxX;
+		}
+
+		public double getMaxY() {
+			return maxY;
+		}
+
+		/**
+		 * the broadphase, the gap between the bounding boxes of the footprint and the obstacle
+		 *
+		 * @param obstacle the obstacle to measure
+		 * @return a lower bound on the distance from the footprint to the obstacle
+		 */
+		public double boundingDistance(@NotNull Obstacle obstacle) {
+			double gapX = Math.max(0, Math.max(obstacle.getMinX() - maxX, minX - obstacle.getMaxX()));
+			double gapY = Math.max(0, Math.max(obstacle.getMinY() - maxY, minY - obstacle.getMaxY()));
+			return Math.hypot(gapX, gapY);
+		}
+
+		/**
+		 * exact for {@link RectangularObstacle}s and {@link CircularObstacle}s, other obstacles are measured from the circle that encloses the footprint
+		 *
+		 * @param obstacle the obstacle to measure
+		 * @return the vector from the closest point of the footprint to the closest point of the obstacle, zero if they overlap
+		 */
+		@NotNull
+		public Vector2D distance(@NotNull Obstacle obstacle) {
+			measure(obstacle);
+			return new Vector2D(distanceX, distanceY);
+		}
+
+		/**
+		 * the same as {@link #distance(Obstacle)}, but keeps the result in the placement, read through {@link #getDistanceX()} and {@link #getDistanceY()}
+		 * <p>allocation free for {@link RectangularObstacle}s and {@link CircularObstacle}s</p>
+		 *
+		 * @param obstacle the obstacle to measure
+		 */
+		public void measure(@NotNull Obstacle obstacle) {
+			if (obstacle instanceof RectangularObstacle) {
+				rectangleDistance(obstacle.getMinX(), obstacle.getMinY(), obstacle.getMaxX(), obstacle.getMaxY());
+				return;
+			}
+			if (obstacle instanceof CircularObstacle) {
+				CircularObstacle circularObstacle = (CircularObstacle) obstacle;
+				circleDistance(circularObstacle.getCenter().getX(), circularObstacle.getCenter().getY(), circularObstacle.getRadius());
+				return;
+			}
+			Vector2D distanceVector = obstacle.distance(new Vector2D(x, y));
+			distanceVector = Vector2D.fromPolar(Math.max(0, distanceVector.getMagnitude() - circumradius), distanceVector.getHeading());
+			distanceX = distanceVector.getX();
+			distanceY = distanceVector.getY();
+		}
+
+		/**
+		 * @return the x component of the last vector found by {@link #measure(Obstacle)}
+		 */
+		public double getDistanceX() {
+			return distanceX;
+		}
+
+		/**
+		 * @return the y component of the last vector found by {@link #measure(Obstacle)}
+		 */
+		public double getDistanceY() {
+			return distanceY;
+		}
+
+		private boolean contains(double px, double py) {
+			for (int i = 0; i < worldXs.length; i++) {
+				int j = (i + 1) % worldXs.length;
+				if ((worldXs[j] - worldXs[i]) * (py - worldYs[i]) - (worldYs[j] - worldYs[i]) * (px - worldXs[i]) < 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private void circleDistance(double centerX, double centerY, double r) {
+			distanceX = distanceY = 0;
+			if (contains(centerX, centerY)) {
+				return;
+			}
+			double closestX = 0, closestY = 0;
+			double shortestDistance = Double.POSITIVE_INFINITY;
+			for (int i = 0; i < worldXs.length; i++) {
+				int j = (i + 1) % worldXs.length;
+				double edgeX = worldXs[j] - worldXs[i];
+				double edgeY = worldYs[j] - worldYs[i];
+				double t = ((centerX - worldXs[i]) * edgeX + (centerY - worldYs[i]) * edgeY) / (edgeX * edgeX + edgeY * edgeY);
+				t = Math.max(0, Math.min(t, 1));
+				double pointX = worldXs[i] + edgeX * t;
+				double pointY = worldYs[i] + edgeY * t;
+				double distance = Math.hypot(centerX - pointX, centerY - pointY);
+				if (distance < shortestDistance) {
+					shortestDistance = distance;
+					closestX = pointX;
+					closestY = pointY;
+				}
+			}
+			if (shortestDistance <= r) {
+				return;
+			}
+			double scale = (shortestDistance - r) / shortestDistance;
+			distanceX = (centerX - closestX) * scale;
+			distanceY = (centerY - closestY) * scale;
+		}
+
+		/**
+		 * separating axis test for overlap, then the closest vertex to feature pair, which is exact for two separated convex polygons
+		 */
+		private void rectangleDistance(double left, double bottom, double right, double top) {
+			distanceX = distanceY = 0;
+			if (overlapsRectangle(left, bottom, right, top)) {
+				return;
+			}
+
+			double resultX = 0, resultY = 0;
+			double shortestDistance = Double.POSITIVE_INFINITY;
+
+			// footprint vertices to the rectangle
+			for (int i = 0; i < worldXs.length; i++) {
+				double dx = Math.max(left, Math.min(worldXs[i], right)) - worldXs[i];
+				double dy = Math.max(bottom, Math.min(worldYs[i], top)) - worldYs[i];
+				double distance = Math.hypot(dx, dy);
+				if (distance < shortestDistance) {
+					shortestDistance = distance;
+					resultX = dx;
+					resultY = dy;
+				}
+			}
+
+			// rectangle corners to the footprint edges, corners at infinity can never be the closest point
+			cornerXs[0] = left;
+			cornerXs[1] = right;
+			cornerXs[2] = right;
+			cornerXs[3] = left;
+			cornerYs[0] = bottom;
+			cornerYs[1] = bottom;
+			cornerYs[2] = top;
+			cornerYs[3] = top;
+			for (int c = 0; c < 4; c++) {
+				double cornerX = cornerXs[c];
+				double cornerY = cornerYs[c];
+				if (Double.isInfinite(cornerX) || Double.isInfinite(cornerY)) continue;
+				for (int i = 0; i < worldXs.length; i++) {
+					int j = (i + 1) % worldXs.length;
+					double edgeX = worldXs[j] - worldXs[i];
+					double edgeY = worldYs[j] - worldYs[i];
+					double t = ((cornerX - worldXs[i]) * edgeX + (cornerY - worldYs[i]) * edgeY) / (edgeX * edgeX + edgeY * edgeY);
+					t = Math.max(0, Math.min(t, 1));
+					double dx = cornerX - (worldXs[i] + edgeX * t);
+					double dy = cornerY - (worldYs[i] + edgeY * t);
+					double distance = Math.hypot(dx, dy);
+					if (distance < shortestDistance) {
+						shortestDistance = distance;
+						resultX = dx;
+						resultY = dy;
+					}
+				}
+			}
+
+			distanceX = resultX;
+			distanceY = resultY;
+		}
+
+		private boolean overlapsRectangle(double left, double bottom, double right, double top) {
+			// the rectangle's axes
+			if (maxX < left || minX > right || maxY < bottom || minY > top) {
+				return false;
+			}
+			// the footprint's edge normals
+			for (int i = 0; i < worldXs.length; i++) {
+				double normalX = normalXs[i];
+				double normalY = normalYs[i];
+				// the smallest projection of the rectangle, written out per axis so that infinite bounds with a zero normal component do not produce NaN
+				double rectangleMin = 0;
+				if (normalX > 0) rectangleMin += normalX * left;
+				else if (normalX < 0) rectangleMin += normalX * right;
+				if (normalY > 0) rectangleMin += normalY * bottom;
+				else if (normalY < 0) rectangleMin += normalY * top;
+				if (rectangleMin > footprintMaxes[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
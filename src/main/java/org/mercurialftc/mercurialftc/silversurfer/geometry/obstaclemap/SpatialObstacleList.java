@@ -0,0 +1,336 @@
+package org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap;
+
+import org.jetbrains.annotations.NotNull;
+import org.mercurialftc.mercurialftc.silversurfer.encoderticksconverter.Units;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Vector2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.obstacle.Obstacle;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * a drop in replacement for the additional obstacles list of an {@link ObstacleMap}, that keeps a uniform grid index of its obstacles up to date as they are added, replaced and removed
+ * <p>{@link ObstacleMap#nearestObstacles(Vector2D)} uses the index to only measure the obstacles in the cells around the position, rather than every obstacle in the list</p>
+ * <p>obstacles are immutable, so an obstacle is moved by replacing it, see {@link #move(Obstacle, Obstacle)}</p>
+ * <p>modifications made through {@link #subList(int, int)} other than clearing it are not seen by the index</p>
+ */
+@SuppressWarnings("unused")
+public class SpatialObstacleList extends ArrayList<Obstacle> {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * obstacles that would cover more cells than this in either direction are kept out of the grid and always measured
+	 */
+	private static final int MAX_CELL_SPAN = 64;
+	private final double cellSize;
+	private final HashMap<Long, ArrayList<Obstacle>> cells;
+	private final ArrayList<Obstacle> unbounded;
+	private int minColumn, maxColumn, minRow, maxRow;
+
+	/**
+	 * @param units    the units of the cell size
+	 * @param cellSize the side length of a cell of the index, around the size of a typical obstacle works well
+	 */
+	public SpatialObstacleList(@NotNull Units units, double cellSize) {
+		this.cellSize = units.toMillimeters(cellSize);
+		this.cells = new HashMap<>();
+		this.unbounded = new ArrayList<>();
+		resetExtent();
+	}
+
+	/**
+	 * @param units     the units of the cell size
+	 * @param cellSize  the side length of a cell of the index, around the size of a typical obstacle works well
+	 * @param obstacles the initial obstacles
+	 */
+	public SpatialObstacleList(@NotNull Units units, double cellSize, @NotNull Collection<? extends Obstacle> obstacles) {
+		this(units, cellSize);
+		addAll(obstacles);
+	}
+
+	private static long key(int column, int row) {
+		return ((long) column << 32) | (row & 0xffffffffL);
+	}
+
+	private void resetExtent() {
+		minColumn = minRow = Integer.MAX_VALUE;
+		maxColumn = maxRow = Integer.MIN_VALUE;
+	}
+
+	private int cell(double value) {
+		return (int) Math.floor(value / cellSize);
+	}
+
+	private boolean isBounded(@NotNull Obstacle obstacle) {
+		double width = (obstacle.getMaxX() - obstacle.getMinX()) / cellSize;
+		double height = (obstacle.getMaxY() - obstacle.getMinY()) / cellSize;
+		// also false for infinite or NaN bounds
+		return width <= MAX_CELL_SPAN && height <= MAX_CELL_SPAN;
+	}
+
+	private void index(@NotNull Obstacle obstacle) {
+		if (!isBounded(obstacle)) {
+			unbounded.add(obstacle);
+			return;
+		}
+		int left = cell(obstacle.getMinX());
+		int right = cell(obstacle.getMaxX());
+		int bottom = cell(obstacle.getMinY());
+		int top = cell(obstacle.getMaxY());
+
+		for (int column = left; column <= right; column++) {
+			for (int row = bottom; row <= top; row++) {
+				ArrayList<Obstacle> cell = cells.get(key(column, row));
+				if (cell == null) {
+					cell = new ArrayList<>(2);
+					cells.put(key(column, row), cell);
+				}
+				cell.add(obstacle);
+			}
+		}
+
+		minColumn = Math.min(minColumn, left);
+		maxColumn = Math.max(maxColumn, right);
+		minRow = Math.min(minRow, bottom);
+		maxRow = Math.max(maxRow, top);
+	}
+
+	private void unindex(@NotNull Obstacle obstacle) {
+		if (!isBounded(obstacle)) {
+			removeByIdentity(unbounded, obstacle);
+			return;
+		}
+		int left = cell(obstacle.getMinX());
+		int right = cell(obstacle.getMaxX());
+		int bottom = cell(obstacle.getMinY());
+		int top = cell(obstacle.getMaxY());
+
+		for (int column = left; column <= right; column++) {
+			for (int row = bottom; row <= top; row++) {
+				ArrayList<Obstacle> cell = cells.get(key(column, row));
+				if (cell == null) continue;
+				removeByIdentity(cell, obstacle);
+				if (cell.isEmpty()) cells.remove(key(column, row));
+			}
+		}
+		// the extent is left as is, it only needs to cover the occupied cells, and is reset when the index is rebuilt
+	}
+
+	private static void removeByIdentity(@NotNull ArrayList<Obstacle> obstacles, @NotNull Obstacle obstacle) {
+		for (int i = 0; i < obstacles.size(); i++) {
+			if (obstacles.get(i) == obstacle) {
+				obstacles.remove(i);
+				return;
+			}
+		}
+	}
+
+	private void reindex() {
+		cells.clear();
+		unbounded.clear();
+		resetExtent();
+		for (int i = 0; i < size(); i++) {
+			index(get(i));
+		}
+	}
+
+	/**
+	 * offers the obstacles in this list to the query, nearest cells first, stopping once no unvisited cell can hold an obstacle closer than the two closest found
+	 *
+	 * @param nearestObstacles the query to offer the obstacles to
+	 */
+	public void offerNearest(@NotNull NearestObstacles nearestObstacles) {
+		offerNearest(nearestObstacles, 0, nearestObstacles::offer);
+	}
+
+	/**
+	 * offers the obstacles in this list to the query, nearest cells first, for queries that measure obstacles from a shape around the query position, rather than from the position itself
+	 *
+	 * @param nearestObstacles the query to offer the obstacles to
+	 * @param margin           the radius of a circle around the query position that encloses the shape, in millimeters
+	 * @param offer            measures an obstacle from the shape and offers it to the query
+	 */
+	public void offerNearest(@NotNull NearestObstacles nearestObstacles, double margin, @NotNull Consumer<Obstacle> offer) {
+		for (int i = 0; i < unbounded.size(); i++) {
+			offer.accept(unbounded.get(i));
+		}
+		if (cells.isEmpty()) {
+			return;
+		}
+
+		Vector2D position = nearestObstacles.getPosition();
+		int positionColumn = cell(position.getX());
+		int positionRow = cell(position.getY());
+
+		int maxRing = Math.max(
+				Math.max(Math.abs(positionColumn - minColumn), Math.abs(positionColumn - maxColumn)),
+				Math.max(Math.abs(positionRow - minRow), Math.abs(positionRow - maxRow))
+		);
+
+		// rings closer than this do not overlap any occupied cells
+		int minRing = Math.max(
+				Math.max(minColumn - positionColumn, positionColumn - maxColumn),
+				Math.max(minRow - positionRow, positionRow - maxRow)
+		);
+
+		for (int ring = Math.max(0, minRing); ring <= maxRing; ring++) {
+			// every point in a cell of this ring is at least ring - 1 cells away from the position, and so at least that less the margin away from the shape
+			if (nearestObstacles.getSecondClosestDistance() <= (ring - 1) * cellSize - margin) {
+				return;
+			}
+			int left = positionColumn - ring;
+			int right = positionColumn + ring;
+			int bottom = positionRow - ring;
+			int top = positionRow + ring;
+
+			int firstColumn = Math.max(left, minColumn);
+			int lastColumn = Math.min(right, maxColumn);
+			if (bottom >= minRow) {
+				for (int column = firstColumn; column <= lastColumn; column++) {
+					offerCell(column, bottom, offer);
+				}
+			}
+			if (top != bottom && top <= maxRow) {
+				for (int column = firstColumn; column <= lastColumn; column++) {
+					offerCell(column, top, offer);
+				}
+			}
+
+			int firstRow = Math.max(bottom + 1, minRow);
+			int lastRow = Math.min(top - 1, maxRow);
+			if (left >= minColumn) {
+				for (int row = firstRow; row <= lastRow; row++) {
+					offerCell(left, row, offer);
+				}
+			}
+			if (right != left && right <= maxColumn) {
+				for (int row = firstRow; row <= lastRow; row++) {
+					offerCell(right, row, offer);
+				}
+			}
+		}
+	}
+
+	private void offerCell(int column, int row, @NotNull Consumer<Obstacle> offer) {
+		ArrayList<Obstacle> cell = cells.get(key(column, row));
+		if (cell == null) return;
+		for (int i = 0; i < cell.size(); i++) {
+			offer.accept(cell.get(i));
+		}
+	}
+
+	/**
+	 * replaces an obstacle with its moved version
+	 *
+	 * @param previous the obstacle to replace
+	 * @param next     the obstacle to replace it with
+	 * @return true if the previous obstacle was in the list, otherwise next is not added
+	 */
+	public boolean move(@NotNull Obstacle previous, @NotNull Obstacle next) {
+		int index = indexOf(previous);
+		if (index < 0) return false;
+		set(index, next);
+		return true;
+	}
+
+	public double getCellSize() {
+		return cellSize;
+	}
+
+	@Override
+	public boolean add(Obstacle obstacle) {
+		super.add(obstacle);
+		index(obstacle);
+		return true;
+	}
+
+	@Override
+	public void add(int index, Obstacle obstacle) {
+		super.add(index, obstacle);
+		index(obstacle);
+	}
+
+	@Override
+	public boolean addAll(@NotNull Collection<? extends Obstacle> c) {
+		int start = size();
+		boolean changed = super.addAll(c);
+		for (int i = start; i < size(); i++) {
+			index(get(i));
+		}
+		return changed;
+	}
+
+	@Override
+	public boolean addAll(int index, @NotNull Collection<? extends Obstacle> c) {
+		boolean changed = super.addAll(index, c);
+		for (int i = index; i < index + c.size(); i++) {
+			index(get(i));
+		}
+		return changed;
+	}
+
+	@Override
+	public Obstacle set(int index, Obstacle obstacle) {
+		Obstacle previous = super.set(index, obstacle);
+		unindex(previous);
+		index(obstacle);
+		return previous;
+	}
+
+	@Override
+	public Obstacle remove(int index) {
+		Obstacle previous = super.remove(index);
+		unindex(previous);
+		return previous;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		int index = indexOf(o);
+		if (index < 0) return false;
+		remove(index);
+		return true;
+	}
+
+	@Override
+	protected void removeRange(int fromIndex, int toIndex) {
+		super.removeRange(fromIndex, toIndex);
+		reindex();
+	}
+
+	@Override
+	public void clear() {
+		super.clear();
+		reindex();
+	}
+
+	@Override
+	public boolean removeAll(@NotNull Collection<?> c) {
+		boolean changed = super.removeAll(c);
+		if (changed) reindex();
+		return changed;
+	}
+
+	@Override
+	public boolean retainAll(@NotNull Collection<?> c) {
+		boolean changed = super.retainAll(c);
+		if (changed) reindex();
+		return changed;
+	}
+
+	@Override
+	public boolean removeIf(@NotNull Predicate<? super Obstacle> filter) {
+		boolean changed = super.removeIf(filter);
+		if (changed) reindex();
+		return changed;
+	}
+
+	@Override
+	public void replaceAll(@NotNull UnaryOperator<Obstacle> operator) {
+		super.replaceAll(operator);
+		reindex();
+	}
+}
@@ -14,10 +14,46 @@ public class CircularObstacle implements Obstacle {
 		this.r = unit.toMillimeters(r);
 	}
 
+	public Vector2D getCenter() {
+		return center;
+	}
+
+	/**
+	 * @return the radius of the obstacle, in millimeters
+	 */
+	public double getRadius() {
+		return r;
+	}
+
 	@Override
 	public Vector2D distance(@NotNull Vector2D position) {
 		Vector2D differenceVector = this.center.subtract(position);
 		double magnitude = Math.max(0, differenceVector.getMagnitude() - r);
 		return Vector2D.fromPolar(magnitude, differenceVector.getHeading());
 	}
+
+	@Override
+	public double signedDistance(double x, double y) {
+		return Math.hypot(center.getX() - x, center.getY() - y) - r;
+	}
+
+	@Override
+	public double getMinX() {
+		return center.getX() - r;
+	}
+
+	@Override
+	public double getMinY() {
+		return center.getY() - r;
+	}
+
+	@Override
+	public double getMaxX() {
+		return center.getX() + r;
+	}
+
+	@Override
+	public double getMaxY() {
+		return center.getY() + r;
+	}
 }
@@ -19,4 +19,45 @@ public interface Obstacle {
 	default Vector2D distance(@NotNull Pose2D position) {
 		return distance(position.toVector2D());
 	}
+
+	/**
+	 * implementations should override this to report how deep inside of the obstacle the position is
+	 *
+	 * @param x x position of the robot, in millimeters
+	 * @param y y position of the robot, in millimeters
+	 * @return the distance from the robot to the closest point of the obstacle, negative if the robot is inside the obstacle
+	 */
+	default double signedDistance(double x, double y) {
+		return distance(new Vector2D(x, y)).getMagnitude();
+	}
+
+	/**
+	 * used to place the obstacle in spatial indices, implementations should override these with a tight bounding box
+	 *
+	 * @return the left edge of the obstacle's bounding box, in millimeters
+	 */
+	default double getMinX() {
+		return Double.NEGATIVE_INFINITY;
+	}
+
+	/**
+	 * @return the bottom edge of the obstacle's bounding box, in millimeters
+	 */
+	default double getMinY() {
+		return Double.NEGATIVE_INFINITY;
+	}
+
+	/**
+	 * @return the right edge of the obstacle's bounding box, in millimeters
+	 */
+	default double getMaxX() {
+		return Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * @return the top edge of the obstacle's bounding box, in millimeters
+	 */
+	default double getMaxY() {
+		return Double.POSITIVE_INFINITY;
+	}
 }
@@ -9,10 +9,11 @@ public class RectangularObstacle implements Obstacle {
 	private final double left, bottom, right, top;
 
 	public RectangularObstacle(@NotNull Units unit, double left, double bottom, double right, double top) {
-		this.left = unit.toMillimeters(left);
-		this.bottom = unit.toMillimeters(bottom);
-		this.right = unit.toMillimeters(right);
-		this.top = unit.toMillimeters(top);
+		// ensures that the bounds are ordered, regardless of the order the corners were supplied in
+		this.left = unit.toMillimeters(Math.min(left, right));
+		this.bottom = unit.toMillimeters(Math.min(bottom, top));
+		this.right = unit.toMillimeters(Math.max(left, right));
+		this.top = unit.toMillimeters(Math.max(bottom, top));
 	}
 
 	@Override
@@ -23,12 +24,42 @@ public class RectangularObstacle implements Obstacle {
 			return checkCorners(position, bottom);
 		} else if (position.getX() < left) {
 			return new Vector2D(left, position.getY()).subtract(position);
-		} else if (position.getY() > right) {
+		} else if (position.getX() > right) {
 			return new Vector2D(right, position.getY()).subtract(position);
 		}
 		return new Vector2D(); // inside the obstacle
 	}
 
+	@Override
+	public double signedDistance(double x, double y) {
+		double dx = Math.max(left - x, x - right);
+		double dy = Math.max(bottom - y, y - top);
+		if (dx <= 0 && dy <= 0) {
+			return Math.max(dx, dy); // inside the obstacle, distance to the closest edge
+		}
+		return Math.hypot(Math.max(dx, 0), Math.max(dy, 0));
+	}
+
+	@Override
+	public double getMinX() {
+		return left;
+	}
+
+	@Override
+	public double getMinY() {
+		return bottom;
+	}
+
+	@Override
+	public double getMaxX() {
+		return right;
+	}
+
+	@Override
+	public double getMaxY() {
+		return top;
+	}
+
 	private Vector2D checkCorners(@NotNull Vector2D position, double bottom) {
 		if (position.getX() < left) {
 			return new Vector2D(left, bottom).subtract(position);
@@ -2,6 +2,7 @@ package org.mercurialftc.mercurialftc.silversurfer.tracker;
 
 import org.mercurialftc.mercurialftc.silversurfer.encoderticksconverter.Units;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.Pose2D;
+import org.mercurialftc.mercurialftc.util.hardware.BulkReadSnapshot;
 import org.mercurialftc.mercurialftc.util.hardware.Encoder;
 
 public class ThreeWheelTracker extends WheeledTracker {
@@ -15,8 +16,19 @@ public class ThreeWheelTracker extends WheeledTracker {
 		this.middle = middle;
 	}
 
+	/**
+	 * registers the encoders with the supplied snapshot, so that all three are read with a single shared timestamp, once per loop
+	 *
+	 * @param bulkReadSnapshot usually {@link org.mercurialftc.mercurialftc.scheduler.OpModeEX#getBulkReadSnapshot()}
+	 */
+	public ThreeWheelTracker(Pose2D initialPose, WheeledTrackerConstants.ThreeWheeledTrackerConstants trackerConstants, Encoder left, Encoder right, Encoder middle, BulkReadSnapshot bulkReadSnapshot) {
+		this(initialPose, trackerConstants, left, right, middle);
+		bulkReadSnapshot.register(left, right, middle);
+	}
+
 	/**
 	 * called once per cycle, to prevent making too many calls to an encoder, etc
+	 * <p>if the encoders are driven by a {@link BulkReadSnapshot}, the encoder updates measure up to its last capture</p>
 	 */
 	@Override
 	protected void updateValues() {
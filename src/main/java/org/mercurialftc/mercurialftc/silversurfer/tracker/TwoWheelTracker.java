@@ -4,6 +4,7 @@ import org.jetbrains.annotations.NotNull;
 import org.mercurialftc.mercurialftc.silversurfer.encoderticksconverter.Units;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.angle.Angle;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.Pose2D;
+import org.mercurialftc.mercurialftc.util.hardware.BulkReadSnapshot;
 import org.mercurialftc.mercurialftc.util.hardware.Encoder;
 
 @SuppressWarnings("unused")
@@ -25,8 +26,19 @@ public class TwoWheelTracker extends WheeledTracker {
 		resetHeading(initialPose.getTheta());
 	}
 
+	/**
+	 * registers the encoders with the supplied snapshot, so that both are read with a single shared timestamp, once per loop
+	 *
+	 * @param bulkReadSnapshot usually {@link org.mercurialftc.mercurialftc.scheduler.OpModeEX#getBulkReadSnapshot()}
+	 */
+	public TwoWheelTracker(Pose2D initialPose, WheeledTrackerConstants.TwoWheeledTrackerConstants trackerConstants, Encoder left, Encoder middle, @NotNull HeadingSupplier headingSupplier, BulkReadSnapshot bulkReadSnapshot) {
+		this(initialPose, trackerConstants, left, middle, headingSupplier);
+		bulkReadSnapshot.register(left, middle);
+	}
+
 	/**
 	 * called once per cycle, to prevent making too many calls to an encoder, etc
+	 * <p>if the encoders are driven by a {@link BulkReadSnapshot}, the encoder updates measure up to its last capture</p>
 	 */
 	@Override
 	protected void updateValues() {
@@ -4,21 +4,24 @@ import org.jetbrains.annotations.NotNull;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.Pose2D;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.Vector2D;
 import org.mercurialftc.mercurialftc.silversurfer.geometry.angle.AngleRadians;
-import org.mercurialftc.mercurialftc.silversurfer.geometry.matrix.SimpleMatrix;
 
 /**
  * tracks robot position in millimeters and radians
  */
 @SuppressWarnings("unused")
 public abstract class WheeledTracker implements Tracker {
+	private static final double ROTATION = 2.0 * Math.PI;
 	private final Pose2D initialPose2D;
 	private final WheeledTrackerConstants trackerConstants;
+	// the live pose, integrated in place every update, theta is stored the same way an AngleRadians would store it
+	private double x, y, theta;
+	private double previousX, previousY, previousTheta;
+	private double deltaX, deltaY;
+	// immutable snapshots, only rebuilt when read after the live pose has changed
 	private Pose2D pose2D, previousPose2D;
-	private Vector2D deltaPositionVector;
 	private int insistIndex, insistFrequency;
 
 	public WheeledTracker(@NotNull Pose2D initialPose, WheeledTrackerConstants trackerConstants) {
-		this.pose2D = initialPose;
 		this.initialPose2D = initialPose;
 
 		this.trackerConstants = trackerConstants;
@@ -26,12 +29,26 @@ public abstract class WheeledTracker implements Tracker {
 		insistFrequency = 0;
 		insistIndex = 0;
 
-		this.previousPose2D = pose2D;
-		this.deltaPositionVector = new Vector2D();
+		setPose2D(initialPose);
+		this.previousX = x;
+		this.previousY = y;
+		this.previousTheta = theta;
+		this.previousPose2D = initialPose;
+	}
+
+	/**
+	 * matches the wrapping performed by {@link AngleRadians}, so that the pose stored here wraps identically to one stored in a {@link Pose2D}
+	 */
+	private static double absolute(double theta) {
+		theta %= ROTATION;
+		if (theta < 0.0) {
+			theta += ROTATION;
+		}
+		return theta;
 	}
 
 	public Vector2D getDeltaPositionVector() {
-		return deltaPositionVector;
+		return new Vector2D(deltaX, deltaY);
 	}
 
 	public Pose2D getInitialPose2D() {
@@ -44,34 +61,42 @@ public abstract class WheeledTracker implements Tracker {
 	 * @return the current pose of the robot as estimated by the tracker
 	 */
 	public Pose2D getPose2D() {
+		if (pose2D == null) {
+			pose2D = new Pose2D(x, y, new AngleRadians(theta));
+		}
 		return pose2D;
 	}
 
-	public final void setPose2D(Pose2D pose2D) {
+	public final void setPose2D(@NotNull Pose2D pose2D) {
+		this.x = pose2D.getX();
+		this.y = pose2D.getY();
+		this.theta = pose2D.getTheta().getRadians();
 		this.pose2D = pose2D;
 	}
 
 	public Pose2D getPreviousPose2D() {
+		if (previousPose2D == null) {
+			previousPose2D = new Pose2D(previousX, previousY, new AngleRadians(previousTheta));
+		}
 		return previousPose2D;
 	}
 
 	/**
 	 * must be called frequently for the pose to be accurate
+	 * <p>integrates the robot centric twist reported by the implementation using the closed form of the pose exponential, without allocating</p>
 	 */
 	public void updatePose() {
-		deltaPositionVector = pose2D.toVector2D().subtract(previousPose2D.toVector2D());
+		deltaX = x - previousX;
+		deltaY = y - previousY;
+		previousX = x;
+		previousY = y;
+		previousTheta = theta;
 		previousPose2D = pose2D;
 		updateValues();
 
-		double cos = Math.cos(pose2D.getTheta().getRadians());
-		double sin = Math.sin(pose2D.getTheta().getRadians());
-		SimpleMatrix rotationMatrix = new SimpleMatrix(
-				new double[][]{
-						{cos, -sin, 0},
-						{sin, cos, 0},
-						{0, 0, 1}
-				}
-		);
+		double heading = absolute(theta);
+		double cos = Math.cos(heading);
+		double sin = Math.sin(heading);
 
 		double dt = findDeltaTheta();
 		double dc = findDeltaY();
@@ -85,37 +110,27 @@ public abstract class WheeledTracker implements Tracker {
 			term1 = 0; // approaches 0 as dt approaches 0
 		}
 
-		SimpleMatrix twistMatrix = new SimpleMatrix(
-				new double[][]{
-						{term0, -term1, 0},
-						{term1, term0, 0},
-						{0, 0, 1}
-				}
-		);
-
-		SimpleMatrix inputMatrix = new SimpleMatrix(
-				new double[][]{
-						{dp},
-						{dc},
-						{dt}
-				}
-		);
-
 		/*
+		rotation * twist * input, expanded:
 		{
-			{(cos * term0 + (- sin) * term1), (cos * term2 + (- sin) * term0)},
-			{(sin * term0 + cos * term1), (sin * term2 + cos * term0)}
-		}
-
-		{
-			dc * (cos * term0 + (- sin) * term1) + dp * (cos * term2 + (- sin) * term0),
-			dc * (sin * term0 + cos * term1) + dp * (sin * term2 + cos * term0)}
-		}
+			{cos * term0 - sin * term1, -cos * term1 - sin * term0, 0},
+			{sin * term0 + cos * term1, -sin * term1 + cos * term0, 0},
+			{0, 0, 1}
+		} * {dp, dc, dt}
 		 */
 
-		SimpleMatrix twistResult = rotationMatrix.multiply(twistMatrix).multiply(inputMatrix);
+		double rotatedTwist00 = cos * term0 + (-sin) * term1;
+		double rotatedTwist01 = cos * (-term1) + (-sin) * term0;
+		double rotatedTwist10 = sin * term0 + cos * term1;
+		double rotatedTwist11 = sin * (-term1) + cos * term0;
+
+		double twistX = rotatedTwist00 * dp + rotatedTwist01 * dc;
+		double twistY = rotatedTwist10 * dp + rotatedTwist11 * dc;
 
-		pose2D = pose2D.add(twistResult.getItem(0, 0) * trackerConstants.getXMult(), twistResult.getItem(1, 0) * trackerConstants.getYMult(), new AngleRadians(twistResult.getItem(2, 0)));
+		x += twistX * trackerConstants.getXMult();
+		y += twistY * trackerConstants.getYMult();
+		theta = absolute(heading + absolute(dt));
+		pose2D = null;
 
 		if (insistFrequency > 0) {
 			if (insistIndex == 0) {
@@ -0,0 +1,121 @@
+package org.mercurialftc.mercurialftc.silversurfer.voltageperformanceenforcer;
+
+import com.qualcomm.robotcore.hardware.VoltageSensor;
+import org.jetbrains.annotations.NotNull;
+import org.mercurialftc.mercurialftc.silversurfer.followable.motionconstants.MecanumMotionConstants;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * keeps a set of {@link MecanumMotionConstants} scaled to the battery voltage through the course of a match, using a {@link VoltagePerformanceEnforcer}
+ * <p>the voltage is read at a low rate, as reading it is slow, and is low pass filtered, so that the dips in voltage while the robot accelerates do not cause the constants to jump around</p>
+ * <p>new constants are only made when the scale has moved by more than {@link #SCALE_RESOLUTION}, so the followers and builders that use them rarely need to rebuild their direction of travel tables</p>
+ * <p>e.g. each loop:</p>
+ * <pre>{@code
+ * if (voltageCompensator.update(currentTime)) {
+ *     mecanumFollower.setMotionConstants(voltageCompensator.getMotionConstants());
+ * }
+ * }</pre>
+ * <p>and waves built mid match should be built with {@link #getMotionConstants()}</p>
+ */
+@SuppressWarnings("unused")
+public class VoltageCompensator {
+	/**
+	 * the time between voltage readings, in seconds
+	 */
+	public static final double SAMPLE_PERIOD = 0.1;
+	/**
+	 * the time constant of the low pass filter of the voltage, in seconds
+	 */
+	public static final double FILTER_TIME_CONSTANT = 2;
+	/**
+	 * the change in scale that causes new motion constants to be made
+	 */
+	public static final double SCALE_RESOLUTION = 0.01;
+	/**
+	 * the least the motion constants are scaled to, so that a bad voltage reading cannot stop the robot
+	 */
+	public static final double MINIMUM_SCALE = 0.25;
+	private final DoubleSupplier voltageSupplier;
+	private final VoltagePerformanceEnforcer voltagePerformanceEnforcer;
+	private final MecanumMotionConstants recordedMotionConstants;
+	private volatile MecanumMotionConstants motionConstants;
+	private double voltage, scale, previousSampleTime;
+	private boolean sampled;
+
+	/**
+	 * @param voltageSupplier            supplies the battery voltage, readings that are not positive are ignored
+	 * @param voltagePerformanceEnforcer the model of the motors
+	 * @param recordedMotionConstants    the motion constants measured at the recorded voltage of the enforcer
+	 */
+	public VoltageCompensator(@NotNull DoubleSupplier voltageSupplier, @NotNull VoltagePerformanceEnforcer voltagePerformanceEnforcer, @NotNull MecanumMotionConstants recordedMotionConstants) {
+		this.voltageSupplier = voltageSupplier;
+		this.voltagePerformanceEnforcer = voltagePerformanceEnforcer;
+		this.recordedMotionConstants = recordedMotionConstants;
+		this.motionConstants = recordedMotionConstants;
+		this.scale = 1;
+	}
+
+	/**
+	 * @param voltageSensor              the battery voltage sensor, e.g. of the control hub
+	 * @param voltagePerformanceEnforcer the model of the motors
+	 * @param recordedMotionConstants    the motion constants measured at the recorded voltage of the enforcer
+	 */
+	public VoltageCompensator(@NotNull VoltageSensor voltageSensor, @NotNull VoltagePerformanceEnforcer voltagePerformanceEnforcer, @NotNull MecanumMotionConstants recordedMotionConstants) {
+		this((DoubleSupplier) voltageSensor::getVoltage, voltagePerformanceEnforcer, recordedMotionConstants);
+	}
+
+	/**
+	 * reads the voltage if at least {@link #SAMPLE_PERIOD} has passed since the last reading, otherwise does nothing, so is cheap to call every loop
+	 *
+	 * @param currentTime the current time, in seconds
+	 * @return true if new motion constants were made
+	 */
+	public boolean update(double currentTime) {
+		if (sampled && currentTime - previousSampleTime < SAMPLE_PERIOD) {
+			return false;
+		}
+		double reading = voltageSupplier.getAsDouble();
+		if (!(reading > 0)) {
+			return false;
+		}
+
+		if (sampled) {
+			voltage += (reading - voltage) * (1 - Math.exp(-(currentTime - previousSampleTime) / FILTER_TIME_CONSTANT));
+		} else {
+			voltage = reading;
+			sampled = true;
+		}
+		previousSampleTime = currentTime;
+
+		double newScale = Math.max(MINIMUM_SCALE, Math.min(1, voltagePerformanceEnforcer.getVelocityScale(voltage)));
+		if (Math.abs(newScale - scale) <= SCALE_RESOLUTION) {
+			return false;
+		}
+		scale = newScale;
+		motionConstants = recordedMotionConstants.withVelocityScale(scale);
+		return true;
+	}
+
+	/**
+	 * @return the motion constants scaled to the filtered voltage, safe to read from other threads, e.g. while building a wave
+	 */
+	@NotNull
+	public MecanumMotionConstants getMotionConstants() {
+		return motionConstants;
+	}
+
+	/**
+	 * @return the filtered voltage, or 0 if it has not been read yet
+	 */
+	public double getVoltage() {
+		return voltage;
+	}
+
+	/**
+	 * @return the current multiplier of the recorded velocity and acceleration limits, in the domain [{@link #MINIMUM_SCALE}, 1]
+	 */
+	public double getScale() {
+		return scale;
+	}
+}
@@ -1,5 +1,8 @@
 package org.mercurialftc.mercurialftc.silversurfer.voltageperformanceenforcer;
 
+import org.jetbrains.annotations.NotNull;
+import org.mercurialftc.mercurialftc.silversurfer.followable.motionconstants.MecanumMotionConstants;
+
 /**
  * modifies max motor outputs to account for changes in battery voltage
  */
@@ -7,12 +10,14 @@ public class VoltagePerformanceEnforcer {
 
 	private final double recordedVoltageConstant;
 	private final double recordedCurrent;
+	private final double recordedVelocity;
 
 	public VoltagePerformanceEnforcer(double recordedVoltage, double recordedCurrent, double recordedVelocity) {
 		double stallCurrent = (0.835) * recordedVoltage + (0.99); // estimates the stall current for voltages over 12 volts
 		double resistance = recordedVoltage / stallCurrent;
 		this.recordedVoltageConstant = recordedVelocity / (recordedVoltage - recordedCurrent * resistance);
 		this.recordedCurrent = recordedCurrent;
+		this.recordedVelocity = recordedVelocity;
 	}
 
 	public double transformVelocity(double voltage) {
@@ -20,4 +25,21 @@ public class VoltagePerformanceEnforcer {
 		double resistance = voltage / stallCurrent;
 		return recordedVoltageConstant * (voltage - recordedCurrent * resistance);
 	}
+
+	/**
+	 * @param voltage the current battery voltage
+	 * @return the velocity at the voltage as a fraction of the recorded velocity
+	 */
+	public double getVelocityScale(double voltage) {
+		return transformVelocity(voltage) / recordedVelocity;
+	}
+
+	/**
+	 * @param motionConstants motion constants measured at the recorded voltage
+	 * @param voltage         the current battery voltage
+	 * @return the motion constants scaled to the voltage, see {@link MecanumMotionConstants#withVelocityScale(double)}
+	 */
+	public MecanumMotionConstants transform(@NotNull MecanumMotionConstants motionConstants, double voltage) {
+		return motionConstants.withVelocityScale(getVelocityScale(voltage));
+	}
 }
@@ -0,0 +1,82 @@
+package org.mercurialftc.mercurialftc.util.hardware;
+
+import org.jetbrains.annotations.NotNull;
+import org.mercurialftc.mercurialftc.scheduler.OpModeEX;
+
+import java.util.ArrayList;
+
+/**
+ * <h3>A single, time coherent read of every registered {@link Encoder}</h3>
+ * Captured once per loop, directly after the hub bulk caches are cleared, so that every encoder shares one timestamp, as they are all physically read by the same bulk read.
+ * <p>{@link OpModeEX} owns one of these and captures it at the start of every loop, see {@link OpModeEX#getBulkReadSnapshot()}</p>
+ * <p>Encoders registered with a snapshot measure {@link Encoder#updateVelocity()} up to the last capture, instead of reading the motor, so trackers and subsystems that call it can be left as they are. Each call measures from the previous one, so calling it more or less than once per capture neither counts motion twice nor loses it.</p>
+ */
+@SuppressWarnings("unused")
+public class BulkReadSnapshot {
+	private final ArrayList<Encoder> encoders;
+	private double timestamp;
+
+	public BulkReadSnapshot() {
+		this.encoders = new ArrayList<>();
+		this.timestamp = System.nanoTime() / 1e9;
+	}
+
+	/**
+	 * registers encoders to be updated by this snapshot every time it is captured
+	 *
+	 * @param encoders the encoders to register
+	 * @return self, for method chaining
+	 */
+	public BulkReadSnapshot register(@NotNull Encoder... encoders) {
+		for (Encoder encoder : encoders) {
+			if (encoder.getBulkReadSnapshot() == this) {
+				continue;
+			}
+			if (encoder.getBulkReadSnapshot() != null) {
+				encoder.getBulkReadSnapshot().unregister(encoder);
+			}
+			encoder.setBulkReadSnapshot(this);
+			this.encoders.add(encoder);
+		}
+		return this;
+	}
+
+	/**
+	 * returns the encoder to updating itself through {@link Encoder#updateVelocity()}
+	 *
+	 * @param encoder the encoder to remove
+	 */
+	public void unregister(@NotNull Encoder encoder) {
+		if (encoders.remove(encoder)) {
+			encoder.setBulkReadSnapshot(null);
+		}
+	}
+
+	/**
+	 * takes a single timestamp and reads all registered encoders with it
+	 * <p>should be called once per loop, after the bulk caches have been cleared</p>
+	 */
+	public void capture() {
+		timestamp = System.nanoTime() / 1e9;
+		for (int i = 0; i < encoders.size(); i++) {
+			encoders.get(i).capture(timestamp);
+		}
+	}
+
+	/**
+	 * @return the time of the last {@link #capture()}, in seconds
+	 */
+	public double getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * closes the snapshot, returning all registered encoders to updating themselves
+	 */
+	public void clear() {
+		for (Encoder encoder : encoders) {
+			encoder.setBulkReadSnapshot(null);
+		}
+		encoders.clear();
+	}
+}
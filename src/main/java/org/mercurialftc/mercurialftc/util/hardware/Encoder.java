@@ -7,9 +7,10 @@ import org.jetbrains.annotations.NotNull;
 public class Encoder {
 	private final DcMotor motor;
 	private Direction direction;
-	private double previousTime;
-	private int previousPosition;
+	private double previousTime, capturedTime;
+	private int previousPosition, capturedPosition;
 	private VelocityDataPacket output;
+	private BulkReadSnapshot bulkReadSnapshot;
 
 	/**
 	 * an encoder wrapper, designed to work with REV Through Bore Encoders in particular
@@ -34,8 +35,8 @@ public class Encoder {
 		output = new VelocityDataPacket(0, 1);
 		DcMotor.RunMode previousRunMode = motor.getMode();
 		motor.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
-		previousPosition = motor.getCurrentPosition();
-		previousTime = System.nanoTime() / 1e9;
+		previousPosition = capturedPosition = getCurrentPosition();
+		previousTime = capturedTime = System.nanoTime() / 1e9;
 		motor.setMode(previousRunMode);
 	}
 
@@ -57,6 +58,20 @@ public class Encoder {
 		return getDirection().getMultiplier() * (motor.getDirection() == DcMotorSimple.Direction.FORWARD ? 1 : -1);
 	}
 
+	public BulkReadSnapshot getBulkReadSnapshot() {
+		return bulkReadSnapshot;
+	}
+
+	/**
+	 * for internal use only, see {@link BulkReadSnapshot#register(Encoder...)}
+	 */
+	void setBulkReadSnapshot(BulkReadSnapshot bulkReadSnapshot) {
+		this.bulkReadSnapshot = bulkReadSnapshot;
+		// nothing has been captured yet, so the first update after registering is measured from the last one
+		capturedPosition = previousPosition;
+		capturedTime = previousTime;
+	}
+
 	/**
 	 * Gets the position from the underlying motor and adjusts for the set direction.
 	 *
@@ -78,18 +93,32 @@ public class Encoder {
 	/**
 	 * <p>needs to be called once per loop to be accurate</p>
 	 * <p>if using this in a {@link org.mercurialftc.mercurialftc.scheduler.subsystems.SubsystemInterface} subclass, chuck it in the periodic loop, and never think about it again</p>
+	 * <p>if this encoder has been registered with a {@link BulkReadSnapshot}, the output is measured up to the last capture of the snapshot instead of reading the motor, from the last call to this</p>
+	 * <p>so calling this again before the next capture gives an output with no change in position or time, and skipping calls to this does not lose any of the motion, it is included in the next output</p>
 	 */
 	public void updateVelocity() {
-		int currentPosition = getCurrentPosition();
-		double currentTime = System.nanoTime() / 1e9;
-		double dt = currentTime - previousTime;
+		if (bulkReadSnapshot != null) {
+			consume(capturedPosition, capturedTime);
+			return;
+		}
+		consume(getCurrentPosition(), System.nanoTime() / 1e9);
+	}
+
+	/**
+	 * for internal use only, reads the position using a timestamp shared with the rest of the hub's reads, to be used by the next {@link #updateVelocity()}
+	 *
+	 * @param currentTime the time of the read, in seconds
+	 */
+	void capture(double currentTime) {
+		capturedPosition = getCurrentPosition();
+		capturedTime = currentTime;
+	}
 
-		VelocityDataPacket velocity = new VelocityDataPacket((currentPosition - previousPosition), dt);
+	private void consume(int currentPosition, double currentTime) {
+		output = new VelocityDataPacket(currentPosition - previousPosition, currentTime - previousTime);
 
 		previousTime = currentTime;
 		previousPosition = currentPosition;
-
-		output = velocity;
 	}
 
 	public enum Direction {
@@ -124,7 +153,13 @@ public class Encoder {
 			return deltaPosition;
 		}
 
+		/**
+		 * @return the velocity, in ticks per second, 0 if no time has passed
+		 */
 		public double getVelocity() {
+			if (deltaTime == 0) {
+				return 0;
+			}
 			return deltaPosition / deltaTime;
 		}
 	}
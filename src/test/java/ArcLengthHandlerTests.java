@@ -0,0 +1,42 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mercurialftc.mercurialftc.silversurfer.followable.curvebuilder.FollowableCurve;
+import org.mercurialftc.mercurialftc.silversurfer.followable.curvebuilder.curve.QuinticBezierCurve;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.ArcLengthHandler;
+
+public class ArcLengthHandlerTests {
+	private double trapezoidArcLength(QuinticBezierCurve curve) {
+		int steps = 200000;
+		double result = 0;
+		double previous = curve.firstDerivative(0).getMagnitude();
+		for (int i = 1; i <= steps; i++) {
+			double current = curve.firstDerivative((double) i / steps).getMagnitude();
+			result += 0.5 * (previous + current) / steps;
+			previous = current;
+		}
+		return result;
+	}
+
+	@Test
+	void arcLengthsAreAccurate() {
+		FollowableCurve followableCurve = TestFixtures.buildCurve();
+		ArcLengthHandler arcLengthHandler = new ArcLengthHandler(followableCurve);
+		QuinticBezierCurve[] curves = followableCurve.getCurves();
+		for (int i = 0; i < curves.length; i++) {
+			Assertions.assertEquals(trapezoidArcLength(curves[i]), arcLengthHandler.getArcLengths()[i], 1e-6);
+		}
+	}
+
+	@Test
+	void samplesAreEquallySpaced() {
+		ArcLengthHandler arcLengthHandler = new ArcLengthHandler(TestFixtures.buildCurve());
+		for (double s = 0; s <= arcLengthHandler.getArcLength(); s += 2.5) {
+			ArcLengthHandler.ArcLengthRelationship curveFromArcLength = arcLengthHandler.findCurveFromArcLength(s);
+			double arcLength = arcLengthHandler.getBreakpoints()[curveFromArcLength.getCurveIndex()] + ArcLengthHandler.integrate(curveFromArcLength.getCurve(), 0, curveFromArcLength.getT());
+			Assertions.assertEquals(s, arcLength, 1e-6);
+		}
+		ArcLengthHandler.ArcLengthRelationship end = arcLengthHandler.findCurveFromArcLength(arcLengthHandler.getArcLength());
+		Assertions.assertEquals(1, end.getT());
+		Assertions.assertEquals(2, end.getCurveIndex());
+	}
+}
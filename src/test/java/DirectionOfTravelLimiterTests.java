@@ -64,4 +64,20 @@ public class DirectionOfTravelLimiterTests {
 		directionOfTravelLimiter = mecanumMotionConstants.makeDirectionOfTravelLimiter(testAngle);
 		Assertions.assertEquals(1, directionOfTravelLimiter.getVelocity(), 0.002);
 	}
+
+	@Test
+	public void tableMatchesTheClosedForm() {
+		MecanumMotionConstants motionConstants = new MecanumMotionConstants(1500, 1200, 1000, Math.PI, 1400, 1100, 900, Math.PI);
+		for (double direction = -10; direction <= 10; direction += 0.01) {
+			double sin = Math.sin(direction);
+			double cos = Math.cos(direction);
+			double cos2 = Math.cos(2 * direction);
+			double angledModifier = cos2 * cos2;
+			double velocity = 1000 + angledModifier * (sin * sin * (1500 - 1000) + cos * cos * (1200 - 1000));
+			double acceleration = 900 + angledModifier * (sin * sin * (1400 - 900) + cos * cos * (1100 - 900));
+
+			Assertions.assertEquals(velocity, motionConstants.getDirectionalVelocity(direction), 0.1);
+			Assertions.assertEquals(acceleration, motionConstants.getDirectionalAcceleration(direction), 0.1);
+		}
+	}
 }
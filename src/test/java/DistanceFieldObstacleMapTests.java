@@ -0,0 +1,80 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mercurialftc.mercurialftc.silversurfer.encoderticksconverter.Units;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Vector2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.CenterStageObstacleMap;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.DistanceFieldObstacleMap;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.NearestObstacles;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.ObstacleMap;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.obstacle.CircularObstacle;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.obstacle.Obstacle;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Random;
+
+public class DistanceFieldObstacleMapTests {
+	private final ObstacleMap obstacleMap = new CenterStageObstacleMap(Units.MILLIMETER, 600, new ArrayList<>(), 200);
+
+	@Test
+	void matchesExactDistances() {
+		DistanceFieldObstacleMap distanceField = new DistanceFieldObstacleMap(obstacleMap, Units.MILLIMETER, 600, 10);
+		Random random = new Random(2023);
+		for (int i = 0; i < 10000; i++) {
+			Vector2D position = new Vector2D(random.nextDouble() * 3600 - 1800, random.nextDouble() * 3600 - 1800);
+			Vector2D exact = obstacleMap.closestObstacleVector(position);
+			Vector2D approximate = distanceField.closestObstacleVector(position);
+			// bilinear interpolation of a distance field is accurate to within the resolution
+			Assertions.assertEquals(exact.getMagnitude(), approximate.getMagnitude(), 10);
+		}
+	}
+
+	@Test
+	void reusedQueriesMatchFreshQueries() {
+		ArrayList<Obstacle> additionalObstacles = new ArrayList<>();
+		additionalObstacles.add(new CircularObstacle(Units.MILLIMETER, 300, -300, 100));
+		ObstacleMap withAdditional = new CenterStageObstacleMap(Units.MILLIMETER, 600, additionalObstacles, 200);
+		DistanceFieldObstacleMap distanceField = new DistanceFieldObstacleMap(withAdditional, Units.MILLIMETER, 600, 10);
+		NearestObstacles reused = new NearestObstacles(new Vector2D(), 0);
+		Random random = new Random(2023);
+		for (int i = 0; i < 1000; i++) {
+			Vector2D position = new Vector2D(random.nextDouble() * 3600 - 1800, random.nextDouble() * 3600 - 1800);
+			NearestObstacles fresh = distanceField.nearestObstacles(position);
+			Assertions.assertSame(reused, distanceField.nearestObstacles(position, reused));
+			Assertions.assertEquals(fresh.getClosestObstacleVector().getX(), reused.getClosestObstacleVector().getX());
+			Assertions.assertEquals(fresh.getClosestObstacleVector().getY(), reused.getClosestObstacleVector().getY());
+			Assertions.assertEquals(fresh.getObstacleAvoidanceVector().getX(), reused.getObstacleAvoidanceVector().getX());
+			Assertions.assertEquals(fresh.getObstacleAvoidanceVector().getY(), reused.getObstacleAvoidanceVector().getY());
+
+			// the scalar clearance measures the additional obstacles exactly, rather than through their distance vector
+			Assertions.assertEquals(fresh.getClosestObstacleVector().getMagnitude(), distanceField.clearance(position.getX(), position.getY(), 0), 1e-6);
+		}
+	}
+
+	@Test
+	void cacheRoundTrip() throws IOException {
+		File file = File.createTempFile("distanceField", ".sdf");
+		file.deleteOnExit();
+		Assertions.assertTrue(file.delete());
+
+		DistanceFieldObstacleMap built = DistanceFieldObstacleMap.cached(file, obstacleMap, Units.MILLIMETER, -1800, -1800, 1800, 1800, 20);
+		Assertions.assertTrue(file.isFile());
+		DistanceFieldObstacleMap loaded = DistanceFieldObstacleMap.cached(file, obstacleMap, Units.MILLIMETER, -1800, -1800, 1800, 1800, 20);
+
+		Random random = new Random(2023);
+		for (int i = 0; i < 1000; i++) {
+			double x = random.nextDouble() * 3600 - 1800;
+			double y = random.nextDouble() * 3600 - 1800;
+			Assertions.assertEquals(built.signedDistance(x, y), loaded.signedDistance(x, y));
+			Assertions.assertEquals(built.gradientX(x, y), loaded.gradientX(x, y));
+		}
+
+		// a different map must not reuse the cached field
+		ObstacleMap smallerField = new CenterStageObstacleMap(Units.MILLIMETER, 580, new ArrayList<>(), 200);
+		Assertions.assertNotEquals(
+				loaded.signedDistance(-600, 0),
+				DistanceFieldObstacleMap.cached(file, smallerField, Units.MILLIMETER, -1800, -1800, 1800, 1800, 20).signedDistance(-600, 0)
+		);
+	}
+}
@@ -0,0 +1,34 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mercurialftc.mercurialftc.silversurfer.follower.MecanumKinematics;
+
+public class MecanumKinematicsTests {
+	@Test
+	void defaultFeedforwardMatchesTheWheelVelocities() {
+		MecanumKinematics kinematics = new MecanumKinematics();
+		kinematics.update(0.2, 0.3, 0.1, 5, 5, 5);
+		Assertions.assertEquals(0.4, kinematics.getPower(MecanumKinematics.FRONT_LEFT), 1e-9);
+		Assertions.assertEquals(0.0, kinematics.getPower(MecanumKinematics.BACK_LEFT), 1e-9);
+		Assertions.assertEquals(0.6, kinematics.getPower(MecanumKinematics.BACK_RIGHT), 1e-9);
+		Assertions.assertEquals(0.2, kinematics.getPower(MecanumKinematics.FRONT_RIGHT), 1e-9);
+
+		kinematics.update(1, 1, 0);
+		Assertions.assertEquals(1, kinematics.getPower(MecanumKinematics.FRONT_LEFT), 1e-9);
+		Assertions.assertEquals(0, kinematics.getPower(MecanumKinematics.BACK_LEFT), 1e-9);
+	}
+
+	@Test
+	void feedforwardAddsStaticAndAccelerationTerms() {
+		MecanumKinematics kinematics = new MecanumKinematics(0.05, 0.8, 0.1);
+		kinematics.update(0, 0.5, 0, 0, 1, 0);
+		for (int wheel = 0; wheel < 4; wheel++) {
+			Assertions.assertEquals(0.05 + 0.4 + 0.1, kinematics.getPower(wheel), 1e-9);
+		}
+
+		// stopped with no acceleration needs no power to hold still
+		kinematics.update(0, 0, 0, 0, 0, 0);
+		for (int wheel = 0; wheel < 4; wheel++) {
+			Assertions.assertEquals(0, kinematics.getPower(wheel), 1e-9);
+		}
+	}
+}
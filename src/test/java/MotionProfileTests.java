@@ -0,0 +1,136 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mercurialftc.mercurialftc.silversurfer.followable.Followable;
+import org.mercurialftc.mercurialftc.silversurfer.followable.curvebuilder.CurveBuilder;
+import org.mercurialftc.mercurialftc.silversurfer.followable.curvebuilder.FollowableCurve;
+import org.mercurialftc.mercurialftc.silversurfer.followable.curvebuilder.curve.QuinticBezierCurve;
+import org.mercurialftc.mercurialftc.silversurfer.followable.curvebuilder.motionprofile.MotionProfile;
+import org.mercurialftc.mercurialftc.silversurfer.followable.motionconstants.MecanumMotionConstants;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.ArcLengthHandler;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Pose2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.EmptyObstacleMap;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+public class MotionProfileTests {
+	@Test
+	void optimisationIsReproducible() {
+		FollowableCurve followableCurve = TestFixtures.buildCurve();
+		ForkJoinPool singleThreaded = new ForkJoinPool(1);
+		ForkJoinPool multiThreaded = new ForkJoinPool(4);
+
+		MotionProfile first = new MotionProfile(followableCurve, new EmptyObstacleMap(), singleThreaded, 60);
+		Followable.Output[] firstOutputs = first.profile();
+		MotionProfile second = new MotionProfile(followableCurve, new EmptyObstacleMap(), multiThreaded, 60);
+		Followable.Output[] secondOutputs = second.profile();
+
+		Assertions.assertTrue(first.getEvaluations() <= 60);
+		Assertions.assertEquals(first.getEvaluations(), second.getEvaluations());
+		Assertions.assertEquals(firstOutputs.length, secondOutputs.length);
+		for (int i = 0; i < firstOutputs.length; i++) {
+			Assertions.assertEquals(firstOutputs[i].getCallbackTime(), secondOutputs[i].getCallbackTime());
+			Assertions.assertEquals(firstOutputs[i].getPosition().getX(), secondOutputs[i].getPosition().getX());
+			Assertions.assertEquals(firstOutputs[i].getPosition().getY(), secondOutputs[i].getPosition().getY());
+		}
+
+		singleThreaded.shutdown();
+		multiThreaded.shutdown();
+	}
+
+	@Test
+	void optimisationImprovesOnInitialTangents() {
+		FollowableCurve followableCurve = TestFixtures.buildCurve();
+		Followable.Output[] initial = new MotionProfile(followableCurve, new EmptyObstacleMap(), ForkJoinPool.commonPool(), 1).profile();
+		Followable.Output[] optimised = new MotionProfile(followableCurve, new EmptyObstacleMap(), ForkJoinPool.commonPool(), 100).profile();
+		Assertions.assertTrue(optimised[optimised.length - 1].getCallbackTime() < initial[initial.length - 1].getCallbackTime());
+	}
+
+	@Test
+	void tangentsStartFromTheOriginalElongation() {
+		FollowableCurve followableCurve = TestFixtures.buildCurve();
+		double[] factors = new double[followableCurve.getCurveBuilder().getTangentCount()];
+		Arrays.fill(factors, 2.5);
+		QuinticBezierCurve[] expected = followableCurve.getCurveBuilder().getResult(factors);
+
+		// with a single evaluation, the spline is left at the starting point of the search
+		new MotionProfile(followableCurve, new EmptyObstacleMap(), ForkJoinPool.commonPool(), 1).profile();
+		QuinticBezierCurve[] curves = followableCurve.getCurves();
+		for (int i = 0; i < curves.length; i++) {
+			Assertions.assertEquals(expected[i].firstDerivativeX(0), curves[i].firstDerivativeX(0), 1e-9);
+			Assertions.assertEquals(expected[i].firstDerivativeY(0), curves[i].firstDerivativeY(0), 1e-9);
+			Assertions.assertEquals(expected[i].firstDerivativeX(1), curves[i].firstDerivativeX(1), 1e-9);
+			Assertions.assertEquals(expected[i].firstDerivativeY(1), curves[i].firstDerivativeY(1), 1e-9);
+		}
+	}
+
+	@Test
+	void incrementalCurvesMatchFullRebuild() {
+		FollowableCurve followableCurve = TestFixtures.buildCurve();
+		CurveBuilder curveBuilder = followableCurve.getCurveBuilder();
+		double[] factors = new double[curveBuilder.getTangentCount()];
+		Arrays.fill(factors, 0.25);
+		QuinticBezierCurve[] previous = curveBuilder.getResult(factors);
+
+		for (int changed = 0; changed < factors.length; changed++) {
+			double[] candidate = factors.clone();
+			candidate[changed] = 0.75;
+			QuinticBezierCurve[] incremental = curveBuilder.getResult(candidate, previous, changed);
+			QuinticBezierCurve[] full = curveBuilder.getResult(candidate);
+			Assertions.assertEquals(full.length, incremental.length);
+			for (int i = 0; i < full.length; i++) {
+				for (double t = 0; t <= 1; t += 0.125) {
+					Assertions.assertEquals(full[i].resultX(t), incremental[i].resultX(t), 1e-9);
+					Assertions.assertEquals(full[i].resultY(t), incremental[i].resultY(t), 1e-9);
+				}
+			}
+		}
+	}
+
+	@Test
+	void profileSharesWheelSpeedBetweenTranslationAndRotation() {
+		MecanumMotionConstants constants = new MecanumMotionConstants(1500, 1200, 1000, 2 * Math.PI, 1500, 1200, 1000, 2 * Math.PI);
+		CurveBuilder curveBuilder = new CurveBuilder(constants, constants, new EmptyObstacleMap());
+		curveBuilder.addFollowableSegment(new Pose2D(0, 0, 0), new Pose2D(600, 300, 90));
+		curveBuilder.addFollowableSegment(new Pose2D(600, 300, 90), new Pose2D(600, 1200, 0));
+		Followable.Output[] outputs = curveBuilder.build().getOutputs();
+
+		for (int i = 1; i < outputs.length; i++) {
+			Followable.Output output = outputs[i];
+			double directionVelocity = constants.makeDirectionOfTravelLimiter(output.getTranslationVector().getHeading()).getVelocity();
+			Assertions.assertTrue(output.getTranslationVector().getMagnitude() / directionVelocity + Math.abs(output.getRotationalVelocity()) / constants.getMaxRotationalVelocity() <= 1 + 1e-9);
+
+			// the heading moves as the rotational velocity says it does
+			double deltaT = output.getCallbackTime() - outputs[i - 1].getCallbackTime();
+			double averageRotationalVelocity = (output.getRotationalVelocity() + outputs[i - 1].getRotationalVelocity()) / 2;
+			double changeInHeading = outputs[i - 1].getPosition().getTheta().toAngleRadians().findShortestDistance(output.getPosition().getTheta());
+			Assertions.assertEquals(changeInHeading, averageRotationalVelocity * deltaT, 2e-3);
+		}
+		Assertions.assertEquals(0, outputs[outputs.length - 1].getPosition().getTheta().getRadians(), 1e-9);
+	}
+
+	@Test
+	void outputsAreDenseOnlyWhereThePathBends() {
+		FollowableCurve followableCurve = TestFixtures.buildCurve();
+		Followable.Output[] outputs = followableCurve.getOutputs();
+		double arcLength = new ArcLengthHandler(followableCurve).getArcLength();
+
+		// far fewer than one output every 2.5mm
+		Assertions.assertTrue(outputs.length < arcLength / 5);
+
+		for (int i = 2; i < outputs.length - 1; i++) {
+			Followable.Output previous = outputs[i - 1];
+			Followable.Output output = outputs[i];
+			double spacing = Math.hypot(output.getPosition().getX() - previous.getPosition().getX(), output.getPosition().getY() - previous.getPosition().getY());
+			Assertions.assertTrue(spacing <= 50 + 1e-6);
+
+			// the sagitta of the arc between the outputs, the direction of travel turns by about curvature * spacing between them
+			double turn = Math.abs(previous.getTranslationVector().getHeading().findShortestDistance(output.getTranslationVector().getHeading()));
+			Assertions.assertTrue(turn * spacing / 8 <= 0.75);
+		}
+
+		// markers after each curve find its end
+		Assertions.assertEquals(600, followableCurve.getOutputFromIndex(0).getPosition().getX(), 1e-6);
+		Assertions.assertEquals(1200, followableCurve.getOutputFromIndex(1).getPosition().getY(), 1e-6);
+	}
+}
@@ -0,0 +1,136 @@
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mercurialftc.mercurialftc.silversurfer.encoderticksconverter.Units;
+import org.mercurialftc.mercurialftc.silversurfer.followable.Followable;
+import org.mercurialftc.mercurialftc.silversurfer.followable.Wave;
+import org.mercurialftc.mercurialftc.silversurfer.followable.WaveBuilder;
+import org.mercurialftc.mercurialftc.silversurfer.follower.ObstacleAvoidantFollower;
+import org.mercurialftc.mercurialftc.silversurfer.follower.WaveFollower;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Pose2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Vector2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.angle.AngleDegrees;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.EmptyObstacleMap;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.ObstacleMap;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.obstacle.Obstacle;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.obstacle.RectangularObstacle;
+import org.mercurialftc.mercurialftc.silversurfer.tracker.Tracker;
+
+import java.util.ArrayList;
+
+public class ObstacleAvoidantFollowerTests {
+	private static final double ROBOT_SIZE = 200;
+	private final ArrayList<Obstacle> additionalObstacles = new ArrayList<>();
+	private final ObstacleMap obstacleMap = new ObstacleMap() {
+		@Override
+		public double getRobotSize() {
+			return ROBOT_SIZE;
+		}
+
+		@Override
+		public ArrayList<Obstacle> getAdditionalObstacles() {
+			return additionalObstacles;
+		}
+
+		@Override
+		public Obstacle[] getObstacles() {
+			return new Obstacle[0];
+		}
+	};
+
+	@Test
+	void detoursAroundObstaclesThatAppearInTheWay() {
+		Wave wave = new WaveBuilder(new Pose2D(-1200, 0, 0), Units.MILLIMETER, TestFixtures.MOTION_CONSTANTS, new EmptyObstacleMap())
+				.lineTo(1200, 0, new AngleDegrees(0))
+				.build();
+		Obstacle obstacle = new RectangularObstacle(Units.MILLIMETER, -100, -300, 100, 300);
+
+		// the robot follows the output it is given perfectly, and detours are planned when the test chooses
+		PerfectFollower waveFollower = new PerfectFollower();
+		ArrayList<Runnable> planning = new ArrayList<>();
+		ObstacleAvoidantFollower follower = new ObstacleAvoidantFollower((translationVector, rotationalVelocity, loopTime) -> {
+		}, waveFollower, TestFixtures.MOTION_CONSTANTS, waveFollower, obstacleMap).setPlanningExecutor(planning::add);
+		follower.setWave(wave);
+
+		additionalObstacles.add(obstacle);
+		double closest = Double.POSITIVE_INFINITY;
+		double largestStep = 0;
+		int planningLoops = 0;
+		for (int loop = 1; loop < 3000 && !follower.isFinished(); loop++) {
+			// planning takes longer than the follower allows for, so the wave waits at the start of the detour
+			if (!planning.isEmpty() && ++planningLoops > 50) {
+				planning.remove(0).run();
+				planningLoops = 0;
+			}
+			Pose2D previous = waveFollower.pose;
+			follower.update(loop * 0.01);
+			closest = Math.min(closest, obstacle.signedDistance(waveFollower.pose.getX(), waveFollower.pose.getY()));
+			largestStep = Math.max(largestStep, Math.hypot(waveFollower.pose.getX() - previous.getX(), waveFollower.pose.getY() - previous.getY()));
+		}
+
+		Assertions.assertTrue(follower.isFinished());
+		Assertions.assertTrue(closest > 0);
+		// the detour starts where the robot is, rather than where it was when planning started
+		Assertions.assertTrue(largestStep < 30);
+		Assertions.assertEquals(1200, waveFollower.pose.getX(), 1);
+		Assertions.assertEquals(0, waveFollower.pose.getY(), 1);
+	}
+
+	private static class PerfectFollower implements WaveFollower, Tracker {
+		private Pose2D pose = new Pose2D(-1200, 0, 0);
+		private Wave wave;
+
+		@Override
+		public Wave getWave() {
+			return wave;
+		}
+
+		@Override
+		public void setWave(Wave wave) {
+			this.wave = wave;
+		}
+
+		@Override
+		public void update(double currentTime) {
+		}
+
+		@Override
+		public void followOutput(@NotNull Followable.Output output, double loopTime) {
+			pose = output.getPosition();
+		}
+
+		@Override
+		public boolean isFinished() {
+			return false;
+		}
+
+		@Override
+		public Vector2D getDeltaPositionVector() {
+			return new Vector2D();
+		}
+
+		@Override
+		public Pose2D getInitialPose2D() {
+			return new Pose2D(-1200, 0, 0);
+		}
+
+		@Override
+		public Pose2D getPose2D() {
+			return pose;
+		}
+
+		@Override
+		public void setPose2D(Pose2D pose2D) {
+			pose = pose2D;
+		}
+
+		@Override
+		public Pose2D getPreviousPose2D() {
+			return pose;
+		}
+
+		@Override
+		public void updatePose() {
+		}
+	}
+}
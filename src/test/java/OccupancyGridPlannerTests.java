@@ -0,0 +1,127 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mercurialftc.mercurialftc.silversurfer.encoderticksconverter.Units;
+import org.mercurialftc.mercurialftc.silversurfer.followable.Wave;
+import org.mercurialftc.mercurialftc.silversurfer.followable.WaveBuilder;
+import org.mercurialftc.mercurialftc.silversurfer.followable.WaveOutputs;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Pose2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Vector2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.angle.AngleDegrees;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.ObstacleMap;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.ObstacleMapSnapshot;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.OccupancyGridPlanner;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.obstacle.Obstacle;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.obstacle.RectangularObstacle;
+
+import java.util.ArrayList;
+
+public class OccupancyGridPlannerTests {
+	private static final double ROBOT_SIZE = 200;
+	private final Obstacle wall = new RectangularObstacle(Units.MILLIMETER, -50, -1000, 50, 1000);
+	private final ObstacleMap obstacleMap = new ObstacleMap() {
+		private final ArrayList<Obstacle> additionalObstacles = new ArrayList<>();
+
+		@Override
+		public double getRobotSize() {
+			return ROBOT_SIZE;
+		}
+
+		@Override
+		public ArrayList<Obstacle> getAdditionalObstacles() {
+			return additionalObstacles;
+		}
+
+		@Override
+		public Obstacle[] getObstacles() {
+			return new Obstacle[]{wall};
+		}
+	};
+
+	@Test
+	void clearPathsGoStraightToTheGoal() {
+		Vector2D goal = new Vector2D(-400, 800);
+		Vector2D[] waypoints = OccupancyGridPlanner.forField(obstacleMap).plan(new Vector2D(-1000, -800), goal);
+		Assertions.assertEquals(1, waypoints.length);
+		Assertions.assertSame(goal, waypoints[0]);
+	}
+
+	@Test
+	void plannedPathsGoAroundObstacles() {
+		Vector2D start = new Vector2D(-1000, 0);
+		Vector2D goal = new Vector2D(1000, 0);
+		Vector2D[] waypoints = OccupancyGridPlanner.forField(obstacleMap).plan(start, goal);
+
+		Assertions.assertTrue(waypoints.length > 1);
+		Assertions.assertSame(goal, waypoints[waypoints.length - 1]);
+		Vector2D previous = start;
+		for (Vector2D waypoint : waypoints) {
+			for (double fraction = 0; fraction <= 1; fraction += 0.01) {
+				double x = previous.getX() + (waypoint.getX() - previous.getX()) * fraction;
+				double y = previous.getY() + (waypoint.getY() - previous.getY()) * fraction;
+				Assertions.assertTrue(wall.signedDistance(x, y) >= ROBOT_SIZE);
+			}
+			previous = waypoint;
+		}
+	}
+
+	@Test
+	void waveBuilderSplinesThroughThePlan() {
+		Wave wave = new WaveBuilder(new Pose2D(-1000, 0, 0), Units.MILLIMETER, TestFixtures.MOTION_CONSTANTS, obstacleMap)
+				.planTo(1000, 0, new AngleDegrees(90))
+				.build();
+
+		WaveOutputs outputs = wave.getOutputs();
+		for (int i = 0; i < outputs.size(); i++) {
+			Assertions.assertTrue(wall.signedDistance(outputs.getX(i), outputs.getY(i)) > 0);
+		}
+		int last = outputs.size() - 1;
+		Assertions.assertEquals(1000, outputs.getX(last), 1);
+		Assertions.assertEquals(0, outputs.getY(last), 1);
+		Assertions.assertEquals(Math.PI / 2, outputs.getTheta(last), 1e-6);
+	}
+
+	@Test
+	void snapshotsShareTheGridAndPlanAroundAdditionalObstacles() {
+		Obstacle box = new RectangularObstacle(Units.MILLIMETER, -800, 200, -600, 400);
+		obstacleMap.getAdditionalObstacles().add(box);
+		ObstacleMapSnapshot snapshot = new ObstacleMapSnapshot(obstacleMap);
+		obstacleMap.getAdditionalObstacles().clear();
+		Assertions.assertSame(OccupancyGridPlanner.forField(obstacleMap), OccupancyGridPlanner.forField(snapshot));
+
+		Vector2D start = new Vector2D(-700, -200);
+		Vector2D goal = new Vector2D(-700, 800);
+		Vector2D[] waypoints = OccupancyGridPlanner.forField(snapshot).plan(start, goal, snapshot.getAdditionalObstacles());
+		Assertions.assertTrue(waypoints.length > 1);
+		Vector2D previous = start;
+		for (Vector2D waypoint : waypoints) {
+			for (double fraction = 0; fraction <= 1; fraction += 0.01) {
+				double x = previous.getX() + (waypoint.getX() - previous.getX()) * fraction;
+				double y = previous.getY() + (waypoint.getY() - previous.getY()) * fraction;
+				Assertions.assertTrue(box.signedDistance(x, y) >= ROBOT_SIZE);
+			}
+			previous = waypoint;
+		}
+	}
+
+	@Test
+	void planToMatchesSplineToWhenTheWayIsClear() {
+		WaveOutputs planned = new WaveBuilder(new Pose2D(-40, 10, 0, Units.INCH), Units.INCH, TestFixtures.MOTION_CONSTANTS, obstacleMap)
+				.planTo(-20, 30, new AngleDegrees(45))
+				.turnTo(new AngleDegrees(0))
+				.build()
+				.getOutputs();
+		WaveOutputs splined = new WaveBuilder(new Pose2D(-40, 10, 0, Units.INCH), Units.INCH, TestFixtures.MOTION_CONSTANTS, obstacleMap)
+				.splineTo(-20, 30, new AngleDegrees(45))
+				.turnTo(new AngleDegrees(0))
+				.build()
+				.getOutputs();
+
+		int last = planned.size() - 1;
+		Assertions.assertEquals(splined.size(), planned.size());
+		Assertions.assertEquals(Units.INCH.toMillimeters(-20), planned.getX(last), 1e-6);
+		Assertions.assertEquals(Units.INCH.toMillimeters(30), planned.getY(last), 1e-6);
+		Assertions.assertEquals(splined.getX(last), planned.getX(last), 1e-6);
+		Assertions.assertEquals(splined.getY(last), planned.getY(last), 1e-6);
+		Assertions.assertEquals(0, planned.getTheta(last), 1e-6);
+	}
+}
@@ -0,0 +1,82 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mercurialftc.mercurialftc.silversurfer.followable.curvebuilder.curve.QuinticBezierCurve;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Pose2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Vector2D;
+
+public class QuinticBezierCurveTests {
+	private final Pose2D startPose = new Pose2D(-300, 150, 0);
+	private final Vector2D ts = new Vector2D(800, 200);
+	private final Vector2D as = new Vector2D(-400, 900);
+	private final Vector2D te = new Vector2D(100, -700);
+	private final Vector2D ae = new Vector2D(300, 300);
+	private final Pose2D endPose = new Pose2D(900, 600, 0);
+	private final QuinticBezierCurve curve = new QuinticBezierCurve(startPose, ts, as, te, ae, endPose);
+
+	/**
+	 * evaluates the curve directly from its bernstein basis
+	 */
+	private Vector2D bernstein(double t) {
+		double[] xs = new double[6];
+		double[] ys = new double[6];
+		xs[0] = startPose.getX();
+		ys[0] = startPose.getY();
+		xs[5] = endPose.getX();
+		ys[5] = endPose.getY();
+		xs[1] = 0.2 * ts.getX() + xs[0];
+		ys[1] = 0.2 * ts.getY() + ys[0];
+		xs[2] = 0.05 * as.getX() + 2 * xs[1] - xs[0];
+		ys[2] = 0.05 * as.getY() + 2 * ys[1] - ys[0];
+		xs[4] = xs[5] - 0.2 * te.getX();
+		ys[4] = ys[5] - 0.2 * te.getY();
+		xs[3] = 0.05 * ae.getX() + 2 * xs[4] - xs[5];
+		ys[3] = 0.05 * ae.getY() + 2 * ys[4] - ys[5];
+
+		int[] binomials = {1, 5, 10, 10, 5, 1};
+		double x = 0, y = 0;
+		for (int i = 0; i < 6; i++) {
+			double basis = binomials[i] * Math.pow(t, i) * Math.pow(1 - t, 5 - i);
+			x += basis * xs[i];
+			y += basis * ys[i];
+		}
+		return new Vector2D(x, y);
+	}
+
+	@Test
+	void matchesBernsteinBasis() {
+		double h = 1e-5;
+		for (double t = h; t <= 1 - h; t += 0.01) {
+			Vector2D expected = bernstein(t);
+			Assertions.assertEquals(expected.getX(), curve.resultX(t), 1e-9);
+			Assertions.assertEquals(expected.getY(), curve.resultY(t), 1e-9);
+
+			// central differences of the bernstein form
+			Vector2D derivative = bernstein(t + h).subtract(bernstein(t - h)).scalarMultiply(1 / (2 * h));
+			Assertions.assertEquals(derivative.getX(), curve.firstDerivativeX(t), 1e-4);
+			Assertions.assertEquals(derivative.getY(), curve.firstDerivativeY(t), 1e-4);
+		}
+	}
+
+	@Test
+	void batchMatchesScalar() {
+		int n = 101;
+		double[] t = new double[n];
+		for (int i = 0; i < n; i++) {
+			t[i] = (double) i / (n - 1);
+		}
+		double[] xs = new double[n], ys = new double[n], tangentXs = new double[n], tangentYs = new double[n], curvatures = new double[n];
+		curve.sample(t, xs, ys, tangentXs, tangentYs, curvatures);
+		double[] derivativeXs = new double[n], derivativeYs = new double[n];
+		curve.firstDerivatives(t, derivativeXs, derivativeYs);
+
+		for (int i = 0; i < n; i++) {
+			Assertions.assertEquals(curve.result(t[i]).getX(), xs[i]);
+			Assertions.assertEquals(curve.result(t[i]).getY(), ys[i]);
+			Assertions.assertEquals(curve.firstDerivative(t[i]).getX(), tangentXs[i]);
+			Assertions.assertEquals(curve.firstDerivative(t[i]).getY(), tangentYs[i]);
+			Assertions.assertEquals(tangentXs[i], derivativeXs[i]);
+			Assertions.assertEquals(tangentYs[i], derivativeYs[i]);
+			Assertions.assertEquals(curve.findCurvature(t[i]), curvatures[i]);
+		}
+	}
+}
@@ -0,0 +1,60 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mercurialftc.mercurialftc.silversurfer.encoderticksconverter.Units;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Vector2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.CenterStageObstacleMap;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.obstacle.Obstacle;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.obstacle.RectangularObstacle;
+
+public class RectangularObstacleTests {
+	private void assertVectorEquals(double x, double y, Vector2D actual) {
+		Assertions.assertEquals(x, actual.getX(), 1e-9);
+		Assertions.assertEquals(y, actual.getY(), 1e-9);
+	}
+
+	@Test
+	void measuresFromEveryEdge() {
+		Obstacle obstacle = new RectangularObstacle(Units.MILLIMETER, -100, -50, 100, 50);
+
+		// the right edge used to be compared against the y coordinate, so positions to the right were inside
+		assertVectorEquals(-200, 0, obstacle.distance(new Vector2D(300, 20)));
+		assertVectorEquals(200, 0, obstacle.distance(new Vector2D(-300, 20)));
+		assertVectorEquals(0, -100, obstacle.distance(new Vector2D(20, 150)));
+		assertVectorEquals(0, 100, obstacle.distance(new Vector2D(20, -150)));
+		assertVectorEquals(-200, -100, obstacle.distance(new Vector2D(300, 150)));
+		assertVectorEquals(0, 0, obstacle.distance(new Vector2D(20, 20)));
+	}
+
+	@Test
+	void cornersMayBeGivenInAnyOrder() {
+		Obstacle ordered = new RectangularObstacle(Units.MILLIMETER, -100, -50, 100, 50);
+		Obstacle[] reversed = {
+				new RectangularObstacle(Units.MILLIMETER, 100, 50, -100, -50),
+				new RectangularObstacle(Units.MILLIMETER, -100, 50, 100, -50),
+				new RectangularObstacle(Units.MILLIMETER, 100, -50, -100, 50),
+		};
+		Vector2D[] positions = {new Vector2D(300, 20), new Vector2D(-300, -20), new Vector2D(20, 150), new Vector2D(-20, -150), new Vector2D(300, 150), new Vector2D(20, 20)};
+
+		for (Obstacle obstacle : reversed) {
+			Assertions.assertEquals(ordered.getMinX(), obstacle.getMinX());
+			Assertions.assertEquals(ordered.getMinY(), obstacle.getMinY());
+			Assertions.assertEquals(ordered.getMaxX(), obstacle.getMaxX());
+			Assertions.assertEquals(ordered.getMaxY(), obstacle.getMaxY());
+			for (Vector2D position : positions) {
+				Vector2D expected = ordered.distance(position);
+				assertVectorEquals(expected.getX(), expected.getY(), obstacle.distance(position));
+			}
+		}
+	}
+
+	@Test
+	void centerStageRedBackdropIsNotInverted() {
+		// the red backdrop is the only obstacle of the map given from its top corner
+		Obstacle[] obstacles = new CenterStageObstacleMap(Units.MILLIMETER, 600, 200).getObstacles();
+		Obstacle redBackdrop = obstacles[obstacles.length - 1];
+
+		assertVectorEquals(300, 0, redBackdrop.distance(new Vector2D(1200, -900)));
+		assertVectorEquals(0, 0, redBackdrop.distance(new Vector2D(1650, -900)));
+		assertVectorEquals(0, -300, redBackdrop.distance(new Vector2D(1650, -300)));
+	}
+}
@@ -0,0 +1,105 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mercurialftc.mercurialftc.silversurfer.encoderticksconverter.Units;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Pose2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Vector2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.angle.AngleRadians;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.CenterStageObstacleMap;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.FootprintObstacleMap;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.NearestObstacles;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.ObstacleMap;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.RobotFootprint;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.obstacle.CircularObstacle;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.obstacle.Obstacle;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.obstacle.RectangularObstacle;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+public class RobotFootprintTests {
+	private final RobotFootprint robotFootprint = RobotFootprint.rectangle(Units.MILLIMETER, 450, 300);
+
+	/**
+	 * the distance from the footprint to the obstacle, found by walking the outline of the footprint
+	 */
+	private double sampledDistance(double x, double y, double heading, Obstacle obstacle) {
+		double[][] corners = {{225, 150}, {-225, 150}, {-225, -150}, {225, -150}};
+		double cos = Math.cos(heading);
+		double sin = Math.sin(heading);
+		double result = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < 4; i++) {
+			double[] a = corners[i];
+			double[] b = corners[(i + 1) % 4];
+			for (int s = 0; s <= 2000; s++) {
+				double t = s / 2000.0;
+				double localX = a[0] + (b[0] - a[0]) * t;
+				double localY = a[1] + (b[1] - a[1]) * t;
+				result = Math.min(result, Math.max(0, obstacle.signedDistance(x + localX * cos - localY * sin, y + localX * sin + localY * cos)));
+			}
+		}
+		return result;
+	}
+
+	@Test
+	void reusedPlacementMatchesFreshPlacements() {
+		Random random = new Random(2023);
+		RobotFootprint.Placement reused = robotFootprint.place(100, -200, 0.5);
+		for (int i = 0; i < 2000; i++) {
+			double left = random.nextDouble() * 2000 - 1000;
+			double bottom = random.nextDouble() * 2000 - 1000;
+			Obstacle obstacle = random.nextBoolean()
+					? new CircularObstacle(Units.MILLIMETER, left, bottom, random.nextDouble() * 300)
+					: new RectangularObstacle(Units.MILLIMETER, left, bottom, left + random.nextDouble() * 800, bottom + random.nextDouble() * 800);
+
+			// the scratch space of one obstacle must not leak into the next
+			Vector2D expected = robotFootprint.place(100, -200, 0.5).distance(obstacle);
+			reused.measure(obstacle);
+			Assertions.assertEquals(expected.getX(), reused.getDistanceX());
+			Assertions.assertEquals(expected.getY(), reused.getDistanceY());
+		}
+	}
+
+	@Test
+	void matchesSampledDistance() {
+		Random random = new Random(2023);
+		for (int i = 0; i < 2000; i++) {
+			double x = random.nextDouble() * 2000 - 1000;
+			double y = random.nextDouble() * 2000 - 1000;
+			double heading = random.nextDouble() * 2 * Math.PI;
+			// obstacles too large to fit inside of the footprint, so that any overlap is seen by the sampled outline
+			Obstacle obstacle;
+			if (random.nextBoolean()) {
+				obstacle = new CircularObstacle(Units.MILLIMETER, random.nextDouble() * 2000 - 1000, random.nextDouble() * 2000 - 1000, 250 + random.nextDouble() * 200);
+			} else {
+				double left = random.nextDouble() * 2000 - 1000;
+				double bottom = random.nextDouble() * 2000 - 1000;
+				obstacle = new RectangularObstacle(Units.MILLIMETER, left, bottom, left + 500 + random.nextDouble() * 300, bottom + 500 + random.nextDouble() * 300);
+			}
+
+			RobotFootprint.Placement placement = robotFootprint.place(x, y, heading);
+			double exact = placement.distance(obstacle).getMagnitude();
+			Assertions.assertEquals(sampledDistance(x, y, heading, obstacle), exact, 0.5);
+			Assertions.assertTrue(placement.boundingDistance(obstacle) <= exact + 1e-9);
+		}
+	}
+
+	@Test
+	void accountsForHeading() {
+		ArrayList<Obstacle> additionalObstacles = new ArrayList<>();
+		additionalObstacles.add(new RectangularObstacle(Units.MILLIMETER, Double.NEGATIVE_INFINITY, 500, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY));
+		ObstacleMap obstacleMap = new FootprintObstacleMap(new CenterStageObstacleMap(Units.MILLIMETER, 600, additionalObstacles, 0), robotFootprint);
+
+		// a wall 500mm away, the footprint is 300 wide and 450 long
+		Vector2D sideways = obstacleMap.closestObstacleVector(new Pose2D(-2400, 0, new AngleRadians(0)));
+		Vector2D forwards = obstacleMap.closestObstacleVector(new Pose2D(-2400, 0, new AngleRadians(Math.PI / 2)));
+		Assertions.assertEquals(350, sideways.getMagnitude(), 1e-9);
+		Assertions.assertEquals(275, forwards.getMagnitude(), 1e-9);
+		Assertions.assertEquals(Math.PI / 2, sideways.getHeading().getRadians(), 1e-9);
+
+		// without a heading the enclosing circle is used
+		Assertions.assertEquals(500 - Math.hypot(225, 150), obstacleMap.closestObstacleVector(new Vector2D(-2400, 0)).getMagnitude(), 1e-9);
+
+		NearestObstacles nearestObstacles = obstacleMap.nearestObstacles(new Pose2D(-2400, 0, new AngleRadians(0)));
+		Assertions.assertEquals(350, nearestObstacles.getClosestDistance(), 1e-9);
+	}
+}
@@ -0,0 +1,102 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mercurialftc.mercurialftc.silversurfer.followable.Followable;
+import org.mercurialftc.mercurialftc.silversurfer.followable.linebuilder.FollowableLine;
+import org.mercurialftc.mercurialftc.silversurfer.followable.linebuilder.LineBuilder;
+import org.mercurialftc.mercurialftc.silversurfer.followable.motionconstants.MecanumMotionConstants;
+import org.mercurialftc.mercurialftc.silversurfer.followable.profile.ScalarProfile;
+import org.mercurialftc.mercurialftc.silversurfer.followable.turnbuilder.FollowableTurn;
+import org.mercurialftc.mercurialftc.silversurfer.followable.turnbuilder.TurnBuilder;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Pose2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.angle.AngleRadians;
+
+public class ScalarProfileTests {
+	private final MecanumMotionConstants motionConstants = new MecanumMotionConstants(1500, 1200, 1000, 2 * Math.PI, 1500, 1200, 1000, 2 * Math.PI);
+
+	@Test
+	void trapezoidMatchesTheClosedForm() {
+		ScalarProfile profile = ScalarProfile.chain(new double[]{2000}, new double[]{1000}, new double[]{1000}, new double[]{Double.POSITIVE_INFINITY}, new double[0]);
+
+		// a second each to speed up and slow down, covering 500mm each, and a second of cruising in between
+		Assertions.assertEquals(3, profile.getDuration(), 1e-9);
+		Assertions.assertEquals(500, profile.getPosition(1), 1e-9);
+		Assertions.assertEquals(1000, profile.getPosition(1.5), 1e-9);
+		Assertions.assertEquals(1000, profile.getVelocity(1.5), 1e-9);
+		Assertions.assertEquals(2000, profile.getPosition(3), 1e-9);
+		Assertions.assertEquals(0, profile.getVelocity(3), 1e-9);
+	}
+
+	@Test
+	void sCurveStaysWithinItsLimits() {
+		double jerk = 5000;
+		ScalarProfile profile = ScalarProfile.chain(new double[]{1200, 800}, new double[]{1000, 600}, new double[]{1000, 1000}, new double[]{jerk, jerk}, new double[]{Double.POSITIVE_INFINITY});
+
+		double step = 1e-3;
+		double previousPosition = 0;
+		double previousAcceleration = 0;
+		for (double time = step; time <= profile.getDuration(); time += step) {
+			double position = profile.getPosition(time);
+			double acceleration = profile.getAcceleration(time);
+			Assertions.assertTrue(position >= previousPosition - 1e-9);
+			Assertions.assertTrue(Math.abs(acceleration) <= 1000 + 1e-9);
+			Assertions.assertTrue(Math.abs(acceleration - previousAcceleration) <= jerk * step + 1e-6);
+			Assertions.assertTrue(profile.getVelocity(time) <= (position < 1200 ? 1000 : 600) + 1e-9);
+			previousPosition = position;
+			previousAcceleration = acceleration;
+		}
+		Assertions.assertEquals(2000, profile.getPosition(profile.getDuration()), 1e-6);
+		Assertions.assertEquals(0, profile.getVelocity(profile.getDuration()), 1e-6);
+		Assertions.assertTrue(profile.getSegmentEndTime(0) < profile.getSegmentEndTime(1));
+	}
+
+	@Test
+	void lineSharesWheelSpeedBetweenTranslationAndRotation() {
+		LineBuilder builder = new LineBuilder(motionConstants);
+		builder.addFollowableSegment(new Pose2D(), new Pose2D(1000, 0, 90));
+		FollowableLine line = (FollowableLine) builder.build();
+
+		double translationLimit = motionConstants.makeDirectionOfTravelLimiter(new AngleRadians(0)).getVelocity();
+		for (double time = 0; time <= line.getDuration(); time += 0.01) {
+			Followable.Output output = line.getOutput(time);
+			double share = output.getTranslationVector().getMagnitude() / translationLimit + Math.abs(output.getRotationalVelocity()) / motionConstants.getMaxRotationalVelocity();
+			Assertions.assertTrue(share <= 1 + 1e-9);
+		}
+
+		Followable.Output[] outputs = line.getOutputs();
+		Followable.Output last = outputs[outputs.length - 1];
+		Assertions.assertEquals(line.getDuration(), last.getCallbackTime(), 1e-9);
+		Assertions.assertEquals(1000, last.getPosition().getX(), 1e-9);
+		Assertions.assertEquals(Math.PI / 2, last.getPosition().getTheta().getRadians(), 1e-9);
+	}
+
+	@Test
+	void turnStopsToChangeDirection() {
+		TurnBuilder builder = new TurnBuilder(motionConstants);
+		builder.addFollowableSegment(new Pose2D(), new Pose2D(0, 0, 90));
+		builder.addFollowableSegment(new Pose2D(0, 0, 90), new Pose2D(0, 0, 0));
+		FollowableTurn turn = (FollowableTurn) builder.build();
+
+		double reversal = turn.getSegmentEndTime(0);
+		Assertions.assertEquals(0, turn.getOutput(reversal).getRotationalVelocity(), 1e-9);
+		Assertions.assertTrue(turn.getOutput(reversal / 2).getRotationalVelocity() > 0);
+		Assertions.assertTrue(turn.getOutput((reversal + turn.getDuration()) / 2).getRotationalVelocity() < 0);
+		Assertions.assertEquals(0, turn.getOutput(turn.getDuration()).getPosition().getTheta().getRadians(), 1e-9);
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	void deprecatedIndicesFollowTheSampledOutputs() {
+		TurnBuilder builder = new TurnBuilder(motionConstants);
+		builder.addFollowableSegment(new Pose2D(), new Pose2D(0, 0, 90));
+		builder.addFollowableSegment(new Pose2D(0, 0, 90), new Pose2D(0, 0, 0));
+		FollowableTurn turn = (FollowableTurn) builder.build();
+		Followable.Output[] outputs = turn.getOutputs();
+
+		int index = turn.getOutputIndexFromSegmentIndex(0);
+		Assertions.assertTrue(outputs[index].getCallbackTime() >= turn.getSegmentEndTime(0));
+		Assertions.assertTrue(outputs[index - 1].getCallbackTime() < turn.getSegmentEndTime(0));
+		Assertions.assertEquals(0, builder.getSegmentIndexFromOutputIndex(index - 1));
+		Assertions.assertEquals(1, builder.getSegmentIndexFromOutputIndex(outputs.length - 1));
+		Assertions.assertEquals(outputs.length - 1, turn.getOutputIndexFromSegmentIndex(1));
+	}
+}
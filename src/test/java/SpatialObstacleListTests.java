@@ -0,0 +1,100 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mercurialftc.mercurialftc.silversurfer.encoderticksconverter.Units;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Pose2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Vector2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.EmptyObstacleMap;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.FootprintObstacleMap;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.NearestObstacles;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.ObstacleMap;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.RobotFootprint;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.SpatialObstacleList;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.obstacle.CircularObstacle;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.obstacle.Obstacle;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.obstacle.RectangularObstacle;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+public class SpatialObstacleListTests {
+	private final Random random = new Random(2023);
+
+	private Obstacle randomObstacle() {
+		if (random.nextBoolean()) {
+			return new CircularObstacle(Units.MILLIMETER, random.nextDouble() * 3600 - 1800, random.nextDouble() * 3600 - 1800, random.nextDouble() * 300);
+		}
+		double x = random.nextDouble() * 3600 - 1800;
+		double y = random.nextDouble() * 3600 - 1800;
+		return new RectangularObstacle(Units.MILLIMETER, x, y, x + random.nextDouble() * 600, y + random.nextDouble() * 600);
+	}
+
+	private void assertMatches(ObstacleMap expected, ObstacleMap actual) {
+		for (int i = 0; i < 200; i++) {
+			Vector2D position = new Vector2D(random.nextDouble() * 5000 - 2500, random.nextDouble() * 5000 - 2500);
+			NearestObstacles expectedNearest = expected.nearestObstacles(position);
+			NearestObstacles actualNearest = actual.nearestObstacles(position);
+			Assertions.assertEquals(expectedNearest.getClosestDistance(), actualNearest.getClosestDistance());
+			Assertions.assertEquals(expectedNearest.getSecondClosestDistance(), actualNearest.getSecondClosestDistance());
+		}
+	}
+
+	@Test
+	void matchesLinearScan() {
+		ArrayList<Obstacle> list = new ArrayList<>();
+		SpatialObstacleList spatialList = new SpatialObstacleList(Units.MILLIMETER, 300);
+		ObstacleMap expected = new EmptyObstacleMap(Units.MILLIMETER, list, 200);
+		ObstacleMap actual = new EmptyObstacleMap(Units.MILLIMETER, spatialList, 200);
+
+		assertMatches(expected, actual);
+
+		for (int i = 0; i < 100; i++) {
+			Obstacle obstacle = randomObstacle();
+			list.add(obstacle);
+			spatialList.add(obstacle);
+		}
+		// an unbounded obstacle is always measured
+		Obstacle wall = new RectangularObstacle(Units.MILLIMETER, Double.NEGATIVE_INFINITY, 1800, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
+		list.add(wall);
+		spatialList.add(wall);
+		assertMatches(expected, actual);
+
+		for (int i = 0; i < 50; i++) {
+			Obstacle moved = randomObstacle();
+			Obstacle previous = list.set(i, moved);
+			Assertions.assertTrue(spatialList.move(previous, moved));
+		}
+		assertMatches(expected, actual);
+
+		for (int i = 0; i < 90; i++) {
+			Obstacle removed = list.remove(random.nextInt(list.size()));
+			Assertions.assertTrue(spatialList.remove(removed));
+		}
+		assertMatches(expected, actual);
+
+		list.subList(0, 5).clear();
+		spatialList.subList(0, 5).clear();
+		assertMatches(expected, actual);
+	}
+
+	@Test
+	void footprintQueriesMatchLinearScan() {
+		ArrayList<Obstacle> list = new ArrayList<>();
+		SpatialObstacleList spatialList = new SpatialObstacleList(Units.MILLIMETER, 300);
+		for (int i = 0; i < 100; i++) {
+			Obstacle obstacle = randomObstacle();
+			list.add(obstacle);
+			spatialList.add(obstacle);
+		}
+		RobotFootprint robotFootprint = RobotFootprint.rectangle(Units.MILLIMETER, 450, 300);
+		ObstacleMap expected = new FootprintObstacleMap(new EmptyObstacleMap(Units.MILLIMETER, list, 200), robotFootprint);
+		ObstacleMap actual = new FootprintObstacleMap(new EmptyObstacleMap(Units.MILLIMETER, spatialList, 200), robotFootprint);
+
+		for (int i = 0; i < 200; i++) {
+			Pose2D position = new Pose2D(random.nextDouble() * 5000 - 2500, random.nextDouble() * 5000 - 2500, random.nextDouble() * 360);
+			NearestObstacles expectedNearest = expected.nearestObstacles(position);
+			NearestObstacles actualNearest = actual.nearestObstacles(position);
+			Assertions.assertEquals(expectedNearest.getClosestDistance(), actualNearest.getClosestDistance());
+			Assertions.assertEquals(expectedNearest.getSecondClosestDistance(), actualNearest.getSecondClosestDistance());
+		}
+	}
+}
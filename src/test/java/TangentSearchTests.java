@@ -0,0 +1,59 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mercurialftc.mercurialftc.silversurfer.followable.curvebuilder.FollowableCurve;
+import org.mercurialftc.mercurialftc.silversurfer.followable.curvebuilder.motionprofile.MotionProfile;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Pose2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.EmptyObstacleMap;
+
+import java.util.concurrent.ForkJoinPool;
+
+public class TangentSearchTests {
+	private static final int BUDGET = 400;
+
+	private FollowableCurve[] referencePaths() {
+		return new FollowableCurve[]{
+				TestFixtures.buildCurve(new Pose2D(0, 0, 0), new Pose2D(600, 300, 90), new Pose2D(600, 1200, 0), new Pose2D(-600, 900, 0)),
+				TestFixtures.buildCurve(new Pose2D(0, 0, 0), new Pose2D(1200, 600, 0)),
+				TestFixtures.buildCurve(new Pose2D(0, 0, 0), new Pose2D(600, 600, 0), new Pose2D(0, 1200, 0), new Pose2D(600, 1800, 0)),
+				TestFixtures.buildCurve(new Pose2D(0, 0, 90), new Pose2D(900, 0, 180), new Pose2D(900, 900, 270), new Pose2D(0, 900, 0), new Pose2D(0, 300, 90)),
+		};
+	}
+
+	private static int evaluationsToReach(double[] convergence, double duration) {
+		for (int i = 0; i < convergence.length; i++) {
+			if (convergence[i] <= duration) return i + 1;
+		}
+		return -1;
+	}
+
+	@Test
+	void goldenSectionReachesCompassSearchDuration() {
+		FollowableCurve[] paths = referencePaths();
+		int compassEvaluations = 0;
+		int goldenSectionEvaluations = 0;
+		for (int p = 0; p < paths.length; p++) {
+			MotionProfile compass = new MotionProfile(paths[p], new EmptyObstacleMap(), ForkJoinPool.commonPool(), BUDGET, MotionProfile.Search.COMPASS);
+			compass.profile();
+			double[] compassConvergence = compass.getConvergence();
+			double compassDuration = compassConvergence[compassConvergence.length - 1];
+
+			MotionProfile goldenSection = new MotionProfile(paths[p], new EmptyObstacleMap(), ForkJoinPool.commonPool(), BUDGET, MotionProfile.Search.GOLDEN_SECTION);
+			goldenSection.profile();
+			double[] goldenSectionConvergence = goldenSection.getConvergence();
+			double goldenSectionDuration = goldenSectionConvergence[goldenSectionConvergence.length - 1];
+
+			// the worse of the two final durations within 1%, so both searches reach it
+			double target = Math.max(compassDuration, goldenSectionDuration) * 1.01;
+			compassEvaluations += evaluationsToReach(compassConvergence, target);
+			goldenSectionEvaluations += evaluationsToReach(goldenSectionConvergence, target);
+
+			Assertions.assertTrue(goldenSection.isConverged());
+			Assertions.assertTrue(goldenSectionDuration <= compassDuration * 1.005);
+			for (int i = 1; i < goldenSectionConvergence.length; i++) {
+				Assertions.assertTrue(goldenSectionConvergence[i] <= goldenSectionConvergence[i - 1]);
+			}
+		}
+		// either search may get there first on a single path, but across the paths the golden section search needs fewer evaluations
+		Assertions.assertTrue(goldenSectionEvaluations < compassEvaluations);
+	}
+}
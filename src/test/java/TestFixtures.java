@@ -0,0 +1,37 @@
+import org.mercurialftc.mercurialftc.silversurfer.followable.curvebuilder.CurveBuilder;
+import org.mercurialftc.mercurialftc.silversurfer.followable.curvebuilder.FollowableCurve;
+import org.mercurialftc.mercurialftc.silversurfer.followable.motionconstants.MecanumMotionConstants;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Pose2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.EmptyObstacleMap;
+
+/**
+ * fixtures shared between the tests
+ */
+final class TestFixtures {
+	/**
+	 * the motion constants the paths in the tests are built with
+	 */
+	static final MecanumMotionConstants MOTION_CONSTANTS = new MecanumMotionConstants(1500, 1200, 1000, Math.PI, 1500, 1200, 1000, Math.PI);
+
+	private TestFixtures() {
+	}
+
+	/**
+	 * @param poses the poses the curve passes through, in order
+	 * @return a curve through the poses, built with {@link #MOTION_CONSTANTS} on an empty obstacle map
+	 */
+	static FollowableCurve buildCurve(Pose2D... poses) {
+		CurveBuilder curveBuilder = new CurveBuilder(MOTION_CONSTANTS, MOTION_CONSTANTS, new EmptyObstacleMap());
+		for (int i = 1; i < poses.length; i++) {
+			curveBuilder.addFollowableSegment(poses[i - 1], poses[i]);
+		}
+		return (FollowableCurve) curveBuilder.build();
+	}
+
+	/**
+	 * @return the three segment reference curve
+	 */
+	static FollowableCurve buildCurve() {
+		return buildCurve(new Pose2D(0, 0, 0), new Pose2D(600, 300, 90), new Pose2D(600, 1200, 0), new Pose2D(-600, 900, 0));
+	}
+}
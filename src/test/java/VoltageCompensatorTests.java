@@ -0,0 +1,52 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mercurialftc.mercurialftc.silversurfer.followable.motionconstants.MecanumMotionConstants;
+import org.mercurialftc.mercurialftc.silversurfer.voltageperformanceenforcer.VoltageCompensator;
+import org.mercurialftc.mercurialftc.silversurfer.voltageperformanceenforcer.VoltagePerformanceEnforcer;
+
+import java.util.function.DoubleSupplier;
+
+public class VoltageCompensatorTests {
+	private final MecanumMotionConstants motionConstants = new MecanumMotionConstants(1500, 1200, 1000, 2 * Math.PI, 1500, 1200, 1000, 2 * Math.PI);
+	private final VoltagePerformanceEnforcer enforcer = new VoltagePerformanceEnforcer(13, 2, 1500);
+	private double voltage;
+
+	@Test
+	void enforcerScalesTheMotionConstants() {
+		Assertions.assertEquals(1, enforcer.getVelocityScale(13), 1e-9);
+		double scale = enforcer.getVelocityScale(11);
+		Assertions.assertTrue(scale < 1);
+
+		MecanumMotionConstants scaled = enforcer.transform(motionConstants, 11);
+		Assertions.assertEquals(1500 * scale, scaled.getMaxTranslationalYVelocity(), 1e-9);
+		Assertions.assertEquals(1000 * scale, scaled.getMaxTranslationalAngledAcceleration(), 1e-9);
+		Assertions.assertEquals(2 * Math.PI * scale, scaled.getMaxRotationalVelocity(), 1e-9);
+		Assertions.assertEquals(motionConstants.getDirectionalVelocity(0.3) * scale, scaled.getDirectionalVelocity(0.3), 1e-6);
+	}
+
+	@Test
+	void compensatorFiltersAndSamplesSlowly() {
+		VoltageCompensator compensator = new VoltageCompensator((DoubleSupplier) () -> voltage, enforcer, motionConstants);
+		voltage = 13;
+		Assertions.assertFalse(compensator.update(0));
+		Assertions.assertSame(motionConstants, compensator.getMotionConstants());
+
+		// a short dip, e.g. while accelerating, is filtered out, and is not read between samples
+		voltage = 9;
+		Assertions.assertFalse(compensator.update(0.05));
+		voltage = 13;
+		Assertions.assertFalse(compensator.update(0.1));
+		Assertions.assertEquals(13, compensator.getVoltage(), 1e-9);
+
+		// a sustained drop is followed
+		voltage = 11;
+		boolean changed = false;
+		for (double time = 0.2; time < 20; time += 0.02) {
+			changed |= compensator.update(time);
+		}
+		Assertions.assertTrue(changed);
+		Assertions.assertEquals(11, compensator.getVoltage(), 1e-3);
+		Assertions.assertEquals(enforcer.getVelocityScale(11), compensator.getScale(), VoltageCompensator.SCALE_RESOLUTION);
+		Assertions.assertEquals(1500 * compensator.getScale(), compensator.getMotionConstants().getMaxTranslationalYVelocity(), 1e-9);
+	}
+}
@@ -0,0 +1,74 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mercurialftc.mercurialftc.silversurfer.encoderticksconverter.Units;
+import org.mercurialftc.mercurialftc.silversurfer.followable.Wave;
+import org.mercurialftc.mercurialftc.silversurfer.followable.WaveBuilder;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Pose2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.angle.AngleDegrees;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+public class WaveCacheTests {
+	private WaveBuilder waveBuilder(File cacheDirectory, double lastX) {
+		return new WaveBuilder(new Pose2D(), Units.MILLIMETER, TestFixtures.MOTION_CONSTANTS)
+				.cached(cacheDirectory)
+				.splineTo(600, 300, new AngleDegrees(90))
+				.splineTo(600, 900, new AngleDegrees(0))
+				.waitFor(0.5)
+				.lineTo(lastX, 900, new AngleDegrees(0));
+	}
+
+	private static File[] waveFiles(File directory) {
+		File[] files = directory.listFiles((dir, name) -> name.endsWith(".wave"));
+		return files == null ? new File[0] : files;
+	}
+
+	@Test
+	void loadedWaveMatchesBuiltWave() throws IOException {
+		File cacheDirectory = Files.createTempDirectory("waves").toFile();
+
+		Wave built = waveBuilder(cacheDirectory, 0).build();
+		Assertions.assertEquals(1, waveFiles(cacheDirectory).length);
+
+		Wave loaded = waveBuilder(cacheDirectory, 0).build();
+		Assertions.assertEquals(1, waveFiles(cacheDirectory).length);
+
+		double end = built.getOutputs().getDuration() + 1;
+		for (double t = 0; t < end; t += 0.01) {
+			boolean builtFinished = built.update(t);
+			boolean loadedFinished = loaded.update(t);
+			Assertions.assertEquals(builtFinished, loadedFinished);
+			Assertions.assertEquals(built.getOutput().getCallbackTime(), loaded.getOutput().getCallbackTime());
+			Assertions.assertEquals(built.getOutput().getTranslationVector().getX(), loaded.getOutput().getTranslationVector().getX());
+			Assertions.assertEquals(built.getOutput().getPosition().getX(), loaded.getOutput().getPosition().getX());
+			Assertions.assertEquals(built.getOutput().getPosition().getTheta().getRadians(), loaded.getOutput().getPosition().getTheta().getRadians());
+		}
+	}
+
+	@Test
+	void changedInstructionsMiss() throws IOException {
+		File cacheDirectory = Files.createTempDirectory("waves").toFile();
+		waveBuilder(cacheDirectory, 0).build();
+		waveBuilder(cacheDirectory, 100).build();
+		Assertions.assertEquals(2, waveFiles(cacheDirectory).length);
+	}
+
+	@Test
+	void markersAreReattachedToLiveCommands() throws IOException {
+		File cacheDirectory = Files.createTempDirectory("waves").toFile();
+		int[] first = new int[1];
+		int[] second = new int[1];
+		waveBuilder(cacheDirectory, 0).addOffsetActionMarker(0.1, () -> first[0]++).build();
+		Wave loaded = waveBuilder(cacheDirectory, 0).addOffsetActionMarker(0.1, () -> second[0]++).build();
+		Assertions.assertEquals(1, waveFiles(cacheDirectory).length);
+
+		double end = loaded.getOutputs().getDuration() + 1;
+		for (double t = 0; t < end; t += 0.01) {
+			loaded.update(t);
+		}
+		Assertions.assertEquals(0, first[0]);
+		Assertions.assertEquals(1, second[0]);
+	}
+}
@@ -0,0 +1,181 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mercurialftc.mercurialftc.silversurfer.encoderticksconverter.Units;
+import org.mercurialftc.mercurialftc.silversurfer.followable.Followable;
+import org.mercurialftc.mercurialftc.silversurfer.followable.Wave;
+import org.mercurialftc.mercurialftc.silversurfer.followable.WaveBuilder;
+import org.mercurialftc.mercurialftc.silversurfer.followable.WaveOutputs;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Pose2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Vector2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.angle.AngleDegrees;
+
+import java.util.ArrayList;
+
+public class WaveOutputsTests {
+	private Wave buildWave() {
+		return new WaveBuilder(new Pose2D(), Units.MILLIMETER, TestFixtures.MOTION_CONSTANTS)
+				.lineTo(600, 0, new AngleDegrees(0))
+				.turnTo(new AngleDegrees(90))
+				.lineTo(600, 600, new AngleDegrees(90))
+				.build();
+	}
+
+	@Test
+	void destinationsAreShared() {
+		ArrayList<Followable.Output> outputs = new ArrayList<>();
+		Pose2D first = new Pose2D(100, 0, 0);
+		Pose2D second = new Pose2D(100, 100, 90);
+		for (int i = 0; i < 10; i++) {
+			outputs.add(new Followable.Output(new Vector2D(i, 0), 0, i, new Pose2D(i * 10, 0, 0), i < 5 ? first : second));
+		}
+		WaveOutputs waveOutputs = WaveOutputs.of(outputs);
+
+		Assertions.assertEquals(10, waveOutputs.size());
+		Assertions.assertEquals(2, waveOutputs.getDestinationCount());
+		for (int i = 0; i < 10; i++) {
+			Followable.Output output = waveOutputs.getOutput(i);
+			Assertions.assertEquals(outputs.get(i).getCallbackTime(), output.getCallbackTime());
+			Assertions.assertEquals(outputs.get(i).getTranslationVector().getX(), output.getTranslationVector().getX());
+			Assertions.assertEquals(outputs.get(i).getPosition().getX(), output.getPosition().getX());
+			Assertions.assertEquals(outputs.get(i).getDestination().getY(), output.getDestination().getY());
+		}
+	}
+
+	@Test
+	void concatOffsetsTimesWithoutModifyingEitherWave() {
+		Wave first = buildWave();
+		Wave second = buildWave();
+		double duration = first.getOutputs().getDuration();
+		Wave joined = first.concat(second);
+
+		WaveOutputs outputs = joined.getOutputs();
+		Assertions.assertEquals(first.getOutputs().size() + second.getOutputs().size(), outputs.size());
+		Assertions.assertEquals(duration, second.getOutputs().getDuration(), 1e-12);
+		Assertions.assertEquals(2 * duration, outputs.getDuration(), 1e-9);
+		for (int i = 1; i < outputs.size(); i++) {
+			Assertions.assertTrue(outputs.getTime(i) >= outputs.getTime(i - 1));
+		}
+	}
+
+	@Test
+	void outputViewFollowsTheWave() {
+		Wave wave = buildWave();
+		WaveOutputs outputs = wave.getOutputs();
+
+		Assertions.assertEquals(0, wave.getOutput().getTranslationVector().getMagnitude());
+
+		double time = outputs.getTime(outputs.size() / 2);
+		wave.update(time);
+		Followable.Output output = wave.getOutput();
+		Assertions.assertEquals(time, output.getCallbackTime());
+
+		int index = outputs.size() / 2;
+		while (index + 1 < outputs.size() && outputs.getTime(index + 1) <= time) {
+			index++;
+		}
+		Assertions.assertEquals(outputs.getX(index), output.getPosition().getX());
+		Assertions.assertEquals(outputs.getVelocityX(index), output.getTranslationVector().getX());
+
+		Assertions.assertFalse(wave.update(outputs.getDuration()));
+		Assertions.assertTrue(wave.update(outputs.getDuration() + 1));
+		Assertions.assertEquals(0, wave.getOutput().getTranslationVector().getMagnitude());
+		Assertions.assertEquals(600, wave.getOutput().getPosition().getY(), 1e-9);
+	}
+
+	@Test
+	void interpolatesBetweenOutputs() {
+		Wave wave = buildWave();
+		WaveOutputs outputs = wave.getOutputs();
+		int index = outputs.size() / 4;
+		double time = (outputs.getTime(index) + outputs.getTime(index + 1)) / 2;
+
+		wave.update(time);
+		Followable.Output output = wave.getOutput();
+		Assertions.assertEquals(time, output.getCallbackTime());
+		Assertions.assertEquals((outputs.getX(index) + outputs.getX(index + 1)) / 2, output.getPosition().getX(), 1e-9);
+		Assertions.assertEquals((outputs.getVelocityX(index) + outputs.getVelocityX(index + 1)) / 2, output.getTranslationVector().getX(), 1e-9);
+
+		wave.setInterpolating(false);
+		wave.update(time);
+		Assertions.assertEquals(outputs.getX(index), wave.getOutput().getPosition().getX());
+		Assertions.assertEquals(outputs.getTime(index), wave.getOutput().getCallbackTime());
+	}
+
+	@Test
+	void seeksByTimeAndDistance() {
+		Wave wave = buildWave();
+		WaveOutputs outputs = wave.getOutputs();
+
+		wave.seek(outputs.getDuration() * 0.75);
+		Assertions.assertEquals(outputs.getDuration() * 0.75, wave.getOutput().getCallbackTime(), 1e-12);
+
+		// backwards, by arc length, to half way along the first line
+		double time = wave.seekDistance(300);
+		Assertions.assertEquals(300, wave.getOutput().getPosition().getX(), 1);
+		Assertions.assertEquals(0, wave.getOutput().getPosition().getY(), 1e-9);
+
+		// updates carry on from the seeked time
+		wave.update(time + 0.01);
+		Assertions.assertTrue(wave.getOutput().getPosition().getX() > 300);
+		Assertions.assertTrue(outputs.timeAtDistance(300) < outputs.timeAtDistance(900));
+		Assertions.assertEquals(outputs.getLength(), 1200, 1);
+	}
+
+	@Test
+	void joiningTheSameWaveTwiceLeavesBothResultsIntact() {
+		int[] reached = {0};
+		Wave wave = new WaveBuilder(new Pose2D(), Units.MILLIMETER, TestFixtures.MOTION_CONSTANTS)
+				.lineTo(600, 0, new AngleDegrees(0))
+				.addOffsetActionMarker(0.5, () -> reached[0]++)
+				.build();
+		Wave first = wave.concat(wave);
+		Wave second = wave.concat(wave);
+
+		double duration = wave.getOutputs().getDuration();
+		Assertions.assertEquals(2 * duration, first.getOutputs().getDuration(), 1e-9);
+		Assertions.assertEquals(2 * duration, second.getOutputs().getDuration(), 1e-9);
+
+		// the marker is half a second after the end of the line, and runs once per repeat, at the same times in each result
+		double markerTime = duration + 0.5;
+		for (Wave joined : new Wave[]{first, second}) {
+			reached[0] = 0;
+			joined.update(markerTime - 0.01);
+			Assertions.assertEquals(0, reached[0]);
+			joined.update(markerTime + 0.01);
+			Assertions.assertEquals(1, reached[0]);
+			joined.update(duration + markerTime - 0.01);
+			Assertions.assertEquals(1, reached[0]);
+			joined.update(duration + markerTime + 0.01);
+			Assertions.assertEquals(2, reached[0]);
+		}
+		reached[0] = 0;
+		wave.update(markerTime - 0.01);
+		Assertions.assertEquals(0, reached[0]);
+		wave.update(markerTime + 0.01);
+		Assertions.assertEquals(1, reached[0]);
+	}
+
+	@Test
+	void repeatAndSpliceMatchConcat() {
+		Wave wave = buildWave();
+		WaveOutputs concatenated = wave.concat(wave).concat(wave).getOutputs();
+		Wave repeated = wave.repeat(3);
+		Wave spliced = wave.concat(wave).splice(1, wave);
+
+		Assertions.assertEquals(3, repeated.getSegmentCount());
+		Assertions.assertEquals(3, spliced.getSegmentCount());
+		for (WaveOutputs outputs : new WaveOutputs[]{repeated.getOutputs(), spliced.getOutputs()}) {
+			Assertions.assertEquals(concatenated.size(), outputs.size());
+			for (int i = 0; i < outputs.size(); i++) {
+				Assertions.assertEquals(concatenated.getTime(i), outputs.getTime(i), 1e-9);
+				Assertions.assertEquals(concatenated.getX(i), outputs.getX(i));
+			}
+		}
+
+		// following reads across the segments without flattening them
+		Wave followed = wave.repeat(3);
+		followed.update(concatenated.getTime(concatenated.size() / 2));
+		Assertions.assertEquals(concatenated.getX(concatenated.size() / 2), followed.getOutput().getPosition().getX(), 1e-9);
+		Assertions.assertEquals(wave.getOutputs().size(), wave.repeat(3).slice(1, 2).getOutputs().size());
+	}
+}
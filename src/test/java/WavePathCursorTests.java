@@ -0,0 +1,105 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mercurialftc.mercurialftc.silversurfer.encoderticksconverter.Units;
+import org.mercurialftc.mercurialftc.silversurfer.followable.Followable;
+import org.mercurialftc.mercurialftc.silversurfer.followable.Wave;
+import org.mercurialftc.mercurialftc.silversurfer.followable.WaveBuilder;
+import org.mercurialftc.mercurialftc.silversurfer.followable.WaveOutputs;
+import org.mercurialftc.mercurialftc.silversurfer.followable.WavePath;
+import org.mercurialftc.mercurialftc.silversurfer.followable.WavePathCursor;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Pose2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Vector2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.angle.AngleDegrees;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.obstaclemap.EmptyObstacleMap;
+
+import java.util.ArrayList;
+
+public class WavePathCursorTests {
+	/**
+	 * outputs every 10mm along the straight lines between the points
+	 */
+	private WaveOutputs path(double[]... points) {
+		ArrayList<Followable.Output> outputs = new ArrayList<>();
+		Pose2D destination = new Pose2D();
+		double time = 0;
+		outputs.add(new Followable.Output(new Vector2D(), 0, time, new Pose2D(points[0][0], points[0][1], 0), destination));
+		for (int i = 1; i < points.length; i++) {
+			double length = Math.hypot(points[i][0] - points[i - 1][0], points[i][1] - points[i - 1][1]);
+			int steps = (int) Math.ceil(length / 10);
+			for (int step = 1; step <= steps; step++) {
+				double fraction = (double) step / steps;
+				double x = points[i - 1][0] + (points[i][0] - points[i - 1][0]) * fraction;
+				double y = points[i - 1][1] + (points[i][1] - points[i - 1][1]) * fraction;
+				time += 0.01;
+				outputs.add(new Followable.Output(new Vector2D(), 0, time, new Pose2D(x, y, 0), destination));
+			}
+		}
+		return WaveOutputs.of(outputs);
+	}
+
+	@Test
+	void findsTheClosestPointAndTangent() {
+		WavePathCursor cursor = new WavePathCursor(path(new double[]{0, 0}, new double[]{600, 0}, new double[]{600, 600}));
+
+		cursor.update(195, 40);
+		Assertions.assertEquals(195, cursor.getX(), 1e-9);
+		Assertions.assertEquals(0, cursor.getY(), 1e-9);
+		Assertions.assertEquals(195, cursor.getDistance(), 1e-9);
+		Assertions.assertEquals(1, cursor.getTangentX(), 1e-9);
+
+		for (double x = 195; x <= 600; x += 50) {
+			cursor.update(x, 0);
+		}
+		cursor.update(640, 95);
+		Assertions.assertEquals(600, cursor.getX(), 1e-9);
+		Assertions.assertEquals(95, cursor.getY(), 1e-9);
+		Assertions.assertEquals(695, cursor.getDistance(), 1e-9);
+		Assertions.assertEquals(1, cursor.getTangentY(), 1e-9);
+	}
+
+	@Test
+	void isNotConfusedWhereThePathDoublesBack() {
+		WavePathCursor cursor = new WavePathCursor(path(new double[]{0, 0}, new double[]{600, 0}, new double[]{0, 0}));
+		for (double x = 0; x <= 500; x += 50) {
+			cursor.update(x, 5);
+		}
+		Assertions.assertEquals(500, cursor.getDistance(), 1e-9);
+		Assertions.assertEquals(1, cursor.getTangentX(), 1e-9);
+	}
+
+	@Test
+	void onlySearchesAroundTheCursor() {
+		WavePathCursor cursor = new WavePathCursor(path(new double[]{0, 0}, new double[]{3000, 0}));
+
+		cursor.update(2500, 0);
+		Assertions.assertTrue(cursor.getDistance() <= WavePathCursor.LOOK_AHEAD + 10);
+
+		// it catches up over a few updates
+		for (int i = 0; i < 10; i++) {
+			cursor.update(2500, 0);
+		}
+		Assertions.assertEquals(2500, cursor.getDistance(), 1e-9);
+	}
+
+	@Test
+	void pathOfJoinedWavesMatchesTheirOutputs() {
+		Wave first = new WaveBuilder(new Pose2D(), Units.MILLIMETER, TestFixtures.MOTION_CONSTANTS, new EmptyObstacleMap())
+				.lineTo(600, 0, new AngleDegrees(0))
+				.build();
+		Wave second = new WaveBuilder(new Pose2D(600, 0, 0), Units.MILLIMETER, TestFixtures.MOTION_CONSTANTS, new EmptyObstacleMap())
+				.lineTo(600, 600, new AngleDegrees(0))
+				.build();
+		Wave wave = first.concat(second);
+
+		WavePath path = wave.getPath();
+		WaveOutputs outputs = wave.getOutputs();
+		Assertions.assertEquals(outputs.size(), path.size());
+		for (int i = 0; i < path.size(); i++) {
+			Assertions.assertEquals(outputs.getTime(i), path.getTime(i), 1e-9);
+			Assertions.assertEquals(outputs.getX(i), path.getX(i), 1e-9);
+			Assertions.assertEquals(outputs.getY(i), path.getY(i), 1e-9);
+			Assertions.assertEquals(outputs.getDistance(i), path.getDistance(i), 1e-6);
+		}
+		Assertions.assertEquals(outputs.indexAtTime(1.3), path.indexAtTime(1.3));
+	}
+}
@@ -0,0 +1,85 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mercurialftc.mercurialftc.silversurfer.encoderticksconverter.Units;
+import org.mercurialftc.mercurialftc.silversurfer.followable.Followable;
+import org.mercurialftc.mercurialftc.silversurfer.followable.Wave;
+import org.mercurialftc.mercurialftc.silversurfer.followable.WaveBuilder;
+import org.mercurialftc.mercurialftc.silversurfer.followable.WaveOutputs;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Pose2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.angle.AngleDegrees;
+
+public class WaveStreamingTests {
+	private WaveBuilder builder() {
+		return new WaveBuilder(new Pose2D(), Units.MILLIMETER, TestFixtures.MOTION_CONSTANTS)
+				.lineTo(600, 0, new AngleDegrees(0))
+				.turnTo(new AngleDegrees(90))
+				.splineTo(900, 600, new AngleDegrees(90))
+				.splineTo(600, 1200, new AngleDegrees(180))
+				.lineTo(0, 1200, new AngleDegrees(180));
+	}
+
+	@Test
+	void streamedWavePlaysBackAsBuilt() {
+		Wave built = builder().build();
+		Wave streamed = builder().buildStreaming(0);
+
+		double duration = built.getOutputs().getDuration();
+		// leaves time for generation to finish, the streamed wave stops to wait for it if it does not
+		long deadline = System.nanoTime() + 30_000_000_000L;
+		while (!streamed.isComplete() && System.nanoTime() < deadline) {
+			streamed.update(0);
+		}
+		Assertions.assertTrue(streamed.isComplete());
+
+		for (double time = 0; time <= duration; time += 0.01) {
+			built.update(time);
+			streamed.update(time);
+			Followable.Output expected = built.getOutput();
+			Followable.Output actual = streamed.getOutput();
+			Assertions.assertEquals(expected.getPosition().getX(), actual.getPosition().getX(), 1e-6);
+			Assertions.assertEquals(expected.getPosition().getY(), actual.getPosition().getY(), 1e-6);
+			Assertions.assertEquals(expected.getTranslationVector().getX(), actual.getTranslationVector().getX(), 1e-6);
+		}
+		streamed.update(duration + 1);
+		Assertions.assertTrue(streamed.update(duration + 1));
+	}
+
+	@Test
+	void runsBuiltInParallelJoinUpWhereTheyMeet() {
+		WaveOutputs outputs = builder().build().getOutputs();
+		WaveOutputs rebuilt = builder().build().getOutputs();
+
+		Assertions.assertEquals(outputs.size(), rebuilt.size());
+		for (int i = 0; i < outputs.size(); i++) {
+			Assertions.assertEquals(outputs.getTime(i), rebuilt.getTime(i));
+			Assertions.assertEquals(outputs.getX(i), rebuilt.getX(i));
+			Assertions.assertEquals(outputs.getY(i), rebuilt.getY(i));
+		}
+
+		// each run starts where the one before it finished, so the path never jumps
+		for (int i = 1; i < outputs.size(); i++) {
+			double time = outputs.getTime(i) - outputs.getTime(i - 1);
+			double distance = Math.hypot(outputs.getX(i) - outputs.getX(i - 1), outputs.getY(i) - outputs.getY(i - 1));
+			Assertions.assertTrue(time >= 0);
+			Assertions.assertTrue(distance <= 1500 * time + 1e-6);
+		}
+		Assertions.assertEquals(0, outputs.getX(outputs.size() - 1), 1e-6);
+		Assertions.assertEquals(1200, outputs.getY(outputs.size() - 1), 1e-6);
+	}
+
+	@Test
+	void streamedWaveStopsAtTheEndOfWhatIsBuilt() {
+		Wave streamed = builder().buildStreaming(0);
+		streamed.stopGenerating();
+
+		// whatever was generated before stopping, the wave ends at rest at the end of it
+		double time = 0;
+		long deadline = System.nanoTime() + 30_000_000_000L;
+		while (!streamed.update(time) && System.nanoTime() < deadline) {
+			time += 0.05;
+		}
+		Assertions.assertTrue(streamed.isComplete());
+		Assertions.assertEquals(0, streamed.getOutput().getTranslationVector().getMagnitude());
+		Assertions.assertEquals(0, streamed.getOutput().getRotationalVelocity());
+	}
+}
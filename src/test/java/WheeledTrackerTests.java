@@ -0,0 +1,219 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mercurialftc.mercurialftc.silversurfer.encoderticksconverter.EncoderTicksConverter;
+import org.mercurialftc.mercurialftc.silversurfer.encoderticksconverter.Units;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Pose2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.Vector2D;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.angle.AngleRadians;
+import org.mercurialftc.mercurialftc.silversurfer.geometry.matrix.SimpleMatrix;
+import org.mercurialftc.mercurialftc.silversurfer.tracker.WheeledTracker;
+import org.mercurialftc.mercurialftc.silversurfer.tracker.WheeledTrackerConstants;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class WheeledTrackerTests {
+	private final WheeledTrackerConstants trackerConstants = new WheeledTrackerConstants.ThreeWheeledTrackerConstants(
+			new Vector2D(),
+			1.01,
+			0.99,
+			new EncoderTicksConverter(8192 / (35 * Math.PI), Units.MILLIMETER),
+			new EncoderTicksConverter(8192 / (35 * Math.PI), Units.MILLIMETER),
+			new EncoderTicksConverter(8192 / (35 * Math.PI), Units.MILLIMETER),
+			300
+	);
+
+	/**
+	 * the matrix based integration that {@link WheeledTracker#updatePose()} used previously, kept as a reference for the closed form
+	 */
+	private Pose2D referenceUpdate(Pose2D pose2D, double dp, double dc, double dt) {
+		double cos = Math.cos(pose2D.getTheta().getRadians());
+		double sin = Math.sin(pose2D.getTheta().getRadians());
+		SimpleMatrix rotationMatrix = new SimpleMatrix(
+				new double[][]{
+						{cos, -sin, 0},
+						{sin, cos, 0},
+						{0, 0, 1}
+				}
+		);
+
+		double term0 = (Math.sin(dt) / dt);
+		double term1 = (1 - Math.cos(dt)) / dt;
+
+		if (dt == 0) {
+			term0 = 1;
+			term1 = 0;
+		}
+
+		SimpleMatrix twistMatrix = new SimpleMatrix(
+				new double[][]{
+						{term0, -term1, 0},
+						{term1, term0, 0},
+						{0, 0, 1}
+				}
+		);
+
+		SimpleMatrix inputMatrix = new SimpleMatrix(
+				new double[][]{
+						{dp},
+						{dc},
+						{dt}
+				}
+		);
+
+		SimpleMatrix twistResult = rotationMatrix.multiply(twistMatrix).multiply(inputMatrix);
+
+		return pose2D.add(twistResult.getItem(0, 0) * trackerConstants.getXMult(), twistResult.getItem(1, 0) * trackerConstants.getYMult(), new AngleRadians(twistResult.getItem(2, 0)));
+	}
+
+	private void assertBitwiseEquals(Pose2D expected, Pose2D actual) {
+		Assertions.assertEquals(Double.doubleToLongBits(expected.getX()), Double.doubleToLongBits(actual.getX()));
+		Assertions.assertEquals(Double.doubleToLongBits(expected.getY()), Double.doubleToLongBits(actual.getY()));
+		Assertions.assertEquals(Double.doubleToLongBits(expected.getTheta().getRadians()), Double.doubleToLongBits(actual.getTheta().getRadians()));
+	}
+
+	@Test
+	void closedFormParity() {
+		Random random = new Random(2023);
+		Pose2D initialPose = new Pose2D(-900, 1500, 90);
+		ScriptedTracker tracker = new ScriptedTracker(initialPose, trackerConstants);
+		Pose2D reference = initialPose;
+
+		for (int i = 0; i < 100000; i++) {
+			double dp, dc, dt;
+			switch (i % 4) {
+				case 0: // stationary
+					dp = dc = dt = 0;
+					break;
+				case 1: // pure translation
+					dp = random.nextGaussian() * 5;
+					dc = random.nextGaussian() * 5;
+					dt = 0;
+					break;
+				default:
+					dp = random.nextGaussian() * 5;
+					dc = random.nextGaussian() * 5;
+					dt = random.nextGaussian() * 0.05;
+					break;
+			}
+			tracker.setDeltas(dp, dc, dt);
+			tracker.updatePose();
+			reference = referenceUpdate(reference, dp, dc, dt);
+
+			assertBitwiseEquals(reference, tracker.getPose2D());
+		}
+	}
+
+	/**
+	 * compares the time per update of the closed form against the matrix based reference, run with -Pbenchmark
+	 * <p>the two are timed alternately, after warming up, and the median of the trials is reported</p>
+	 */
+	@Test
+	@Tag("benchmark")
+	void closedFormBenchmark() {
+		int updates = 100000;
+		int warmups = 10;
+		int trials = 15;
+		Random random = new Random(2023);
+		double[] dps = new double[updates];
+		double[] dcs = new double[updates];
+		double[] dts = new double[updates];
+		for (int i = 0; i < updates; i++) {
+			dps[i] = random.nextGaussian() * 5;
+			dcs[i] = random.nextGaussian() * 5;
+			dts[i] = random.nextGaussian() * 0.05;
+		}
+
+		double[] closedFormTimes = new double[trials];
+		double[] referenceTimes = new double[trials];
+		double sink = 0;
+		for (int trial = -warmups; trial < trials; trial++) {
+			ScriptedTracker tracker = new ScriptedTracker(new Pose2D(), trackerConstants);
+			long start = System.nanoTime();
+			for (int i = 0; i < updates; i++) {
+				tracker.setDeltas(dps[i], dcs[i], dts[i]);
+				tracker.updatePose();
+			}
+			sink += tracker.getPose2D().getX();
+			long closedFormTime = System.nanoTime() - start;
+
+			Pose2D reference = new Pose2D();
+			start = System.nanoTime();
+			for (int i = 0; i < updates; i++) {
+				reference = referenceUpdate(reference, dps[i], dcs[i], dts[i]);
+			}
+			sink += reference.getX();
+			long referenceTime = System.nanoTime() - start;
+
+			if (trial >= 0) {
+				closedFormTimes[trial] = (double) closedFormTime / updates;
+				referenceTimes[trial] = (double) referenceTime / updates;
+			}
+		}
+		Arrays.sort(closedFormTimes);
+		Arrays.sort(referenceTimes);
+		double closedForm = closedFormTimes[trials / 2];
+		double matrix = referenceTimes[trials / 2];
+
+		System.out.printf("pose update: closed form %.1f ns, matrix %.1f ns, %.1fx faster (%s)%n", closedForm, matrix, matrix / closedForm, sink);
+		Assertions.assertTrue(closedForm < matrix);
+	}
+
+	@Test
+	void snapshotsAreStable() {
+		ScriptedTracker tracker = new ScriptedTracker(new Pose2D(), trackerConstants);
+
+		tracker.setDeltas(10, 10, 0.1);
+		tracker.updatePose();
+		Pose2D first = tracker.getPose2D();
+		Assertions.assertSame(first, tracker.getPose2D());
+
+		tracker.updatePose();
+		Pose2D second = tracker.getPose2D();
+		Assertions.assertFalse(first.equals(second));
+		assertBitwiseEquals(first, tracker.getPreviousPose2D());
+
+		tracker.updatePose();
+		Vector2D delta = tracker.getDeltaPositionVector();
+		Assertions.assertEquals(second.getX() - first.getX(), delta.getX());
+		Assertions.assertEquals(second.getY() - first.getY(), delta.getY());
+	}
+
+	private static class ScriptedTracker extends WheeledTracker {
+		private double deltaX, deltaY, deltaTheta;
+
+		public ScriptedTracker(Pose2D initialPose, WheeledTrackerConstants trackerConstants) {
+			super(initialPose, trackerConstants);
+		}
+
+		public void setDeltas(double deltaX, double deltaY, double deltaTheta) {
+			this.deltaX = deltaX;
+			this.deltaY = deltaY;
+			this.deltaTheta = deltaTheta;
+		}
+
+		@Override
+		protected void updateValues() {
+		}
+
+		@Override
+		protected double findDeltaY() {
+			return deltaY;
+		}
+
+		@Override
+		protected double findDeltaX() {
+			return deltaX;
+		}
+
+		@Override
+		protected double findDeltaTheta() {
+			return deltaTheta;
+		}
+
+		@Override
+		protected void insist() {
+		}
+	}
+}